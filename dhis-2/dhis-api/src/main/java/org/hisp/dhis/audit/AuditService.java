@@ -36,6 +36,13 @@ public interface AuditService
 {
     long addAudit( Audit audit );
 
+    /**
+     * Persists the given audits in one transaction, using multi-row inserts.
+     *
+     * @param audits the audits to persist.
+     */
+    void addAudits( List<Audit> audits );
+
     int countAudits( AuditQuery query );
 
     List<Audit> getAudits( AuditQuery query );
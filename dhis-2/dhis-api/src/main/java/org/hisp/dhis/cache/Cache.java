@@ -107,6 +107,23 @@ public interface Cache<V>
      */
     void put( String key, V value, long ttlInSeconds );
 
+    /**
+     * Associates the {@code value} with the {@code key} in this cache if the
+     * cache does not already contain a value for the {@code key}. The check
+     * and the association is atomic, also for shared caches, which makes this
+     * method suitable for claiming a key across instances. It also sets a
+     * custom time to live for the given key, which overrides the cache's
+     * default.
+     *
+     * @param key the key for the value
+     * @param value value to be mapped to the key
+     * @param ttlInSeconds the time to live for the key, in seconds
+     * @return true if the value was associated with the key, false if the
+     *         cache already contained a value for the key
+     * @throws IllegalArgumentException if the specified value is null
+     */
+    boolean putIfAbsent( String key, V value, long ttlInSeconds );
+
     /**
      * Discards any cached value for the {@code key}. The behavior of this
      * operation is undefined for an entry that is being loaded and is otherwise
@@ -116,6 +133,19 @@ public interface Cache<V>
      */
     void invalidate( String key );
 
+    /**
+     * Discards the cached value for the {@code key} if it is equal to the
+     * given {@code value}. The check and the removal is atomic, also for shared
+     * caches, which makes this method suitable for releasing a key claimed by
+     * {@link #putIfAbsent(String, Object, long)} without releasing a claim made
+     * by another instance.
+     *
+     * @param key the key whose mapping is to be removed from the cache
+     * @param value value expected to be mapped to the key
+     * @return true if the value was removed, false otherwise
+     */
+    boolean invalidate( String key, V value );
+
     /**
      * Discards all entries in this cache instance. If a shared cache is used,
      * this method does not clear anything.
@@ -31,6 +31,7 @@ import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -146,12 +147,42 @@ public class LocalCache<V> implements Cache<V>
             e -> e.setValue( value ).setExpiryTime( currentTimeMillis() + SECONDS.toMillis( ttlInSeconds ) ) );
     }
 
+    @Override
+    public boolean putIfAbsent( String key, V value, long ttlInSeconds )
+    {
+        hasText( key, "Value cannot be null" );
+        return cache2kInstance.invoke( key, e -> {
+            if ( e.exists() )
+            {
+                return false;
+            }
+
+            e.setValue( value ).setExpiryTime( currentTimeMillis() + SECONDS.toMillis( ttlInSeconds ) );
+            return true;
+        } );
+    }
+
     @Override
     public void invalidate( String key )
     {
         cache2kInstance.remove( key );
     }
 
+    @Override
+    public boolean invalidate( String key, V value )
+    {
+        hasText( key, "Value cannot be null" );
+        return cache2kInstance.invoke( key, e -> {
+            if ( !e.exists() || !Objects.equals( value, e.getValue() ) )
+            {
+                return false;
+            }
+
+            e.remove();
+            return true;
+        } );
+    }
+
     @Override
     public void invalidateAll()
     {
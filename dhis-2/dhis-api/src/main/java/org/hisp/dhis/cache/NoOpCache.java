@@ -104,12 +104,27 @@ public class NoOpCache<V> implements Cache<V>
         // No operation
     }
 
+    @Override
+    public boolean putIfAbsent( String key, V value, long ttlInSeconds )
+    {
+        hasText( key, "Value cannot be null" );
+        // No operation, the cache never contains a value
+        return true;
+    }
+
     @Override
     public void invalidate( String key )
     {
         // No operation
     }
 
+    @Override
+    public boolean invalidate( String key, V value )
+    {
+        // No operation, the cache never contains a value
+        return false;
+    }
+
     @Override
     public void invalidateAll()
     {
@@ -143,6 +143,21 @@ public interface ExpressionService
         Map<DimensionalItemObject, Double> valueMap, Map<String, Constant> constantMap,
         Map<String, Integer> orgUnitCountMap );
 
+    /**
+     * Generates the calculated values of an indicator for many inputs at once,
+     * such as all cells of an analytics grid. The item values of each input
+     * are keyed by identifier only once, so evaluating many indicators against
+     * the same inputs avoids converting the values for every evaluation.
+     *
+     * @param indicator the indicator for which to calculate the values.
+     * @param inputs the inputs to calculate the values for.
+     * @param constantMap the map of constants.
+     * @return the calculated values in the order of the inputs, with null for
+     *         inputs for which no value could be calculated.
+     */
+    List<IndicatorValue> getIndicatorValueObjects( Indicator indicator, List<IndicatorValueInput> inputs,
+        Map<String, Constant> constantMap );
+
     /**
      * Substitutes any constants and org unit group member counts in the
      * numerator and denominator on all indicators in the given collection.
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.expression;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.period.Period;
+
+/**
+ * The input for evaluating indicators for one combination of dimension items,
+ * such as one cell of an analytics grid. The item values are keyed by item
+ * identifier once when the input is created, so that any number of indicators
+ * can be evaluated against the same input without converting the values again.
+ *
+ * @see ExpressionService#getIndicatorValueObjects(org.hisp.dhis.indicator.Indicator,
+ *      List, Map)
+ */
+@Getter
+public class IndicatorValueInput
+{
+    /**
+     * The periods for which to calculate values, may be null.
+     */
+    private final List<Period> periods;
+
+    /**
+     * The data values by item identifier, see {@link #getItemKey}.
+     */
+    private final Map<String, Double> itemValueMap;
+
+    /**
+     * The organisation unit group member counts, may be null.
+     */
+    private final Map<String, Integer> orgUnitCountMap;
+
+    public IndicatorValueInput( List<Period> periods, Map<DimensionalItemObject, Double> valueMap,
+        Map<String, Integer> orgUnitCountMap )
+    {
+        this.periods = periods;
+        this.itemValueMap = toItemValueMap( valueMap );
+        this.orgUnitCountMap = orgUnitCountMap;
+    }
+
+    /**
+     * Returns the identifier by which the value of the given item is looked up
+     * while evaluating an expression. This is the dimension item identifier,
+     * followed by the period offset if one is set:
+     *
+     * [identifier.periodOffset]
+     *
+     * @param item the {@link DimensionalItemObject}.
+     * @return the item identifier.
+     */
+    public static String getItemKey( DimensionalItemObject item )
+    {
+        return item.getDimensionItem() + (item.getPeriodOffset() == 0 ? "" : "." + item.getPeriodOffset());
+    }
+
+    /**
+     * Converts a Map of {@link DimensionalItemObject} and values into a Map of
+     * item identifier and value.
+     *
+     * @param valueMap the Map of {@link DimensionalItemObject} and value.
+     * @return a Map of item identifier and value.
+     */
+    public static Map<String, Double> toItemValueMap( Map<DimensionalItemObject, Double> valueMap )
+    {
+        return valueMap.entrySet().stream()
+            .collect( Collectors.toMap( e -> getItemKey( e.getKey() ), Map.Entry::getValue ) );
+    }
+}
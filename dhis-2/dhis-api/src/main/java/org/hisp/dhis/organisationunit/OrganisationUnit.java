@@ -866,6 +866,16 @@ public class OrganisationUnit
         this.path = path;
     }
 
+    /**
+     * Returns the path as loaded by the persistence layer or as last computed
+     * by {@link #getPath()}, without walking the parents. The path is stale
+     * if an ancestor was moved since then.
+     */
+    public String getStoredPath()
+    {
+        return path;
+    }
+
     /**
      * Used by persistence layer. Purpose is to have a column for use in
      * database queries. For application use see
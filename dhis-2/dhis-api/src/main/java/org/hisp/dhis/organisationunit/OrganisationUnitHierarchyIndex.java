@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Interval encoding (nested set) of the organisation unit hierarchy. Each unit
+ * is numbered in pre-order of a depth first traversal of the tree and
+ * remembers the largest number within its sub-tree. A unit is a descendant of
+ * another unit if its number lies within the interval of the other unit,
+ * which makes ancestor and descendant checks a comparison of two integers
+ * instead of a walk along the parent links.
+ *
+ * The index is a snapshot of the hierarchy at the given version. Units which
+ * are created later can be added, they are not part of the interval encoding
+ * and are checked against their path instead. Units which are not part of the
+ * index are not contained in it and callers must fall back to
+ * {@link OrganisationUnit#isDescendant(OrganisationUnit)}.
+ */
+public class OrganisationUnitHierarchyIndex
+{
+    private static final char PATH_SEP = '/';
+
+    private final long version;
+
+    /**
+     * Position of the unit in the pre-order traversal of the hierarchy.
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * UID of the parent of the unit at a position, null for roots.
+     */
+    private final String[] parents;
+
+    /**
+     * Path of the unit at a position.
+     */
+    private final String[] paths;
+
+    /**
+     * Largest position within the sub-tree of the unit at a position.
+     */
+    private final int[] ends;
+
+    /**
+     * Paths of the units added after the index was built, by UID.
+     */
+    private final Map<String, String> addedPaths = new ConcurrentHashMap<>();
+
+    private OrganisationUnitHierarchyIndex( long version, Map<String, Integer> positions, String[] parents,
+        String[] paths, int[] ends )
+    {
+        this.version = version;
+        this.positions = positions;
+        this.parents = parents;
+        this.paths = paths;
+        this.ends = ends;
+    }
+
+    /**
+     * Builds the index from the paths of all organisation units.
+     *
+     * @param version the version of the hierarchy the paths belong to
+     * @param paths the paths of the organisation units, like
+     *        <code>/ImspTQPwCqd/O6uvpzGd5pu</code>
+     * @return the hierarchy index
+     */
+    public static OrganisationUnitHierarchyIndex build( long version, Collection<String> paths )
+    {
+        Map<String, String> pathByUid = new HashMap<>( paths.size() );
+        Map<String, List<String>> childrenByUid = new HashMap<>();
+
+        for ( String path : paths )
+        {
+            String uid = getUid( path );
+
+            if ( uid != null )
+            {
+                pathByUid.put( uid, path );
+            }
+        }
+
+        List<String> roots = new ArrayList<>();
+
+        for ( Map.Entry<String, String> entry : pathByUid.entrySet() )
+        {
+            String parent = getParentUid( entry.getValue() );
+
+            if ( parent != null && pathByUid.containsKey( parent ) )
+            {
+                childrenByUid.computeIfAbsent( parent, key -> new ArrayList<>() ).add( entry.getKey() );
+            }
+            else
+            {
+                roots.add( entry.getKey() );
+            }
+        }
+
+        int size = pathByUid.size();
+
+        Map<String, Integer> positions = new HashMap<>( size );
+        String[] parents = new String[size];
+        String[] unitPaths = new String[size];
+        int[] ends = new int[size];
+
+        // Iterative depth first traversal, a unit is on the stack until all
+        // of its descendants are numbered
+
+        Deque<String> stack = new ArrayDeque<>( roots );
+        int next = 0;
+
+        while ( !stack.isEmpty() )
+        {
+            String uid = stack.peek();
+            Integer position = positions.get( uid );
+
+            if ( position == null )
+            {
+                positions.put( uid, next );
+                unitPaths[next] = pathByUid.get( uid );
+                parents[next] = getParentUid( unitPaths[next] );
+                next++;
+
+                for ( String child : childrenByUid.getOrDefault( uid, new ArrayList<>() ) )
+                {
+                    stack.push( child );
+                }
+            }
+            else
+            {
+                stack.pop();
+                ends[position] = next - 1;
+            }
+        }
+
+        return new OrganisationUnitHierarchyIndex( version, positions, parents, unitPaths, ends );
+    }
+
+    /**
+     * Adds a unit which was created after the index was built. Units which
+     * are part of the index already are ignored, as they can only change
+     * with a new version of the hierarchy.
+     *
+     * @param path the path of the unit, like
+     *        <code>/ImspTQPwCqd/O6uvpzGd5pu</code>
+     */
+    public void add( String path )
+    {
+        String uid = getUid( path );
+
+        if ( uid != null && !positions.containsKey( uid ) )
+        {
+            addedPaths.put( uid, path );
+        }
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public int size()
+    {
+        return positions.size() + addedPaths.size();
+    }
+
+    /**
+     * @param uid the UID of an organisation unit
+     * @return true if the unit is part of the index
+     */
+    public boolean contains( String uid )
+    {
+        return uid != null && (positions.containsKey( uid ) || addedPaths.containsKey( uid ));
+    }
+
+    /**
+     * @param uid the UID of an organisation unit
+     * @param parentUid the UID of the parent unit or null for a root unit
+     * @return true if the unit is part of the index and has the given parent
+     */
+    public boolean hasParent( String uid, String parentUid )
+    {
+        Integer position = uid == null ? null : positions.get( uid );
+
+        if ( position != null )
+        {
+            return StringUtils.equals( parents[position], parentUid );
+        }
+
+        String path = uid == null ? null : addedPaths.get( uid );
+
+        return path != null && StringUtils.equals( getParentUid( path ), parentUid );
+    }
+
+    /**
+     * Tests if the index knows a unit with the given path, which means that
+     * the index knows all of its ancestors as they are in the path.
+     *
+     * @param uid the UID of an organisation unit
+     * @param path the path of the unit, like
+     *        <code>/ImspTQPwCqd/O6uvpzGd5pu</code>
+     * @return true if the unit is part of the index with the given path
+     */
+    public boolean hasPath( String uid, String path )
+    {
+        if ( uid == null || path == null )
+        {
+            return false;
+        }
+
+        Integer position = positions.get( uid );
+
+        return path.equals( position != null ? paths[position] : addedPaths.get( uid ) );
+    }
+
+    /**
+     * Tests if a unit is a descendant of another unit. Like
+     * {@link OrganisationUnit#isDescendant(OrganisationUnit)} a unit is a
+     * descendant of itself.
+     *
+     * @param uid the UID of the potential descendant
+     * @param ancestorUid the UID of the potential ancestor
+     * @return true if both units are part of the index and the unit is a
+     *         descendant of the ancestor
+     */
+    public boolean isDescendant( String uid, String ancestorUid )
+    {
+        if ( uid == null || ancestorUid == null )
+        {
+            return false;
+        }
+
+        Integer position = positions.get( uid );
+
+        if ( position == null )
+        {
+            String path = addedPaths.get( uid );
+
+            return path != null && contains( ancestorUid ) && isInPath( path, ancestorUid );
+        }
+
+        Integer ancestorPosition = positions.get( ancestorUid );
+
+        return ancestorPosition != null && position >= ancestorPosition && position <= ends[ancestorPosition];
+    }
+
+    /**
+     * Tests if a unit is a descendant of any of the given units.
+     *
+     * @param uid the UID of the potential descendant
+     * @param ancestorUids the UIDs of the potential ancestors
+     * @return true if the unit is a descendant of any of the ancestors
+     */
+    public boolean isDescendant( String uid, Collection<String> ancestorUids )
+    {
+        if ( uid == null || ancestorUids == null )
+        {
+            return false;
+        }
+
+        for ( String ancestorUid : ancestorUids )
+        {
+            if ( isDescendant( uid, ancestorUid ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String getUid( String path )
+    {
+        int index = path == null ? -1 : path.lastIndexOf( PATH_SEP );
+
+        return index >= 0 && index < path.length() - 1 ? path.substring( index + 1 ) : null;
+    }
+
+    private static String getParentUid( String path )
+    {
+        int index = path.lastIndexOf( PATH_SEP );
+        int parentIndex = index > 0 ? path.lastIndexOf( PATH_SEP, index - 1 ) : -1;
+
+        return parentIndex >= 0 ? path.substring( parentIndex + 1, index ) : null;
+    }
+
+    private static boolean isInPath( String path, String uid )
+    {
+        int index = path.indexOf( uid );
+
+        while ( index > 0 )
+        {
+            int end = index + uid.length();
+
+            if ( path.charAt( index - 1 ) == PATH_SEP && (end == path.length() || path.charAt( end ) == PATH_SEP) )
+            {
+                return true;
+            }
+
+            index = path.indexOf( uid, end );
+        }
+
+        return false;
+    }
+}
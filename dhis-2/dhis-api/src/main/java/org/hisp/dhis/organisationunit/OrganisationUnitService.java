@@ -404,6 +404,28 @@ public interface OrganisationUnitService extends OrganisationUnitDataIntegrityPr
      */
     boolean isInUserHierarchy( String uid, Set<OrganisationUnit> organisationUnits );
 
+    /**
+     * Indicates whether the given organisation unit is equal to or a
+     * descendant of any of the given ancestors. Uses the
+     * {@link OrganisationUnitHierarchyIndex} if it contains the units, falls
+     * back to walking the parent links otherwise.
+     *
+     * @param organisationUnit the organisation unit.
+     * @param ancestors the potential ancestors.
+     * @return true if the organisation unit is in the hierarchy of any of the
+     *         ancestors.
+     */
+    boolean isDescendant( OrganisationUnit organisationUnit, Set<OrganisationUnit> ancestors );
+
+    /**
+     * Returns the interval encoded index of the organisation unit hierarchy.
+     * The index is rebuilt lazily when the hierarchy has changed since it was
+     * built.
+     *
+     * @return the current organisation unit hierarchy index.
+     */
+    OrganisationUnitHierarchyIndex getHierarchyIndex();
+
     /**
      * Indicates whether the given organisation unit is part of the hierarchy of
      * the data view organisation units of the current user.
@@ -155,4 +155,11 @@ public interface OrganisationUnitStore
      * @return the list of org unit uids satisfying the params criteria
      */
     List<String> getOrganisationUnitUids( OrganisationUnitQueryParams params );
+
+    /**
+     * Returns the paths of all organisation units which have a path.
+     *
+     * @return the list of organisation unit paths.
+     */
+    List<String> getOrganisationUnitPaths();
 }
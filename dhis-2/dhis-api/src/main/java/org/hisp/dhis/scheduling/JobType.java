@@ -89,6 +89,7 @@ public enum JobType
     TRACKER_IMPORT_JOB( false ),
     TRACKER_IMPORT_NOTIFICATION_JOB( false ),
     TRACKER_IMPORT_RULE_ENGINE_JOB( false ),
+    TRACKER_SEARCH_OPTIMIZATION( true ),
 
     // Internal jobs
     LEADER_ELECTION( false ),
@@ -172,4 +173,43 @@ public enum JobType
     {
         return relativeApiElements;
     }
+
+    /**
+     * @return the resource this type of job mostly uses while running
+     */
+    public JobResourceClass getResourceClass()
+    {
+        switch ( this )
+        {
+        case RESOURCE_TABLE:
+        case ANALYTICS_TABLE:
+        case CONTINUOUS_ANALYTICS_TABLE:
+        case DATA_INTEGRITY:
+        case MONITORING:
+        case PREDICTOR:
+        case TRACKER_IMPORT_JOB:
+        case TRACKER_SEARCH_OPTIMIZATION:
+        case COMPLETE_DATA_SET_REGISTRATION_IMPORT:
+        case DATAVALUE_IMPORT_INTERNAL:
+        case METADATA_IMPORT:
+        case DATAVALUE_IMPORT:
+        case EVENT_IMPORT:
+        case ENROLLMENT_IMPORT:
+        case TEI_IMPORT:
+            return JobResourceClass.DATABASE;
+        case IMAGE_PROCESSING:
+        case TRACKER_IMPORT_RULE_ENGINE_JOB:
+            return JobResourceClass.CPU;
+        case DATA_SYNC:
+        case TRACKER_PROGRAMS_DATA_SYNC:
+        case EVENT_PROGRAMS_DATA_SYNC:
+        case META_DATA_SYNC:
+        case FILE_RESOURCE_CLEANUP:
+        case SMS_SEND:
+        case PUSH_ANALYSIS:
+            return JobResourceClass.IO;
+        default:
+            return JobResourceClass.NONE;
+        }
+    }
 }
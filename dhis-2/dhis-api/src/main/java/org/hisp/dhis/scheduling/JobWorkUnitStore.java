@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lease table for the work units of {@link PartitionableJob}s. A work unit is
+ * claimed by a node for the duration of a lease. The owning node renews its
+ * leases while it is alive. A unit whose lease has expired can be claimed by
+ * another node until the maximum number of attempts is reached.
+ *
+ * Units are added in phases. A unit can only be claimed when all units of the
+ * previous phases of its job are done.
+ */
+public interface JobWorkUnitStore
+{
+    /**
+     * Replaces all work units of the given job with new pending units.
+     *
+     * @param jobId the UID of the job configuration
+     * @param phases the work units to add, by phase in order of execution
+     */
+    void addWorkUnits( String jobId, List<List<String>> phases );
+
+    /**
+     * Claims a pending work unit or a unit with an expired lease from the
+     * earliest phase which is not done yet.
+     *
+     * @param jobId the UID of the job configuration
+     * @param nodeId the ID of the claiming node
+     * @param leaseSeconds the duration of the lease
+     * @param maxAttempts units claimed this many times are not claimed again
+     * @return the claimed work unit, or null if no unit can be claimed
+     */
+    String claimWorkUnit( String jobId, String nodeId, int leaseSeconds, int maxAttempts );
+
+    /**
+     * Extends the leases of all work units claimed by the given node.
+     *
+     * @param nodeId the ID of the owning node
+     * @param leaseSeconds the duration of the lease from now
+     * @return the number of renewed leases
+     */
+    int renewLeases( String nodeId, int leaseSeconds );
+
+    /**
+     * Marks a claimed work unit as done or failed. This has no effect if the
+     * node is no longer the owner of the unit.
+     *
+     * @param jobId the UID of the job configuration
+     * @param workUnit the work unit
+     * @param nodeId the ID of the owning node
+     * @param success whether the unit completed successfully
+     * @param result the result of the unit, may be null
+     * @return true, if the unit was updated
+     */
+    boolean completeWorkUnit( String jobId, String workUnit, String nodeId, boolean success, String result );
+
+    /**
+     * Marks units whose lease expired after the maximum number of attempts as
+     * failed.
+     *
+     * @param jobId the UID of the job configuration
+     * @param maxAttempts the maximum number of attempts
+     * @return the number of units marked as failed
+     */
+    int failAbandonedWorkUnits( String jobId, int maxAttempts );
+
+    /**
+     * @param jobId the UID of the job configuration
+     * @return the number of work units which are pending or claimed
+     */
+    int countOpenWorkUnits( String jobId );
+
+    /**
+     * @param jobId the UID of the job configuration
+     * @return the number of work units which failed
+     */
+    int countFailedWorkUnits( String jobId );
+
+    /**
+     * @param jobId the UID of the job configuration
+     * @return the results of the work units which are done, by work unit
+     */
+    Map<String, String> getWorkUnitResults( String jobId );
+
+    /**
+     * @param maxAttempts the maximum number of attempts
+     * @return the UIDs of the jobs which have work units that can be claimed
+     */
+    List<String> getJobsWithClaimableWorkUnits( int maxAttempts );
+
+    /**
+     * Removes all work units of the given job.
+     *
+     * @param jobId the UID of the job configuration
+     */
+    void deleteWorkUnits( String jobId );
+}
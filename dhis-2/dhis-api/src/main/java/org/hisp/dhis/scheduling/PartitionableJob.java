@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Job} whose work can be split into work units. When distributed job
+ * execution is enabled the work units are stored in a lease table and can be
+ * claimed and executed by any node of the cluster.
+ *
+ * The work units are grouped into phases. The units of a phase are independent
+ * of each other and can run at the same time. A phase starts only when all
+ * units of the previous phases are done, so that work which depends on the
+ * results of earlier work keeps its order.
+ *
+ * A work unit is identified by a string which must be meaningful to any node,
+ * for example the UID of an object the unit processes. It must be unique
+ * within the job.
+ */
+public interface PartitionableJob extends Job
+{
+    /**
+     * Splits the work of the job into phases of work units.
+     *
+     * @param jobConfiguration the job to split
+     * @return the phases of the job in order of execution, each holding the
+     *         work units of the phase in order of preferred execution
+     */
+    List<List<String>> getWorkUnitPhases( JobConfiguration jobConfiguration );
+
+    /**
+     * Executes a single work unit of the job. This might run on any node of
+     * the cluster.
+     *
+     * @param jobConfiguration the job the unit belongs to
+     * @param workUnit the work unit to execute
+     * @return the result of the unit which is handed to
+     *         {@link #completeWorkUnits(JobConfiguration, Map)}, or null
+     */
+    String executeWorkUnit( JobConfiguration jobConfiguration, String workUnit );
+
+    /**
+     * Called on the node which runs the job when all work units are done.
+     *
+     * @param jobConfiguration the job which is done
+     * @param results the results of the work units by work unit, units
+     *        without result are not included
+     */
+    default void completeWorkUnits( JobConfiguration jobConfiguration, Map<String, String> results )
+    {
+    }
+}
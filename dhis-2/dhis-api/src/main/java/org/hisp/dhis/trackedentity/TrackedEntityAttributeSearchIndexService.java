@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import java.util.List;
+
+/**
+ * Maintains the search indexes of tracked entity attribute values, see
+ * {@link TrackedEntityAttributeSearchIndexType}. Indexes are expected for
+ * attributes which are searchable for a program or tracked entity type, or
+ * which are unique.
+ */
+public interface TrackedEntityAttributeSearchIndexService
+{
+    /**
+     * Creates missing and rebuilds invalid search indexes, and drops the
+     * indexes of attributes which are no longer searchable. Indexes are built
+     * concurrently, so searches and imports are not blocked meanwhile.
+     *
+     * @return the number of indexes created or dropped.
+     */
+    int updateSearchIndexes();
+
+    /**
+     * Reports the health of the expected search indexes.
+     *
+     * @return a list of {@link TrackedEntityAttributeSearchIndex}, one per
+     *         expected index.
+     */
+    List<TrackedEntityAttributeSearchIndex> getSearchIndexes();
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+/**
+ * Types of the partial indexes maintained on attribute values to serve
+ * tracked entity attribute searches. Each index covers the lower cased values
+ * of a single attribute.
+ */
+public enum TrackedEntityAttributeSearchIndexType
+{
+    /**
+     * GIN index using trigram operators, serves substring (LIKE) and regular
+     * expression searches. Created for every searchable or unique attribute.
+     */
+    TRIGRAM( "in_teav_trgm_", "gin (lower(value) gin_trgm_ops)" ),
+
+    /**
+     * Hash index, serves exact match searches. Created for unique attributes
+     * only, as these are typically looked up by their full value.
+     */
+    HASH( "in_teav_hash_", "hash (lower(value))" );
+
+    private final String indexPrefix;
+
+    private final String indexDefinition;
+
+    TrackedEntityAttributeSearchIndexType( String indexPrefix, String indexDefinition )
+    {
+        this.indexPrefix = indexPrefix;
+        this.indexDefinition = indexDefinition;
+    }
+
+    public String getIndexPrefix()
+    {
+        return indexPrefix;
+    }
+
+    /**
+     * @return the access method and indexed expression of the index, as used
+     *         in a "create index ... using" statement.
+     */
+    public String getIndexDefinition()
+    {
+        return indexDefinition;
+    }
+
+    public String getIndexName( long attributeId )
+    {
+        return indexPrefix + attributeId;
+    }
+}
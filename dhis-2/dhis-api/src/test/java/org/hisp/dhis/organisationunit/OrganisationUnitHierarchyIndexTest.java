@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OrganisationUnitHierarchyIndexTest
+{
+    private OrganisationUnitHierarchyIndex index;
+
+    @Before
+    public void setUp()
+    {
+        // A
+        // |- B
+        // |  |- D
+        // |  `- E
+        // `- C
+        // F
+
+        index = OrganisationUnitHierarchyIndex.build( 7L, Arrays.asList(
+            "/ouA", "/ouA/ouB", "/ouA/ouC", "/ouA/ouB/ouD", "/ouA/ouB/ouE", "/ouF" ) );
+    }
+
+    @Test
+    public void testBuild()
+    {
+        assertEquals( 7L, index.getVersion() );
+        assertEquals( 6, index.size() );
+        assertTrue( index.contains( "ouD" ) );
+        assertFalse( index.contains( "ouX" ) );
+        assertFalse( index.contains( null ) );
+    }
+
+    @Test
+    public void testHasParent()
+    {
+        assertTrue( index.hasParent( "ouA", null ) );
+        assertTrue( index.hasParent( "ouD", "ouB" ) );
+        assertFalse( index.hasParent( "ouD", "ouA" ) );
+        assertFalse( index.hasParent( "ouX", null ) );
+    }
+
+    @Test
+    public void testHasPath()
+    {
+        assertTrue( index.hasPath( "ouA", "/ouA" ) );
+        assertTrue( index.hasPath( "ouE", "/ouA/ouB/ouE" ) );
+        assertFalse( index.hasPath( "ouE", "/ouA/ouC/ouE" ) );
+        assertFalse( index.hasPath( "ouE", "/ouF/ouA/ouB/ouE" ) );
+        assertFalse( index.hasPath( "ouE", "/ouB/ouE" ) );
+        assertFalse( index.hasPath( "ouX", "/ouX" ) );
+        assertFalse( index.hasPath( "ouE", null ) );
+    }
+
+    @Test
+    public void testIsDescendant()
+    {
+        assertTrue( index.isDescendant( "ouA", "ouA" ) );
+        assertTrue( index.isDescendant( "ouB", "ouA" ) );
+        assertTrue( index.isDescendant( "ouE", "ouA" ) );
+        assertTrue( index.isDescendant( "ouE", "ouB" ) );
+        assertTrue( index.isDescendant( "ouC", "ouA" ) );
+
+        assertFalse( index.isDescendant( "ouA", "ouB" ) );
+        assertFalse( index.isDescendant( "ouC", "ouB" ) );
+        assertFalse( index.isDescendant( "ouD", "ouE" ) );
+        assertFalse( index.isDescendant( "ouF", "ouA" ) );
+        assertFalse( index.isDescendant( "ouX", "ouA" ) );
+        assertFalse( index.isDescendant( "ouA", "ouX" ) );
+    }
+
+    @Test
+    public void testIsDescendantOfAny()
+    {
+        assertTrue( index.isDescendant( "ouD", Arrays.asList( "ouC", "ouB" ) ) );
+        assertTrue( index.isDescendant( "ouF", Arrays.asList( "ouX", "ouF" ) ) );
+
+        assertFalse( index.isDescendant( "ouD", Arrays.asList( "ouC", "ouF" ) ) );
+        assertFalse( index.isDescendant( "ouD", Collections.emptyList() ) );
+        assertFalse( index.isDescendant( "ouD", (Collection<String>) null ) );
+    }
+
+    @Test
+    public void testAdd()
+    {
+        index.add( "/ouA/ouC/ouG" );
+        index.add( "/ouA/ouC/ouG/ouH" );
+        index.add( "/ouF/ouB" );
+
+        assertEquals( 8, index.size() );
+        assertTrue( index.contains( "ouH" ) );
+        assertTrue( index.hasParent( "ouH", "ouG" ) );
+        assertTrue( index.hasPath( "ouH", "/ouA/ouC/ouG/ouH" ) );
+        assertTrue( index.hasPath( "ouB", "/ouA/ouB" ) );
+
+        assertTrue( index.isDescendant( "ouH", "ouA" ) );
+        assertTrue( index.isDescendant( "ouH", "ouG" ) );
+        assertTrue( index.isDescendant( "ouH", "ouH" ) );
+        assertTrue( index.isDescendant( "ouG", Arrays.asList( "ouB", "ouC" ) ) );
+
+        assertFalse( index.isDescendant( "ouH", "ouB" ) );
+        assertFalse( index.isDescendant( "ouG", "ouH" ) );
+        assertFalse( index.isDescendant( "ouA", "ouG" ) );
+    }
+
+    @Test
+    public void testUnitWithUnknownParentIsRoot()
+    {
+        index = OrganisationUnitHierarchyIndex.build( 1L, Arrays.asList( "/ouA/ouB", "/ouA/ouB/ouC" ) );
+
+        assertTrue( index.isDescendant( "ouC", "ouB" ) );
+        assertFalse( index.contains( "ouA" ) );
+        assertTrue( index.hasParent( "ouB", "ouA" ) );
+        assertTrue( index.hasPath( "ouC", "/ouA/ouB/ouC" ) );
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.security.acl;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.hisp.dhis.security.acl.AccessStringHelper.Permission;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.sharing.Sharing;
+import org.hisp.dhis.user.sharing.UserAccess;
+import org.hisp.dhis.user.sharing.UserGroupAccess;
+
+/**
+ * Compiled sharing access of a user, for checking the access of the user to
+ * many objects, such as when rendering a large collection of metadata. The
+ * user groups of the user are held as a bit set of interned user group ids,
+ * and the sharing of each object is decoded once into a bit mask of the
+ * permissions the user has through public, user and user group access.
+ * <p>
+ * A context is opened with {@link AclService#openAccessContext(User)} and
+ * must be closed by the thread which opened it. Sharing must not be modified
+ * while the context is open. Decoded sharing is discarded when the public
+ * access or the user and user group access maps of a sharing are replaced or
+ * change size, but changes to single access strings are not detected.
+ */
+public final class AclContext
+    implements AutoCloseable
+{
+    /**
+     * Context which does nothing, returned when no context is needed.
+     */
+    static final AclContext NONE = new AclContext( null, new BitSet(), Collections.emptyMap(), () -> {
+    } );
+
+    private final User user;
+
+    private final BitSet userGroups;
+
+    private final Map<String, Integer> userGroupIds;
+
+    private final Runnable onClose;
+
+    private final Map<Sharing, CompiledSharing> compiledSharings = new IdentityHashMap<>();
+
+    /**
+     * @param user the user.
+     * @param userGroups the interned ids of the user groups of the user.
+     * @param userGroupIds the interned ids of user groups by uid.
+     * @param onClose the action to run when the context is closed.
+     */
+    AclContext( User user, BitSet userGroups, Map<String, Integer> userGroupIds, Runnable onClose )
+    {
+        this.user = user;
+        this.userGroups = userGroups;
+        this.userGroupIds = userGroupIds;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Indicates whether this context compiles the access of the given user.
+     */
+    boolean isFor( User user )
+    {
+        return this.user != null && this.user == user;
+    }
+
+    /**
+     * Indicates whether the user of this context has the given permission
+     * through the given sharing.
+     */
+    boolean isEnabled( Sharing sharing, Permission permission )
+    {
+        CompiledSharing compiled = compiledSharings.get( sharing );
+
+        if ( compiled == null || compiled.isStale( sharing ) )
+        {
+            compiled = compile( sharing );
+
+            compiledSharings.put( sharing, compiled );
+        }
+
+        return (compiled.mask & toBit( permission )) != 0;
+    }
+
+    @Override
+    public void close()
+    {
+        onClose.run();
+    }
+
+    private CompiledSharing compile( Sharing sharing )
+    {
+        int mask = toMask( sharing.getPublicAccess() );
+
+        if ( !userGroups.isEmpty() )
+        {
+            for ( UserGroupAccess userGroupAccess : sharing.getUserGroups().values() )
+            {
+                Integer id = userGroupAccess.getId() != null ? userGroupIds.get( userGroupAccess.getId() ) : null;
+
+                if ( id != null && userGroups.get( id ) )
+                {
+                    mask |= toMask( userGroupAccess.getAccess() );
+                }
+            }
+        }
+
+        for ( UserAccess userAccess : sharing.getUsers().values() )
+        {
+            if ( user.getUid().equals( userAccess.getId() ) )
+            {
+                mask |= toMask( userAccess.getAccess() );
+            }
+        }
+
+        return new CompiledSharing( sharing, mask );
+    }
+
+    private static int toMask( String access )
+    {
+        int mask = 0;
+
+        for ( Permission permission : Permission.values() )
+        {
+            if ( AccessStringHelper.isEnabled( access, permission ) )
+            {
+                mask |= toBit( permission );
+            }
+        }
+
+        return mask;
+    }
+
+    private static int toBit( Permission permission )
+    {
+        return 1 << permission.ordinal();
+    }
+
+    /**
+     * Sharing decoded into the permissions of the user, with the parts of the
+     * sharing used to detect that the sharing was modified.
+     */
+    private static final class CompiledSharing
+    {
+        private final String publicAccess;
+
+        private final Map<String, UserAccess> users;
+
+        private final int userCount;
+
+        private final Map<String, UserGroupAccess> userGroups;
+
+        private final int userGroupCount;
+
+        private final int mask;
+
+        CompiledSharing( Sharing sharing, int mask )
+        {
+            this.publicAccess = sharing.getPublicAccess();
+            this.users = sharing.getUsers();
+            this.userCount = users.size();
+            this.userGroups = sharing.getUserGroups();
+            this.userGroupCount = userGroups.size();
+            this.mask = mask;
+        }
+
+        boolean isStale( Sharing sharing )
+        {
+            return sharing.getPublicAccess() != publicAccess
+                || sharing.getUsers() != users || users.size() != userCount
+                || sharing.getUserGroups() != userGroups || userGroups.size() != userGroupCount;
+        }
+    }
+}
@@ -302,6 +302,19 @@ public interface AclService
      */
     <T extends IdentifiableObject> Access getAccess( T object, User user, Class<? extends T> objType );
 
+    /**
+     * Opens a context in which the sharing of each object is decoded once for
+     * the given user, which speeds up access checks across large collections
+     * of objects. Checks for the given user on the current thread use the
+     * context until it is closed. Sharing must not be modified while the
+     * context is open. Opening a context while one is open on the current
+     * thread has no effect.
+     *
+     * @param user the user to check access for.
+     * @return the context, to be closed when the checks are done.
+     */
+    AclContext openAccessContext( User user );
+
     /**
      * Sets default sharing props on object, disregarding what is already there.
      *
@@ -31,9 +31,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.springframework.util.CollectionUtils.containsAny;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
@@ -68,6 +72,16 @@ public class DefaultAclService implements AclService
 
     private final SchemaService schemaService;
 
+    /**
+     * Interned ids of user groups by uid, used as bit indexes in access
+     * contexts.
+     */
+    private final Map<String, Integer> userGroupIds = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextUserGroupId = new AtomicInteger();
+
+    private final ThreadLocal<AclContext> accessContext = new ThreadLocal<>();
+
     public DefaultAclService( SchemaService schemaService )
     {
         checkNotNull( schemaService );
@@ -521,6 +535,28 @@ public class DefaultAclService implements AclService
         return access;
     }
 
+    @Override
+    public AclContext openAccessContext( User user )
+    {
+        if ( haveOverrideAuthority( user ) || accessContext.get() != null )
+        {
+            return AclContext.NONE;
+        }
+
+        BitSet userGroups = new BitSet();
+
+        for ( UserGroup group : user.getGroups() )
+        {
+            userGroups.set( userGroupIds.computeIfAbsent( group.getUid(), uid -> nextUserGroupId.getAndIncrement() ) );
+        }
+
+        AclContext context = new AclContext( user, userGroups, userGroupIds, accessContext::remove );
+
+        accessContext.set( context );
+
+        return context;
+    }
+
     @Override
     public <T extends IdentifiableObject> void resetSharing( T object, User user )
     {
@@ -754,6 +790,14 @@ public class DefaultAclService implements AclService
     private boolean checkSharingPermission( User user, IdentifiableObject object, Permission permission )
     {
         Sharing sharing = object.getSharing();
+
+        AclContext context = accessContext.get();
+
+        if ( context != null && context.isFor( user ) )
+        {
+            return context.isEnabled( sharing, permission );
+        }
+
         if ( AccessStringHelper.isEnabled( sharing.getPublicAccess(), permission ) )
         {
             return true;
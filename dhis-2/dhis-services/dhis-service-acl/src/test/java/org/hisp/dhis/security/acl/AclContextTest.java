@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.security.acl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.hisp.dhis.user.sharing.UserAccess;
+import org.hisp.dhis.user.sharing.UserGroupAccess;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AclContextTest
+{
+    private DefaultAclService aclService;
+
+    private UserGroup userGroupA;
+
+    private UserGroup userGroupB;
+
+    private User userA;
+
+    private User userB;
+
+    @Before
+    public void setUp()
+    {
+        Schema schema = new Schema( DataElement.class, "dataElement", "dataElements" );
+        schema.setShareable( true );
+        schema.setDataShareable( false );
+
+        SchemaService schemaService = mock( SchemaService.class );
+        when( schemaService.getSchema( any() ) ).thenReturn( schema );
+
+        aclService = new DefaultAclService( schemaService );
+
+        userGroupA = userGroup( "UserGroupA" );
+        userGroupB = userGroup( "UserGroupB" );
+
+        userA = user();
+        userA.getGroups().add( userGroupA );
+
+        userB = user();
+        userB.getGroups().add( userGroupB );
+    }
+
+    @Test
+    public void testReadThroughUserGroup()
+    {
+        DataElement dataElement = dataElement();
+        dataElement.getSharing().addUserGroupAccess( new UserGroupAccess( userGroupA, AccessStringHelper.READ ) );
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            Access access = aclService.getAccess( dataElement, userA );
+
+            assertTrue( access.isRead() );
+            assertFalse( access.isUpdate() );
+            assertFalse( access.isDelete() );
+        }
+    }
+
+    @Test
+    public void testReadThroughUserAccess()
+    {
+        DataElement dataElement = dataElement();
+        dataElement.getSharing().addUserAccess( new UserAccess( userA, AccessStringHelper.READ_WRITE ) );
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            assertTrue( aclService.canRead( userA, dataElement ) );
+            assertFalse( aclService.canRead( userB, dataElement ) );
+        }
+    }
+
+    @Test
+    public void testNoAccessThroughOtherUserGroup()
+    {
+        DataElement dataElement = dataElement();
+        dataElement.getSharing().addUserGroupAccess( new UserGroupAccess( userGroupB, AccessStringHelper.READ ) );
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            assertFalse( aclService.canRead( userA, dataElement ) );
+            assertTrue( aclService.canRead( userB, dataElement ) );
+        }
+    }
+
+    @Test
+    public void testAddedAccessIsSeenInContext()
+    {
+        DataElement dataElement = dataElement();
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            assertFalse( aclService.canRead( userA, dataElement ) );
+
+            dataElement.getSharing().addUserGroupAccess( new UserGroupAccess( userGroupB, AccessStringHelper.READ ) );
+
+            assertFalse( aclService.canRead( userA, dataElement ) );
+
+            dataElement.getSharing().addUserGroupAccess( new UserGroupAccess( userGroupA, AccessStringHelper.READ ) );
+
+            assertTrue( aclService.canRead( userA, dataElement ) );
+        }
+    }
+
+    @Test
+    public void testChangedPublicAccessIsSeenInContext()
+    {
+        DataElement dataElement = dataElement();
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            assertFalse( aclService.canRead( userA, dataElement ) );
+
+            dataElement.getSharing().setPublicAccess( AccessStringHelper.READ );
+
+            assertTrue( aclService.canRead( userA, dataElement ) );
+        }
+    }
+
+    @Test
+    public void testOnlyOneContextPerThread()
+    {
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            assertNotSame( AclContext.NONE, context );
+            assertSame( AclContext.NONE, aclService.openAccessContext( userB ) );
+        }
+
+        try ( AclContext context = aclService.openAccessContext( userB ) )
+        {
+            assertNotSame( AclContext.NONE, context );
+        }
+    }
+
+    @Test
+    public void testSameAccessWithAndWithoutContext()
+    {
+        Random random = new Random( 42 );
+
+        List<UserGroup> userGroups = new ArrayList<>();
+        userGroups.add( userGroupA );
+        userGroups.add( userGroupB );
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            UserGroup userGroup = userGroup( "UserGroup" + i );
+            userGroups.add( userGroup );
+
+            if ( random.nextBoolean() )
+            {
+                userA.getGroups().add( userGroup );
+            }
+        }
+
+        List<DataElement> dataElements = new ArrayList<>();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            DataElement dataElement = dataElement();
+
+            for ( int j = 0; j < 3; j++ )
+            {
+                String access = random.nextBoolean() ? AccessStringHelper.READ : AccessStringHelper.READ_WRITE;
+
+                dataElement.getSharing().addUserGroupAccess(
+                    new UserGroupAccess( userGroups.get( random.nextInt( userGroups.size() ) ), access ) );
+            }
+
+            dataElements.add( dataElement );
+        }
+
+        List<Access> expected = new ArrayList<>();
+
+        for ( DataElement dataElement : dataElements )
+        {
+            expected.add( aclService.getAccess( dataElement, userA ) );
+        }
+
+        try ( AclContext context = aclService.openAccessContext( userA ) )
+        {
+            for ( int i = 0; i < dataElements.size(); i++ )
+            {
+                Access access = aclService.getAccess( dataElements.get( i ), userA );
+
+                assertEquals( expected.get( i ).isRead(), access.isRead() );
+                assertEquals( expected.get( i ).isUpdate(), access.isUpdate() );
+                assertEquals( expected.get( i ).isDelete(), access.isDelete() );
+            }
+        }
+    }
+
+    private UserGroup userGroup( String name )
+    {
+        UserGroup userGroup = new UserGroup( name );
+        userGroup.setUid( CodeGenerator.generateUid() );
+        return userGroup;
+    }
+
+    private User user()
+    {
+        User user = new User();
+        user.setUid( CodeGenerator.generateUid() );
+        user.setUserCredentials( new UserCredentials() );
+        return user;
+    }
+
+    private DataElement dataElement()
+    {
+        DataElement dataElement = new DataElement( "DataElement" );
+        dataElement.setUid( CodeGenerator.generateUid() );
+        dataElement.setPublicAccess( AccessStringHelper.DEFAULT );
+        dataElement.getSharing().setOwner( CodeGenerator.generateUid() );
+        return dataElement;
+    }
+}
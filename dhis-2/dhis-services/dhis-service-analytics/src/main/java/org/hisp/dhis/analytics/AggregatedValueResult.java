@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics;
+
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * Compact, column-oriented holder of aggregated data values decoded from an
+ * analytics query. Instead of concatenating a dimension key string and boxing
+ * a value for every row, each dimension item is encoded as an integer index
+ * into a per-dimension dictionary, and numeric values are held as primitive
+ * doubles. Dimension keys on the format used by
+ * {@link AnalyticsManager#getAggregatedDataValues} are only built when the
+ * result is consumed through {@link #putAll(Map)} or {@link #toMap()}.
+ * <p>
+ * Instances are not thread-safe and are meant to be populated by a single
+ * thread while reading a forward-only result set.
+ */
+public class AggregatedValueResult
+{
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Number of dimensions of each row.
+     */
+    private final int dimensionCount;
+
+    /**
+     * Fixed dimension item per dimension, null for dimensions read from the
+     * result set.
+     */
+    private final String[] fixedItems;
+
+    /**
+     * Dimension item to index mapping per dimension.
+     */
+    private final List<Map<String, Integer>> itemIndexes;
+
+    /**
+     * Dimension items per dimension, ordered by index.
+     */
+    private final List<List<String>> items;
+
+    /**
+     * Whether values are text, otherwise numeric.
+     */
+    private final boolean text;
+
+    /**
+     * Encoded dimension items, row by row.
+     */
+    private int[] codes;
+
+    private double[] numericValues;
+
+    private String[] textValues;
+
+    private int size = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param fixedItems the fixed dimension item for each dimension, or null
+     *        for dimensions which are read from the result set.
+     * @param text whether the values are text, otherwise numeric.
+     */
+    public AggregatedValueResult( String[] fixedItems, boolean text )
+    {
+        Assert.isTrue( fixedItems.length > 0, "At least one dimension must be present" );
+
+        this.dimensionCount = fixedItems.length;
+        this.fixedItems = fixedItems.clone();
+        this.text = text;
+        this.itemIndexes = new ArrayList<>( dimensionCount );
+        this.items = new ArrayList<>( dimensionCount );
+
+        for ( int i = 0; i < dimensionCount; i++ )
+        {
+            itemIndexes.add( new HashMap<>() );
+            items.add( new ArrayList<>() );
+        }
+
+        this.codes = new int[INITIAL_CAPACITY * dimensionCount];
+
+        if ( text )
+        {
+            this.textValues = new String[INITIAL_CAPACITY];
+        }
+        else
+        {
+            this.numericValues = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Population
+    // -------------------------------------------------------------------------
+
+    /**
+     * Encodes the given dimension item to its index for the dimension at the
+     * given position. Items not seen before are added to the dictionary of
+     * the dimension.
+     *
+     * @param dimension the dimension position.
+     * @param item the dimension item identifier.
+     * @return the index of the item.
+     */
+    public int encode( int dimension, String item )
+    {
+        Map<String, Integer> indexes = itemIndexes.get( dimension );
+
+        Integer index = indexes.get( item );
+
+        if ( index == null )
+        {
+            List<String> dimensionItems = items.get( dimension );
+            index = dimensionItems.size();
+            dimensionItems.add( item );
+            indexes.put( item, index );
+        }
+
+        return index;
+    }
+
+    /**
+     * Adds a row with a numeric value. The given codes array is copied and can
+     * be reused by the caller for the next row.
+     *
+     * @param rowCodes the encoded dimension items of the row.
+     * @param value the numeric value.
+     */
+    public void add( int[] rowCodes, double value )
+    {
+        Assert.isTrue( !text, "Result holds text values" );
+
+        ensureCapacity();
+        copyCodes( rowCodes );
+        numericValues[size++] = value;
+    }
+
+    /**
+     * Adds a row with a text value. The given codes array is copied and can be
+     * reused by the caller for the next row.
+     *
+     * @param rowCodes the encoded dimension items of the row.
+     * @param value the text value.
+     */
+    public void add( int[] rowCodes, String value )
+    {
+        Assert.isTrue( text, "Result holds numeric values" );
+
+        ensureCapacity();
+        copyCodes( rowCodes );
+        textValues[size++] = value;
+    }
+
+    // -------------------------------------------------------------------------
+    // Consumption
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Indicates whether the values of this result are text.
+     */
+    public boolean isText()
+    {
+        return text;
+    }
+
+    /**
+     * Returns the dimension key of the row at the given position, concatenated
+     * from the dimension items separated by "-".
+     *
+     * @param row the row position.
+     * @return the dimension key.
+     */
+    public String getKey( int row )
+    {
+        StringBuilder key = new StringBuilder();
+
+        int offset = row * dimensionCount;
+
+        for ( int i = 0; i < dimensionCount; i++ )
+        {
+            if ( i > 0 )
+            {
+                key.append( DIMENSION_SEP );
+            }
+
+            key.append( fixedItems[i] != null ? fixedItems[i] : items.get( i ).get( codes[offset + i] ) );
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Returns the dimension items of the row at the given position, decoded
+     * from the dictionaries without building a dimension key.
+     *
+     * @param row the row position.
+     * @return the dimension items.
+     */
+    public String[] getItems( int row )
+    {
+        String[] rowItems = new String[dimensionCount];
+
+        int offset = row * dimensionCount;
+
+        for ( int i = 0; i < dimensionCount; i++ )
+        {
+            rowItems[i] = fixedItems[i] != null ? fixedItems[i] : items.get( i ).get( codes[offset + i] );
+        }
+
+        return rowItems;
+    }
+
+    /**
+     * Returns the numeric value of the row at the given position.
+     *
+     * @param row the row position.
+     * @return the numeric value.
+     */
+    public double getNumericValue( int row )
+    {
+        return numericValues[row];
+    }
+
+    /**
+     * Returns the value of the row at the given position, either as a
+     * {@link Double} or a {@link String}.
+     *
+     * @param row the row position.
+     * @return the value.
+     */
+    public Object getValue( int row )
+    {
+        return text ? textValues[row] : Double.valueOf( numericValues[row] );
+    }
+
+    /**
+     * Puts all rows of this result into the given map as dimension key and
+     * value entries.
+     *
+     * @param map the map to populate.
+     */
+    public void putAll( Map<String, Object> map )
+    {
+        for ( int row = 0; row < size; row++ )
+        {
+            map.put( getKey( row ), getValue( row ) );
+        }
+    }
+
+    /**
+     * Returns a mapping between dimension key and value for all rows.
+     */
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new HashMap<>( Math.max( 16, (int) (size / 0.75f) + 1 ) );
+        putAll( map );
+        return map;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void copyCodes( int[] rowCodes )
+    {
+        System.arraycopy( rowCodes, 0, codes, size * dimensionCount, dimensionCount );
+    }
+
+    private void ensureCapacity()
+    {
+        int capacity = text ? textValues.length : numericValues.length;
+
+        if ( size < capacity )
+        {
+            return;
+        }
+
+        int newCapacity = capacity + (capacity >> 1);
+
+        codes = Arrays.copyOf( codes, newCapacity * dimensionCount );
+
+        if ( text )
+        {
+            textValues = Arrays.copyOf( textValues, newCapacity );
+        }
+        else
+        {
+            numericValues = Arrays.copyOf( numericValues, newCapacity );
+        }
+    }
+}
@@ -57,6 +57,32 @@ public interface AnalyticsManager
     Future<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType,
         int maxLimit );
 
+    /**
+     * Retrieves aggregated data values for the given query as an
+     * {@link AggregatedValueResult}. The result set is read as a forward-only
+     * stream and dimension items are encoded as indexes, which avoids
+     * buffering the result set and allocating a key and a boxed value per row.
+     * This method is invoked asynchronously. Queries which are disaggregations
+     * are not supported, as they require replacement of data periods, see
+     * {@link #replaceDataPeriodsWithAggregationPeriods}.
+     *
+     * @param params the query to retrieve aggregated data for.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param maxLimit the max number of records to retrieve.
+     * @return an {@link AggregatedValueResult}.
+     * @throws IllegalQueryException if query result set exceeds the max limit.
+     */
+    Future<AggregatedValueResult> getAggregatedDataValueResult( DataQueryParams params,
+        AnalyticsTableType tableType, int maxLimit );
+
+    /**
+     * Indicates whether streaming decoding of aggregated data values through
+     * {@link #getAggregatedDataValueResult} is enabled.
+     *
+     * @return true if streaming decoding is enabled.
+     */
+    boolean isStreamingEnabled();
+
     /**
      * Inserts entries for the aggregation periods mapped to each data period in
      * the given data value map. Removes the original entry for the data period.
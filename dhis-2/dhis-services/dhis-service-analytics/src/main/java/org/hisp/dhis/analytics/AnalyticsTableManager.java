@@ -30,8 +30,8 @@ package org.hisp.dhis.analytics;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 
 /**
  * Manager for the analytics database tables.
@@ -104,7 +104,7 @@ public interface AnalyticsTableManager
      * @param indexes the analytics indexes.
      * @return a future representing the asynchronous task.
      */
-    Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes );
+    CompletableFuture<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes );
 
     /**
      * Attempts to drop the analytics table with partitions and rename the
@@ -119,6 +119,27 @@ public interface AnalyticsTableManager
      */
     void swapTable( AnalyticsTableUpdateParams params, AnalyticsTable table );
 
+    /**
+     * Indicates whether this table type supports incremental updates, where
+     * changed data is applied to the existing analytics tables.
+     *
+     * @return true if incremental updates are supported.
+     */
+    boolean isIncrementalUpdateSupported();
+
+    /**
+     * Applies an incremental update to the existing analytics tables. Removes
+     * data which was updated or deleted since the last successful analytics
+     * table update, and inserts the content of the populated temporary
+     * partition tables into the existing partitions. The temporary partition
+     * tables are dropped.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable} with populated
+     *        temporary partition tables.
+     */
+    void applyIncrementalUpdate( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables );
+
     /**
      * Copies and denormalizes rows from data value table into analytics table.
      * The data range is based on the start date of the data value row.
@@ -127,9 +148,16 @@ public interface AnalyticsTableManager
      * @param tablePartitions the analytics table partitions.
      * @return a future representing the asynchronous task.
      */
-    Future<?> populateTablesAsync( AnalyticsTableUpdateParams params,
+    CompletableFuture<?> populateTablesAsync( AnalyticsTableUpdateParams params,
         ConcurrentLinkedQueue<AnalyticsTablePartition> tablePartitions );
 
+    /**
+     * Indicates whether analytics table SQL hooks exist for the table type.
+     *
+     * @return true if analytics table SQL hooks exist.
+     */
+    boolean hasAnalyticsTableSqlHooks();
+
     /**
      * Invokes analytics table SQL hooks for the table type.
      *
@@ -176,7 +204,7 @@ public interface AnalyticsTableManager
      * @param aggregationLevel the aggregation level.
      * @return a future representing the asynchronous task.
      */
-    Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
+    CompletableFuture<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
         Collection<String> dataElements, int aggregationLevel );
 
     /**
@@ -186,7 +214,7 @@ public interface AnalyticsTableManager
      * @param partitions the analytics table partitions.
      * @return a future representing the asynchronous task.
      */
-    Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
+    CompletableFuture<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
 
     /**
      * Returns a list of non-dynamic {@link AnalyticsTableColumn}.
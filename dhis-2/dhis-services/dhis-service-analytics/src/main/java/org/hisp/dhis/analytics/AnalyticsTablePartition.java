@@ -68,6 +68,13 @@ public class AnalyticsTablePartition
      */
     private boolean dataApproval;
 
+    /**
+     * Indicates whether this partition did not exist in the database prior to
+     * an incremental update, in which case it is populated with all data for
+     * its year instead of the changed data only.
+     */
+    private boolean newPartition;
+
     public AnalyticsTablePartition( AnalyticsTable masterTable, Integer year, Date startDate, Date endDate,
         boolean dataApproval )
     {
@@ -146,6 +153,16 @@ public class AnalyticsTablePartition
         return dataApproval;
     }
 
+    public boolean isNewPartition()
+    {
+        return newPartition;
+    }
+
+    public void setNewPartition( boolean newPartition )
+    {
+        this.newPartition = newPartition;
+    }
+
     @Override
     public String toString()
     {
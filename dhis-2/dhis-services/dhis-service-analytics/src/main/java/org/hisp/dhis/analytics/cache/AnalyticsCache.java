@@ -31,29 +31,100 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.logging.LogFactory.getLog;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.CacheType;
 import org.hisp.dhis.common.Grid;
 import org.springframework.stereotype.Component;
 
 /**
  * This is a wrapper class responsible for keeping and isolating all cache
  * definitions related to the analytics.
+ * <p>
+ * Concurrent requests for the same query are coalesced, so that only one of
+ * them computes the Grid while the others wait for the result. Within an
+ * instance this is done through a map of in-flight computations. When the
+ * cache is shared across instances (Redis), a loading marker is additionally
+ * claimed in the shared cache, and other instances wait for the Grid to
+ * appear in the cache instead of computing it themselves.
+ * <p>
+ * Keys of cached Grids are indexed by the years of the query, so that entries
+ * can be evicted selectively when analytics table partitions are updated.
  */
 @Component
 public class AnalyticsCache
 {
     private static final Log log = getLog( AnalyticsCache.class );
 
+    /**
+     * Max time to wait for another instance to compute a Grid.
+     */
+    private static final long REMOTE_LOAD_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis( 5 );
+
+    /**
+     * Time between checks for a Grid computed by another instance.
+     */
+    private static final long REMOTE_LOAD_POLL_MILLIS = 200;
+
+    /**
+     * Time to live of a loading marker, which bounds the wait of other
+     * instances if this instance is stopped during a computation.
+     */
+    private static final long LOADING_MARKER_TTL_SECONDS = TimeUnit.MINUTES.toSeconds( 10 );
+
+    /**
+     * Max number of indexed year and key pairs. When exceeded, the index is
+     * dropped and the next eviction clears the entire cache.
+     */
+    private static final int MAX_INDEXED_KEYS = 100_000;
+
+    /**
+     * Index year for keys of queries which are not restricted to specific
+     * years.
+     */
+    private static final Integer ALL_YEARS = -1;
+
     private final Cache<Grid> queryCache;
 
+    private final Cache<String> loadingCache;
+
     private final AnalyticsCacheSettings analyticsCacheSettings;
 
+    private final ConcurrentMap<String, CompletableFuture<Grid>> inFlight = new ConcurrentHashMap<>();
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private final AtomicLong localCoalescedCount = new AtomicLong();
+
+    private final AtomicLong remoteCoalescedCount = new AtomicLong();
+
+    private final ConcurrentMap<Integer, Set<String>> keysByYear = new ConcurrentHashMap<>();
+
+    private final AtomicInteger indexedKeyCount = new AtomicInteger();
+
+    private volatile boolean indexOverflow = false;
+
     /**
      * Default constructor. Note that a default expiration time is set, as as
      * the TTL will always be overwritten during cache put operations.
@@ -68,6 +139,7 @@ public class AnalyticsCache
         long initialExpirationTime = analyticsCacheSettings.fixedExpirationTimeOrDefault();
         this.queryCache = cacheProvider.createAnalyticsResponseCache(
             Duration.ofSeconds( initialExpirationTime ) );
+        this.loadingCache = cacheProvider.createAnalyticsResponseLoadingCache();
 
         log.info( String.format( "Analytics server-side cache is enabled with expiration time: %d s",
             initialExpirationTime ) );
@@ -84,6 +156,9 @@ public class AnalyticsCache
      * will be fetched by the function provided. In this case, the fetched Grid
      * will be cached, so the next consumers can hit the cache only.
      *
+     * Concurrent calls for the same DataQueryParams key are coalesced, so that
+     * the function is invoked once and all callers receive the same Grid.
+     *
      * The TTL of the cached object will be set accordingly to the cache
      * settings available at
      * {@link org.hisp.dhis.analytics.cache.AnalyticsCacheSettings}.
@@ -94,20 +169,43 @@ public class AnalyticsCache
      */
     public Grid getOrFetch( final DataQueryParams params, final Function<DataQueryParams, Grid> function )
     {
-        final Optional<Grid> cachedGrid = get( params.getKey() );
+        final String key = params.getKey();
+
+        final Optional<Grid> cachedGrid = get( key );
 
         if ( cachedGrid.isPresent() )
         {
             return cachedGrid.get();
         }
-        else
+
+        final CompletableFuture<Grid> loading = new CompletableFuture<>();
+        final CompletableFuture<Grid> existing = inFlight.putIfAbsent( key, loading );
+
+        if ( existing != null )
         {
-            final Grid grid = function.apply( params );
+            localCoalescedCount.incrementAndGet();
 
-            put( params, grid );
+            return await( existing );
+        }
+
+        try
+        {
+            final Grid grid = load( key, params, function );
+
+            loading.complete( grid );
 
             return grid;
         }
+        catch ( RuntimeException ex )
+        {
+            loading.completeExceptionally( ex );
+
+            throw ex;
+        }
+        finally
+        {
+            inFlight.remove( key, loading );
+        }
     }
 
     /**
@@ -133,6 +231,8 @@ public class AnalyticsCache
             // Respects the fixed (predefined) caching TTL
             put( params.getKey(), grid, analyticsCacheSettings.fixedExpirationTimeOrDefault() );
         }
+
+        indexKey( params );
     }
 
     /**
@@ -155,11 +255,261 @@ public class AnalyticsCache
     {
         queryCache.invalidateAll();
 
+        clearIndex();
+
         log.info( "Analytics cache cleared" );
     }
 
+    /**
+     * Removes the cache entries of queries for any of the given years, and of
+     * queries which are not restricted to specific years. Clears the entire
+     * cache if the cache is shared across instances, as the key index only
+     * covers entries cached by this instance.
+     *
+     * @param years the years, i.e. the updated analytics table partitions.
+     */
+    public void invalidateYears( final Collection<Integer> years )
+    {
+        if ( queryCache.getCacheType() == CacheType.REDIS || indexOverflow )
+        {
+            invalidateAll();
+
+            return;
+        }
+
+        final Set<String> keys = new HashSet<>();
+
+        removeIndexedKeys( ALL_YEARS, keys );
+
+        years.forEach( year -> removeIndexedKeys( year, keys ) );
+
+        keys.forEach( queryCache::invalidate );
+
+        log.info( String.format( "Analytics cache entries removed: %d for years: %s", keys.size(), years ) );
+    }
+
     public boolean isEnabled()
     {
         return analyticsCacheSettings.isCachingEnabled();
     }
+
+    /**
+     * Returns the number of Grids computed through
+     * {@link #getOrFetch(DataQueryParams, Function)}.
+     */
+    public long getLoadCount()
+    {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the number of requests which waited for a Grid computed by
+     * another request on this instance.
+     */
+    public long getLocalCoalescedCount()
+    {
+        return localCoalescedCount.get();
+    }
+
+    /**
+     * Returns the number of requests which waited for a Grid computed by
+     * another instance sharing the cache.
+     */
+    public long getRemoteCoalescedCount()
+    {
+        return remoteCoalescedCount.get();
+    }
+
+    /**
+     * Returns the number of computations currently in flight on this
+     * instance.
+     */
+    public int getInFlightCount()
+    {
+        return inFlight.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Computes and caches the Grid for the given key. The cache is checked
+     * again as another request might have completed between the first check
+     * and the registration of this computation. For shared caches, a loading
+     * marker is claimed so that other instances wait for this computation.
+     */
+    private Grid load( final String key, final DataQueryParams params,
+        final Function<DataQueryParams, Grid> function )
+    {
+        final Optional<Grid> cachedGrid = get( key );
+
+        if ( cachedGrid.isPresent() )
+        {
+            return cachedGrid.get();
+        }
+
+        final boolean shared = queryCache.getCacheType() == CacheType.REDIS;
+
+        if ( shared )
+        {
+            final Optional<Grid> remoteGrid = claimOrAwaitRemote( key );
+
+            if ( remoteGrid.isPresent() )
+            {
+                remoteCoalescedCount.incrementAndGet();
+
+                return remoteGrid.get();
+            }
+        }
+
+        try
+        {
+            loadCount.incrementAndGet();
+
+            final Grid grid = function.apply( params );
+
+            put( params, grid );
+
+            return grid;
+        }
+        finally
+        {
+            if ( shared )
+            {
+                loadingCache.invalidate( key, instanceId );
+            }
+        }
+    }
+
+    /**
+     * Claims the loading marker for the given key in the shared cache. If
+     * another instance holds the marker, waits until the Grid appears in the
+     * cache or the marker disappears, in which case the marker is claimed by
+     * this instance.
+     *
+     * @param key the cache key.
+     * @return the Grid computed by another instance, or empty if this instance
+     *         must compute the Grid.
+     */
+    private Optional<Grid> claimOrAwaitRemote( final String key )
+    {
+        final long deadline = System.currentTimeMillis() + REMOTE_LOAD_TIMEOUT_MILLIS;
+
+        while ( !loadingCache.putIfAbsent( key, instanceId, LOADING_MARKER_TTL_SECONDS ) )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                log.warn( String.format( "Timed out waiting for analytics response from other instance: '%s'", key ) );
+
+                return Optional.empty();
+            }
+
+            try
+            {
+                Thread.sleep( REMOTE_LOAD_POLL_MILLIS );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+
+                return Optional.empty();
+            }
+
+            final Optional<Grid> cachedGrid = get( key );
+
+            if ( cachedGrid.isPresent() )
+            {
+                return cachedGrid;
+            }
+        }
+
+        // The other instance might have cached the Grid just before releasing
+        // the marker
+
+        final Optional<Grid> cachedGrid = get( key );
+
+        if ( cachedGrid.isPresent() )
+        {
+            loadingCache.invalidate( key, instanceId );
+        }
+
+        return cachedGrid;
+    }
+
+    /**
+     * Adds the key of the given query to the index of keys by year.
+     */
+    private void indexKey( final DataQueryParams params )
+    {
+        if ( indexOverflow )
+        {
+            return;
+        }
+
+        final Set<Integer> years = getYears( params );
+
+        if ( indexedKeyCount.addAndGet( years.size() ) > MAX_INDEXED_KEYS )
+        {
+            indexOverflow = true;
+            keysByYear.clear();
+
+            return;
+        }
+
+        years.forEach( year -> keysByYear.computeIfAbsent( year, y -> ConcurrentHashMap.newKeySet() )
+            .add( params.getKey() ) );
+    }
+
+    /**
+     * Returns the years covered by the given query, or {@link #ALL_YEARS} if
+     * the query is not restricted to specific years.
+     */
+    private Set<Integer> getYears( final DataQueryParams params )
+    {
+        final Partitions partitions = params.hasStartEndDate()
+            ? PartitionUtils.getPartitions( params.getStartDate(), params.getEndDate() )
+            : PartitionUtils.getPartitions( params.getAllPeriods() );
+
+        return partitions.hasAny() ? partitions.getPartitions() : Collections.singleton( ALL_YEARS );
+    }
+
+    private void removeIndexedKeys( final Integer year, final Set<String> keys )
+    {
+        final Set<String> yearKeys = keysByYear.remove( year );
+
+        if ( yearKeys != null )
+        {
+            indexedKeyCount.addAndGet( -yearKeys.size() );
+            keys.addAll( yearKeys );
+        }
+    }
+
+    private void clearIndex()
+    {
+        keysByYear.clear();
+        indexedKeyCount.set( 0 );
+        indexOverflow = false;
+    }
+
+    /**
+     * Waits for the given in-flight computation and returns its Grid. Rethrows
+     * the exception of a failed computation.
+     */
+    private Grid await( final CompletableFuture<Grid> future )
+    {
+        try
+        {
+            return future.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
 }
@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_CACHE_FRAGMENT_ENABLED;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.DimensionalObject;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache for aggregated values of the sub queries produced by the query
+ * planner. Where the data dimension is a query dimension, values are cached
+ * per data item, so that queries which overlap on data items can reuse values
+ * and only query the missing items.
+ *
+ * Cache keys include a version of the analytics table and of each partition
+ * covered by the query. Versions are renewed when tables or partitions are
+ * updated, which makes previously cached values unreachable.
+ */
+@Slf4j
+@Component
+public class AnalyticsFragmentCache
+{
+    private static final String TABLE_VERSION = "table";
+
+    private static final long VERSION_TTL_SECONDS = TimeUnit.DAYS.toSeconds( 30 );
+
+    private final Cache<HashMap<String, Object>> fragmentCache;
+
+    private final Cache<String> versionCache;
+
+    private final AnalyticsCacheSettings analyticsCacheSettings;
+
+    private final DhisConfigurationProvider config;
+
+    public AnalyticsFragmentCache( CacheProvider cacheProvider, AnalyticsCacheSettings analyticsCacheSettings,
+        DhisConfigurationProvider config )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( analyticsCacheSettings );
+        checkNotNull( config );
+
+        this.fragmentCache = cacheProvider.createAnalyticsFragmentCache();
+        this.versionCache = cacheProvider.createAnalyticsPartitionVersionCache();
+        this.analyticsCacheSettings = analyticsCacheSettings;
+        this.config = config;
+    }
+
+    /**
+     * Indicates whether fragment caching is enabled. Requires analytics
+     * caching to be enabled, as cached fragments respect the analytics cache
+     * expiration.
+     */
+    public boolean isEnabled()
+    {
+        return config.isEnabled( ANALYTICS_CACHE_FRAGMENT_ENABLED ) && analyticsCacheSettings.isCachingEnabled();
+    }
+
+    /**
+     * Indicates whether the given planned query can be served from the
+     * fragment cache. Disaggregation queries are excluded as their partitions
+     * are reassigned at query time, as are queries without partitions.
+     *
+     * @param query the planned query.
+     * @return true if the query can be cached.
+     */
+    public boolean isCacheable( DataQueryParams query )
+    {
+        return query.getTableName() != null && !query.isSkipPartitioning() && query.hasPartitions()
+            && !query.isDisaggregation();
+    }
+
+    /**
+     * Looks up the cached fragments of the given planned query.
+     *
+     * @param query the planned query.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @return a {@link Lookup} holding the cached values and the query for the
+     *         missing fragments.
+     */
+    public Lookup lookup( DataQueryParams query, AnalyticsTableType tableType )
+    {
+        String prefix = getKeyPrefix( query, tableType );
+
+        int dxIndex = getDataDimensionIndex( query );
+
+        if ( dxIndex == -1 )
+        {
+            String key = new QueryKey().add( prefix ).add( query.getKey() ).build();
+
+            Optional<HashMap<String, Object>> fragment = fragmentCache.getIfPresent( key );
+
+            return fragment.isPresent()
+                ? new Lookup( query, -1, fragment.get(), null, new HashMap<>() )
+                : new Lookup( query, -1, new HashMap<>(), query, singletonKeyMap( null, key ) );
+        }
+
+        String baseKey = DataQueryParams.newBuilder( query )
+            .withDimensionOptions( DATA_X_DIM_ID, new ArrayList<>() )
+            .build().getKey();
+
+        Map<String, Object> cachedValues = new HashMap<>();
+        Map<String, String> missingKeys = new LinkedHashMap<>();
+        List<DimensionalItemObject> missingItems = new ArrayList<>();
+
+        for ( DimensionalItemObject item : query.getDimensionOptions( DATA_X_DIM_ID ) )
+        {
+            String key = new QueryKey().add( prefix ).add( baseKey ).add( item.getUid() ).build();
+
+            Optional<HashMap<String, Object>> fragment = fragmentCache.getIfPresent( key );
+
+            if ( fragment.isPresent() )
+            {
+                cachedValues.putAll( fragment.get() );
+            }
+            else
+            {
+                missingKeys.put( item.getUid(), key );
+                missingItems.add( item );
+            }
+        }
+
+        DataQueryParams missingQuery = missingItems.isEmpty() ? null
+            : DataQueryParams.newBuilder( query )
+                .withDimensionOptions( DATA_X_DIM_ID, missingItems )
+                .build();
+
+        log.debug( "Analytics fragment lookup, cached items: {}, missing items: {}",
+            query.getDimensionOptions( DATA_X_DIM_ID ).size() - missingItems.size(), missingItems.size() );
+
+        return new Lookup( query, dxIndex, cachedValues, missingQuery, missingKeys );
+    }
+
+    /**
+     * Renews the version of the given analytics table, which invalidates all
+     * cached fragments for the table.
+     *
+     * @param tableName the analytics table name.
+     */
+    public void invalidateTable( String tableName )
+    {
+        versionCache.put( getVersionKey( tableName, TABLE_VERSION ), newVersion(), VERSION_TTL_SECONDS );
+    }
+
+    /**
+     * Renews the version of the given partitions of the given analytics table,
+     * which invalidates cached fragments covering any of the partitions.
+     *
+     * @param tableName the analytics table name.
+     * @param partitions the partition years.
+     */
+    public void invalidatePartitions( String tableName, Collection<Integer> partitions )
+    {
+        for ( Integer partition : partitions )
+        {
+            versionCache.put( getVersionKey( tableName, String.valueOf( partition ) ), newVersion(),
+                VERSION_TTL_SECONDS );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Stores the given values of the given lookup as fragments.
+     */
+    private void store( Lookup lookup, Map<String, Object> values )
+    {
+        long ttl = getTimeToLive( lookup.query );
+
+        if ( ttl <= 0 )
+        {
+            return;
+        }
+
+        if ( lookup.dxIndex == -1 )
+        {
+            HashMap<String, Object> fragment = new HashMap<>( values );
+
+            lookup.missingKeys.values().forEach( key -> fragmentCache.put( key, fragment, ttl ) );
+
+            return;
+        }
+
+        Map<String, HashMap<String, Object>> fragments = new HashMap<>();
+
+        lookup.missingKeys.keySet().forEach( uid -> fragments.put( uid, new HashMap<>() ) );
+
+        for ( Map.Entry<String, Object> entry : values.entrySet() )
+        {
+            String uid = entry.getKey().split( DIMENSION_SEP )[lookup.dxIndex];
+
+            HashMap<String, Object> fragment = fragments.get( uid );
+
+            if ( fragment == null )
+            {
+                log.debug( "Analytics fragment not cached, unexpected data item: '{}'", uid );
+                return;
+            }
+
+            fragment.put( entry.getKey(), entry.getValue() );
+        }
+
+        fragments.forEach( ( uid, fragment ) -> fragmentCache.put( lookup.missingKeys.get( uid ), fragment, ttl ) );
+    }
+
+    /**
+     * Returns a key prefix made up of the table, the properties of the query
+     * which are not part of {@link DataQueryParams#getKey()} and the versions
+     * of the table and the query partitions.
+     */
+    private String getKeyPrefix( DataQueryParams query, AnalyticsTableType tableType )
+    {
+        String tableName = query.getTableName();
+
+        QueryKey key = new QueryKey()
+            .add( "tableType", tableType )
+            .add( "tableName", tableName )
+            .add( "dataType", query.getDataType() )
+            .add( "periodType", query.getPeriodType() )
+            .add( "dataPeriodType", query.getDataPeriodType() )
+            .add( "timely", query.isTimely() )
+            .add( "restrictByOrgUnitOpeningClosedDate", query.isRestrictByOrgUnitOpeningClosedDate() )
+            .add( "restrictByCategoryOptionStartEndDate", query.isRestrictByCategoryOptionStartEndDate() )
+            .add( "startDateRestriction", query.getStartDateRestriction() )
+            .add( "endDateRestriction", query.getEndDateRestriction() )
+            .add( "tableVersion", getVersion( tableName, TABLE_VERSION ) );
+
+        query.getDataApprovalLevels()
+            .forEach( ( ou, level ) -> key.add( "approvalLevel", ou.getUid() + level ) );
+
+        query.getPartitions().getPartitions().stream().sorted()
+            .forEach( partition -> key.add( "partition",
+                partition + getVersion( tableName, String.valueOf( partition ) ) ) );
+
+        return key.asPlainKey();
+    }
+
+    /**
+     * Returns the current version for the given table and version name. A new
+     * version is created if none exists, so that an evicted version never
+     * matches previously cached fragments.
+     */
+    private String getVersion( String tableName, String name )
+    {
+        String key = getVersionKey( tableName, name );
+
+        Optional<String> version = versionCache.getIfPresent( key );
+
+        if ( version.isPresent() )
+        {
+            return version.get();
+        }
+
+        String newVersion = newVersion();
+
+        if ( versionCache.putIfAbsent( key, newVersion, VERSION_TTL_SECONDS ) )
+        {
+            return newVersion;
+        }
+
+        return versionCache.getIfPresent( key ).orElse( newVersion );
+    }
+
+    private String getVersionKey( String tableName, String name )
+    {
+        return tableName + ":" + name;
+    }
+
+    private String newVersion()
+    {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Returns the index of the data dimension among the query dimensions, or
+     * -1 if the data dimension is not a query dimension.
+     */
+    private int getDataDimensionIndex( DataQueryParams query )
+    {
+        List<DimensionalObject> dimensions = query.getDimensions();
+
+        for ( int i = 0; i < dimensions.size(); i++ )
+        {
+            if ( DATA_X_DIM_ID.equals( dimensions.get( i ).getDimension() ) && !dimensions.get( i ).isFixed() )
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private long getTimeToLive( DataQueryParams query )
+    {
+        return analyticsCacheSettings.isProgressiveCachingEnabled()
+            ? analyticsCacheSettings.progressiveExpirationTimeOrDefault( query.getLatestEndDate() )
+            : analyticsCacheSettings.fixedExpirationTimeOrDefault();
+    }
+
+    private static Map<String, String> singletonKeyMap( String uid, String key )
+    {
+        Map<String, String> map = new HashMap<>();
+        map.put( uid, key );
+        return map;
+    }
+
+    /**
+     * Result of a fragment lookup for a planned query. Holds the cached values
+     * and the query for the fragments which are missing, if any.
+     */
+    public class Lookup
+    {
+        private final DataQueryParams query;
+
+        private final int dxIndex;
+
+        private final Map<String, Object> cachedValues;
+
+        private final DataQueryParams missingQuery;
+
+        private final Map<String, String> missingKeys;
+
+        private Lookup( DataQueryParams query, int dxIndex, Map<String, Object> cachedValues,
+            DataQueryParams missingQuery, Map<String, String> missingKeys )
+        {
+            this.query = query;
+            this.dxIndex = dxIndex;
+            this.cachedValues = cachedValues;
+            this.missingQuery = missingQuery;
+            this.missingKeys = missingKeys;
+        }
+
+        /**
+         * Returns the values found in the cache.
+         */
+        public Map<String, Object> getCachedValues()
+        {
+            return cachedValues;
+        }
+
+        /**
+         * Indicates whether any fragments are missing from the cache.
+         */
+        public boolean hasMissingQuery()
+        {
+            return missingQuery != null;
+        }
+
+        /**
+         * Returns the query for the fragments missing from the cache, or null
+         * if all fragments were found.
+         */
+        public DataQueryParams getMissingQuery()
+        {
+            return missingQuery;
+        }
+
+        /**
+         * Caches the given values retrieved for the missing query.
+         *
+         * @param values the values retrieved for the missing query.
+         */
+        public void store( Map<String, Object> values )
+        {
+            AnalyticsFragmentCache.this.store( this, values );
+        }
+    }
+}
@@ -48,8 +48,14 @@ import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_FETCH_SIZE;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_STREAMING_ENABLED;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -62,6 +68,7 @@ import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.hisp.dhis.analytics.AggregatedValueResult;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsManager;
@@ -82,6 +89,7 @@ import org.hisp.dhis.common.QueryRuntimeException;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
@@ -89,6 +97,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.scheduling.annotation.Async;
@@ -127,14 +136,18 @@ public class JdbcAnalyticsManager
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final DhisConfigurationProvider config;
+
     public JdbcAnalyticsManager( QueryPlanner queryPlanner,
-        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate, DhisConfigurationProvider config )
     {
         checkNotNull( queryPlanner );
         checkNotNull( jdbcTemplate );
+        checkNotNull( config );
 
         this.queryPlanner = queryPlanner;
         this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
     }
 
     // -------------------------------------------------------------------------
@@ -162,20 +175,7 @@ public class JdbcAnalyticsManager
                 params = queryPlanner.assignPartitionsFromQueryPeriods( params, tableType );
             }
 
-            String sql = getSelectClause( params );
-
-            sql += getFromClause( params );
-
-            sql += getWhereClause( params, tableType );
-
-            sql += getGroupByClause( params );
-
-            if ( params.hasMeasureCriteria() && params.isDataType( DataType.NUMERIC ) )
-            {
-                sql += getMeasureCriteriaSql( params );
-            }
-
-            log.debug( sql );
+            String sql = getSql( params, tableType );
 
             Map<String, Object> map;
 
@@ -205,6 +205,51 @@ public class JdbcAnalyticsManager
         }
     }
 
+    @Override
+    @Async
+    public Future<AggregatedValueResult> getAggregatedDataValueResult( DataQueryParams params,
+        AnalyticsTableType tableType, int maxLimit )
+    {
+        assertQuery( params );
+
+        Assert.isTrue( !params.isDisaggregation(), "Disaggregation queries are not supported for streaming" );
+
+        try
+        {
+            String sql = getSql( params, tableType );
+
+            AggregatedValueResult result;
+
+            try
+            {
+                result = getAggregatedValueResult( params, sql, maxLimit );
+            }
+            catch ( BadSqlGrammarException ex )
+            {
+                log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
+                return new AsyncResult<>( newAggregatedValueResult( params ) );
+            }
+
+            return new AsyncResult<>( result );
+        }
+        catch ( DataAccessResourceFailureException ex )
+        {
+            log.warn( ErrorCode.E7131.getMessage(), ex );
+            throw new QueryRuntimeException( ErrorCode.E7131, ex );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( DebugUtils.getStackTrace( ex ) );
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean isStreamingEnabled()
+    {
+        return config.isEnabled( ANALYTICS_QUERY_STREAMING_ENABLED );
+    }
+
     @Override
     public void replaceDataPeriodsWithAggregationPeriods( Map<String, Object> dataValueMap,
         DataQueryParams params, ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap )
@@ -268,6 +313,29 @@ public class JdbcAnalyticsManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Generates the full query SQL.
+     */
+    private String getSql( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        String sql = getSelectClause( params );
+
+        sql += getFromClause( params );
+
+        sql += getWhereClause( params, tableType );
+
+        sql += getGroupByClause( params );
+
+        if ( params.hasMeasureCriteria() && params.isDataType( DataType.NUMERIC ) )
+        {
+            sql += getMeasureCriteriaSql( params );
+        }
+
+        log.debug( sql );
+
+        return sql;
+    }
+
     /**
      * Generates the select clause of the query SQL.
      */
@@ -718,6 +786,117 @@ public class JdbcAnalyticsManager
         return map;
     }
 
+    /**
+     * Retrieves data from the database based on the given query and SQL and
+     * decodes it into an {@link AggregatedValueResult}. The result set is read
+     * forward-only with a fetch size, within a transaction, so that the
+     * database driver streams rows through a cursor instead of loading the
+     * entire result set into memory.
+     */
+    private AggregatedValueResult getAggregatedValueResult( DataQueryParams params, String sql, int maxLimit )
+    {
+        log.debug( String.format( "Analytics SQL: %s", sql ) );
+
+        final AggregatedValueResult result = newAggregatedValueResult( params );
+        final List<DimensionalObject> dimensions = params.getDimensions();
+        final int fetchSize = Integer.parseInt( config.getProperty( ANALYTICS_QUERY_FETCH_SIZE ) );
+        final boolean text = params.isDataType( TEXT );
+
+        return jdbcTemplate.execute( (ConnectionCallback<AggregatedValueResult>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+
+            if ( autoCommit )
+            {
+                // Cursor based fetching requires a transaction
+
+                connection.setAutoCommit( false );
+            }
+
+            try
+            {
+                readAggregatedValueResult( connection, sql, fetchSize, dimensions, text, maxLimit, result );
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    connection.rollback();
+                    connection.setAutoCommit( true );
+                }
+            }
+
+            return result;
+        } );
+    }
+
+    /**
+     * Reads the rows of the given SQL query into the given result.
+     */
+    private void readAggregatedValueResult( Connection connection, String sql, int fetchSize,
+        List<DimensionalObject> dimensions, boolean text, int maxLimit, AggregatedValueResult result )
+        throws SQLException
+    {
+        int dimensionCount = dimensions.size();
+        int[] columnIndexes = new int[dimensionCount];
+        int[] rowCodes = new int[dimensionCount];
+
+        try ( PreparedStatement statement = connection.prepareStatement( sql, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY ) )
+        {
+            statement.setFetchSize( fetchSize );
+
+            try ( ResultSet rs = statement.executeQuery() )
+            {
+                for ( int i = 0; i < dimensionCount; i++ )
+                {
+                    DimensionalObject dim = dimensions.get( i );
+                    columnIndexes[i] = dim.isFixed() ? -1 : rs.findColumn( dim.getDimensionName() );
+                }
+
+                int valueIndex = rs.findColumn( VALUE_ID );
+                int counter = 0;
+
+                while ( rs.next() )
+                {
+                    if ( maxLimit > 0 && ++counter > maxLimit )
+                    {
+                        throwIllegalQueryEx( ErrorCode.E7128, maxLimit );
+                    }
+
+                    for ( int i = 0; i < dimensionCount; i++ )
+                    {
+                        if ( columnIndexes[i] != -1 )
+                        {
+                            rowCodes[i] = result.encode( i, rs.getString( columnIndexes[i] ) );
+                        }
+                    }
+
+                    if ( text )
+                    {
+                        result.add( rowCodes, rs.getString( valueIndex ) );
+                    }
+                    else // NUMERIC
+                    {
+                        result.add( rowCodes, rs.getDouble( valueIndex ) );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty {@link AggregatedValueResult} for the dimensions of the
+     * given query.
+     */
+    private AggregatedValueResult newAggregatedValueResult( DataQueryParams params )
+    {
+        String[] fixedItems = params.getDimensions().stream()
+            .map( dim -> dim.isFixed() ? dim.getDimensionName() : null )
+            .toArray( String[]::new );
+
+        return new AggregatedValueResult( fixedItems, params.isDataType( TEXT ) );
+    }
+
     /**
      * Generates a comma-delimited string based on the dimension names of the
      * given dimensions where each dimension name is quoted.
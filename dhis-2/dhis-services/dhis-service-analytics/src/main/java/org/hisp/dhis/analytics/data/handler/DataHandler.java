@@ -120,6 +120,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
 import org.apache.commons.lang3.SerializationUtils;
+import org.hisp.dhis.analytics.AggregatedValueResult;
 import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryGroups;
@@ -129,6 +130,7 @@ import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -144,6 +146,7 @@ import org.hisp.dhis.constant.ConstantService;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataelement.DataElementOperand.TotalType;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.expression.IndicatorValueInput;
 import org.hisp.dhis.indicator.Indicator;
 import org.hisp.dhis.indicator.IndicatorValue;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -188,12 +191,15 @@ public class DataHandler
 
     private final OrganisationUnitService organisationUnitService;
 
+    private final AnalyticsFragmentCache analyticsFragmentCache;
+
     private DataAggregator dataAggregator;
 
     public DataHandler( EventAnalyticsService eventAnalyticsService, RawAnalyticsManager rawAnalyticsManager,
         ConstantService constantService, ExpressionResolvers resolvers, ExpressionService expressionService,
         QueryPlanner queryPlanner, QueryValidator queryValidator, SystemSettingManager systemSettingManager,
-        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService )
+        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService,
+        AnalyticsFragmentCache analyticsFragmentCache )
     {
         checkNotNull( eventAnalyticsService );
         checkNotNull( rawAnalyticsManager );
@@ -205,6 +211,7 @@ public class DataHandler
         checkNotNull( systemSettingManager );
         checkNotNull( analyticsManager );
         checkNotNull( organisationUnitService );
+        checkNotNull( analyticsFragmentCache );
 
         this.eventAnalyticsService = eventAnalyticsService;
         this.rawAnalyticsManager = rawAnalyticsManager;
@@ -216,6 +223,7 @@ public class DataHandler
         this.systemSettingManager = systemSettingManager;
         this.analyticsManager = analyticsManager;
         this.organisationUnitService = organisationUnitService;
+        this.analyticsFragmentCache = analyticsFragmentCache;
     }
 
     /**
@@ -258,40 +266,49 @@ public class DataHandler
 
             handleEmptyDimensionItemPermutations( dimensionItemPermutations );
 
+            // Prepare the values of each permutation once and evaluate each
+            // indicator for all permutations in one batch
+
+            List<IndicatorValueInput> inputs = new ArrayList<>( dimensionItemPermutations.size() );
+
+            for ( List<DimensionItem> dimensionItems : dimensionItemPermutations )
+            {
+                inputs.add( getIndicatorValueInput( filterPeriods, permutationOrgUnitTargetMap,
+                    permutationDimensionItemValueMap, dimensionItems ) );
+            }
+
             for ( Indicator indicator : indicators )
             {
-                for ( List<DimensionItem> dimensionItems : dimensionItemPermutations )
-                {
-                    IndicatorValue value = getIndicatorValue( filterPeriods, constantMap, permutationOrgUnitTargetMap,
-                        permutationDimensionItemValueMap, indicator, dimensionItems );
+                List<IndicatorValue> values = expressionService.getIndicatorValueObjects( indicator, inputs,
+                    constantMap );
 
-                    addIndicatorValuesToGrid( params, grid, dataSourceParams, indicator, dimensionItems, value );
+                for ( int i = 0; i < dimensionItemPermutations.size(); i++ )
+                {
+                    addIndicatorValuesToGrid( params, grid, dataSourceParams, indicator,
+                        dimensionItemPermutations.get( i ), values.get( i ) );
                 }
             }
         }
     }
 
     /**
-     * Based on the given Indicator plus additional parameters, this method will
-     * find the respective IndicatorValue.
+     * Based on the given dimension item permutation plus additional
+     * parameters, this method will create the input for calculating the
+     * values of indicators for the permutation.
      *
      * @param filterPeriods the filter periods.
-     * @param constantMap the current constants map.
-     *        See @{{@link ConstantService#getConstantMap()}}.
      * @param permutationOrgUnitTargetMap the org unit permutation map. See
      *        {@link #getOrgUnitTargetMap(DataQueryParams, Collection)}.
      * @param permutationDimensionItemValueMap the dimension item permutation
      *        map. See
      *        {@link #getPermutationDimensionItemValueMap(DataQueryParams)}.
-     * @param indicator the input Indicator where the IndicatorValue will be
-     *        based.
      * @param dimensionItems the dimensional items permutation map. See
      *        {@link DataQueryParams#getDimensionItemPermutations()}.
-     * @return the IndicatorValue
+     * @return the IndicatorValueInput
      */
-    private IndicatorValue getIndicatorValue( List<Period> filterPeriods, Map<String, Constant> constantMap,
+    private IndicatorValueInput getIndicatorValueInput( List<Period> filterPeriods,
         Map<String, Map<String, Integer>> permutationOrgUnitTargetMap,
-        Map<String, List<DimensionItemObjectValue>> permutationDimensionItemValueMap, Indicator indicator,
+        Map<String, List<DimensionItemObjectValue>> permutationDimensionItemValueMap,
         List<DimensionItem> dimensionItems )
     {
         String permKey = asItemKey( dimensionItems );
@@ -310,8 +327,7 @@ public class DataHandler
             ? permutationOrgUnitTargetMap.get( ou )
             : null;
 
-        return expressionService.getIndicatorValueObject( indicator, periods,
-            convertToDimItemValueMap( valueMap ), constantMap, orgUnitCountMap );
+        return new IndicatorValueInput( periods, convertToDimItemValueMap( valueMap ), orgUnitCountMap );
     }
 
     /**
@@ -329,24 +345,51 @@ public class DataHandler
                 .retainDataDimension( DATA_ELEMENT )
                 .withIncludeNumDen( false ).build();
 
-            Map<String, Object> aggregatedDataMap = getAggregatedDataValueMapObjectTyped( dataSourceParams );
+            Map<String, Object> aggregatedDataMap = new HashMap<>();
+
+            List<AggregatedValueResult> aggregatedResults = new ArrayList<>();
+
+            getAggregatedValues( dataSourceParams, DATA_VALUE, newArrayList(), aggregatedDataMap,
+                aggregatedResults );
 
             for ( Map.Entry<String, Object> entry : aggregatedDataMap.entrySet() )
             {
-                Object value = getRoundedValueObject( params, entry.getValue() );
+                addDataValueRow( params, grid, entry.getKey().split( DIMENSION_SEP ), entry.getValue() );
+            }
 
-                grid.addRow()
-                    .addValues( entry.getKey().split( DIMENSION_SEP ) )
-                    .addValue( value );
+            // Streamed results are added row by row from their dictionaries,
+            // without building and splitting dimension keys
 
-                if ( params.isIncludeNumDen() )
+            for ( AggregatedValueResult result : aggregatedResults )
+            {
+                for ( int row = 0; row < result.size(); row++ )
                 {
-                    grid.addNullValues( NUMERATOR_DENOMINATOR_PROPERTIES_COUNT );
+                    addDataValueRow( params, grid, result.getItems( row ), result.getValue( row ) );
                 }
             }
         }
     }
 
+    /**
+     * Adds a row with the given dimension items and value to the given grid.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param grid the grid.
+     * @param items the dimension items of the row.
+     * @param value the value of the row.
+     */
+    private void addDataValueRow( DataQueryParams params, Grid grid, Object[] items, Object value )
+    {
+        grid.addRow()
+            .addValues( items )
+            .addValue( getRoundedValueObject( params, value ) );
+
+        if ( params.isIncludeNumDen() )
+        {
+            grid.addNullValues( NUMERATOR_DENOMINATOR_PROPERTIES_COUNT );
+        }
+    }
+
     /**
      * Adds program data element values to the given grid based on the given
      * data query parameters.
@@ -1084,6 +1127,31 @@ public class DataHandler
      */
     private Map<String, Object> getAggregatedValueMap( DataQueryParams params, AnalyticsTableType tableType,
         List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers )
+    {
+        Map<String, Object> map = new HashMap<>();
+
+        getAggregatedValues( params, tableType, queryGroupers, map, null );
+
+        return map;
+    }
+
+    /**
+     * Generates aggregated values for the given query. Values are put into the
+     * given map as dimension key and value entries. When a list of results is
+     * given, results read in streaming mode are added to it as they are
+     * instead of being decoded into the map.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param queryGroupers the list of additional query groupers to use for
+     *        query planning, use empty list for none.
+     * @param map the map to put values into.
+     * @param results the list to add streamed results to, or null to decode
+     *        them into the map.
+     */
+    private void getAggregatedValues( DataQueryParams params, AnalyticsTableType tableType,
+        List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers, Map<String, Object> map,
+        List<AggregatedValueResult> results )
     {
         queryValidator.validateMaintenanceMode();
 
@@ -1104,37 +1172,96 @@ public class DataHandler
         timer.getSplitTime(
             "Planned analytics query, got: " + queryGroups.getLargestGroupSize() + " for optimal: " + optimalQueries );
 
-        Map<String, Object> map = new HashMap<>();
-
         for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
         {
-            executeQueries( tableType, maxLimit, map, queries );
+            executeQueries( tableType, maxLimit, map, results, queries );
         }
 
         timer.getTime( "Got analytics values" );
-
-        return map;
     }
 
+    /**
+     * Executes the given queries in parallel and puts the resulting values into
+     * the given map. When streaming is enabled, queries which do not require
+     * data period replacement are read into an {@link AggregatedValueResult}
+     * which is added to the given list of results, or decoded straight into
+     * the map when no list is given. When fragment caching is
+     * enabled, cached values are put into the map and only the fragments
+     * missing from the cache are queried and subsequently cached.
+     */
+    @SuppressWarnings( "unchecked" )
     private void executeQueries( AnalyticsTableType tableType, int maxLimit, Map<String, Object> map,
-        List<DataQueryParams> queries )
+        List<AggregatedValueResult> results, List<DataQueryParams> queries )
     {
-        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        boolean streaming = analyticsManager.isStreamingEnabled();
+
+        boolean fragmentCaching = analyticsFragmentCache.isEnabled();
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        List<AnalyticsFragmentCache.Lookup> lookups = new ArrayList<>();
 
         for ( DataQueryParams query : queries )
         {
-            futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
+            AnalyticsFragmentCache.Lookup lookup = null;
+
+            if ( fragmentCaching && analyticsFragmentCache.isCacheable( query ) )
+            {
+                lookup = analyticsFragmentCache.lookup( query, tableType );
+
+                map.putAll( lookup.getCachedValues() );
+
+                if ( !lookup.hasMissingQuery() )
+                {
+                    continue;
+                }
+
+                query = lookup.getMissingQuery();
+            }
+
+            if ( streaming && !query.isDisaggregation() )
+            {
+                futures.add( analyticsManager.getAggregatedDataValueResult( query, tableType, maxLimit ) );
+            }
+            else
+            {
+                futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
+            }
+
+            lookups.add( lookup );
         }
 
-        for ( Future<Map<String, Object>> future : futures )
+        for ( int i = 0; i < futures.size(); i++ )
         {
             try
             {
-                Map<String, Object> taskValues = future.get();
+                Object taskValues = futures.get( i ).get();
+
+                AnalyticsFragmentCache.Lookup lookup = lookups.get( i );
 
-                if ( taskValues != null )
+                if ( lookup != null )
+                {
+                    Map<String, Object> values = taskValues instanceof AggregatedValueResult
+                        ? ((AggregatedValueResult) taskValues).toMap()
+                        : (Map<String, Object>) taskValues;
+
+                    if ( values != null )
+                    {
+                        lookup.store( values );
+                        map.putAll( values );
+                    }
+                }
+                else if ( taskValues instanceof AggregatedValueResult && results != null )
+                {
+                    results.add( (AggregatedValueResult) taskValues );
+                }
+                else if ( taskValues instanceof AggregatedValueResult )
+                {
+                    ((AggregatedValueResult) taskValues).putAll( map );
+                }
+                else if ( taskValues != null )
                 {
-                    map.putAll( taskValues );
+                    map.putAll( (Map<String, Object>) taskValues );
                 }
             }
             catch ( Exception ex )
@@ -36,8 +36,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -80,7 +80,7 @@ public abstract class AbstractEventJdbcTableManager
 
     @Override
     @Async
-    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
+    public CompletableFuture<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
         Collection<String> dataElements, int aggregationLevel )
     {
         return ConcurrentUtils.getImmediateFuture();
@@ -88,7 +88,7 @@ public abstract class AbstractEventJdbcTableManager
 
     @Override
     @Async
-    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> tables )
+    public CompletableFuture<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> tables )
     {
         return ConcurrentUtils.getImmediateFuture();
     }
@@ -34,8 +34,8 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -65,6 +65,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
 import com.google.common.base.Preconditions;
@@ -194,7 +195,7 @@ public abstract class AbstractJdbcTableManager
 
     @Override
     @Async
-    public Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes )
+    public CompletableFuture<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes )
     {
         while ( true )
         {
@@ -240,6 +241,111 @@ public abstract class AbstractJdbcTableManager
         }
     }
 
+    /**
+     * Override in order to support incremental updates. Managers which support
+     * incremental updates must implement
+     * {@link #removeChangedData(AnalyticsTable, Date, Date)}, mark new
+     * partitions using {@link #setNewPartitions(AnalyticsTable)} and populate
+     * changed data only where
+     * {@link #isChangedDataOnly(AnalyticsTableUpdateParams, AnalyticsTablePartition)}.
+     */
+    @Override
+    public boolean isIncrementalUpdateSupported()
+    {
+        return false;
+    }
+
+    @Override
+    @Transactional
+    public void applyIncrementalUpdate( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        Preconditions.checkState( isIncrementalUpdateSupported(),
+            String.format( "Incremental update not supported for table type: %s", getAnalyticsTableType() ) );
+
+        Date startDate = getIncrementalUpdateStartDate();
+        Date endDate = params.getStartTime();
+
+        for ( AnalyticsTable table : tables )
+        {
+            removeChangedData( table, startDate, endDate );
+
+            Set<String> tableColumns = getTableColumns( table.getTableName() );
+
+            List<String> columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ).stream()
+                .map( AnalyticsTableColumn::getName )
+                .filter( col -> tableColumns.contains( StringUtils.strip( col, "\"" ) ) )
+                .collect( Collectors.toList() );
+
+            String columnList = StringUtils.join( columns, "," );
+
+            for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+            {
+                if ( partition.isNewPartition() && tableColumns.containsAll( getColumnNames( table ) ) )
+                {
+                    attachNewPartition( table, partition, tableColumns );
+                }
+                else
+                {
+                    String sql = "insert into " + partition.getTableName() + " (" + columnList + ") " +
+                        "select " + columnList + " from " + partition.getTempTableName();
+
+                    invokeTimeAndLog( sql, String.format( "Apply changed data to %s", partition.getTableName() ) );
+
+                    dropTableCascade( partition.getTempTableName() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the empty partition created for a year which did not exist
+     * prior to the incremental update with the temp partition, which holds
+     * all data of the year. Columns which are not in the master table are
+     * dropped from the temp partition, as a partition must match the columns
+     * of its master table.
+     *
+     * @param table the {@link AnalyticsTable}.
+     * @param partition the new {@link AnalyticsTablePartition}.
+     * @param tableColumns the column names of the master table.
+     */
+    private void attachNewPartition( AnalyticsTable table, AnalyticsTablePartition partition,
+        Set<String> tableColumns )
+    {
+        String tableName = partition.getTableName();
+        String tempTableName = partition.getTempTableName();
+
+        for ( String column : getColumnNames( table ) )
+        {
+            if ( !tableColumns.contains( column ) )
+            {
+                jdbcTemplate.execute( "alter table " + tempTableName + " drop column " + quote( column ) );
+            }
+        }
+
+        final String[] sqlSteps = {
+            "drop table if exists " + tableName + " cascade",
+            "alter table " + tempTableName + " rename to " + tableName,
+            "alter table " + table.getTableName() + " attach partition " + tableName
+                + " for values in (" + partition.getYear() + ")"
+        };
+
+        invokeTimeAndLog( String.join( ";", sqlSteps ) + ";",
+            String.format( "Attach new partition %s", tableName ) );
+    }
+
+    /**
+     * Returns the unquoted names of the columns of the given analytics table.
+     *
+     * @param table the {@link AnalyticsTable}.
+     * @return a list of column names.
+     */
+    private List<String> getColumnNames( AnalyticsTable table )
+    {
+        return ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ).stream()
+            .map( col -> StringUtils.strip( col.getName(), "\"" ) )
+            .collect( Collectors.toList() );
+    }
+
     @Override
     public void dropTempTable( AnalyticsTable table )
     {
@@ -268,7 +374,7 @@ public abstract class AbstractJdbcTableManager
 
     @Override
     @Async
-    public Future<?> populateTablesAsync( AnalyticsTableUpdateParams params,
+    public CompletableFuture<?> populateTablesAsync( AnalyticsTableUpdateParams params,
         ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
     {
         while ( true )
@@ -286,6 +392,13 @@ public abstract class AbstractJdbcTableManager
         return null;
     }
 
+    @Override
+    public boolean hasAnalyticsTableSqlHooks()
+    {
+        return !tableHookService.getByPhaseAndAnalyticsTableType( AnalyticsTablePhase.ANALYTICS_TABLE_POPULATED,
+            getAnalyticsTableType() ).isEmpty();
+    }
+
     @Override
     public int invokeAnalyticsTableSqlHooks()
     {
@@ -336,6 +449,21 @@ public abstract class AbstractJdbcTableManager
     // Protected supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Removes data which was created, updated or deleted between the given
+     * start and end date from the given analytics table, including all of its
+     * partitions. Override in order to support incremental updates.
+     *
+     * @param table the {@link AnalyticsTable}.
+     * @param startDate the start date, inclusive.
+     * @param endDate the end date, exclusive.
+     */
+    protected void removeChangedData( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        throw new UnsupportedOperationException(
+            String.format( "Incremental update not supported for table type: %s", getAnalyticsTableType() ) );
+    }
+
     /**
      * Returns the analytics table name.
      */
@@ -494,6 +622,75 @@ public abstract class AbstractJdbcTableManager
         return table;
     }
 
+    /**
+     * Marks the partitions of the given table which do not exist in the
+     * database as new, so that they are populated with all data for their year
+     * during an incremental update, and attached to the master table instead
+     * of having the changed data inserted. Partitions are created empty before
+     * being populated, which means that a new partition populated with the
+     * changed data only would be missing the unchanged data of its year.
+     *
+     * @param table the {@link AnalyticsTable}.
+     */
+    protected void setNewPartitions( AnalyticsTable table )
+    {
+        for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+        {
+            partition.setNewPartition( !partitionManager.tableExists( partition.getTableName() ) );
+
+            if ( partition.isNewPartition() )
+            {
+                log.info( "Partition does not exist, populating all data: '{}'", partition.getTableName() );
+            }
+        }
+    }
+
+    /**
+     * Indicates whether only data which was changed since the last successful
+     * analytics table update should be populated into the given partition.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return true if only changed data should be populated.
+     */
+    protected boolean isChangedDataOnly( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        return params.isIncrementalUpdate() && !partition.isNewPartition();
+    }
+
+    /**
+     * Returns the start of the time span of data to apply for an incremental
+     * update, which is the time of the last successful analytics table update
+     * of any kind.
+     *
+     * @return the start date of the incremental update.
+     */
+    protected Date getIncrementalUpdateStartDate()
+    {
+        Date lastFullTableUpdate = (Date) systemSettingManager
+            .getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE );
+        Date lastPartialUpdate = (Date) systemSettingManager
+            .getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+
+        Assert.notNull( lastFullTableUpdate,
+            "A full analytics table update process must be run prior to an incremental update process" );
+
+        return DateUtils.getLatest( lastPartialUpdate, lastFullTableUpdate );
+    }
+
+    /**
+     * Returns the names of the columns of the given database table.
+     *
+     * @param tableName the table name.
+     * @return a set of column names.
+     */
+    protected Set<String> getTableColumns( String tableName )
+    {
+        final String sql = "select column_name from information_schema.columns where table_name = ?";
+
+        return new HashSet<>( jdbcTemplate.queryForList( sql, String.class, tableName ) );
+    }
+
     /**
      * Checks whether the given list of columns are valid.
      *
@@ -557,6 +754,25 @@ public abstract class AbstractJdbcTableManager
         log.info( "{} in: {}", logMessage, timer.stop().toString() );
     }
 
+    /**
+     * Executes the given update SQL statement with the given bind arguments,
+     * and logs the time taken.
+     *
+     * @param sql the SQL statement.
+     * @param logMessage the custom log message to include in the log statement.
+     * @param args the arguments to bind to the statement.
+     */
+    protected void invokeTimeAndLog( String sql, String logMessage, Object... args )
+    {
+        log.debug( "{} with SQL: '{}'", logMessage, sql );
+
+        Timer timer = new SystemTimer().start();
+
+        jdbcTemplate.update( sql, args );
+
+        log.info( "{} in: {}", logMessage, timer.stop().toString() );
+    }
+
     /**
      * Collects all the {@link PeriodType} as a list of
      * {@link AnalyticsTableColumn}.
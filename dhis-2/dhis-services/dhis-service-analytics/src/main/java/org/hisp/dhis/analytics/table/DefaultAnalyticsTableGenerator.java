@@ -120,7 +120,7 @@ public class DefaultAnalyticsTableGenerator
         {
             notifier.clear( jobId ).notify( jobId, "Analytics table update process started" );
 
-            if ( !params.isSkipResourceTables() && !params.isLatestUpdate() )
+            if ( !params.isSkipResourceTables() && !params.isLatestUpdate() && !params.isIncrementalUpdate() )
             {
                 notifier.notify( jobId, "Updating resource tables" );
                 generateResourceTables();
@@ -153,7 +153,7 @@ public class DefaultAnalyticsTableGenerator
             throw ex;
         }
 
-        if ( params.isLatestUpdate() )
+        if ( params.isLatestUpdate() || params.isIncrementalUpdate() )
         {
             systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE,
                 params.getStartTime() );
@@ -32,10 +32,15 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +52,8 @@ import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -80,9 +87,14 @@ public class DefaultAnalyticsTableService
 
     private SystemSettingManager systemSettingManager;
 
+    private AnalyticsFragmentCache analyticsFragmentCache;
+
+    private AnalyticsCache analyticsCache;
+
     public DefaultAnalyticsTableService( AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache analyticsFragmentCache, AnalyticsCache analyticsCache )
     {
         checkNotNull( tableManager );
         checkNotNull( organisationUnitService );
@@ -90,6 +102,8 @@ public class DefaultAnalyticsTableService
         checkNotNull( resourceTableService );
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
+        checkNotNull( analyticsFragmentCache );
+        checkNotNull( analyticsCache );
 
         this.tableManager = tableManager;
         this.organisationUnitService = organisationUnitService;
@@ -97,6 +111,8 @@ public class DefaultAnalyticsTableService
         this.resourceTableService = resourceTableService;
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
+        this.analyticsFragmentCache = analyticsFragmentCache;
+        this.analyticsCache = analyticsCache;
     }
 
     // -------------------------------------------------------------------------
@@ -116,8 +132,6 @@ public class DefaultAnalyticsTableService
 
         final int processNo = getProcessNo();
 
-        int tableUpdates = 0;
-
         log.info( String.format( "Analytics table update parameters: %s", params ) );
 
         AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
@@ -135,6 +149,22 @@ public class DefaultAnalyticsTableService
             return;
         }
 
+        if ( params.isIncrementalUpdate() )
+        {
+            if ( tableManager.isIncrementalUpdateSupported() )
+            {
+                updateIncremental( params, clock );
+                return;
+            }
+
+            log.info( "Incremental update not supported for table type: {}, updating latest partition", tableType );
+
+            params = AnalyticsTableUpdateParams.newBuilder( params )
+                .withIncrementalUpdate( false )
+                .withLatestPartition()
+                .build();
+        }
+
         final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
 
         if ( tables.isEmpty() )
@@ -162,50 +192,93 @@ public class DefaultAnalyticsTableService
         createTables( tables );
 
         clock.logTime( "Created analytics tables" );
-        notifier.notify( jobId, "Populating analytics tables" );
+        notifier.notify( jobId, "Populating, indexing and analyzing analytics tables" );
 
-        populateTables( params, tables );
+        processTablePartitions( params, tables, clock );
 
-        clock.logTime( "Populated analytics tables" );
-        notifier.notify( jobId, "Invoking analytics table hooks" );
+        clock.logTime( "Populated, indexed and analyzed analytics tables" );
+        notifier.notify( jobId, "Removing updated and deleted data" );
 
-        tableUpdates += tableManager.invokeAnalyticsTableSqlHooks();
+        tableManager.removeUpdatedData( params, tables );
 
-        clock.logTime( "Invoked analytics table hooks" );
-        notifier.notify( jobId, "Applying aggregation levels" );
+        clock.logTime( "Removed updated and deleted data" );
+        notifier.notify( jobId, "Swapping analytics tables" );
 
-        tableUpdates += applyAggregationLevels( tables );
+        swapTables( params, tables );
 
-        clock.logTime( "Applied aggregation levels" );
+        clock.logTime( "Swapped analytics tables" );
 
-        if ( tableUpdates > 0 )
+        invalidateFragmentCache( params, tables );
+
+        clock.logTime( "Table update done: " + tableType.getTableName() );
+        notifier.notify( jobId, "Table update done" );
+    }
+
+    /**
+     * Applies data which was created, updated or deleted since the last
+     * successful analytics table update to the existing analytics tables.
+     * Changed data is populated into temporary tables for the affected
+     * partitions only, after which changed and deleted data is removed from
+     * the analytics tables and the temporary tables are merged into the
+     * existing partitions.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param clock the {@link Clock}.
+     */
+    private void updateIncremental( AnalyticsTableUpdateParams params, Clock clock )
+    {
+        JobConfiguration jobId = params.getJobId();
+
+        AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
+
+        final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
+
+        if ( tables.isEmpty() )
         {
-            notifier.notify( jobId, "Vacuuming tables" );
-            vacuumTables( tables );
-            clock.logTime( "Tables vacuumed" );
+            clock.logTime( String.format( "Incremental update aborted, no changed data: '%s'",
+                tableType.getTableName() ) );
+            notifier.notify( jobId, "Incremental update aborted, no changed data" );
+            return;
         }
 
-        notifier.notify( jobId, "Creating indexes" );
+        clock.logTime( String.format( "Incremental update start: %s, partitions: %s",
+            tableType.getTableName(), PartitionUtils.getTablePartitions( tables ) ) );
+        notifier.notify( jobId, "Performing pre-create table work" );
 
-        createIndexes( tables );
+        tableManager.preCreateTables( params );
+        dropTempTables( tables );
+        createTables( tables );
 
-        clock.logTime( "Created indexes" );
-        notifier.notify( jobId, "Analyzing analytics tables" );
+        clock.logTime( "Created temp tables for changed data" );
+        notifier.notify( jobId, "Populating changed data" );
 
-        analyzeTables( tables );
+        populateTables( params, tables );
 
-        clock.logTime( "Analyzed tables" );
-        notifier.notify( jobId, "Removing updated and deleted data" );
+        clock.logTime( "Populated changed data" );
+        notifier.notify( jobId, "Invoking analytics table hooks" );
 
-        tableManager.removeUpdatedData( params, tables );
+        tableManager.invokeAnalyticsTableSqlHooks();
+        applyAggregationLevels( tables );
 
-        clock.logTime( "Removed updated and deleted data" );
-        notifier.notify( jobId, "Swapping analytics tables" );
+        clock.logTime( "Applied aggregation levels" );
 
-        swapTables( params, tables );
+        createNewPartitionIndexes( tables );
 
-        clock.logTime( "Table update done: " + tableType.getTableName() );
-        notifier.notify( jobId, "Table update done" );
+        clock.logTime( "Created indexes for new partitions" );
+        notifier.notify( jobId, "Applying changed data to analytics tables" );
+
+        tableManager.applyIncrementalUpdate( params, tables );
+
+        clock.logTime( "Applied changed data to analytics tables" );
+
+        invalidateFragmentCache( params, tables );
+
+        analyticsCache.invalidateYears( PartitionUtils.getTablePartitions( tables ).stream()
+            .map( AnalyticsTablePartition::getYear )
+            .collect( Collectors.toSet() ) );
+
+        clock.logTime( "Incremental update done: " + tableType.getTableName() );
+        notifier.notify( jobId, "Incremental update done" );
     }
 
     @Override
@@ -278,131 +351,271 @@ public class DefaultAnalyticsTableService
     }
 
     /**
-     * Applies aggregation levels to the given analytics tables.
+     * Populates, applies aggregation levels to, vacuums, indexes and analyzes
+     * the partitions of the given analytics tables. Each partition flows
+     * through the steps on its own, so that a partition can be indexed while
+     * other partitions are still being populated. The number of partitions
+     * processed concurrently is capped by
+     * {@link SettingKey#ANALYTICS_TABLE_PIPELINE_CONCURRENCY}.
+     * <p>
+     * The steps run on the asynchronous executor of the table manager and are
+     * chained as futures, so that no executor thread waits for another step.
+     * Only the calling thread waits for the pipeline to complete.
+     * <p>
+     * Analytics table SQL hooks may refer to any table and require all
+     * partitions to be populated. If hooks exist, the partitions are populated
+     * first, then the hooks are invoked, and then the remaining steps are
+     * performed per partition.
      *
+     * @param params the {@link AnalyticsTableUpdateParams}.
      * @param tables the list of {@link AnalyticsTable}.
-     * @return the number of aggregation levels applied for data elements.
+     * @param clock the {@link Clock}.
      */
-    private int applyAggregationLevels( List<AnalyticsTable> tables )
+    private void processTablePartitions( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables,
+        Clock clock )
     {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        final List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        final Map<Integer, Collection<String>> aggregationLevels = getAggregationLevels();
+        final boolean hooks = tableManager.hasAnalyticsTableSqlHooks();
+        final boolean vacuum = hooks || !aggregationLevels.isEmpty();
+        final int concurrency = Math.max( 1, Math.min( getPipelineConcurrency(), partitions.size() ) );
+        final int indexTaskNo = Math.max( 1, getProcessNo() / concurrency );
 
-        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
-
-        int aggLevels = 0;
+        log.info( "Table partitions: {}, pipeline concurrency: {}, SQL hooks: {}, aggregation levels: {}",
+            partitions.size(), concurrency, hooks, aggregationLevels.keySet() );
 
-        levelLoop: for ( int i = 0; i < maxLevels; i++ )
+        if ( hooks )
         {
-            int level = maxLevels - i;
+            waitForCompletion( processAll( partitions, concurrency,
+                partition -> populateTable( params, partition ) ) );
 
-            Collection<String> dataElements = IdentifiableObjectUtils.getUids(
-                dataElementService.getDataElementsByAggregationLevel( level ) );
+            clock.logTime( "Populated analytics tables" );
 
-            if ( dataElements.isEmpty() )
-            {
-                continue levelLoop;
-            }
+            tableManager.invokeAnalyticsTableSqlHooks();
 
-            ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
+            clock.logTime( "Invoked analytics table hooks" );
 
-            List<Future<?>> futures = new ArrayList<>();
+            waitForCompletion( processAll( partitions, concurrency,
+                partition -> processTable( partition, aggregationLevels, vacuum, indexTaskNo ) ) );
+        }
+        else
+        {
+            waitForCompletion( processAll( partitions, concurrency,
+                partition -> populateTable( params, partition )
+                    .thenCompose( v -> processTable( partition, aggregationLevels, vacuum, indexTaskNo ) ) ) );
+        }
+    }
 
-            for ( int j = 0; j < getProcessNo(); j++ )
-            {
-                futures.add( tableManager.applyAggregationLevels( partitionQ, dataElements, level ) );
-            }
+    /**
+     * Runs the given task for each of the given partitions, with at most the
+     * given number of tasks running at the same time. A partition is started
+     * when the task of a previous partition completes.
+     *
+     * @param partitions the list of {@link AnalyticsTablePartition}.
+     * @param concurrency the max number of concurrent tasks.
+     * @param task the task to run for each partition.
+     * @return a future which completes when all tasks have completed.
+     */
+    private CompletableFuture<Void> processAll( List<AnalyticsTablePartition> partitions, int concurrency,
+        Function<AnalyticsTablePartition, CompletableFuture<Void>> task )
+    {
+        ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
 
-            aggLevels += dataElements.size();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
 
-            ConcurrentUtils.waitForCompletion( futures );
+        for ( int i = 0; i < concurrency; i++ )
+        {
+            futures[i] = processNext( partitionQ, task );
         }
 
-        return aggLevels;
+        return CompletableFuture.allOf( futures );
     }
 
     /**
-     * Vacuums the given analytics tables.
+     * Runs the given task for the next partition in the given queue, and
+     * continues with the following partition when the task completes.
+     */
+    private CompletableFuture<Void> processNext( ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ,
+        Function<AnalyticsTablePartition, CompletableFuture<Void>> task )
+    {
+        AnalyticsTablePartition partition = partitionQ.poll();
+
+        if ( partition == null )
+        {
+            return CompletableFuture.completedFuture( null );
+        }
+
+        return task.apply( partition ).thenCompose( v -> processNext( partitionQ, task ) );
+    }
+
+    /**
+     * Populates the given analytics table partition.
      *
-     * @param tables the list of {@link AnalyticsTable}.
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return a future which completes when the partition is populated.
      */
-    private void vacuumTables( List<AnalyticsTable> tables )
+    private CompletableFuture<Void> populateTable( AnalyticsTableUpdateParams params,
+        AnalyticsTablePartition partition )
     {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        return toStage( tableManager.populateTablesAsync( params, newQueue( partition ) ) )
+            .thenRun( () -> log.debug( "Populated table partition: '{}'", partition.getTempTableName() ) );
+    }
 
-        ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
+    /**
+     * Applies aggregation levels to, vacuums, indexes and analyzes the given
+     * populated analytics table partition.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param aggregationLevels mapping of aggregation level to data element
+     *        identifiers.
+     * @param vacuum whether to vacuum the partition.
+     * @param indexTaskNo the number of concurrent index tasks.
+     * @return a future which completes when the partition is analyzed.
+     */
+    private CompletableFuture<Void> processTable( AnalyticsTablePartition partition,
+        Map<Integer, Collection<String>> aggregationLevels, boolean vacuum, int indexTaskNo )
+    {
+        CompletableFuture<Void> future = CompletableFuture.completedFuture( null );
 
-        List<Future<?>> futures = new ArrayList<>();
+        for ( Map.Entry<Integer, Collection<String>> level : aggregationLevels.entrySet() )
+        {
+            future = future.thenCompose( v -> toStage(
+                tableManager.applyAggregationLevels( newQueue( partition ), level.getValue(), level.getKey() ) ) );
+        }
 
-        for ( int i = 0; i < getProcessNo(); i++ )
+        if ( vacuum )
         {
-            tableManager.vacuumTablesAsync( partitionQ );
+            future = future.thenCompose( v -> toStage( tableManager.vacuumTablesAsync( newQueue( partition ) ) ) );
         }
 
-        ConcurrentUtils.waitForCompletion( futures );
+        return future
+            .thenCompose( v -> createIndexes( partition, indexTaskNo ) )
+            .thenRun( () -> {
+                tableManager.analyzeTable( partition.getTempTableName() );
+
+                log.debug( "Indexed and analyzed table partition: '{}'", partition.getTempTableName() );
+            } );
     }
 
     /**
-     * Creates indexes on the given analytics tables.
+     * Creates the indexes of the given analytics table partition.
      *
-     * @param tables the list of {@link AnalyticsTable}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param indexTaskNo the number of concurrent index tasks.
+     * @return a future which completes when all indexes are created.
      */
-    private void createIndexes( List<AnalyticsTable> tables )
+    private CompletableFuture<Void> createIndexes( AnalyticsTablePartition partition, int indexTaskNo )
     {
-        ConcurrentLinkedQueue<AnalyticsIndex> indexes = getIndexes( tables );
+        ConcurrentLinkedQueue<AnalyticsIndex> indexes = getIndexes( partition );
 
-        log.info( "No of analytics table indexes: " + indexes.size() );
+        int taskNo = Math.min( indexTaskNo, indexes.size() );
 
-        List<Future<?>> futures = new ArrayList<>();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[taskNo];
 
-        for ( int i = 0; i < getProcessNo(); i++ )
+        for ( int i = 0; i < taskNo; i++ )
         {
-            futures.add( tableManager.createIndexesAsync( indexes ) );
+            futures[i] = toStage( tableManager.createIndexesAsync( indexes ) );
         }
 
-        ConcurrentUtils.waitForCompletion( futures );
+        return CompletableFuture.allOf( futures );
     }
 
     /**
-     * Returns a queue of analytics table indexes.
+     * Creates the indexes of the partitions which did not exist prior to an
+     * incremental update. New partitions are attached to the analytics table
+     * as populated, instead of having their data inserted into an existing
+     * indexed partition.
      *
      * @param tables the list of {@link AnalyticsTable}.
-     * @return a {@link ConcurrentLinkedQueue} of indexes.
      */
-    private ConcurrentLinkedQueue<AnalyticsIndex> getIndexes( List<AnalyticsTable> tables )
+    private void createNewPartitionIndexes( List<AnalyticsTable> tables )
     {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        int indexTaskNo = getProcessNo();
 
-        ConcurrentLinkedQueue<AnalyticsIndex> indexes = new ConcurrentLinkedQueue<>();
+        CompletableFuture<?>[] futures = PartitionUtils.getTablePartitions( tables ).stream()
+            .filter( AnalyticsTablePartition::isNewPartition )
+            .map( partition -> createIndexes( partition, indexTaskNo ) )
+            .toArray( CompletableFuture<?>[]::new );
+
+        waitForCompletion( CompletableFuture.allOf( futures ) );
+    }
 
-        for ( AnalyticsTablePartition partition : partitions )
+    /**
+     * Applies aggregation levels to the given analytics tables.
+     *
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void applyAggregationLevels( List<AnalyticsTable> tables )
+    {
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+
+        for ( Map.Entry<Integer, Collection<String>> level : getAggregationLevels().entrySet() )
         {
-            List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+            ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
+
+            List<Future<?>> futures = new ArrayList<>();
 
-            for ( AnalyticsTableColumn col : columns )
+            for ( int j = 0; j < getProcessNo(); j++ )
             {
-                if ( !col.isSkipIndex() )
-                {
-                    List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns()
-                        : Lists.newArrayList( col.getName() );
+                futures.add( tableManager.applyAggregationLevels( partitionQ, level.getValue(), level.getKey() ) );
+            }
+
+            ConcurrentUtils.waitForCompletion( futures );
+        }
+    }
+
+    /**
+     * Returns a mapping of aggregation level to the identifiers of data
+     * elements with the aggregation level, ordered from the highest to the
+     * lowest level. Levels without data elements are omitted.
+     *
+     * @return a mapping of aggregation level to data element identifiers.
+     */
+    private Map<Integer, Collection<String>> getAggregationLevels()
+    {
+        Map<Integer, Collection<String>> aggregationLevels = new LinkedHashMap<>();
+
+        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
+
+        for ( int level = maxLevels; level > 0; level-- )
+        {
+            Collection<String> dataElements = IdentifiableObjectUtils.getUids(
+                dataElementService.getDataElementsByAggregationLevel( level ) );
 
-                    indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
-                }
+            if ( !dataElements.isEmpty() )
+            {
+                aggregationLevels.put( level, dataElements );
             }
         }
 
-        return indexes;
+        return aggregationLevels;
     }
 
     /**
-     * Analyzes the given analytics tables.
+     * Returns a queue of analytics table indexes for the given partition.
      *
-     * @param tables the list of {@link AnalyticsTable}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return a {@link ConcurrentLinkedQueue} of indexes.
      */
-    private void analyzeTables( List<AnalyticsTable> tables )
+    private ConcurrentLinkedQueue<AnalyticsIndex> getIndexes( AnalyticsTablePartition partition )
     {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        ConcurrentLinkedQueue<AnalyticsIndex> indexes = new ConcurrentLinkedQueue<>();
+
+        List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+
+        for ( AnalyticsTableColumn col : columns )
+        {
+            if ( !col.isSkipIndex() )
+            {
+                List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns()
+                    : Lists.newArrayList( col.getName() );
+
+                indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
+            }
+        }
 
-        partitions.forEach( table -> tableManager.analyzeTable( table.getTempTableName() ) );
+        return indexes;
     }
 
     /**
@@ -420,6 +633,67 @@ public class DefaultAnalyticsTableService
         resourceTableService.createAllSqlViews();
     }
 
+    /**
+     * Invalidates cached analytics fragments for the given analytics tables.
+     * Invalidates the updated partitions for partial updates of specific
+     * years, and the entire tables otherwise, as the latest partition may
+     * contain data for any year.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void invalidateFragmentCache( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        for ( AnalyticsTable table : tables )
+        {
+            if ( params.isPartialUpdate() && !params.isLatestUpdate() )
+            {
+                analyticsFragmentCache.invalidatePartitions( table.getTableName(), table.getTablePartitions().stream()
+                    .map( AnalyticsTablePartition::getYear )
+                    .collect( Collectors.toList() ) );
+            }
+            else
+            {
+                analyticsFragmentCache.invalidateTable( table.getTableName() );
+            }
+        }
+    }
+
+    /**
+     * Returns the max number of table partitions to process concurrently. Uses
+     * explicit number from system setting if available. Uses the number of
+     * available processes if not.
+     */
+    private int getPipelineConcurrency()
+    {
+        Integer concurrency = (Integer) systemSettingManager
+            .getSystemSetting( SettingKey.ANALYTICS_TABLE_PIPELINE_CONCURRENCY );
+
+        return (concurrency == null || concurrency <= 0) ? getProcessNo() : concurrency;
+    }
+
+    /**
+     * Waits for completion of the given future.
+     */
+    private void waitForCompletion( Future<?> future )
+    {
+        ConcurrentUtils.waitForCompletion( Lists.newArrayList( future ) );
+    }
+
+    /**
+     * Returns a future which completes when the given future completes. A null
+     * future is regarded as completed.
+     */
+    private CompletableFuture<Void> toStage( CompletableFuture<?> future )
+    {
+        return future != null ? CompletableFuture.allOf( future ) : CompletableFuture.completedFuture( null );
+    }
+
+    private ConcurrentLinkedQueue<AnalyticsTablePartition> newQueue( AnalyticsTablePartition partition )
+    {
+        return new ConcurrentLinkedQueue<>( Lists.newArrayList( partition ) );
+    }
+
     /**
      * Gets the number of available cores. Uses explicit number from system
      * setting if available. Detects number of cores from current server runtime
@@ -40,8 +40,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -148,9 +148,24 @@ public class JdbcAnalyticsTableManager
     @Transactional
     public List<AnalyticsTable> getAnalyticsTables( AnalyticsTableUpdateParams params )
     {
-        AnalyticsTable table = params.isLatestUpdate()
-            ? getLatestAnalyticsTable( params, getDimensionColumns(), getValueColumns() )
-            : getRegularAnalyticsTable( params, getDataYears( params ), getDimensionColumns(), getValueColumns() );
+        AnalyticsTable table;
+
+        if ( params.isLatestUpdate() )
+        {
+            table = getLatestAnalyticsTable( params, getDimensionColumns(), getValueColumns() );
+        }
+        else if ( params.isIncrementalUpdate() )
+        {
+            table = getRegularAnalyticsTable( params, getChangedDataYears( params ), getDimensionColumns(),
+                getValueColumns() );
+
+            setNewPartitions( table );
+        }
+        else
+        {
+            table = getRegularAnalyticsTable( params, getDataYears( params ), getDimensionColumns(),
+                getValueColumns() );
+        }
 
         return table.hasPartitionTables() ? newArrayList( table ) : newArrayList();
     }
@@ -208,7 +223,19 @@ public class JdbcAnalyticsTableManager
 
         AnalyticsTablePartition partition = PartitionUtils.getLatestTablePartition( tables );
 
-        String sql = "delete from " + quote( getAnalyticsTableType().getTableName() ) + " ax " +
+        removeChangedData( partition.getMasterTable(), partition.getStartDate(), partition.getEndDate() );
+    }
+
+    @Override
+    public boolean isIncrementalUpdateSupported()
+    {
+        return true;
+    }
+
+    @Override
+    protected void removeChangedData( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        String sql = "delete from " + quote( table.getTableName() ) + " ax " +
             "where ax.id in (" +
             "select (de.uid || '-' || ps.iso || '-' || ou.uid || '-' || co.uid || '-' || ao.uid) as id " +
             "from datavalue dv " +
@@ -217,10 +244,10 @@ public class JdbcAnalyticsTableManager
             "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
             "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
             "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
-            "where dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-            "and dv.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
+            "where dv.lastupdated >= ? " +
+            "and dv.lastupdated < ?)";
 
-        invokeTimeAndLog( sql, "Remove updated data values" );
+        invokeTimeAndLog( sql, "Remove updated data values", startDate, endDate );
     }
 
     @Override
@@ -250,13 +277,51 @@ public class JdbcAnalyticsTableManager
         final String zeroValueClause = "(dv.value != '0' or de.aggregationtype in ('" + AggregationType.AVERAGE + ','
             + AggregationType.AVERAGE_SUM_ORG_UNIT + "')) ";
         final String intClause = zeroValueClause + numericClause;
+        final boolean singlePass = (Boolean) systemSettingManager
+            .getSystemSetting( SettingKey.ANALYTICS_TABLE_SINGLE_PASS_POPULATION );
+
+        final Set<ValueType> boolTypes = Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY );
+        final Set<ValueType> falseTypes = Sets.newHashSet( ValueType.BOOLEAN );
+        final Set<ValueType> textTypes = Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES );
+
+        if ( singlePass )
+        {
+            final String numericCase = getValueTypeClause( ValueType.NUMERIC_TYPES ) + "and " + intClause;
+            final String trueCase = getValueTypeClause( boolTypes ) + "and dv.value = 'true' ";
+            final String falseCase = getValueTypeClause( falseTypes ) + "and dv.value = 'false' ";
+            final String textCase = getValueTypeClause( textTypes );
+
+            final String valueExpression = "case when " + numericCase + "then cast(dv.value as " + dbl + ") " +
+                "when " + trueCase + "then 1 " +
+                "when " + falseCase + "then 0 " +
+                "else null end";
+            final String textValueExpression = "case when " + textCase + "then dv.value else null end";
+            final String whereClause = "((" + numericCase + ") or (" + trueCase + ") or (" + falseCase + ") " +
+                "or (" + textCase + ")) ";
+
+            populateTable( params, partition, valueExpression, textValueExpression,
+                Sets.union( ValueType.NUMERIC_TYPES, Sets.union( boolTypes, textTypes ) ), whereClause );
+        }
+        else
+        {
+            populateTable( params, partition, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES,
+                intClause );
+            populateTable( params, partition, "1", "null", boolTypes, "dv.value = 'true'" );
+            populateTable( params, partition, "0", "null", falseTypes, "dv.value = 'false'" );
+            populateTable( params, partition, "null", "dv.value", textTypes, null );
+        }
+    }
 
-        populateTable( params, partition, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause );
-        populateTable( params, partition, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ),
-            "dv.value = 'true'" );
-        populateTable( params, partition, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'" );
-        populateTable( params, partition, "null", "dv.value", Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES ),
-            null );
+    /**
+     * Returns a clause which matches data elements of the given value types.
+     *
+     * @param valueTypes the set of {@link ValueType}.
+     * @return a SQL clause.
+     */
+    private String getValueTypeClause( Set<ValueType> valueTypes )
+    {
+        return "de.valuetype in (" + TextUtils.getQuotedCommaDelimitedString(
+            ObjectUtils.asStringList( valueTypes ) ) + ") ";
     }
 
     /**
@@ -275,9 +340,12 @@ public class JdbcAnalyticsTableManager
         final boolean respectStartEndDates = (Boolean) systemSettingManager
             .getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT );
         final String approvalClause = getApprovalJoinClause( partition.getYear() );
+        final String changedDataClause = isChangedDataOnly( params, partition )
+            ? "and dv.lastupdated >= '" + getLongDateString( getIncrementalUpdateStartDate() ) + "' "
+            : "";
         final String partitionClause = partition.isLatestPartition()
             ? "and dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' "
-            : "and ps.year = " + partition.getYear() + " ";
+            : "and ps.year = " + partition.getYear() + " " + changedDataClause;
 
         String sql = "insert into " + partition.getTempTableName() + " (";
 
@@ -496,9 +564,29 @@ public class JdbcAnalyticsTableManager
         return jdbcTemplate.queryForList( sql, Integer.class );
     }
 
+    /**
+     * Returns the distinct years which contain data values which were created,
+     * updated or deleted since the last successful analytics table update.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @return a list of data years.
+     */
+    private List<Integer> getChangedDataYears( AnalyticsTableUpdateParams params )
+    {
+        String sql = "select distinct(extract(year from pe.startdate)) " +
+            "from datavalue dv " +
+            "inner join period pe on dv.periodid=pe.periodid " +
+            "where pe.startdate is not null " +
+            "and dv.lastupdated >= ? " +
+            "and dv.lastupdated < ?";
+
+        return jdbcTemplate.queryForList( sql, Integer.class, getIncrementalUpdateStartDate(),
+            params.getStartTime() );
+    }
+
     @Override
     @Async
-    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
+    public CompletableFuture<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
         Collection<String> dataElements, int aggregationLevel )
     {
         taskLoop: while ( true )
@@ -536,7 +624,7 @@ public class JdbcAnalyticsTableManager
 
     @Override
     @Async
-    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    public CompletableFuture<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
     {
         taskLoop: while ( true )
         {
@@ -38,8 +38,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
@@ -156,7 +156,13 @@ public class JdbcCompletenessTableManager
 
         AnalyticsTablePartition partition = PartitionUtils.getLatestTablePartition( tables );
 
-        String sql = "delete from " + quote( getAnalyticsTableType().getTableName() ) + " ax " +
+        removeChangedData( partition.getMasterTable(), partition.getStartDate(), partition.getEndDate() );
+    }
+
+    @Override
+    protected void removeChangedData( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        String sql = "delete from " + quote( table.getTableName() ) + " ax " +
             "where ax.id in (" +
             "select (ds.uid || '-' || ps.iso || '-' || ou.uid || '-' || ao.uid) as id " +
             "from completedatasetregistration cdr " +
@@ -164,10 +170,10 @@ public class JdbcCompletenessTableManager
             "inner join _periodstructure ps on cdr.periodid=ps.periodid " +
             "inner join organisationunit ou on cdr.sourceid=ou.organisationunitid " +
             "inner join categoryoptioncombo ao on cdr.attributeoptioncomboid=ao.categoryoptioncomboid " +
-            "where cdr.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-            "and cdr.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
+            "where cdr.lastupdated >= ? " +
+            "and cdr.lastupdated < ?)";
 
-        invokeTimeAndLog( sql, "Remove updated data values" );
+        invokeTimeAndLog( sql, "Remove updated data values", startDate, endDate );
     }
 
     @Override
@@ -313,7 +319,7 @@ public class JdbcCompletenessTableManager
 
     @Override
     @Async
-    public Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
+    public CompletableFuture<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
         Collection<String> dataElements, int aggregationLevel )
     {
         return ConcurrentUtils.getImmediateFuture();
@@ -321,7 +327,7 @@ public class JdbcCompletenessTableManager
 
     @Override
     @Async
-    public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    public CompletableFuture<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
     {
         return ConcurrentUtils.getImmediateFuture();
     }
@@ -145,7 +145,13 @@ public class JdbcEventAnalyticsTableManager
         log.info( String.format( "Get tables using earliest: %s, spatial support: %b", params.getFromDate(),
             databaseInfo.isSpatialSupport() ) );
 
-        return params.isLatestUpdate() ? getLatestAnalyticsTables( params ) : getRegularAnalyticsTables( params );
+        if ( params.isLatestUpdate() )
+        {
+            return getLatestAnalyticsTables( params );
+        }
+
+        return params.isIncrementalUpdate() ? getIncrementalAnalyticsTables( params )
+            : getRegularAnalyticsTables( params );
     }
 
     /**
@@ -247,6 +253,57 @@ public class JdbcEventAnalyticsTableManager
         return tables;
     }
 
+    /**
+     * Creates a list of {@link AnalyticsTable} for each program with events
+     * which were created, updated or deleted since the last successful
+     * analytics table update. The tables contain a partition for each year of
+     * the changed events.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @return a list of {@link AnalyticsTableUpdateParams}.
+     */
+    private List<AnalyticsTable> getIncrementalAnalyticsTables( AnalyticsTableUpdateParams params )
+    {
+        Date startDate = getIncrementalUpdateStartDate();
+        Date endDate = params.getStartTime();
+
+        List<AnalyticsTable> tables = new ArrayList<>();
+
+        Calendar calendar = PeriodType.getCalendar();
+
+        List<Program> programs = idObjectManager.getAllNoAcl( Program.class ).stream()
+            .filter( p -> !params.getSkipPrograms().contains( p.getUid() ) )
+            .collect( Collectors.toList() );
+
+        for ( Program program : programs )
+        {
+            List<Integer> dataYears = getChangedDataYears( startDate, endDate, program );
+
+            Collections.sort( dataYears );
+
+            AnalyticsTable table = new AnalyticsTable( getAnalyticsTableType(), getDimensionColumns( program ),
+                Lists.newArrayList(), program );
+
+            for ( Integer year : dataYears )
+            {
+                table.addPartitionTable( year, PartitionUtils.getStartDate( calendar, year ),
+                    PartitionUtils.getEndDate( calendar, year ) );
+            }
+
+            if ( table.hasPartitionTables() )
+            {
+                setNewPartitions( table );
+
+                tables.add( table );
+
+                log.info( String.format( "Added changed event data for program: '%s' with years: %s",
+                    program.getUid(), dataYears ) );
+            }
+        }
+
+        return tables;
+    }
+
     /**
      * Indicates whether event data stored between the given start and end date
      * and for the given program exists.
@@ -281,19 +338,32 @@ public class JdbcEventAnalyticsTableManager
         {
             AnalyticsTablePartition partition = table.getLatestPartition();
 
-            String sql = "delete from " + quote( table.getTableName() ) + " ax " +
-                "where ax.psi in (" +
-                "select psi.uid " +
-                "from programstageinstance psi " +
-                "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
-                "where pi.programid = " + table.getProgram().getId() + " " +
-                "and psi.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-                "and psi.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
-
-            invokeTimeAndLog( sql, String.format( "Remove updated events for table: '%s'", table.getTableName() ) );
+            removeChangedData( table, partition.getStartDate(), partition.getEndDate() );
         }
     }
 
+    @Override
+    public boolean isIncrementalUpdateSupported()
+    {
+        return true;
+    }
+
+    @Override
+    protected void removeChangedData( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        String sql = "delete from " + quote( table.getTableName() ) + " ax " +
+            "where ax.psi in (" +
+            "select psi.uid " +
+            "from programstageinstance psi " +
+            "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
+            "where pi.programid = ? " +
+            "and psi.lastupdated >= ? " +
+            "and psi.lastupdated < ?)";
+
+        invokeTimeAndLog( sql, String.format( "Remove updated events for table: '%s'", table.getTableName() ),
+            table.getProgram().getId(), startDate, endDate );
+    }
+
     @Override
     public List<AnalyticsTableColumn> getFixedColumns()
     {
@@ -322,8 +392,11 @@ public class JdbcEventAnalyticsTableManager
         final Program program = partition.getMasterTable().getProgram();
         final String start = DateUtils.getLongDateString( partition.getStartDate() );
         final String end = DateUtils.getLongDateString( partition.getEndDate() );
+        final String changedDataClause = isChangedDataOnly( params, partition )
+            ? "and psi.lastupdated >= '" + getLongDateString( getIncrementalUpdateStartDate() ) + "' "
+            : "";
         final String partitionClause = partition.isLatestPartition() ? "and psi.lastupdated >= '" + start + "' "
-            : "and psi.executiondate >= '" + start + "' and psi.executiondate < '" + end + "' ";
+            : "and psi.executiondate >= '" + start + "' and psi.executiondate < '" + end + "' " + changedDataClause;
 
         String fromClause = "from programstageinstance psi " +
             "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
@@ -577,6 +650,29 @@ public class JdbcEventAnalyticsTableManager
         return jdbcTemplate.queryForList( sql, Integer.class );
     }
 
+    /**
+     * Returns the distinct years of events for the given program which were
+     * created, updated or deleted between the given start and end date.
+     *
+     * @param startDate the start date, inclusive.
+     * @param endDate the end date, exclusive.
+     * @param program the program.
+     * @return a list of data years.
+     */
+    private List<Integer> getChangedDataYears( Date startDate, Date endDate, Program program )
+    {
+        String sql = "select distinct(extract(year from psi.executiondate)) " +
+            "from programstageinstance psi " +
+            "inner join programinstance pi on psi.programinstanceid = pi.programinstanceid " +
+            "where psi.lastupdated >= ? " +
+            "and psi.lastupdated < ? " +
+            "and pi.programid = ? " +
+            "and psi.executiondate is not null " +
+            "and psi.executiondate > '1000-01-01'";
+
+        return jdbcTemplate.queryForList( sql, Integer.class, startDate, endDate, program.getId() );
+    }
+
     private AnalyticsTableColumn toCharColumn( String name, String prefix, Date created )
     {
         return new AnalyticsTableColumn( name, CHARACTER_11, prefix + "." + name ).withCreated( created );
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class AggregatedValueResultTest
+{
+    @Test
+    public void testNumericValues()
+    {
+        AggregatedValueResult result = new AggregatedValueResult( new String[] { null, null, "fixed" }, false );
+
+        int[] codes = new int[3];
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            codes[0] = result.encode( 0, "dx" + (i % 10) );
+            codes[1] = result.encode( 1, "pe" + (i / 10) );
+            result.add( codes, i );
+        }
+
+        assertEquals( 1000, result.size() );
+        assertEquals( "dx3-pe12-fixed", result.getKey( 123 ) );
+        assertEquals( 123d, result.getNumericValue( 123 ), 0.01 );
+
+        Map<String, Object> map = result.toMap();
+
+        assertEquals( 1000, map.size() );
+        assertEquals( 999d, map.get( "dx9-pe99-fixed" ) );
+        assertEquals( 0d, map.get( "dx0-pe0-fixed" ) );
+    }
+
+    @Test
+    public void testTextValues()
+    {
+        AggregatedValueResult result = new AggregatedValueResult( new String[] { null, null }, true );
+
+        int[] codes = new int[2];
+
+        codes[0] = result.encode( 0, "dxA" );
+        codes[1] = result.encode( 1, "ouA" );
+        result.add( codes, "Yes" );
+
+        codes[0] = result.encode( 0, "dxA" );
+        codes[1] = result.encode( 1, "ouB" );
+        result.add( codes, "No" );
+
+        assertEquals( 0, result.encode( 0, "dxA" ) );
+        assertEquals( 1, result.encode( 1, "ouB" ) );
+
+        Map<String, Object> map = result.toMap();
+
+        assertEquals( 2, map.size() );
+        assertEquals( "Yes", map.get( "dxA-ouA" ) );
+        assertEquals( "No", map.get( "dxA-ouB" ) );
+    }
+
+    @Test
+    public void testGetItems()
+    {
+        AggregatedValueResult result = new AggregatedValueResult( new String[] { null, "fixed", null }, false );
+
+        result.add( new int[] { result.encode( 0, "dxA" ), 0, result.encode( 2, "ouA" ) }, 1d );
+        result.add( new int[] { result.encode( 0, "dxB" ), 0, result.encode( 2, "ouA" ) }, 2d );
+
+        assertArrayEquals( new String[] { "dxA", "fixed", "ouA" }, result.getItems( 0 ) );
+        assertArrayEquals( new String[] { "dxB", "fixed", "ouA" }, result.getItems( 1 ) );
+        assertEquals( 2d, result.getValue( 1 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testAddTextValueToNumericResult()
+    {
+        AggregatedValueResult result = new AggregatedValueResult( new String[] { null }, false );
+
+        result.add( new int[] { result.encode( 0, "dxA" ) }, "Yes" );
+    }
+}
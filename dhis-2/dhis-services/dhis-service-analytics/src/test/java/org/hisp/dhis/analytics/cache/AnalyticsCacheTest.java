@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.TestCache;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class AnalyticsCacheTest
+{
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    @Mock
+    private DataQueryParams params;
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    private AnalyticsCache analyticsCache;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp()
+    {
+        when( cacheProvider.createAnalyticsResponseCache( any() ) )
+            .thenReturn( new TestCache<>() );
+        when( cacheProvider.createAnalyticsResponseLoadingCache() ).thenReturn( new TestCache<>() );
+        when( analyticsCacheSettings.fixedExpirationTimeOrDefault() ).thenReturn( 60L );
+        when( params.getKey() ).thenReturn( "key" );
+
+        analyticsCache = new AnalyticsCache( cacheProvider, analyticsCacheSettings );
+        executor = Executors.newFixedThreadPool( 2 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentIdenticalQueriesAreCoalesced()
+        throws Exception
+    {
+        final Grid grid = new ListGrid();
+        final AtomicInteger invocations = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        Future<Grid> first = executor.submit( () -> analyticsCache.getOrFetch( params, p -> {
+            invocations.incrementAndGet();
+            awaitQuietly( release );
+            return grid;
+        } ) );
+
+        while ( analyticsCache.getInFlightCount() == 0 )
+        {
+            Thread.sleep( 5 );
+        }
+
+        Future<Grid> second = executor.submit( () -> analyticsCache.getOrFetch( params, p -> {
+            invocations.incrementAndGet();
+            return new ListGrid();
+        } ) );
+
+        while ( analyticsCache.getLocalCoalescedCount() == 0 )
+        {
+            Thread.sleep( 5 );
+        }
+
+        release.countDown();
+
+        assertSame( grid, first.get( 10, TimeUnit.SECONDS ) );
+        assertSame( grid, second.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 1, invocations.get() );
+        assertEquals( 1, analyticsCache.getLoadCount() );
+        assertEquals( 1, analyticsCache.getLocalCoalescedCount() );
+        assertEquals( 0, analyticsCache.getInFlightCount() );
+    }
+
+    @Test
+    public void testCachedGridIsReturnedWithoutLoad()
+    {
+        final Grid grid = new ListGrid();
+
+        analyticsCache.put( "key", grid, 60 );
+
+        assertSame( grid, analyticsCache.getOrFetch( params, p -> new ListGrid() ) );
+        assertEquals( 0, analyticsCache.getLoadCount() );
+    }
+
+    @Test
+    public void testInvalidateYears()
+    {
+        final DataQueryParams paramsA = DataQueryParams.newBuilder()
+            .withPeriods( Lists.newArrayList( createPeriod( "2019" ) ) ).build();
+        final DataQueryParams paramsB = DataQueryParams.newBuilder()
+            .withPeriods( Lists.newArrayList( createPeriod( "2020" ) ) ).build();
+
+        analyticsCache.put( paramsA, new ListGrid() );
+        analyticsCache.put( paramsB, new ListGrid() );
+
+        analyticsCache.invalidateYears( Sets.newHashSet( 2020 ) );
+
+        assertTrue( analyticsCache.get( paramsA.getKey() ).isPresent() );
+        assertFalse( analyticsCache.get( paramsB.getKey() ).isPresent() );
+
+        analyticsCache.invalidateYears( Sets.newHashSet( 2019 ) );
+
+        assertFalse( analyticsCache.get( paramsA.getKey() ).isPresent() );
+    }
+
+    private static void awaitQuietly( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.analytics.AnalyticsTableType.DATA_VALUE;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_CACHE_FRAGMENT_ENABLED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.TestCache;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class AnalyticsFragmentCacheTest
+{
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    private AnalyticsFragmentCache fragmentCache;
+
+    private DataElement deA;
+
+    private DataElement deB;
+
+    private OrganisationUnit ouA;
+
+    @Before
+    public void setUp()
+    {
+        when( cacheProvider.createAnalyticsFragmentCache() ).thenReturn( new TestCache<>() );
+        when( cacheProvider.createAnalyticsPartitionVersionCache() ).thenReturn( new TestCache<>() );
+        when( analyticsCacheSettings.fixedExpirationTimeOrDefault() ).thenReturn( 60L );
+        when( analyticsCacheSettings.isCachingEnabled() ).thenReturn( true );
+        when( config.isEnabled( ANALYTICS_CACHE_FRAGMENT_ENABLED ) ).thenReturn( true );
+
+        fragmentCache = new AnalyticsFragmentCache( cacheProvider, analyticsCacheSettings, config );
+
+        deA = createDataElement( 'A' );
+        deB = createDataElement( 'B' );
+        ouA = createOrganisationUnit( 'A' );
+    }
+
+    @Test
+    public void testIsEnabled()
+    {
+        assertTrue( fragmentCache.isEnabled() );
+
+        when( analyticsCacheSettings.isCachingEnabled() ).thenReturn( false );
+
+        assertFalse( fragmentCache.isEnabled() );
+    }
+
+    @Test
+    public void testIsCacheable()
+    {
+        assertTrue( fragmentCache.isCacheable( getQuery( deA ) ) );
+        assertFalse( fragmentCache.isCacheable( DataQueryParams.newBuilder( getQuery( deA ) )
+            .withPartitions( new Partitions() ).build() ) );
+    }
+
+    @Test
+    public void testLookupReturnsMissingDataItems()
+    {
+        AnalyticsFragmentCache.Lookup lookup = fragmentCache.lookup( getQuery( deA, deB ), DATA_VALUE );
+
+        assertTrue( lookup.getCachedValues().isEmpty() );
+        assertTrue( lookup.hasMissingQuery() );
+        assertEquals( 2, lookup.getMissingQuery().getDimensionOptions( DATA_X_DIM_ID ).size() );
+    }
+
+    @Test
+    public void testLookupReusesFragmentsPerDataItem()
+    {
+        AnalyticsFragmentCache.Lookup lookup = fragmentCache.lookup( getQuery( deA ), DATA_VALUE );
+
+        lookup.store( getValues( deA, 10d ) );
+
+        lookup = fragmentCache.lookup( getQuery( deA, deB ), DATA_VALUE );
+
+        assertEquals( getValues( deA, 10d ), lookup.getCachedValues() );
+        assertTrue( lookup.hasMissingQuery() );
+        assertEquals( Lists.newArrayList( deB ), lookup.getMissingQuery().getDimensionOptions( DATA_X_DIM_ID ) );
+
+        lookup.store( getValues( deB, 20d ) );
+
+        lookup = fragmentCache.lookup( getQuery( deA, deB ), DATA_VALUE );
+
+        Map<String, Object> expected = getValues( deA, 10d );
+        expected.putAll( getValues( deB, 20d ) );
+
+        assertEquals( expected, lookup.getCachedValues() );
+        assertFalse( lookup.hasMissingQuery() );
+        assertNull( lookup.getMissingQuery() );
+    }
+
+    @Test
+    public void testInvalidatePartitions()
+    {
+        fragmentCache.lookup( getQuery( deA ), DATA_VALUE ).store( getValues( deA, 10d ) );
+
+        fragmentCache.invalidatePartitions( "analytics", Sets.newHashSet( 2019 ) );
+
+        assertFalse( fragmentCache.lookup( getQuery( deA ), DATA_VALUE ).hasMissingQuery() );
+
+        fragmentCache.invalidatePartitions( "analytics", Sets.newHashSet( 2020 ) );
+
+        assertTrue( fragmentCache.lookup( getQuery( deA ), DATA_VALUE ).hasMissingQuery() );
+    }
+
+    @Test
+    public void testInvalidateTable()
+    {
+        fragmentCache.lookup( getQuery( deA ), DATA_VALUE ).store( getValues( deA, 10d ) );
+
+        fragmentCache.invalidateTable( "analytics" );
+
+        assertTrue( fragmentCache.lookup( getQuery( deA ), DATA_VALUE ).hasMissingQuery() );
+    }
+
+    private DataQueryParams getQuery( DataElement... dataElements )
+    {
+        return DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( dataElements ) )
+            .withOrganisationUnits( Lists.newArrayList( ouA ) )
+            .withTableName( "analytics" )
+            .withPartitions( new Partitions( Sets.newHashSet( 2020, 2021 ) ) )
+            .build();
+    }
+
+    private Map<String, Object> getValues( DataElement dataElement, Double value )
+    {
+        Map<String, Object> values = new HashMap<>();
+        values.put( dataElement.getUid() + "-" + ouA.getUid(), value );
+        return values;
+    }
+}
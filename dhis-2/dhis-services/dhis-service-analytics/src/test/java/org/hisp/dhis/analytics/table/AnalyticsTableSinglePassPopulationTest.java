@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableGenerator;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests that the single pass population of the data value analytics table
+ * enabled through {@link SettingKey#ANALYTICS_TABLE_SINGLE_PASS_POPULATION}
+ * produces the same table as the population by value type group.
+ */
+public class AnalyticsTableSinglePassPopulationTest
+    extends IntegrationTestBase
+{
+    private static final String ORG_UNITS = "ABCDE";
+
+    private static final String SUMMARY_SQL = "select count(*) as rowcount, sum(value) as valuesum, " +
+        "sum(daysxvalue) as daysxvaluesum, count(textvalue) as textcount from analytics";
+
+    @Autowired
+    private AnalyticsTableGenerator analyticsTableGenerator;
+
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private DataValueService dataValueService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private PeriodService periodService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void setUpTest()
+    {
+        CategoryOptionCombo coc = categoryService.getDefaultCategoryOptionCombo();
+
+        DataElement deA = createDataElement( 'A', ValueType.INTEGER, AggregationType.SUM );
+        DataElement deB = createDataElement( 'B', ValueType.NUMBER, AggregationType.AVERAGE );
+        DataElement deC = createDataElement( 'C', ValueType.BOOLEAN, AggregationType.SUM );
+        DataElement deD = createDataElement( 'D', ValueType.TRUE_ONLY, AggregationType.SUM );
+        DataElement deE = createDataElement( 'E', ValueType.TEXT, AggregationType.NONE );
+
+        dataElementService.addDataElement( deA );
+        dataElementService.addDataElement( deB );
+        dataElementService.addDataElement( deC );
+        dataElementService.addDataElement( deD );
+        dataElementService.addDataElement( deE );
+
+        List<Period> periods = new ArrayList<>();
+
+        for ( int month = 1; month <= 12; month++ )
+        {
+            Period period = createPeriod( String.format( "2020%02d", month ) );
+            periodService.addPeriod( period );
+            periods.add( period );
+        }
+
+        OrganisationUnit root = createOrganisationUnit( 'A' );
+        organisationUnitService.addOrganisationUnit( root );
+
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+        orgUnits.add( root );
+
+        for ( char c : ORG_UNITS.substring( 1 ).toCharArray() )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( c, root );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+        }
+
+        int i = 0;
+
+        for ( OrganisationUnit orgUnit : orgUnits )
+        {
+            for ( Period period : periods )
+            {
+                // Include zeros and invalid numbers which must be skipped
+
+                String number = i % 7 == 0 ? "0" : i % 11 == 0 ? "x" + i : String.valueOf( i );
+
+                dataValueService.addDataValue( createDataValue( deA, period, orgUnit, number, coc ) );
+                dataValueService.addDataValue( createDataValue( deB, period, orgUnit, number, coc ) );
+                dataValueService.addDataValue( createDataValue( deC, period, orgUnit,
+                    String.valueOf( i % 2 == 0 ), coc ) );
+                dataValueService.addDataValue( createDataValue( deD, period, orgUnit, "true", coc ) );
+                dataValueService.addDataValue( createDataValue( deE, period, orgUnit, "Text " + i, coc ) );
+
+                i++;
+            }
+        }
+    }
+
+    @Override
+    public void tearDownTest()
+    {
+        analyticsTableGenerator.dropTables();
+    }
+
+    @Test
+    public void testSinglePassPopulationEqualsValueTypeGroupPopulation()
+    {
+        generateTables( false, false );
+
+        Map<String, Object> expected = jdbcTemplate.queryForMap( SUMMARY_SQL );
+
+        assertTrue( ((Number) expected.get( "rowcount" )).longValue() > 0 );
+
+        generateTables( true, true );
+
+        assertEquals( expected, jdbcTemplate.queryForMap( SUMMARY_SQL ) );
+    }
+
+    private void generateTables( boolean singlePass, boolean skipResourceTables )
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ANALYTICS_TABLE_SINGLE_PASS_POPULATION, singlePass );
+
+        analyticsTableGenerator.generateTables( AnalyticsTableUpdateParams.newBuilder()
+            .withSkipResourceTables( skipResourceTables )
+            .withSkipTableTypes( EnumSet.complementOf( EnumSet.of( AnalyticsTableType.DATA_VALUE ) ) )
+            .build() );
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.AnalyticsIndex;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.ColumnDataType;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.notification.Notifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class DefaultAnalyticsTableServiceTest
+{
+    private static final List<Integer> YEARS = Lists.newArrayList( 2017, 2018, 2019, 2020 );
+
+    @Mock
+    private AnalyticsTableManager tableManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private DataElementService dataElementService;
+
+    @Mock
+    private ResourceTableService resourceTableService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private AnalyticsFragmentCache analyticsFragmentCache;
+
+    @Mock
+    private AnalyticsCache analyticsCache;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private ExecutorService executor;
+
+    private List<String> steps;
+
+    private AtomicInteger activePartitions;
+
+    private AtomicInteger maxActivePartitions;
+
+    private DefaultAnalyticsTableService subject;
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool( 3 );
+        steps = Collections.synchronizedList( new ArrayList<>() );
+        activePartitions = new AtomicInteger();
+        maxActivePartitions = new AtomicInteger();
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE,
+            Lists.newArrayList( new AnalyticsTableColumn( "ou", ColumnDataType.CHARACTER_11, "ou" ),
+                new AnalyticsTableColumn( "pe", ColumnDataType.CHARACTER_11, "pe" ) ),
+            Lists.newArrayList() );
+
+        YEARS.forEach( year -> table.addPartitionTable( year, null, null ) );
+
+        DataElement dataElement = new DataElement( "DataElementA" );
+        dataElement.setUid( "DataElemntA" );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS ) ).thenReturn( 5 );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_TABLE_PIPELINE_CONCURRENCY ) )
+            .thenReturn( 2 );
+        when( organisationUnitService.getNumberOfOrganisationalLevels() ).thenReturn( 2 );
+        when( dataElementService.getDataElementsByAggregationLevel( 2 ) )
+            .thenReturn( Lists.newArrayList( dataElement ) );
+
+        when( tableManager.getAnalyticsTableType() ).thenReturn( AnalyticsTableType.DATA_VALUE );
+        when( tableManager.getAnalyticsTables( any() ) ).thenReturn( Lists.newArrayList( table ) );
+
+        when( tableManager.populateTablesAsync( any(), any() ) ).thenAnswer( invocation -> {
+            String partition = getTempTableName( invocation.getArgument( 1 ) );
+            maxActivePartitions.accumulateAndGet( activePartitions.incrementAndGet(), Math::max );
+            return runAsync( "populate:" + partition );
+        } );
+        when( tableManager.applyAggregationLevels( any(), any(), anyInt() ) ).thenAnswer(
+            invocation -> runAsync( "aggregate:" + getTempTableName( invocation.getArgument( 0 ) ) ) );
+        when( tableManager.vacuumTablesAsync( any() ) ).thenAnswer(
+            invocation -> runAsync( "vacuum:" + getTempTableName( invocation.getArgument( 0 ) ) ) );
+        when( tableManager.createIndexesAsync( any() ) ).thenAnswer( invocation -> {
+            ConcurrentLinkedQueue<AnalyticsIndex> indexes = invocation.getArgument( 0 );
+            return CompletableFuture.runAsync( () -> {
+                AnalyticsIndex index;
+
+                while ( (index = indexes.poll()) != null )
+                {
+                    steps.add( "index:" + index.getTable() );
+                }
+            }, executor );
+        } );
+        doAnswer( invocation -> {
+            steps.add( "analyze:" + invocation.getArgument( 0 ) );
+            activePartitions.decrementAndGet();
+            return null;
+        } ).when( tableManager ).analyzeTable( anyString() );
+        doAnswer( invocation -> steps.add( "hooks" ) ).when( tableManager ).invokeAnalyticsTableSqlHooks();
+
+        subject = new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+            resourceTableService, notifier, systemSettingManager, analyticsFragmentCache, analyticsCache );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPartitionStepsAreOrdered()
+    {
+        subject.update( AnalyticsTableUpdateParams.newBuilder().build() );
+
+        for ( Integer year : YEARS )
+        {
+            String partition = "analytics_temp_" + year;
+
+            int populate = steps.indexOf( "populate:" + partition );
+            int aggregate = steps.indexOf( "aggregate:" + partition );
+            int vacuum = steps.indexOf( "vacuum:" + partition );
+            int index = steps.indexOf( "index:" + partition );
+            int lastIndex = steps.lastIndexOf( "index:" + partition );
+            int analyze = steps.indexOf( "analyze:" + partition );
+
+            assertTrue( populate >= 0 );
+            assertTrue( populate < aggregate );
+            assertTrue( aggregate < vacuum );
+            assertTrue( vacuum < index );
+            assertTrue( lastIndex < analyze );
+            assertEquals( 2, Collections.frequency( steps, "index:" + partition ) );
+        }
+
+        assertTrue( maxActivePartitions.get() <= 2 );
+        assertEquals( 0, activePartitions.get() );
+    }
+
+    @Test
+    public void testPartitionsArePopulatedBeforeHooks()
+    {
+        when( tableManager.hasAnalyticsTableSqlHooks() ).thenReturn( true );
+
+        subject.update( AnalyticsTableUpdateParams.newBuilder().build() );
+
+        int hooks = steps.indexOf( "hooks" );
+
+        assertTrue( hooks > 0 );
+
+        for ( Integer year : YEARS )
+        {
+            String partition = "analytics_temp_" + year;
+
+            assertTrue( steps.indexOf( "populate:" + partition ) < hooks );
+            assertTrue( steps.indexOf( "aggregate:" + partition ) > hooks );
+            assertTrue( steps.indexOf( "aggregate:" + partition ) < steps.indexOf( "analyze:" + partition ) );
+        }
+    }
+
+    private CompletableFuture<?> runAsync( String step )
+    {
+        return CompletableFuture.runAsync( () -> steps.add( step ), executor );
+    }
+
+    private String getTempTableName( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return partitions.peek().getTempTableName();
+    }
+}
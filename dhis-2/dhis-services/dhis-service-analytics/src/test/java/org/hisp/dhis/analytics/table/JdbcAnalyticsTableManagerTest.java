@@ -28,14 +28,22 @@
 package org.hisp.dhis.analytics.table;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -43,6 +51,7 @@ import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.dataapproval.DataApprovalLevelService;
@@ -56,6 +65,7 @@ import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -77,6 +87,9 @@ public class JdbcAnalyticsTableManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private PartitionManager partitionManager;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -89,7 +102,7 @@ public class JdbcAnalyticsTableManagerTest
             mock( OrganisationUnitService.class ),
             mock( CategoryService.class ), systemSettingManager, mock( DataApprovalLevelService.class ),
             mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), mock( StatementBuilder.class ),
-            mock( PartitionManager.class ), mock( DatabaseInfo.class ), jdbcTemplate );
+            partitionManager, mock( DatabaseInfo.class ), jdbcTemplate );
     }
 
     @Test
@@ -168,6 +181,155 @@ public class JdbcAnalyticsTableManagerTest
         assertEquals( startTime, partition.getEndDate() );
     }
 
+    @Test
+    public void testGetIncrementalAnalyticsTable()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) )
+            .thenReturn( lastLatestPartitionUpdate );
+        when( jdbcTemplate.queryForList( Mockito.contains( "dv.lastupdated >= ?" ), Mockito.eq( Integer.class ),
+            Mockito.eq( lastLatestPartitionUpdate ), Mockito.eq( startTime ) ) )
+                .thenReturn( Lists.newArrayList( 2017, 2019 ) );
+        when( partitionManager.tableExists( "analytics_2017" ) ).thenReturn( true );
+        when( partitionManager.tableExists( "analytics_2019" ) ).thenReturn( false );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+
+        assertEquals( 1, tables.size() );
+
+        AnalyticsTable table = tables.get( 0 );
+
+        assertEquals( 2, table.getTablePartitions().size() );
+        assertNull( table.getLatestPartition() );
+
+        AnalyticsTablePartition partitionA = table.getTablePartitions().get( 0 );
+        AnalyticsTablePartition partitionB = table.getTablePartitions().get( 1 );
+
+        assertEquals( 2017, partitionA.getYear().intValue() );
+        assertFalse( partitionA.isNewPartition() );
+        assertEquals( 2019, partitionB.getYear().intValue() );
+        assertTrue( partitionB.isNewPartition() );
+    }
+
+    @Test
+    public void testApplyIncrementalUpdateAttachesNewYear()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( lastFullTableUpdate );
+        when( jdbcTemplate.queryForList( Mockito.contains( "dv.lastupdated >= ?" ), Mockito.eq( Integer.class ),
+            Mockito.eq( lastFullTableUpdate ), Mockito.eq( startTime ) ) )
+                .thenReturn( Lists.newArrayList( 2017, 2019 ) );
+        when( partitionManager.tableExists( "analytics_2017" ) ).thenReturn( true );
+        when( partitionManager.tableExists( "analytics_2019" ) ).thenReturn( false );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+
+        List<String> columns = ListUtils.union( tables.get( 0 ).getDimensionColumns(),
+            tables.get( 0 ).getValueColumns() ).stream()
+            .map( col -> StringUtils.strip( col.getName(), "\"" ) )
+            .collect( Collectors.toList() );
+
+        when( jdbcTemplate.queryForList( Mockito.contains( "information_schema.columns" ),
+            Mockito.eq( String.class ), Mockito.eq( "analytics" ) ) ).thenReturn( columns );
+
+        subject.applyIncrementalUpdate( params, tables );
+
+        verify( jdbcTemplate ).execute( Mockito.startsWith( "insert into analytics_2017 " ) );
+        verify( jdbcTemplate, never() ).execute( Mockito.startsWith( "insert into analytics_2019 " ) );
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_2019 cascade;" +
+            "alter table analytics_temp_2019 rename to analytics_2019;" +
+            "alter table analytics attach partition analytics_2019 for values in (2019);" );
+    }
+
+    @Test
+    public void testPopulateTableByValueTypeGroup()
+    {
+        List<String> statements = populateTable( false );
+
+        assertEquals( 4, statements.size() );
+        assertTrue( statements.stream().noneMatch( sql -> sql.contains( "case when" ) ) );
+    }
+
+    @Test
+    public void testPopulateTableInSinglePass()
+    {
+        List<String> statements = populateTable( true );
+
+        assertEquals( 1, statements.size() );
+        assertTrue( statements.get( 0 ).contains( "case when" ) );
+    }
+
+    /**
+     * Populates the 2019 partition of the analytics table and returns the
+     * statements inserting into it.
+     *
+     * @param singlePass whether single pass population is enabled.
+     * @return the insert statements.
+     */
+    private List<String> populateTable( boolean singlePass )
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .build();
+
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>> any() ) )
+            .thenReturn( Lists.newArrayList( 2019 ) );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_TABLE_SINGLE_PASS_POPULATION ) )
+            .thenReturn( singlePass );
+        when( systemSettingManager.getSystemSetting( SettingKey.SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT ) )
+            .thenReturn( false );
+        when( systemSettingManager
+            .getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT ) )
+                .thenReturn( false );
+        when( systemSettingManager.getSystemSetting( SettingKey.IGNORE_ANALYTICS_APPROVAL_YEAR_THRESHOLD ) )
+            .thenReturn( 0 );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+
+        ((JdbcAnalyticsTableManager) subject).populateTable( params,
+            tables.get( 0 ).getTablePartitions().get( 0 ) );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+
+        verify( jdbcTemplate, atLeastOnce() ).execute( sql.capture() );
+
+        return sql.getAllValues().stream()
+            .filter( statement -> statement.startsWith( "insert into analytics_temp_2019 " ) )
+            .collect( Collectors.toList() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testGetIncrementalAnalyticsTableNoFullTableUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( null );
+
+        subject.getAnalyticsTables( params );
+    }
+
     @Test( expected = IllegalArgumentException.class )
     public void testGetLatestAnalyticsTableNoFullTableUpdate()
     {
@@ -29,10 +29,17 @@ package org.hisp.dhis.audit;
 
 import java.io.IOException;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
 import javax.jms.TextMessage;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -50,7 +57,90 @@ public abstract class AbstractAuditConsumer
 
     protected boolean isAuditDatabaseEnabled;
 
+    /**
+     * Receiver of the batching consumer mode, null if messages are consumed
+     * one by one by the JMS listener.
+     */
+    protected AuditBatchReceiver batchReceiver;
+
+    /**
+     * Sets up the batching consumer mode if enabled. In batching mode the JMS
+     * listener containers of the audit topics are not started, see
+     * ArtemisConfig.
+     *
+     * @param topic the topic to consume.
+     * @param connectionFactory the JMS {@link ConnectionFactory}.
+     * @param dhisConfig the {@link DhisConfigurationProvider}.
+     */
+    protected void initBatchReceiver( String topic, ConnectionFactory connectionFactory,
+        DhisConfigurationProvider dhisConfig )
+    {
+        if ( dhisConfig.isEnabled( ConfigurationKey.AUDIT_CONSUMER_BATCH_ENABLED ) )
+        {
+            int maxBatchSize = Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_SIZE ) );
+            long maxDelay = Long.parseLong( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_DELAY ) );
+
+            this.batchReceiver = new AuditBatchReceiver( connectionFactory, topic, maxBatchSize, maxDelay,
+                this::toAudit, audits -> {
+                    if ( isAuditDatabaseEnabled )
+                    {
+                        auditService.addAudits( audits );
+                    }
+                } );
+        }
+    }
+
+    @PostConstruct
+    public void startBatchReceiver()
+    {
+        if ( batchReceiver != null )
+        {
+            batchReceiver.start();
+        }
+    }
+
+    @PreDestroy
+    public void stopBatchReceiver()
+    {
+        if ( batchReceiver != null )
+        {
+            batchReceiver.stop();
+        }
+    }
+
+    public AuditBatchReceiver getBatchReceiver()
+    {
+        return batchReceiver;
+    }
+
     protected void _consume( TextMessage message )
+    {
+        org.hisp.dhis.audit.Audit audit = toAudit( message );
+
+        if ( audit == null || !isAuditDatabaseEnabled )
+        {
+            return;
+        }
+
+        try
+        {
+            auditService.addAudit( audit );
+        }
+        catch ( Exception e )
+        {
+            log.error( "An error occurred persisting an Audit message of type 'TRACKER'", e );
+        }
+    }
+
+    /**
+     * De-serializes the given message to an {@link Audit}, and logs it if the
+     * audit logger is enabled.
+     *
+     * @param message the {@link TextMessage}.
+     * @return the {@link Audit}, or null if the message can not be
+     *         de-serialized.
+     */
+    protected org.hisp.dhis.audit.Audit toAudit( TextMessage message )
     {
         try
         {
@@ -69,12 +159,9 @@ public abstract class AbstractAuditConsumer
                 log.info( objectMapper.writeValueAsString( audit ) );
             }
 
-            if ( isAuditDatabaseEnabled )
-            {
-                auditService.addAudit( audit );
-            }
+            return audit;
         }
-        catch ( IOException e )
+        catch ( IOException | JMSException e )
         {
             log.error(
                 "An error occurred de-serializing the message payload. The message can not be de-serialized to an Audit object.",
@@ -82,7 +169,9 @@ public abstract class AbstractAuditConsumer
         }
         catch ( Exception e )
         {
-            log.error( "An error occurred persisting an Audit message of type 'TRACKER'", e );
+            log.error( "An error occurred converting an Audit message", e );
         }
+
+        return null;
     }
 }
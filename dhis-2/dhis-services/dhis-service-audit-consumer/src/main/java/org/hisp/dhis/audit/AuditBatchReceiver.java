@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives audit messages of a topic in micro-batches and persists each batch
+ * with a single write. A batch is closed when it holds the max number of
+ * messages, or when the max delay has passed since its first message was
+ * received.
+ * <p>
+ * Messages are received in a transacted JMS session, which is committed after
+ * the batch has been persisted, so a message is only acknowledged once its
+ * audit is stored. If persisting the batch fails, its audits are persisted one
+ * at a time, and audits which still fail are logged and skipped, so that a
+ * single bad audit does not hold back the rest of the batch. If no audit of
+ * the batch can be persisted, the session is rolled back and the messages are
+ * redelivered by the broker, until they are moved to the dead letter queue.
+ * Delivery is at-least-once: a failing commit after a successful write causes
+ * the batch to be persisted again.
+ */
+@Slf4j
+public class AuditBatchReceiver
+    implements Runnable
+{
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final String topic;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayMillis;
+
+    private final Function<TextMessage, Audit> converter;
+
+    private final Consumer<List<Audit>> writer;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final AtomicLong messageCount = new AtomicLong();
+
+    private final AtomicLong failedBatchCount = new AtomicLong();
+
+    private final AtomicLong skippedAuditCount = new AtomicLong();
+
+    private final AtomicLong lastBatchSize = new AtomicLong();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public AuditBatchReceiver( ConnectionFactory connectionFactory, String topic, int maxBatchSize,
+        long maxDelayMillis, Function<TextMessage, Audit> converter, Consumer<List<Audit>> writer )
+    {
+        this.connectionFactory = connectionFactory;
+        this.topic = topic;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.converter = converter;
+        this.writer = writer;
+    }
+
+    public synchronized void start()
+    {
+        if ( running )
+        {
+            return;
+        }
+
+        running = true;
+        thread = new Thread( this, "AUDIT-BATCH-" + topic );
+        thread.setDaemon( true );
+        thread.start();
+
+        log.info( "Started batched audit consumer of topic '{}' with max batch size {} and max delay {} ms",
+            topic, maxBatchSize, maxDelayMillis );
+    }
+
+    public synchronized void stop()
+    {
+        running = false;
+
+        if ( thread != null )
+        {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        while ( running )
+        {
+            try ( Connection connection = connectionFactory.createConnection() )
+            {
+                Session session = connection.createSession( true, Session.SESSION_TRANSACTED );
+                MessageConsumer consumer = session.createConsumer( session.createTopic( topic ) );
+                connection.start();
+
+                while ( running )
+                {
+                    receiveBatch( session, consumer );
+                }
+            }
+            catch ( JMSException ex )
+            {
+                if ( running )
+                {
+                    log.error( "Batched audit consumer of topic '" + topic + "' failed, reconnecting", ex );
+
+                    sleep( RECONNECT_DELAY_MILLIS );
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives, persists and acknowledges a single batch. Returns without
+     * doing anything if no message arrives within the max delay.
+     */
+    private void receiveBatch( Session session, MessageConsumer consumer )
+        throws JMSException
+    {
+        Message message = consumer.receive( maxDelayMillis );
+
+        if ( message == null )
+        {
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + maxDelayMillis;
+        long oldestTimestamp = message.getJMSTimestamp();
+        List<Audit> audits = new ArrayList<>( maxBatchSize );
+        int received = 0;
+
+        while ( message != null )
+        {
+            received++;
+            oldestTimestamp = Math.min( oldestTimestamp, message.getJMSTimestamp() );
+
+            Audit audit = message instanceof TextMessage ? converter.apply( (TextMessage) message ) : null;
+
+            if ( audit != null )
+            {
+                audits.add( audit );
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+
+            message = received < maxBatchSize && remaining > 0 ? consumer.receive( remaining ) : null;
+        }
+
+        try
+        {
+            if ( !audits.isEmpty() )
+            {
+                writer.accept( audits );
+            }
+
+            session.commit();
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( "Persisting a batch of " + audits.size() + " audits of topic '" + topic
+                + "' failed, persisting audits one at a time", ex );
+
+            failedBatchCount.incrementAndGet();
+
+            int skipped = persistEach( audits );
+
+            if ( skipped == audits.size() )
+            {
+                log.error( "No audit of the failed batch of topic '{}' could be persisted, "
+                    + "messages will be redelivered", topic );
+
+                session.rollback();
+
+                return;
+            }
+
+            skippedAuditCount.addAndGet( skipped );
+            session.commit();
+        }
+
+        batchCount.incrementAndGet();
+        messageCount.addAndGet( received );
+        lastBatchSize.set( received );
+
+        if ( oldestTimestamp > 0 )
+        {
+            lagMillis.set( System.currentTimeMillis() - oldestTimestamp );
+        }
+    }
+
+    /**
+     * Persists the given audits one at a time, skipping audits which fail.
+     *
+     * @param audits the audits to persist.
+     * @return the number of audits which failed and were skipped.
+     */
+    private int persistEach( List<Audit> audits )
+    {
+        int skipped = 0;
+
+        for ( Audit audit : audits )
+        {
+            try
+            {
+                writer.accept( Collections.singletonList( audit ) );
+            }
+            catch ( RuntimeException ex )
+            {
+                log.error( "Persisting audit of topic '" + topic + "' failed, skipping audit of type: '"
+                    + audit.getAuditType() + "', class: '" + audit.getKlass() + "', uid: '" + audit.getUid() + "'",
+                    ex );
+
+                skipped++;
+            }
+        }
+
+        return skipped;
+    }
+
+    private void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics accessors
+    // -------------------------------------------------------------------------
+
+    public String getTopic()
+    {
+        return topic;
+    }
+
+    /**
+     * @return the number of batches persisted and acknowledged.
+     */
+    public long getBatchCount()
+    {
+        return batchCount.get();
+    }
+
+    /**
+     * @return the number of messages persisted and acknowledged.
+     */
+    public long getMessageCount()
+    {
+        return messageCount.get();
+    }
+
+    /**
+     * @return the number of batches which failed to persist as a whole.
+     */
+    public long getFailedBatchCount()
+    {
+        return failedBatchCount.get();
+    }
+
+    /**
+     * @return the number of audits which could not be persisted and were
+     *         skipped.
+     */
+    public long getSkippedAuditCount()
+    {
+        return skippedAuditCount.get();
+    }
+
+    /**
+     * @return the number of messages of the last persisted batch.
+     */
+    public long getLastBatchSize()
+    {
+        return lastBatchSize.get();
+    }
+
+    /**
+     * @return the time between publishing the oldest message of the last
+     *         persisted batch and its acknowledgement, in milliseconds.
+     */
+    public long getLagMillis()
+    {
+        return lagMillis.get();
+    }
+}
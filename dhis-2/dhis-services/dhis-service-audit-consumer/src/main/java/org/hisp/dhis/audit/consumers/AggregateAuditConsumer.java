@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.audit.consumers;
 
+import javax.jms.ConnectionFactory;
 import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
@@ -49,16 +50,19 @@ public class AggregateAuditConsumer
     public AggregateAuditConsumer(
         AuditService auditService,
         ObjectMapper objectMapper,
-        DhisConfigurationProvider dhisConfig )
+        DhisConfigurationProvider dhisConfig,
+        ConnectionFactory connectionFactory )
     {
         this.auditService = auditService;
         this.objectMapper = objectMapper;
 
         this.isAuditLogEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_LOGGER );
         this.isAuditDatabaseEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_DATABASE );
+
+        initBatchReceiver( Topics.AGGREGATE_TOPIC_NAME, connectionFactory, dhisConfig );
     }
 
-    @JmsListener( destination = Topics.AGGREGATE_TOPIC_NAME )
+    @JmsListener( destination = Topics.AGGREGATE_TOPIC_NAME, containerFactory = "jmsAuditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         _consume( message );
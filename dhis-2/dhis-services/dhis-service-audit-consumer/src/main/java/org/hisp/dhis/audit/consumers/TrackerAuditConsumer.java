@@ -29,6 +29,7 @@ package org.hisp.dhis.audit.consumers;
 
 import java.util.Objects;
 
+import javax.jms.ConnectionFactory;
 import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
@@ -53,7 +54,8 @@ public class TrackerAuditConsumer
     public TrackerAuditConsumer(
         AuditService auditService,
         ObjectMapper objectMapper,
-        DhisConfigurationProvider dhisConfig )
+        DhisConfigurationProvider dhisConfig,
+        ConnectionFactory connectionFactory )
     {
         this.auditService = auditService;
         this.objectMapper = objectMapper;
@@ -63,9 +65,11 @@ public class TrackerAuditConsumer
         this.isAuditLogEnabled = Objects
             .equals( dhisConfig.getPropertyOrDefault( ConfigurationKey.AUDIT_LOGGER, "off" ), "on" );
         this.isAuditDatabaseEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_DATABASE );
+
+        initBatchReceiver( Topics.TRACKER_TOPIC_NAME, connectionFactory, dhisConfig );
     }
 
-    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME )
+    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME, containerFactory = "jmsAuditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         _consume( message );
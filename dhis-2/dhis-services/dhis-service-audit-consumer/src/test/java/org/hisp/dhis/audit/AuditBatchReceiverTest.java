@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQJMSConnectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link AuditBatchReceiver} against an embedded broker.
+ */
+public class AuditBatchReceiverTest
+{
+    private static final String TOPIC = "audit.test";
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private EmbeddedActiveMQ server;
+
+    private ConnectionFactory connectionFactory;
+
+    private AuditBatchReceiver receiver;
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        server = new EmbeddedActiveMQ();
+        server.setConfiguration( new ConfigurationImpl()
+            .addAcceptorConfiguration( "in-vm", "vm://0" )
+            .setSecurityEnabled( false )
+            .setPersistenceEnabled( false ) );
+        server.start();
+
+        connectionFactory = new ActiveMQJMSConnectionFactory( "vm://0" );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        if ( receiver != null )
+        {
+            receiver.stop();
+        }
+
+        server.stop();
+    }
+
+    @Test
+    public void testBatchClosedAtMaxSize()
+        throws Exception
+    {
+        startReceiver( 5, TIMEOUT_MILLIS, this::store );
+
+        publish( "a", "b", "c", "d", "e", "f", "g", "h", "i", "j" );
+
+        await( () -> receiver.getMessageCount() == 10 );
+
+        assertEquals( Arrays.asList( "a", "b", "c", "d", "e" ), batches.get( 0 ) );
+        assertEquals( Arrays.asList( "f", "g", "h", "i", "j" ), batches.get( 1 ) );
+        assertEquals( 2, receiver.getBatchCount() );
+        assertEquals( 5, receiver.getLastBatchSize() );
+    }
+
+    @Test
+    public void testBatchClosedAtMaxDelay()
+        throws Exception
+    {
+        startReceiver( 100, 200, this::store );
+
+        publish( "a", "b", "c" );
+
+        await( () -> receiver.getMessageCount() == 3 );
+
+        assertEquals( 1, batches.size() );
+        assertEquals( Arrays.asList( "a", "b", "c" ), batches.get( 0 ) );
+        assertEquals( 1, receiver.getBatchCount() );
+    }
+
+    @Test
+    public void testBatchRolledBackAndRedeliveredWhenNoAuditPersisted()
+        throws Exception
+    {
+        AtomicInteger failures = new AtomicInteger( 4 );
+
+        startReceiver( 3, TIMEOUT_MILLIS, audits -> {
+            if ( failures.getAndDecrement() > 0 )
+            {
+                throw new IllegalStateException( "Database unavailable" );
+            }
+
+            store( audits );
+        } );
+
+        publish( "a", "b", "c" );
+
+        await( () -> receiver.getMessageCount() == 3 );
+
+        assertEquals( 1, batches.size() );
+        assertEquals( Arrays.asList( "a", "b", "c" ), batches.get( 0 ) );
+        assertEquals( 1, receiver.getFailedBatchCount() );
+        assertEquals( 0, receiver.getSkippedAuditCount() );
+    }
+
+    @Test
+    public void testBadAuditSkippedAndRestOfBatchAcknowledged()
+        throws Exception
+    {
+        startReceiver( 3, 1000, audits -> {
+            if ( audits.stream().anyMatch( audit -> "bad".equals( audit.getUid() ) ) )
+            {
+                throw new IllegalStateException( "Invalid audit" );
+            }
+
+            store( audits );
+        } );
+
+        publish( "a", "bad", "c" );
+
+        await( () -> receiver.getMessageCount() == 3 );
+
+        publish( "d" );
+
+        await( () -> receiver.getMessageCount() == 4 );
+
+        assertEquals( Arrays.asList( Arrays.asList( "a" ), Arrays.asList( "c" ), Arrays.asList( "d" ) ), batches );
+        assertEquals( 1, receiver.getFailedBatchCount() );
+        assertEquals( 1, receiver.getSkippedAuditCount() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void startReceiver( int maxBatchSize, long maxDelayMillis, Consumer<List<Audit>> writer )
+        throws Exception
+    {
+        receiver = new AuditBatchReceiver( connectionFactory, TOPIC, maxBatchSize, maxDelayMillis,
+            this::toAudit, writer );
+        receiver.start();
+
+        await( () -> hasSubscription( TOPIC ) );
+    }
+
+    private void store( List<Audit> audits )
+    {
+        batches.add( audits.stream().map( Audit::getUid ).collect( Collectors.toList() ) );
+    }
+
+    private Audit toAudit( TextMessage message )
+    {
+        try
+        {
+            return Audit.builder()
+                .auditType( AuditType.CREATE )
+                .auditScope( AuditScope.AGGREGATE )
+                .uid( message.getText() )
+                .build();
+        }
+        catch ( JMSException ex )
+        {
+            throw new IllegalStateException( ex );
+        }
+    }
+
+    private void publish( String... uids )
+        throws JMSException
+    {
+        try ( Connection connection = connectionFactory.createConnection() )
+        {
+            Session session = connection.createSession( false, Session.AUTO_ACKNOWLEDGE );
+            MessageProducer producer = session.createProducer( session.createTopic( TOPIC ) );
+
+            for ( String uid : uids )
+            {
+                producer.send( session.createTextMessage( uid ) );
+            }
+        }
+    }
+
+    private boolean hasSubscription( String topic )
+    {
+        try
+        {
+            return !server.getActiveMQServer().bindingQuery( SimpleString.toSimpleString( topic ) )
+                .getQueueNames().isEmpty();
+        }
+        catch ( Exception ex )
+        {
+            return false;
+        }
+    }
+
+    private static void await( BooleanSupplier condition )
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while ( !condition.getAsBoolean() )
+        {
+            assertTrue( "Condition not met within timeout", System.currentTimeMillis() < deadline );
+
+            Thread.sleep( 20 );
+        }
+    }
+}
@@ -495,6 +495,37 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
         return result;
     }
 
+    @Override
+    public List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues )
+    {
+        if ( dataValues.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String keys = dataValues.stream()
+            .map( dv -> "(" + dv.getDataElement().getId() + "," + dv.getPeriod().getId() + "," +
+                dv.getSource().getId() + "," + dv.getCategoryOptionCombo().getId() + "," +
+                dv.getAttributeOptionCombo().getId() + ")" )
+            .collect( Collectors.joining( "," ) );
+
+        String sql = "select dv.dataelementid, dv.periodid, dv.sourceid" +
+            ", dv.categoryoptioncomboid, dv.attributeoptioncomboid, dv.value" +
+            ", dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted" +
+            " from datavalue dv" +
+            " where (dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid" +
+            ", dv.attributeoptioncomboid) in (" + keys + ")";
+
+        List<DeflatedDataValue> result = jdbcTemplate.query( sql, ( rs, rowNum ) -> new DeflatedDataValue(
+            rs.getInt( 1 ), rs.getInt( 2 ), rs.getInt( 3 ), rs.getInt( 4 ), rs.getInt( 5 ),
+            rs.getString( 6 ), rs.getString( 7 ), rs.getTimestamp( 8 ), rs.getTimestamp( 9 ),
+            rs.getString( 10 ), rs.getBoolean( 11 ), rs.getBoolean( 12 ) ) );
+
+        log.debug( "{} deflated data values returned for {} data values", result.size(), dataValues.size() );
+
+        return result;
+    }
+
     @Override
     public int getDataValueCountLastUpdatedBetween( Date startDate, Date endDate, boolean includeDeleted )
     {
@@ -67,6 +67,7 @@ import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.STDDEV_SAMP
 import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.SUM;
 import static org.springframework.util.ObjectUtils.isEmpty;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -83,7 +84,6 @@ import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.analytics.DataType;
-import org.hisp.dhis.antlr.Parser;
 import org.hisp.dhis.antlr.ParserException;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
@@ -114,6 +114,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
 import org.hisp.dhis.parser.expression.ExpressionItem;
 import org.hisp.dhis.parser.expression.ExpressionItemMethod;
+import org.hisp.dhis.parser.expression.ParseTreeCache;
 import org.hisp.dhis.parser.expression.function.VectorAvg;
 import org.hisp.dhis.parser.expression.function.VectorCount;
 import org.hisp.dhis.parser.expression.function.VectorMax;
@@ -360,13 +361,46 @@ public class DefaultExpressionService
             return null;
         }
 
+        return getIndicatorValueObject( indicator, periods, IndicatorValueInput.toItemValueMap( valueMap ),
+            constantMap, orgUnitCountMap );
+    }
+
+    @Override
+    public List<IndicatorValue> getIndicatorValueObjects( Indicator indicator, List<IndicatorValueInput> inputs,
+        Map<String, Constant> constantMap )
+    {
+        List<IndicatorValue> values = new ArrayList<>( inputs.size() );
+
+        boolean valid = indicator != null && indicator.getNumerator() != null && indicator.getDenominator() != null;
+
+        for ( IndicatorValueInput input : inputs )
+        {
+            values.add( valid
+                ? getIndicatorValueObject( indicator, input.getPeriods(), input.getItemValueMap(), constantMap,
+                    input.getOrgUnitCountMap() )
+                : null );
+        }
+
+        return values;
+    }
+
+    /**
+     * Generates the calculated value of an indicator for values which are
+     * keyed by item identifier.
+     */
+    private IndicatorValue getIndicatorValueObject( Indicator indicator, List<Period> periods,
+        Map<String, Double> itemValueMap, Map<String, Constant> constantMap,
+        Map<String, Integer> orgUnitCountMap )
+    {
         Integer days = periods != null ? getDaysFromPeriods( periods ) : null;
 
-        Double denominatorValue = getExpressionValue( indicator.getDenominator(), INDICATOR_EXPRESSION,
-            valueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING );
+        Double denominatorValue = castDouble( getExpressionValue( indicator.getDenominator(),
+            INDICATOR_EXPRESSION, itemValueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING,
+            DEFAULT_SAMPLE_PERIODS, new MapMap<>() ) );
 
-        Double numeratorValue = getExpressionValue( indicator.getNumerator(), INDICATOR_EXPRESSION,
-            valueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING );
+        Double numeratorValue = castDouble( getExpressionValue( indicator.getNumerator(),
+            INDICATOR_EXPRESSION, itemValueMap, constantMap, orgUnitCountMap, days, SKIP_IF_ALL_VALUES_MISSING,
+            DEFAULT_SAMPLE_PERIODS, new MapMap<>() ) );
 
         if ( denominatorValue != null && denominatorValue != 0d && numeratorValue != null )
         {
@@ -586,11 +620,35 @@ public class DefaultExpressionService
             return null;
         }
 
+        return getExpressionValue( expression, parseType, IndicatorValueInput.toItemValueMap( valueMap ),
+            constantMap, orgUnitCountMap, days, missingValueStrategy, samplePeriods,
+            convertToIdentifierPeriodMap( periodValueMap ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Generates the value of an expression for values which are keyed by item
+     * identifier.
+     */
+    private Object getExpressionValue( String expression, ParseType parseType,
+        Map<String, Double> itemValueMap, Map<String, Constant> constantMap,
+        Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy,
+        List<Period> samplePeriods, MapMap<Period, String, Double> periodItemValueMap )
+    {
+        if ( isEmpty( expression ) )
+        {
+            return null;
+        }
+
         CommonExpressionVisitor visitor = newVisitor( parseType, ITEM_EVALUATE,
             samplePeriods, constantMap, missingValueStrategy );
 
-        visitor.setItemValueMap( convertToIdentifierMap( valueMap ) );
-        visitor.setPeriodItemValueMap( convertToIdentifierPeriodMap( periodValueMap ) );
+        visitor.setItemValueMap( itemValueMap );
+        visitor.setPeriodItemValueMap( periodItemValueMap );
         visitor.setOrgUnitCountMap( orgUnitCountMap );
 
         if ( days != null )
@@ -637,10 +695,6 @@ public class DefaultExpressionService
         return value;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
-
     /**
      * Gets the (possibly cached) constant map.
      *
@@ -710,7 +764,7 @@ public class DefaultExpressionService
     {
         try
         {
-            Object result = Parser.visit( expression, visitor );
+            Object result = ParseTreeCache.visit( expression, visitor );
 
             switch ( dataType )
             {
@@ -814,28 +868,6 @@ public class DefaultExpressionService
             .mapToInt( Period::getDaysInPeriod ).sum();
     }
 
-    /**
-     * Converts a Map of {@see DimensionalItemObject} and values into a Map of
-     * {@see DimensionalItemObject} identifier and value.
-     *
-     * If the {@see DimensionalItemObject} has a Period offset set, the value of
-     * the offset is added to the Map key:
-     *
-     * [identifier.periodOffset]
-     *
-     *
-     * @param valueMap a Map
-     * @return a Map of DimensionalItemObject and value
-     */
-    private Map<String, Double> convertToIdentifierMap( Map<DimensionalItemObject, Double> valueMap )
-    {
-        return valueMap.entrySet().stream().collect(
-            Collectors.toMap(
-                e -> e.getKey().getDimensionItem()
-                    + (e.getKey().getPeriodOffset() == 0 ? "" : "." + e.getKey().getPeriodOffset()),
-                Map.Entry::getValue ) );
-    }
-
     /**
      * Converts a Map of Maps of {@see Period}, {@see DimensionalItemObject} and
      * values into a Map of Maps of {@see Period}, {@see DimensionalItemObject}
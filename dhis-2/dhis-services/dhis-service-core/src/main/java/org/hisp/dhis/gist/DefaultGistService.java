@@ -27,39 +27,52 @@
  */
 package org.hisp.dhis.gist;
 
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static org.hisp.dhis.gist.GistBuilder.createCountBuilder;
 import static org.hisp.dhis.gist.GistBuilder.createFetchBuilder;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import lombok.AllArgsConstructor;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.gist.GistQuery.Field;
+import org.hisp.dhis.gist.GistQuery.Filter;
+import org.hisp.dhis.gist.GistQuery.Order;
+import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.RelativePropertyContext;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
 
 /**
  * @author Jan Bernitt
  */
 @Service
-@AllArgsConstructor
 public class DefaultGistService implements GistService
 {
 
@@ -81,6 +94,35 @@ public class DefaultGistService implements GistService
 
     private final ObjectMapper jsonMapper;
 
+    private final GistChangeTracker changeTracker;
+
+    /**
+     * Results of queries by their {@link #getETag(GistQuery)}.
+     */
+    private final Cache<List<?>> resultCache;
+
+    /**
+     * The {@link GistChangeTracker} only observes changes made on this
+     * instance so results can only be cached when not running in a cluster.
+     */
+    private final boolean resultCacheEnabled;
+
+    public DefaultGistService( SessionFactory sessionFactory, SchemaService schemaService,
+        UserService userService, CurrentUserService currentUserService, AclService aclService,
+        ObjectMapper jsonMapper, GistChangeTracker changeTracker, CacheProvider cacheProvider,
+        DhisConfigurationProvider dhisConfig )
+    {
+        this.sessionFactory = sessionFactory;
+        this.schemaService = schemaService;
+        this.userService = userService;
+        this.currentUserService = currentUserService;
+        this.aclService = aclService;
+        this.jsonMapper = jsonMapper;
+        this.changeTracker = changeTracker;
+        this.resultCache = cacheProvider.createGistResultCache();
+        this.resultCacheEnabled = !dhisConfig.isClusterEnabled();
+    }
+
     private Session getSession()
     {
         return sessionFactory.getCurrentSession();
@@ -94,6 +136,37 @@ public class DefaultGistService implements GistService
 
     @Override
     public List<?> gist( GistQuery query )
+    {
+        String eTag = getETag( query );
+
+        if ( eTag == null )
+        {
+            return fetch( query );
+        }
+
+        return resultCache.get( eTag, key -> fetch( query ) ).orElse( emptyList() );
+    }
+
+    @Override
+    public String getETag( GistQuery query )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        if ( !resultCacheEnabled || user == null || isRelativeToNow( query ) )
+        {
+            return null;
+        }
+
+        // NB. the version must be read before the query is run so that a
+        // change committed in between results in a different tag
+        String key = changeTracker.getVersion( getInvolvedTypes( query ) )
+            + "|" + getAccessKey( user )
+            + "|" + getQueryKey( query );
+
+        return Hashing.sha256().hashString( key, StandardCharsets.UTF_8 ).toString();
+    }
+
+    private List<?> fetch( GistQuery query )
     {
         GistAccessControl access = createGistAccessControl();
         RelativePropertyContext context = createPropertyContext( query );
@@ -206,6 +279,86 @@ public class DefaultGistService implements GistService
         return description;
     }
 
+    private static boolean isRelativeToNow( GistQuery query )
+    {
+        return query.getFilters().stream()
+            .anyMatch( filter -> Arrays.asList( filter.getValue() ).contains( NOW_PARAMETER_VALUE ) );
+    }
+
+    /**
+     * The types whose changes might change the result of the query: the
+     * element type, the owner type and the types of all properties on the paths
+     * used by fields, filters and orders. Fields that are not properties are
+     * derived from the element itself.
+     */
+    private Set<Class<?>> getInvolvedTypes( GistQuery query )
+    {
+        Set<Class<?>> types = new HashSet<>();
+        types.add( query.getElementType() );
+
+        if ( query.getOwner() != null )
+        {
+            types.add( query.getOwner().getType() );
+        }
+
+        RelativePropertyContext context = createPropertyContext( query );
+        Stream.of( query.getFields().stream().map( Field::getPropertyPath ),
+            query.getFilters().stream().map( Filter::getPropertyPath ),
+            query.getOrders().stream().map( Order::getPropertyPath ) )
+            .flatMap( paths -> paths )
+            .filter( path -> context.resolve( path ) != null )
+            .flatMap( path -> context.resolvePath( path ).stream() )
+            .forEach( property -> addPropertyTypes( property, types ) );
+
+        return types;
+    }
+
+    private static void addPropertyTypes( Property property, Set<Class<?>> types )
+    {
+        types.add( property.getKlass() );
+
+        if ( property.getItemKlass() != null )
+        {
+            types.add( property.getItemKlass() );
+        }
+    }
+
+    /**
+     * Users may see different results for the same query depending on their
+     * sharing, groups and authorities.
+     */
+    private static String getAccessKey( User user )
+    {
+        String groups = user.getGroups().stream().map( IdentifiableObject::getUid ).sorted()
+            .collect( joining( "," ) );
+        String authorities = user.getUserCredentials() == null ? ""
+            : user.getUserCredentials().getAllAuthorities().stream().sorted().collect( joining( "," ) );
+
+        return user.getUid() + ":" + groups + ":" + authorities;
+    }
+
+    private static String getQueryKey( GistQuery query )
+    {
+        return String.join( "|",
+            query.getElementType().getName(),
+            String.valueOf( query.getOwner() ),
+            query.getPageOffset() + "+" + query.getPageSize(),
+            String.valueOf( query.getContextRoot() ),
+            String.valueOf( query.getTranslationLocale() ),
+            query.isTotal() + "," + query.isInverse() + "," + query.isTranslate() + "," + query.isAbsoluteUrls()
+                + "," + query.isHeadless() + "," + query.isAnyFilter(),
+            String.valueOf( query.getAutoType() ),
+            query.getFields().stream().map( DefaultGistService::getFieldKey ).collect( joining( "," ) ),
+            query.getFilters().stream().map( Filter::toString ).collect( joining( "," ) ),
+            query.getOrders().stream().map( Order::toString ).collect( joining( "," ) ) );
+    }
+
+    private static String getFieldKey( Field field )
+    {
+        return field + "(" + field.getTransformationArgument() + ")~" + field.getAlias() + ":"
+            + field.isTranslate();
+    }
+
     private GistAccessControl createGistAccessControl()
     {
         return new DefaultGistAccessControl( currentUserService.getCurrentUser(), aclService, userService, this );
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.gist;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.hibernate.HibernateProxyUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the committed inserts, updates and deletes per entity type so that
+ * the {@link GistService} can tell if the result of a {@link GistQuery} might
+ * have changed without running the query.
+ *
+ * A change of an entity counts for its class as well as for all its super
+ * classes and interfaces since properties might refer to a more general type.
+ *
+ * The counters are kept in memory and only reflect the changes made through
+ * Hibernate on this server instance.
+ */
+@Slf4j
+@Component
+public class GistChangeTracker
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    /**
+     * As counters start from zero on each start of the server the start time
+     * is used to distinguish versions of different runs.
+     */
+    private final long epoch = System.currentTimeMillis();
+
+    private final Map<Class<?>, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, List<Class<?>>> typeHierarchies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    protected void init()
+    {
+        SessionFactoryImpl sessionFactory = emf.unwrap( SessionFactoryImpl.class );
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_INSERT ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_UPDATE ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_DELETE ).appendListener( this );
+    }
+
+    /**
+     * Returns the version of the data of the given types. The version changes
+     * whenever an entity of any of the types was inserted, updated or deleted.
+     *
+     * @param types the entity types to get the version for
+     * @return the version of the data of the given types
+     */
+    public String getVersion( Collection<Class<?>> types )
+    {
+        long changes = 0;
+
+        for ( Class<?> type : types )
+        {
+            AtomicLong counter = counters.get( type );
+
+            if ( counter != null )
+            {
+                changes += counter.get();
+            }
+        }
+
+        return epoch + "-" + changes;
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        countChange( event.getEntity() );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        countChange( event.getEntity() );
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        countChange( event.getEntity() );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+        log.debug( "onPostInsertCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+        log.debug( "onPostUpdateCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+        log.debug( "onPostDeleteCommitFailed: " + event );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return true;
+    }
+
+    private void countChange( Object entity )
+    {
+        if ( entity == null )
+        {
+            return;
+        }
+
+        for ( Class<?> type : typeHierarchies.computeIfAbsent( HibernateProxyUtils.getRealClass( entity ),
+            GistChangeTracker::getTypeHierarchy ) )
+        {
+            counters.computeIfAbsent( type, key -> new AtomicLong() ).incrementAndGet();
+        }
+    }
+
+    private static List<Class<?>> getTypeHierarchy( Class<?> type )
+    {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        hierarchy.add( type );
+        hierarchy.addAll( ClassUtils.getAllSuperclasses( type ) );
+        hierarchy.addAll( ClassUtils.getAllInterfaces( type ) );
+        return hierarchy;
+    }
+}
@@ -68,6 +68,18 @@ public interface GistService
      */
     List<?> gist( GistQuery query );
 
+    /**
+     * Computes a tag identifying the result of the given query for the current
+     * user. The tag changes whenever an entity of any of the types involved in
+     * the query was changed.
+     *
+     * @param query query to run and which has been {@link #plan(GistQuery)}ned
+     * @return the tag or {@code null} if the result of the query cannot be
+     *         identified by a tag (e.g. when it is relative to the current
+     *         time)
+     */
+    String getETag( GistQuery query );
+
     /**
      * Create a pager for the given {@link GistQuery}, its results rows and the
      * request params.
@@ -52,6 +52,7 @@ import org.hisp.dhis.configuration.ConfigurationService;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.hierarchy.HierarchyViolationException;
 import org.hisp.dhis.organisationunit.comparator.OrganisationUnitLevelComparator;
 import org.hisp.dhis.program.Program;
@@ -85,6 +86,15 @@ public class DefaultOrganisationUnitService
 
     private final Cache<Boolean> userCaptureOrgCountThresholdCache;
 
+    private volatile OrganisationUnitHierarchyIndex hierarchyIndex;
+
+    /**
+     * The index is only kept up to date by changes made on this instance, so
+     * it is not used when running in a cluster. The hierarchy checks are
+     * cached instead.
+     */
+    private final boolean hierarchyIndexEnabled;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -101,10 +111,13 @@ public class DefaultOrganisationUnitService
 
     private final UserSettingService userSettingService;
 
+    private final OrganisationUnitHierarchyChangeListener hierarchyChangeListener;
+
     public DefaultOrganisationUnitService( OrganisationUnitStore organisationUnitStore,
         DataSetService dataSetService, OrganisationUnitLevelStore organisationUnitLevelStore,
         CurrentUserService currentUserService, ConfigurationService configurationService,
-        UserSettingService userSettingService, CacheProvider cacheProvider )
+        UserSettingService userSettingService, CacheProvider cacheProvider,
+        OrganisationUnitHierarchyChangeListener hierarchyChangeListener, DhisConfigurationProvider dhisConfig )
     {
         checkNotNull( organisationUnitStore );
         checkNotNull( dataSetService );
@@ -113,6 +126,8 @@ public class DefaultOrganisationUnitService
         checkNotNull( configurationService );
         checkNotNull( userSettingService );
         checkNotNull( cacheProvider );
+        checkNotNull( hierarchyChangeListener );
+        checkNotNull( dhisConfig );
 
         this.organisationUnitStore = organisationUnitStore;
         this.dataSetService = dataSetService;
@@ -120,10 +135,17 @@ public class DefaultOrganisationUnitService
         this.currentUserService = currentUserService;
         this.configurationService = configurationService;
         this.userSettingService = userSettingService;
+        this.hierarchyChangeListener = hierarchyChangeListener;
+        this.hierarchyIndexEnabled = !dhisConfig.isClusterEnabled();
         this.inUserOrgUnitHierarchyCache = cacheProvider.createInUserOrgUnitHierarchyCache();
         this.inUserOrgUnitSearchHierarchyCache = cacheProvider.createInUserSearchOrgUnitHierarchyCache();
         this.userCaptureOrgCountThresholdCache = cacheProvider.createUserCaptureOrgUnitThresholdCache();
         this.inUserOrgUnitViewHierarchyCache = cacheProvider.createInUserViewOrgUnitHierarchyCache();
+
+        if ( hierarchyIndexEnabled )
+        {
+            hierarchyChangeListener.setInsertHandler( this::addToHierarchyIndex );
+        }
     }
 
     /**
@@ -167,6 +189,11 @@ public class DefaultOrganisationUnitService
     public void updateOrganisationUnit( OrganisationUnit organisationUnit, boolean updateHierarchy )
     {
         updateOrganisationUnit( organisationUnit );
+
+        if ( updateHierarchy )
+        {
+            hierarchyChangeListener.hierarchyChanged();
+        }
     }
 
     @Override
@@ -481,6 +508,11 @@ public class DefaultOrganisationUnitService
     @Transactional( readOnly = true )
     public boolean isInUserHierarchyCached( User user, OrganisationUnit organisationUnit )
     {
+        if ( hierarchyIndexEnabled )
+        {
+            return isInUserHierarchy( user, organisationUnit );
+        }
+
         String cacheKey = joinHyphen( user.getUsername(), organisationUnit.getUid() );
 
         return inUserOrgUnitHierarchyCache.get( cacheKey, ou -> isInUserHierarchy( user, organisationUnit ) )
@@ -496,7 +528,7 @@ public class DefaultOrganisationUnitService
             return false;
         }
 
-        return organisationUnit.isDescendant( user.getOrganisationUnits() );
+        return isDescendant( organisationUnit, user.getOrganisationUnits() );
     }
 
     @Override
@@ -522,13 +554,18 @@ public class DefaultOrganisationUnitService
             return false;
         }
 
-        return organisationUnit.isDescendant( user.getDataViewOrganisationUnitsWithFallback() );
+        return isDescendant( organisationUnit, user.getDataViewOrganisationUnitsWithFallback() );
     }
 
     @Override
     @Transactional( readOnly = true )
     public boolean isInUserDataViewHierarchyCached( User user, OrganisationUnit organisationUnit )
     {
+        if ( hierarchyIndexEnabled )
+        {
+            return isInUserDataViewHierarchy( user, organisationUnit );
+        }
+
         String cacheKey = joinHyphen( user.getUsername(), organisationUnit.getUid() );
 
         return inUserOrgUnitViewHierarchyCache
@@ -554,6 +591,11 @@ public class DefaultOrganisationUnitService
     @Transactional( readOnly = true )
     public boolean isInUserSearchHierarchyCached( User user, OrganisationUnit organisationUnit )
     {
+        if ( hierarchyIndexEnabled )
+        {
+            return isInUserSearchHierarchy( user, organisationUnit );
+        }
+
         String cacheKey = joinHyphen( user.getUsername(), organisationUnit.getUid() );
 
         return inUserOrgUnitSearchHierarchyCache
@@ -570,7 +612,7 @@ public class DefaultOrganisationUnitService
             return false;
         }
 
-        return organisationUnit.isDescendant( user.getTeiSearchOrganisationUnitsWithFallback() );
+        return isDescendant( organisationUnit, user.getTeiSearchOrganisationUnitsWithFallback() );
     }
 
     @Override
@@ -579,7 +621,101 @@ public class DefaultOrganisationUnitService
     {
         OrganisationUnit organisationUnit = organisationUnitStore.getByUid( uid );
 
-        return organisationUnit != null && organisationUnit.isDescendant( organisationUnits );
+        return organisationUnit != null && isDescendant( organisationUnit, organisationUnits );
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public boolean isDescendant( OrganisationUnit organisationUnit, Set<OrganisationUnit> ancestors )
+    {
+        if ( organisationUnit == null || ancestors == null || ancestors.isEmpty() )
+        {
+            return false;
+        }
+
+        if ( !hierarchyIndexEnabled )
+        {
+            return organisationUnit.isDescendant( ancestors );
+        }
+
+        OrganisationUnitHierarchyIndex index = getHierarchyIndex();
+
+        if ( !isIndexed( index, organisationUnit ) )
+        {
+            return organisationUnit.isDescendant( ancestors );
+        }
+
+        List<String> ancestorUids = new ArrayList<>( ancestors.size() );
+
+        for ( OrganisationUnit ancestor : ancestors )
+        {
+            if ( !index.contains( ancestor.getUid() ) )
+            {
+                return organisationUnit.isDescendant( ancestors );
+            }
+
+            ancestorUids.add( ancestor.getUid() );
+        }
+
+        return index.isDescendant( organisationUnit.getUid(), ancestorUids );
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public OrganisationUnitHierarchyIndex getHierarchyIndex()
+    {
+        long version = hierarchyChangeListener.getVersion();
+
+        OrganisationUnitHierarchyIndex index = hierarchyIndex;
+
+        if ( index != null && index.getVersion() == version )
+        {
+            return index;
+        }
+
+        synchronized ( this )
+        {
+            index = hierarchyIndex;
+
+            if ( index == null || index.getVersion() != version )
+            {
+                index = OrganisationUnitHierarchyIndex.build( version,
+                    organisationUnitStore.getOrganisationUnitPaths() );
+
+                hierarchyIndex = index;
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * Adds an organisation unit inserted on this instance to the current
+     * index, so that the index does not need to be rebuilt.
+     */
+    private void addToHierarchyIndex( String path )
+    {
+        OrganisationUnitHierarchyIndex index = hierarchyIndex;
+
+        if ( index != null )
+        {
+            index.add( path );
+        }
+    }
+
+    /**
+     * A unit is only checked against the index if the index knows it with its
+     * stored path and its current parent. This is not the case for units
+     * created or moved after the index was built, or with an ancestor moved
+     * in the database since. An ancestor moved within the current session is
+     * only detected once the session is flushed.
+     */
+    private static boolean isIndexed( OrganisationUnitHierarchyIndex index, OrganisationUnit organisationUnit )
+    {
+        OrganisationUnit parent = organisationUnit.getParent();
+
+        return index.hasPath( organisationUnit.getUid(), organisationUnit.getStoredPath() )
+            && index.hasParent( organisationUnit.getUid(), parent != null ? parent.getUid() : null );
     }
 
     @Override
@@ -829,6 +965,8 @@ public class DefaultOrganisationUnitService
     public void forceUpdatePaths()
     {
         organisationUnitStore.forceUpdatePaths();
+
+        hierarchyChangeListener.hierarchyChanged();
     }
 
     @Override
@@ -64,6 +64,8 @@ public abstract class AbstractSchedulingManager implements SchedulingManager
 
     private final LeaderManager leaderManager;
 
+    private final JobWorkDistributor workDistributor;
+
     @PostConstruct
     public void init()
     {
@@ -124,7 +126,15 @@ public abstract class AbstractSchedulingManager implements SchedulingManager
             configuration.setLastExecutedStatus( JobStatus.RUNNING );
 
             // run the actual job
-            jobService.getJob( type ).execute( configuration );
+            Job job = jobService.getJob( type );
+            if ( isDistributed( configuration, job ) )
+            {
+                workDistributor.execute( configuration, (PartitionableJob) job );
+            }
+            else
+            {
+                job.execute( configuration );
+            }
 
             if ( configuration.getLastExecutedStatus() == RUNNING )
             {
@@ -143,6 +153,12 @@ public abstract class AbstractSchedulingManager implements SchedulingManager
         }
     }
 
+    private boolean isDistributed( JobConfiguration configuration, Job job )
+    {
+        return job instanceof PartitionableJob && workDistributor.isEnabled() && !configuration.isInMemoryJob()
+            && configuration.getUid() != null;
+    }
+
     private void whenRunIsDone( JobConfiguration configuration, Clock clock )
     {
         String duration = clock.time();
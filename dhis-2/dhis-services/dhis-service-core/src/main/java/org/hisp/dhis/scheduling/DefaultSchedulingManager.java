@@ -54,9 +54,11 @@ import org.springframework.stereotype.Service;
  * A {@link SchedulingManager} that runs {@link #schedule(JobConfiguration)} and
  * {@link #executeNow(JobConfiguration)} asynchronously.
  *
- * Whether or not a job can run is solely determined by
- * {@link #isRunning(JobType)} which makes sure only one asynchronous task can
- * run at a time.
+ * Whether or not a job can run is determined by {@link #isRunning(JobType)}
+ * which makes sure only one asynchronous task can run at a time. When resource
+ * aware scheduling is enabled the {@link JobResourceQueue} additionally limits
+ * the number of jobs running per {@link JobResourceClass} and queues the jobs
+ * which have to wait.
  *
  * The {@link DefaultSchedulingManager} manages its private state with the sole
  * goal of being able to cancel asynchronously running tasks.
@@ -78,21 +80,26 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
 
     private final AsyncTaskExecutor taskExecutor;
 
+    private final JobResourceQueue resourceQueue;
+
     public DefaultSchedulingManager( JobService jobService, JobConfigurationService jobConfigurationService,
         MessageService messageService,
         LeaderManager leaderManager, @Qualifier( "taskScheduler" ) TaskScheduler jobScheduler,
-        AsyncTaskExecutor taskExecutor )
+        AsyncTaskExecutor taskExecutor, JobResourceQueue resourceQueue, JobWorkDistributor workDistributor )
     {
-        super( jobService, jobConfigurationService, messageService, leaderManager );
+        super( jobService, jobConfigurationService, messageService, leaderManager, workDistributor );
         checkNotNull( jobConfigurationService );
         checkNotNull( messageService );
         checkNotNull( leaderManager );
         checkNotNull( jobScheduler );
         checkNotNull( taskExecutor );
         checkNotNull( jobService );
+        checkNotNull( resourceQueue );
+        checkNotNull( workDistributor );
 
         this.jobScheduler = jobScheduler;
         this.taskExecutor = taskExecutor;
+        this.resourceQueue = resourceQueue;
     }
 
     @Override
@@ -121,7 +128,7 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
         String jobId = configuration.getUid();
         JobType type = configuration.getJobType();
         CompletableFuture<Future<?>> cancellation = new CompletableFuture<>();
-        Runnable task = runIfPossible( configuration, cancellation, () -> execute( jobId ) );
+        Runnable task = runIfPossible( configuration, cancellation, () -> execute( jobId ), false, false );
         Future<?> cancelable = scheduler.apply( task );
         Future<?> scheduledBefore = scheduled.put( type, cancelable );
         if ( scheduledBefore != null && !scheduledBefore.cancel( true ) )
@@ -156,6 +163,10 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
     public void stop( JobConfiguration configuration )
     {
         JobType type = configuration.getJobType();
+        if ( resourceQueue.remove( type ) )
+        {
+            log.info( "Removed waiting job of type: '{}' from the queue", type );
+        }
         if ( type != null && isRunning( type ) )
         {
             stoppedSuccessful( type );
@@ -176,17 +187,53 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
         }
         log.info( String.format( "Scheduler initiated execution of job: %s", configuration ) );
         CompletableFuture<Future<?>> cancellation = new CompletableFuture<>();
-        Runnable task = runIfPossible( configuration, cancellation, () -> execute( configuration ) );
+        Runnable task = runIfPossible( configuration, cancellation, () -> execute( configuration ), true, false );
         cancellation.complete( taskExecutor.executeTaskWithCancelation( task ) );
         return true;
     }
 
+    /**
+     * Starts a job that waited in the {@link JobResourceQueue} and already
+     * holds a slot of its resource class.
+     */
+    private void executeQueued( JobResourceQueue.QueuedJob job )
+    {
+        if ( job == null )
+        {
+            return;
+        }
+        log.info( String.format( "Scheduler starts waiting job: %s", job.getConfiguration() ) );
+        CompletableFuture<Future<?>> cancellation = new CompletableFuture<>();
+        Runnable task = runIfPossible( job.getConfiguration(), cancellation, job.getTask(), job.isAdHoc(), true );
+        try
+        {
+            cancellation.complete( taskExecutor.executeTaskWithCancelation( task ) );
+        }
+        catch ( RuntimeException ex )
+        {
+            cancellation.cancel( false );
+            releaseSlot( job.getConfiguration() );
+            throw ex;
+        }
+    }
+
+    private void releaseSlot( JobConfiguration configuration )
+    {
+        executeQueued( resourceQueue.release( configuration ) );
+    }
+
     /**
      * Wraps the original task in order to manage cancellation state correctly
      * as part of running the task so that transitions occur when the task
      * actually executes.
+     *
+     * @param adHoc whether the job is executed ad-hoc, ad-hoc jobs are served
+     *        first by the {@link JobResourceQueue}
+     * @param slotAcquired whether the job already holds a slot of its resource
+     *        class, true for jobs started from the queue
      */
-    private Runnable runIfPossible( JobConfiguration configuration, Future<Future<?>> cancellation, Runnable task )
+    private Runnable runIfPossible( JobConfiguration configuration, Future<Future<?>> cancellation, Runnable task,
+        boolean adHoc, boolean slotAcquired )
     {
         JobType type = configuration.getJobType();
         return () -> {
@@ -194,11 +241,25 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
             if ( cancelable == null )
             {
                 log.warn( "Job {} aborted as no cancellation was provided", type );
+                if ( slotAcquired )
+                {
+                    releaseSlot( configuration );
+                }
                 return;
             }
             scheduled.remove( type, cancelable );
             if ( type == null || isRunning( type ) && !stoppedSuccessful( type ) )
             {
+                if ( slotAcquired )
+                {
+                    releaseSlot( configuration );
+                }
+                return;
+            }
+            if ( !slotAcquired && !resourceQueue.acquireOrEnqueue( configuration, adHoc, task ) )
+            {
+                log.info( "Job of type: '{}' waits for a free slot of resource class: '{}'", type,
+                    type.getResourceClass() );
                 return;
             }
             running.put( type, cancelable );
@@ -215,6 +276,7 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
                     configuration.setLastExecutedStatus( JobStatus.STOPPED );
                 }
                 running.remove( type, cancelable );
+                releaseSlot( configuration );
             }
         };
     }
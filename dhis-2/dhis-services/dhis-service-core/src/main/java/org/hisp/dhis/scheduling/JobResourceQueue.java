@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_CPU_JOBS_LIMIT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_DATABASE_JOBS_LIMIT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_IO_JOBS_LIMIT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_RESOURCE_CLASSES_ENABLED;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the number of jobs running concurrently per
+ * {@link JobResourceClass}. A job that finds all slots of its resource class
+ * taken waits in a priority queue until a job of the same class finishes and
+ * hands over its slot. Ad-hoc executions are served before scheduled
+ * executions, otherwise jobs are served in order of arrival.
+ *
+ * Only one job per {@link JobType} can wait in the queue at a time. When no
+ * limits are configured every job can run immediately.
+ */
+@Component
+public class JobResourceQueue
+{
+    private static final Comparator<QueuedJob> PRIORITY = Comparator
+        .comparing( ( QueuedJob job ) -> !job.isAdHoc() )
+        .thenComparingLong( QueuedJob::getSequence );
+
+    private final Map<JobResourceClass, Integer> limits;
+
+    private final Map<JobResourceClass, Integer> running = new EnumMap<>( JobResourceClass.class );
+
+    private final Map<JobResourceClass, PriorityQueue<QueuedJob>> queues = new EnumMap<>( JobResourceClass.class );
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong dequeuedCount = new AtomicLong();
+
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+
+    @Autowired
+    public JobResourceQueue( DhisConfigurationProvider config )
+    {
+        this( config.isEnabled( SCHEDULER_RESOURCE_CLASSES_ENABLED ) ? getLimits( config ) : Collections.emptyMap() );
+    }
+
+    /**
+     * @param limits the maximum number of concurrently running jobs per
+     *        resource class, classes without a positive limit are not limited
+     */
+    public JobResourceQueue( Map<JobResourceClass, Integer> limits )
+    {
+        this.limits = limits;
+
+        for ( JobResourceClass resourceClass : JobResourceClass.values() )
+        {
+            running.put( resourceClass, 0 );
+            queues.put( resourceClass, new PriorityQueue<>( PRIORITY ) );
+        }
+    }
+
+    private static Map<JobResourceClass, Integer> getLimits( DhisConfigurationProvider config )
+    {
+        Map<JobResourceClass, Integer> limits = new EnumMap<>( JobResourceClass.class );
+        limits.put( JobResourceClass.DATABASE, getLimit( config, SCHEDULER_DATABASE_JOBS_LIMIT ) );
+        limits.put( JobResourceClass.CPU, getLimit( config, SCHEDULER_CPU_JOBS_LIMIT ) );
+        limits.put( JobResourceClass.IO, getLimit( config, SCHEDULER_IO_JOBS_LIMIT ) );
+        return limits;
+    }
+
+    private static int getLimit( DhisConfigurationProvider config, ConfigurationKey key )
+    {
+        return Integer.parseInt( config.getProperty( key ) );
+    }
+
+    public boolean isEnabled()
+    {
+        return !limits.isEmpty();
+    }
+
+    /**
+     * Takes a slot of the job's resource class if one is free, otherwise
+     * queues the job unless a job of the same type is already queued.
+     *
+     * @param configuration the job to run
+     * @param adHoc whether the job is executed ad-hoc rather than scheduled
+     * @param task the task to run once the job gets a slot
+     * @return true, if the job got a slot and can run now, false if it was
+     *         queued or dropped
+     */
+    public synchronized boolean acquireOrEnqueue( JobConfiguration configuration, boolean adHoc, Runnable task )
+    {
+        JobResourceClass resourceClass = getResourceClass( configuration );
+
+        if ( isUnlimited( resourceClass ) )
+        {
+            return true;
+        }
+
+        PriorityQueue<QueuedJob> queue = queues.get( resourceClass );
+
+        if ( queue.isEmpty() && running.get( resourceClass ) < limits.get( resourceClass ) )
+        {
+            running.merge( resourceClass, 1, Integer::sum );
+            return true;
+        }
+
+        if ( queue.stream().noneMatch( job -> job.getType() == configuration.getJobType() ) )
+        {
+            queue.add( new QueuedJob( configuration, adHoc, task, sequence.incrementAndGet(),
+                System.currentTimeMillis() ) );
+        }
+
+        return false;
+    }
+
+    /**
+     * Releases the slot of a finished job. If another job of the same
+     * resource class is waiting the slot is handed over to it.
+     *
+     * @param configuration the job that finished
+     * @return the waiting job which now holds the slot and should be started,
+     *         or null
+     */
+    public synchronized QueuedJob release( JobConfiguration configuration )
+    {
+        JobResourceClass resourceClass = getResourceClass( configuration );
+
+        if ( isUnlimited( resourceClass ) )
+        {
+            return null;
+        }
+
+        QueuedJob next = queues.get( resourceClass ).poll();
+
+        if ( next == null )
+        {
+            running.merge( resourceClass, -1, ( current, delta ) -> Math.max( 0, current + delta ) );
+            return null;
+        }
+
+        dequeuedCount.incrementAndGet();
+        totalWaitMillis.addAndGet( System.currentTimeMillis() - next.getQueuedAt() );
+
+        return next;
+    }
+
+    /**
+     * Removes the waiting job of the given type.
+     *
+     * @param type the type of job to remove
+     * @return true, if a job was removed
+     */
+    public synchronized boolean remove( JobType type )
+    {
+        return type != null && queues.get( type.getResourceClass() ).removeIf( job -> job.getType() == type );
+    }
+
+    public synchronized int getQueueDepth( JobResourceClass resourceClass )
+    {
+        return queues.get( resourceClass ).size();
+    }
+
+    public synchronized int getRunningCount( JobResourceClass resourceClass )
+    {
+        return running.get( resourceClass );
+    }
+
+    /**
+     * @return number of jobs which have left the queue to run
+     */
+    public long getDequeuedCount()
+    {
+        return dequeuedCount.get();
+    }
+
+    /**
+     * @return total time in milliseconds dequeued jobs have waited in the queue
+     */
+    public long getTotalWaitMillis()
+    {
+        return totalWaitMillis.get();
+    }
+
+    private boolean isUnlimited( JobResourceClass resourceClass )
+    {
+        Integer limit = limits.get( resourceClass );
+
+        return limit == null || limit <= 0;
+    }
+
+    private static JobResourceClass getResourceClass( JobConfiguration configuration )
+    {
+        JobType type = configuration.getJobType();
+
+        return type == null ? JobResourceClass.NONE : type.getResourceClass();
+    }
+
+    @Getter
+    @RequiredArgsConstructor( access = AccessLevel.PRIVATE )
+    public static final class QueuedJob
+    {
+        private final JobConfiguration configuration;
+
+        private final boolean adHoc;
+
+        private final Runnable task;
+
+        private final long sequence;
+
+        private final long queuedAt;
+
+        public JobType getType()
+        {
+            return configuration.getJobType();
+        }
+    }
+}
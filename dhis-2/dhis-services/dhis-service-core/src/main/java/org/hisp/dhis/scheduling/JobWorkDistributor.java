@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_DISTRIBUTED_JOBS_ENABLED;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_DISTRIBUTED_JOBS_LEASE_SECONDS;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.leader.election.LeaderManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Distributes the work units of {@link PartitionableJob}s across the nodes of
+ * a cluster using the {@link JobWorkUnitStore} as lease table.
+ *
+ * The node which runs the job stores the work units, works on them itself and
+ * waits until all units are done. All nodes poll the lease table for jobs with
+ * claimable units and help out. Each node renews the leases of its units in
+ * regular intervals. When a node dies its leases expire and the units are
+ * claimed by other nodes.
+ *
+ * Leases are renewed and work units are executed on a scheduler of this
+ * distributor with one thread for each, so that long running work units do
+ * not hold threads of the task scheduler which runs scheduled jobs.
+ *
+ * The phases of a job run one after the other. As a failed unit blocks all
+ * later phases the job fails as soon as any of its units failed.
+ */
+@Slf4j
+@Component
+public class JobWorkDistributor
+{
+    static final int MAX_ATTEMPTS = 3;
+
+    private final JobWorkUnitStore workUnitStore;
+
+    private final JobService jobService;
+
+    private final JobConfigurationService jobConfigurationService;
+
+    private final LeaderManager leaderManager;
+
+    private final boolean enabled;
+
+    private final int leaseSeconds;
+
+    private ThreadPoolTaskScheduler workUnitScheduler;
+
+    public JobWorkDistributor( JobWorkUnitStore workUnitStore, JobService jobService,
+        JobConfigurationService jobConfigurationService, LeaderManager leaderManager,
+        DhisConfigurationProvider config )
+    {
+        checkNotNull( workUnitStore );
+        checkNotNull( jobService );
+        checkNotNull( jobConfigurationService );
+        checkNotNull( leaderManager );
+        checkNotNull( config );
+
+        this.workUnitStore = workUnitStore;
+        this.jobService = jobService;
+        this.jobConfigurationService = jobConfigurationService;
+        this.leaderManager = leaderManager;
+        this.enabled = config.isEnabled( SCHEDULER_DISTRIBUTED_JOBS_ENABLED );
+        this.leaseSeconds = Math.max( 3, Integer.parseInt( config.getProperty(
+            SCHEDULER_DISTRIBUTED_JOBS_LEASE_SECONDS ) ) );
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+
+        workUnitScheduler = new ThreadPoolTaskScheduler();
+        workUnitScheduler.setPoolSize( 2 );
+        workUnitScheduler.setThreadNamePrefix( "job-work-unit-" );
+        workUnitScheduler.initialize();
+
+        Duration heartbeat = getHeartbeatInterval();
+
+        workUnitScheduler.scheduleWithFixedDelay( this::renewLeases, Instant.now().plus( heartbeat ), heartbeat );
+        workUnitScheduler.scheduleWithFixedDelay( this::workOnClaimableJobs, Instant.now().plus( heartbeat ),
+            heartbeat );
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        if ( workUnitScheduler != null )
+        {
+            workUnitScheduler.shutdown();
+        }
+    }
+
+    /**
+     * @return true, if partitionable jobs are distributed across the cluster
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Runs the given job by splitting it into work units which can be
+     * executed by any node of the cluster. Returns when all units are done or
+     * any unit failed.
+     *
+     * @param configuration the job to run
+     * @param job the job implementation
+     * @throws IllegalStateException if any of the work units failed
+     */
+    public void execute( JobConfiguration configuration, PartitionableJob job )
+    {
+        String jobId = configuration.getUid();
+
+        List<List<String>> phases = job.getWorkUnitPhases( configuration );
+
+        int workUnits = phases.stream().mapToInt( List::size ).sum();
+
+        log.info( "Distributing {} work units in {} phases of job: '{}'", workUnits, phases.size(),
+            configuration.getName() );
+
+        workUnitStore.addWorkUnits( jobId, phases );
+
+        try
+        {
+            awaitWorkUnits( configuration, job );
+
+            int failed = workUnitStore.countFailedWorkUnits( jobId );
+
+            if ( failed > 0 )
+            {
+                throw new IllegalStateException( String.format( "%d of %d work units of job '%s' failed",
+                    failed, workUnits, configuration.getName() ) );
+            }
+
+            job.completeWorkUnits( configuration, workUnitStore.getWorkUnitResults( jobId ) );
+        }
+        finally
+        {
+            workUnitStore.deleteWorkUnits( jobId );
+        }
+    }
+
+    private void awaitWorkUnits( JobConfiguration configuration, PartitionableJob job )
+    {
+        String jobId = configuration.getUid();
+
+        while ( true )
+        {
+            workOnClaimableUnits( configuration, job );
+
+            workUnitStore.failAbandonedWorkUnits( jobId, MAX_ATTEMPTS );
+
+            // a failed unit keeps the later phases from ever being claimed
+
+            if ( workUnitStore.countOpenWorkUnits( jobId ) == 0 || workUnitStore.countFailedWorkUnits( jobId ) > 0 )
+            {
+                return;
+            }
+
+            // other nodes are still working, wait for them to finish or for
+            // their leases to expire
+
+            try
+            {
+                Thread.sleep( getHeartbeatInterval().toMillis() );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Interrupted while waiting for work units of job: "
+                    + configuration.getName(), ex );
+            }
+        }
+    }
+
+    /**
+     * Claims and executes work units of the given job until there is none
+     * left to claim.
+     *
+     * @return the number of executed work units
+     */
+    int workOnClaimableUnits( JobConfiguration configuration, PartitionableJob job )
+    {
+        String jobId = configuration.getUid();
+        String nodeId = leaderManager.getCurrentNodeUuid();
+        int executed = 0;
+
+        String workUnit;
+
+        while ( !Thread.currentThread().isInterrupted()
+            && (workUnit = workUnitStore.claimWorkUnit( jobId, nodeId, leaseSeconds, MAX_ATTEMPTS )) != null )
+        {
+            boolean success = false;
+
+            String result = null;
+
+            try
+            {
+                result = job.executeWorkUnit( configuration, workUnit );
+                success = true;
+            }
+            catch ( RuntimeException ex )
+            {
+                log.error( String.format( "Work unit '%s' of job '%s' failed", workUnit, configuration.getName() ),
+                    ex );
+            }
+            finally
+            {
+                if ( !workUnitStore.completeWorkUnit( jobId, workUnit, nodeId, success, result ) )
+                {
+                    log.warn( "Lease of work unit '{}' of job '{}' was lost before completion", workUnit,
+                        configuration.getName() );
+                }
+            }
+
+            executed++;
+        }
+
+        return executed;
+    }
+
+    /**
+     * Helps out with the work units of jobs started on any node.
+     */
+    void workOnClaimableJobs()
+    {
+        try
+        {
+            for ( String jobId : workUnitStore.getJobsWithClaimableWorkUnits( MAX_ATTEMPTS ) )
+            {
+                JobConfiguration configuration = jobConfigurationService.getJobConfigurationByUid( jobId );
+
+                if ( configuration == null || configuration.getJobType() == null )
+                {
+                    continue;
+                }
+
+                Job job = jobService.getJob( configuration.getJobType() );
+
+                if ( job instanceof PartitionableJob )
+                {
+                    int executed = workOnClaimableUnits( configuration, (PartitionableJob) job );
+
+                    log.debug( "Executed {} work units of job: '{}'", executed, configuration.getName() );
+                }
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Failed to work on distributed jobs", ex );
+        }
+    }
+
+    private void renewLeases()
+    {
+        try
+        {
+            workUnitStore.renewLeases( leaderManager.getCurrentNodeUuid(), leaseSeconds );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Failed to renew work unit leases", ex );
+        }
+    }
+
+    private Duration getHeartbeatInterval()
+    {
+        return Duration.ofSeconds( leaseSeconds / 3 );
+    }
+}
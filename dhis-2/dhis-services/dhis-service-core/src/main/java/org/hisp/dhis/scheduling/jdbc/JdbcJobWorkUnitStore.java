@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling.jdbc;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.scheduling.JobWorkUnitStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link JobWorkUnitStore} on the <code>jobworkunit</code> table. Claims use
+ * <code>for update skip locked</code> so that concurrent nodes never claim the
+ * same unit and do not block each other. All statements run in their own
+ * transaction so that claims and leases are visible to other nodes at once.
+ * A unit is only claimable when no unit of an earlier phase of its job is
+ * unfinished.
+ */
+@Repository( "org.hisp.dhis.scheduling.JobWorkUnitStore" )
+public class JdbcJobWorkUnitStore
+    implements JobWorkUnitStore
+{
+    private static final String PENDING = "PENDING";
+
+    private static final String CLAIMED = "CLAIMED";
+
+    private static final String DONE = "DONE";
+
+    private static final String FAILED = "FAILED";
+
+    private static final String CLAIMABLE = "(status = '" + PENDING + "' or (status = '" + CLAIMED
+        + "' and leaseexpires < now())) and attempts < ? and not exists (" +
+        "select 1 from jobworkunit p where p.jobid = jobworkunit.jobid and p.phase < jobworkunit.phase " +
+        "and p.status <> '" + DONE + "')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcJobWorkUnitStore( JdbcTemplate jdbcTemplate )
+    {
+        checkNotNull( jdbcTemplate );
+
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addWorkUnits( String jobId, List<List<String>> phases )
+    {
+        deleteWorkUnits( jobId );
+
+        for ( int phase = 0; phase < phases.size(); phase++ )
+        {
+            List<String> workUnits = phases.get( phase );
+            int unitPhase = phase;
+
+            jdbcTemplate.batchUpdate(
+                "insert into jobworkunit (jobid, workunit, phase, status, attempts, created, lastupdated) " +
+                    "values (?, ?, ?, '" + PENDING + "', 0, now(), now())",
+                workUnits, workUnits.size(), ( ps, workUnit ) -> {
+                    ps.setString( 1, jobId );
+                    ps.setString( 2, workUnit );
+                    ps.setInt( 3, unitPhase );
+                } );
+        }
+    }
+
+    @Override
+    public String claimWorkUnit( String jobId, String nodeId, int leaseSeconds, int maxAttempts )
+    {
+        String sql = "update jobworkunit set status = '" + CLAIMED + "', owner = ?, " +
+            "leaseexpires = now() + ? * interval '1 second', attempts = attempts + 1, lastupdated = now() " +
+            "where jobid = ? and workunit = (" +
+            "select workunit from jobworkunit where jobid = ? and " + CLAIMABLE + " " +
+            "order by phase, created, workunit limit 1 for update skip locked) " +
+            "returning workunit";
+
+        List<String> claimed = jdbcTemplate.queryForList( sql, String.class, nodeId, leaseSeconds, jobId, jobId,
+            maxAttempts );
+
+        return claimed.isEmpty() ? null : claimed.get( 0 );
+    }
+
+    @Override
+    public int renewLeases( String nodeId, int leaseSeconds )
+    {
+        return jdbcTemplate.update( "update jobworkunit set leaseexpires = now() + ? * interval '1 second', " +
+            "lastupdated = now() where owner = ? and status = '" + CLAIMED + "'", leaseSeconds, nodeId );
+    }
+
+    @Override
+    public boolean completeWorkUnit( String jobId, String workUnit, String nodeId, boolean success,
+        String result )
+    {
+        return jdbcTemplate.update( "update jobworkunit set status = ?, result = ?, leaseexpires = null, " +
+            "lastupdated = now() where jobid = ? and workunit = ? and owner = ? and status = '" + CLAIMED + "'",
+            success ? DONE : FAILED, result, jobId, workUnit, nodeId ) > 0;
+    }
+
+    @Override
+    public int failAbandonedWorkUnits( String jobId, int maxAttempts )
+    {
+        return jdbcTemplate.update( "update jobworkunit set status = '" + FAILED + "', lastupdated = now() " +
+            "where jobid = ? and status = '" + CLAIMED + "' and leaseexpires < now() and attempts >= ?",
+            jobId, maxAttempts );
+    }
+
+    @Override
+    public int countOpenWorkUnits( String jobId )
+    {
+        return jdbcTemplate.queryForObject( "select count(*) from jobworkunit where jobid = ? " +
+            "and status in ('" + PENDING + "', '" + CLAIMED + "')", Integer.class, jobId );
+    }
+
+    @Override
+    public int countFailedWorkUnits( String jobId )
+    {
+        return jdbcTemplate.queryForObject( "select count(*) from jobworkunit where jobid = ? " +
+            "and status = '" + FAILED + "'", Integer.class, jobId );
+    }
+
+    @Override
+    public Map<String, String> getWorkUnitResults( String jobId )
+    {
+        Map<String, String> results = new LinkedHashMap<>();
+
+        jdbcTemplate.query( "select workunit, result from jobworkunit where jobid = ? and status = '" + DONE + "' " +
+            "and result is not null order by phase, workunit",
+            rs -> {
+                results.put( rs.getString( "workunit" ), rs.getString( "result" ) );
+            },
+            jobId );
+
+        return results;
+    }
+
+    @Override
+    public List<String> getJobsWithClaimableWorkUnits( int maxAttempts )
+    {
+        return jdbcTemplate.queryForList( "select distinct jobid from jobworkunit where " + CLAIMABLE,
+            String.class, maxAttempts );
+    }
+
+    @Override
+    public void deleteWorkUnits( String jobId )
+    {
+        jdbcTemplate.update( "delete from jobworkunit where jobid = ?", jobId );
+    }
+}
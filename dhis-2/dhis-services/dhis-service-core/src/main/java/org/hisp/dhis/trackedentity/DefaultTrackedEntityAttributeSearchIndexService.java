@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains partial indexes on the lower cased attribute values, one per
+ * attribute and {@link TrackedEntityAttributeSearchIndexType}. Partial indexes
+ * keep each index small and let the search of a single attribute be served
+ * without scanning the values of all other attributes.
+ * <p>
+ * Relies on PostgreSQL specific features (pg_trgm, concurrent index builds and
+ * the system catalogs), and must not run in a transaction.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexService" )
+public class DefaultTrackedEntityAttributeSearchIndexService
+    implements TrackedEntityAttributeSearchIndexService
+{
+    private static final String SEARCHABLE_ATTRIBUTES_SQL = "select tea.trackedentityattributeid, tea.uid, "
+        + "tea.name, tea.uniquefield from trackedentityattribute tea "
+        + "where tea.uniquefield = true "
+        + "or exists (select 1 from program_attributes pa "
+        + "where pa.trackedentityattributeid = tea.trackedentityattributeid and pa.searchable = true) "
+        + "or exists (select 1 from trackedentitytypeattribute teta "
+        + "where teta.trackedentityattributeid = tea.trackedentityattributeid and teta.searchable = true) "
+        + "order by tea.trackedentityattributeid";
+
+    private static final String SEARCH_INDEXES_SQL = "select c.relname as indexname, i.indisvalid as valid, "
+        + "pg_relation_size(c.oid) as size, coalesce(s.idx_scan, 0) as scans "
+        + "from pg_index i "
+        + "inner join pg_class c on c.oid = i.indexrelid "
+        + "inner join pg_class t on t.oid = i.indrelid "
+        + "left join pg_stat_user_indexes s on s.indexrelid = i.indexrelid "
+        + "where t.relname = 'trackedentityattributevalue' "
+        + "and (c.relname like 'in\\_teav\\_trgm\\_%' or c.relname like 'in\\_teav\\_hash\\_%')";
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DefaultTrackedEntityAttributeSearchIndexService( JdbcTemplate jdbcTemplate )
+    {
+        checkNotNull( jdbcTemplate );
+
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // -------------------------------------------------------------------------
+    // TrackedEntityAttributeSearchIndexService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int updateSearchIndexes()
+    {
+        createTrigramExtension();
+
+        Map<String, ExpectedIndex> expected = getExpectedIndexes();
+        Map<String, TrackedEntityAttributeSearchIndex> existing = getExistingIndexes();
+
+        int changes = 0;
+
+        for ( TrackedEntityAttributeSearchIndex index : new ArrayList<>( existing.values() ) )
+        {
+            if ( !expected.containsKey( index.getIndexName() ) || !index.isValid() )
+            {
+                if ( execute( "drop index concurrently if exists " + index.getIndexName() ) )
+                {
+                    existing.remove( index.getIndexName() );
+                    changes++;
+                }
+            }
+        }
+
+        for ( ExpectedIndex index : expected.values() )
+        {
+            if ( !existing.containsKey( index.getIndexName() ) )
+            {
+                String sql = "create index concurrently if not exists " + index.getIndexName()
+                    + " on trackedentityattributevalue using " + index.type.getIndexDefinition()
+                    + " where trackedentityattributeid = " + index.attributeId;
+
+                if ( execute( sql ) )
+                {
+                    changes++;
+                }
+            }
+        }
+
+        log.info( "Updated tracked entity attribute search indexes, created or dropped: " + changes );
+
+        return changes;
+    }
+
+    @Override
+    public List<TrackedEntityAttributeSearchIndex> getSearchIndexes()
+    {
+        Map<String, TrackedEntityAttributeSearchIndex> existing = getExistingIndexes();
+
+        List<TrackedEntityAttributeSearchIndex> indexes = new ArrayList<>();
+
+        for ( ExpectedIndex index : getExpectedIndexes().values() )
+        {
+            TrackedEntityAttributeSearchIndex state = existing.get( index.getIndexName() );
+
+            indexes.add( TrackedEntityAttributeSearchIndex.builder()
+                .attribute( index.attributeUid )
+                .attributeName( index.attributeName )
+                .type( index.type )
+                .indexName( index.getIndexName() )
+                .present( state != null )
+                .valid( state != null && state.isValid() )
+                .size( state != null ? state.getSize() : 0 )
+                .scans( state != null ? state.getScans() : 0 )
+                .build() );
+        }
+
+        return indexes;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void createTrigramExtension()
+    {
+        if ( !execute( "create extension if not exists pg_trgm" ) )
+        {
+            log.warn( "Extension pg_trgm could not be created, trigram search indexes require "
+                + "it to be installed by a database superuser" );
+        }
+    }
+
+    /**
+     * Executes the given DDL statement.
+     *
+     * @return true if the statement succeeded, false if it failed.
+     */
+    private boolean execute( String sql )
+    {
+        log.debug( "Search index SQL: " + sql );
+
+        try
+        {
+            jdbcTemplate.execute( sql );
+
+            return true;
+        }
+        catch ( DataAccessException ex )
+        {
+            log.warn( "Search index statement failed: " + sql, ex );
+
+            return false;
+        }
+    }
+
+    private Map<String, ExpectedIndex> getExpectedIndexes()
+    {
+        Map<String, ExpectedIndex> indexes = new LinkedHashMap<>();
+
+        jdbcTemplate.query( SEARCHABLE_ATTRIBUTES_SQL, rs -> {
+            long attributeId = rs.getLong( "trackedentityattributeid" );
+            String uid = rs.getString( "uid" );
+            String name = rs.getString( "name" );
+
+            ExpectedIndex trigram = new ExpectedIndex( attributeId, uid, name,
+                TrackedEntityAttributeSearchIndexType.TRIGRAM );
+            indexes.put( trigram.getIndexName(), trigram );
+
+            if ( rs.getBoolean( "uniquefield" ) )
+            {
+                ExpectedIndex hash = new ExpectedIndex( attributeId, uid, name,
+                    TrackedEntityAttributeSearchIndexType.HASH );
+                indexes.put( hash.getIndexName(), hash );
+            }
+        } );
+
+        return indexes;
+    }
+
+    private Map<String, TrackedEntityAttributeSearchIndex> getExistingIndexes()
+    {
+        Map<String, TrackedEntityAttributeSearchIndex> indexes = new HashMap<>();
+
+        jdbcTemplate.query( SEARCH_INDEXES_SQL, rs -> {
+            String indexName = rs.getString( "indexname" );
+
+            indexes.put( indexName, TrackedEntityAttributeSearchIndex.builder()
+                .indexName( indexName )
+                .present( true )
+                .valid( rs.getBoolean( "valid" ) )
+                .size( rs.getLong( "size" ) )
+                .scans( rs.getLong( "scans" ) )
+                .build() );
+        } );
+
+        return indexes;
+    }
+
+    private static final class ExpectedIndex
+    {
+        private final long attributeId;
+
+        private final String attributeUid;
+
+        private final String attributeName;
+
+        private final TrackedEntityAttributeSearchIndexType type;
+
+        private ExpectedIndex( long attributeId, String attributeUid, String attributeName,
+            TrackedEntityAttributeSearchIndexType type )
+        {
+            this.attributeId = attributeId;
+            this.attributeUid = attributeUid;
+            this.attributeName = attributeName;
+            this.type = type;
+        }
+
+        private String getIndexName()
+        {
+            return type.getIndexName( attributeId );
+        }
+    }
+}
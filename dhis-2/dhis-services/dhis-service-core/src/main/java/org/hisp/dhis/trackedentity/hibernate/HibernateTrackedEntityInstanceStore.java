@@ -138,6 +138,8 @@ public class HibernateTrackedEntityInstanceStore
 
     private final StatementBuilder statementBuilder;
 
+    private final TrackedEntityAttributeSearchPlanner searchPlanner;
+
     private final static String SELECT_TEI = "select tei from";
 
     public HibernateTrackedEntityInstanceStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
@@ -152,6 +154,7 @@ public class HibernateTrackedEntityInstanceStore
 
         this.statementBuilder = statementBuilder;
         this.organisationUnitStore = organisationUnitStore;
+        this.searchPlanner = new TrackedEntityAttributeSearchPlanner( statementBuilder );
     }
 
     // -------------------------------------------------------------------------
@@ -845,10 +848,11 @@ public class HibernateTrackedEntityInstanceStore
     /**
      * Generates a single INNER JOIN for searching for an attribute by query
      * strings. Searches are done using lower() expression, since attribute
-     * values are case insensitive. The query search is extremely slow compared
-     * to alternatives. A query string (Can be multiple) has to match at least 1
-     * attribute value for each attribute we have access to. We use Regex to
-     * search, allowing both exact match and with wildcards (EQ or LIKE).
+     * values are case insensitive. A query string (Can be multiple) has to
+     * match at least 1 attribute value for each attribute we have access to.
+     * Each token is matched per attribute, so that the search indexes of the
+     * attributes can be used, see {@link TrackedEntityAttributeSearchPlanner}.
+     * The matches are reduced to distinct instances to avoid duplicate rows.
      *
      * @param params
      * @param attributes
@@ -856,12 +860,7 @@ public class HibernateTrackedEntityInstanceStore
     private void joinAttributeValueWithQueryParameter( TrackedEntityInstanceQueryParams params,
         StringBuilder attributes )
     {
-        final String regexp = statementBuilder.getRegexpMatch();
-        final String wordStart = statementBuilder.getRegexpWordStart();
-        final String wordEnd = statementBuilder.getRegexpWordEnd();
-        final String anyChar = "\\.*?";
-        final String start = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordStart;
-        final String end = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordEnd;
+        final QueryOperator operator = params.getQuery().getOperator();
         SqlHelper orHlp = new SqlHelper( true );
 
         List<Long> itemIds = params.getAttributesAndFilters().stream()
@@ -870,33 +869,27 @@ public class HibernateTrackedEntityInstanceStore
             .collect( Collectors.toList() );
 
         attributes
-            .append( "INNER JOIN trackedentityattributevalue Q " )
-            .append( "ON Q.trackedentityinstanceid IN (" )
-            .append( getCommaDelimitedString( itemIds ) )
-            .append( ") AND (" );
+            .append( "INNER JOIN (SELECT DISTINCT Q.trackedentityinstanceid " )
+            .append( "FROM trackedentityattributevalue Q WHERE " );
 
         for ( String queryToken : getTokens( params.getQuery().getFilter() ) )
         {
-            final String query = statementBuilder.encode( queryToken, false );
-
-            attributes
-                .append( orHlp.or() )
-                .append( "lower(Q.value) " )
-                .append( regexp )
-                .append( " '" )
-                .append( start )
-                .append( StringUtils.lowerCase( query ) )
-                .append( end )
-                .append( SINGLE_QUOTE );
+            for ( Long itemId : itemIds )
+            {
+                attributes
+                    .append( orHlp.or() )
+                    .append( searchPlanner.getQueryTokenPredicate( "Q", itemId, operator, queryToken ) );
+            }
         }
 
-        attributes.append( ")" );
+        attributes.append( ") Q ON Q.trackedentityinstanceid = TEI.trackedentityinstanceid " );
     }
 
     /**
      * Generates a single INNER JOIN for each attribute we are searching on. We
      * can search by a range of operators. All searching is using lower() since
-     * attribute values are case insensitive.
+     * attribute values are case insensitive, and is planned by
+     * {@link TrackedEntityAttributeSearchPlanner}.
      *
      * @param attributes
      * @param filterItems
@@ -907,7 +900,6 @@ public class HibernateTrackedEntityInstanceStore
         {
             String col = statementBuilder.columnQuote( queryItem.getItemId() );
             String teaId = col + ".trackedentityattributeid";
-            String teav = "lower(" + col + ".value)";
             String teiid = col + ".trackedentityinstanceid";
 
             attributes
@@ -923,15 +915,11 @@ public class HibernateTrackedEntityInstanceStore
 
             for ( QueryFilter filter : queryItem.getFilters() )
             {
-                String encodedFilter = statementBuilder.encode( filter.getFilter(), false );
                 attributes
                     .append( "AND " )
-                    .append( teav )
-                    .append( SPACE )
-                    .append( filter.getSqlOperator() )
-                    .append( SPACE )
-                    .append( StringUtils
-                        .lowerCase( filter.getSqlFilter( encodedFilter ) ) );
+                    .append( searchPlanner.getFilterPredicate( col, filter,
+                        Boolean.TRUE.equals( queryItem.isUnique() ) ) )
+                    .append( SPACE );
             }
         }
     }
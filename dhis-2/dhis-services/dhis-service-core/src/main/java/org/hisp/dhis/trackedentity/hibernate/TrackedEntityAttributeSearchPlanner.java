@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity.hibernate;
+
+import static org.hisp.dhis.analytics.QueryKey.NV;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexType;
+
+/**
+ * Plans the attribute value predicates of tracked entity instance searches,
+ * so that they can be served by the search indexes of the attributes. Every
+ * predicate is bound to a single attribute, which makes the partial index of
+ * that attribute eligible, and is written against the indexed expression
+ * lower(value):
+ * <ul>
+ * <li>EQ is an exact match, served by the hash index of unique attributes and
+ * by the attribute value btree index otherwise.</li>
+ * <li>LIKE is a substring match with escaped wildcards, served by the trigram
+ * index.</li>
+ * <li>Query tokens searched by EQ match whole words by regular expression,
+ * which the trigram index serves as well.</li>
+ * </ul>
+ */
+class TrackedEntityAttributeSearchPlanner
+{
+    private static final String LIKE_ESCAPE = "\\";
+
+    private final StatementBuilder statementBuilder;
+
+    TrackedEntityAttributeSearchPlanner( StatementBuilder statementBuilder )
+    {
+        this.statementBuilder = statementBuilder;
+    }
+
+    /**
+     * Returns the type of search index serving searches by the given operator.
+     *
+     * @param operator the {@link QueryOperator}.
+     * @param unique whether the attribute is unique.
+     * @return the {@link TrackedEntityAttributeSearchIndexType}, or null if the
+     *         search is served by the attribute value btree index.
+     */
+    static TrackedEntityAttributeSearchIndexType getIndexType( QueryOperator operator, boolean unique )
+    {
+        if ( QueryOperator.LIKE == operator )
+        {
+            return TrackedEntityAttributeSearchIndexType.TRIGRAM;
+        }
+
+        if ( QueryOperator.EQ == operator && unique )
+        {
+            return TrackedEntityAttributeSearchIndexType.HASH;
+        }
+
+        return null;
+    }
+
+    /**
+     * Generates the predicate matching a query token against the values of
+     * the given attribute.
+     *
+     * @param alias the alias of the attribute value table.
+     * @param attributeId the attribute identifier.
+     * @param operator the query operator, LIKE for substring match and EQ for
+     *        whole word match.
+     * @param token the query token.
+     * @return an SQL predicate.
+     */
+    String getQueryTokenPredicate( String alias, long attributeId, QueryOperator operator, String token )
+    {
+        final String value = StringUtils.lowerCase( statementBuilder.encode( token, false ) );
+
+        StringBuilder predicate = new StringBuilder()
+            .append( "(" )
+            .append( getAttributePredicate( alias, attributeId ) )
+            .append( " AND lower(" )
+            .append( alias )
+            .append( ".value) " );
+
+        if ( QueryOperator.LIKE == operator )
+        {
+            predicate.append( getLikeExpression( value ) );
+        }
+        else
+        {
+            predicate
+                .append( statementBuilder.getRegexpMatch() )
+                .append( " '" )
+                .append( statementBuilder.getRegexpWordStart() )
+                .append( value )
+                .append( statementBuilder.getRegexpWordEnd() )
+                .append( "'" );
+        }
+
+        return predicate.append( ")" ).toString();
+    }
+
+    /**
+     * Generates the predicate matching the given filter against the values of
+     * the attribute value table with the given alias. The predicate is chosen
+     * by the type of search index serving the filter: an escaped LIKE
+     * expression for the trigram index and an equality for the hash index.
+     * Other filters use the operator of the filter, served by the attribute
+     * value btree index.
+     *
+     * @param alias the alias of the attribute value table.
+     * @param filter the {@link QueryFilter}.
+     * @param unique whether the attribute is unique.
+     * @return an SQL predicate.
+     */
+    String getFilterPredicate( String alias, QueryFilter filter, boolean unique )
+    {
+        String encodedFilter = statementBuilder.encode( filter.getFilter(), false );
+        TrackedEntityAttributeSearchIndexType indexType = getIndexType( filter.getOperator(), unique );
+
+        StringBuilder predicate = new StringBuilder()
+            .append( "lower(" )
+            .append( alias )
+            .append( ".value) " );
+
+        if ( TrackedEntityAttributeSearchIndexType.TRIGRAM == indexType )
+        {
+            return predicate
+                .append( getLikeExpression( StringUtils.lowerCase( encodedFilter ) ) )
+                .toString();
+        }
+
+        if ( TrackedEntityAttributeSearchIndexType.HASH == indexType && !NV.equals( encodedFilter ) )
+        {
+            return predicate
+                .append( "= '" )
+                .append( StringUtils.lowerCase( encodedFilter ) )
+                .append( "'" )
+                .toString();
+        }
+
+        return predicate
+            .append( filter.getSqlOperator() )
+            .append( " " )
+            .append( StringUtils.lowerCase( filter.getSqlFilter( encodedFilter ) ) )
+            .toString();
+    }
+
+    /**
+     * Returns a LIKE expression matching values containing the given encoded
+     * value. The LIKE wildcards and the escape character in the value are
+     * escaped, so they are matched literally.
+     */
+    private String getLikeExpression( String value )
+    {
+        String escaped = value
+            .replace( LIKE_ESCAPE, LIKE_ESCAPE + LIKE_ESCAPE )
+            .replace( "%", LIKE_ESCAPE + "%" )
+            .replace( "_", LIKE_ESCAPE + "_" );
+
+        return "like '%" + escaped + "%' escape '" + LIKE_ESCAPE + "'";
+    }
+
+    private String getAttributePredicate( String alias, long attributeId )
+    {
+        return alias + ".trackedentityattributeid = " + attributeId;
+    }
+}
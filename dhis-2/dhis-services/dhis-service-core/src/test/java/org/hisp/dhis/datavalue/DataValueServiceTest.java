@@ -28,6 +28,7 @@
 package org.hisp.dhis.datavalue;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
@@ -48,6 +49,7 @@ import org.hisp.dhis.period.Period;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -453,6 +455,42 @@ public class DataValueServiceTest
             .size() );
     }
 
+    @Test
+    public void testGetDeflatedDataValuesByDataValues()
+    {
+        DataValue dataValueA = new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo, "1" );
+        DataValue dataValueB = new DataValue( dataElementB, periodA, sourceA, optionCombo, optionCombo, "2" );
+        DataValue dataValueC = new DataValue( dataElementC, periodC, sourceD, optionCombo, optionCombo, "3" );
+
+        dataValueService.addDataValue( dataValueA );
+        dataValueService.addDataValue( dataValueB );
+        dataValueService.addDataValue( dataValueC );
+        dataValueService.deleteDataValue( dataValueB );
+
+        dbmsManager.flushSession();
+
+        DataValue dataValueD = new DataValue( dataElementD, periodC, sourceD, optionCombo, optionCombo, "4" );
+
+        List<DeflatedDataValue> values = dataValueService.getDeflatedDataValues(
+            Lists.newArrayList( dataValueA, dataValueB, dataValueD ) );
+
+        assertEquals( 2, values.size() );
+
+        DeflatedDataValue valueA = values.stream()
+            .filter( dv -> dv.getDataElementId() == dataElementA.getId() ).findFirst().get();
+        DeflatedDataValue valueB = values.stream()
+            .filter( dv -> dv.getDataElementId() == dataElementB.getId() ).findFirst().get();
+
+        assertEquals( "1", valueA.getValue() );
+        assertEquals( periodA.getId(), valueA.getPeriodId() );
+        assertEquals( sourceA.getId(), valueA.getSourceId() );
+        assertFalse( valueA.isDeleted() );
+        assertEquals( "2", valueB.getValue() );
+        assertTrue( valueB.isDeleted() );
+
+        assertTrue( dataValueService.getDeflatedDataValues( Lists.newArrayList() ).isEmpty() );
+    }
+
     @Test
     public void testGetDataValueCountLastUpdatedBetween()
     {
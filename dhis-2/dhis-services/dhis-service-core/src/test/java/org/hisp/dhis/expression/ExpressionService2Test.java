@@ -737,6 +737,46 @@ public class ExpressionService2Test extends DhisSpringTest
         assertEquals( 3532.258, value.getValue(), DELTA );
     }
 
+    @Test
+    public void testGetIndicatorValueObjects()
+    {
+        IndicatorType indicatorType = new IndicatorType( "A", 100, false );
+
+        Indicator indicatorA = createIndicator( 'A', indicatorType );
+        indicatorA.setNumerator( expressionE );
+        indicatorA.setDenominator( expressionF );
+
+        Map<DimensionalItemObject, Double> valueMapA = new HashMap<>();
+
+        valueMapA.put( new DataElementOperand( deA, coc ), 12d );
+        valueMapA.put( new DataElementOperand( deB, coc ), 34d );
+        valueMapA.put( new DataElementOperand( deA, cocA, cocB ), 46d );
+        valueMapA.put( new DataElementOperand( deB, cocA ), 10d );
+
+        Map<DimensionalItemObject, Double> valueMapB = new HashMap<>();
+
+        valueMapB.put( new DataElementOperand( deA, coc ), 5d );
+        valueMapB.put( new DataElementOperand( deB, coc ), 34d );
+        valueMapB.put( new DataElementOperand( deA, cocA, cocB ), 46d );
+        valueMapB.put( new DataElementOperand( deB, cocA ), 10d );
+
+        List<IndicatorValueInput> inputs = Lists.newArrayList(
+            new IndicatorValueInput( Collections.singletonList( period ), valueMapA, null ),
+            new IndicatorValueInput( Collections.singletonList( period ), valueMapB, null ) );
+
+        List<IndicatorValue> values = target.getIndicatorValueObjects( indicatorA, inputs, constantMap() );
+
+        assertEquals( 2, values.size() );
+
+        assertEquals( 24d, values.get( 0 ).getNumeratorValue(), DELTA );
+        assertEquals( 12d, values.get( 0 ).getDenominatorValue(), DELTA );
+        assertEquals( 200d, values.get( 0 ).getValue(), DELTA );
+
+        assertEquals( 10d, values.get( 1 ).getNumeratorValue(), DELTA );
+        assertEquals( 5d, values.get( 1 ).getDenominatorValue(), DELTA );
+        assertEquals( 200d, values.get( 1 ).getValue(), DELTA );
+    }
+
     @Test
     public void testSubstituteIndicatorExpressions()
     {
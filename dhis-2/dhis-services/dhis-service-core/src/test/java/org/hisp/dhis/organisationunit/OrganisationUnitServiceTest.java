@@ -617,6 +617,42 @@ public class OrganisationUnitServiceTest
         assertFalse( unit4.isDescendant( unit1 ) );
     }
 
+    @Test
+    public void testIsDescendantWhenAncestorMovedAfterIndexWasBuilt()
+    {
+        OrganisationUnit unit1 = createOrganisationUnit( '1' );
+        organisationUnitService.addOrganisationUnit( unit1 );
+
+        OrganisationUnit unit2 = createOrganisationUnit( '2', unit1 );
+        unit1.getChildren().add( unit2 );
+        organisationUnitService.addOrganisationUnit( unit2 );
+
+        OrganisationUnit unit3 = createOrganisationUnit( '3', unit2 );
+        unit2.getChildren().add( unit3 );
+        organisationUnitService.addOrganisationUnit( unit3 );
+
+        OrganisationUnit unit4 = createOrganisationUnit( '4' );
+        organisationUnitService.addOrganisationUnit( unit4 );
+
+        assertTrue( organisationUnitService.getHierarchyIndex().hasPath( unit3.getUid(), unit3.getPath() ) );
+        assertTrue( organisationUnitService.isDescendant( unit3, Sets.newHashSet( unit1 ) ) );
+
+        // move the parent of unit 3 without the index being told, like on
+        // another node of a cluster, flushing updates the stored paths
+
+        unit1.getChildren().remove( unit2 );
+        unit2.setParent( unit4 );
+        unit4.getChildren().add( unit2 );
+
+        dbmsManager.flushSession();
+
+        assertEquals( unit4.getPath() + "/" + unit2.getUid() + "/" + unit3.getUid(), unit3.getStoredPath() );
+
+        assertFalse( organisationUnitService.isDescendant( unit3, Sets.newHashSet( unit1 ) ) );
+        assertTrue( organisationUnitService.isDescendant( unit3, Sets.newHashSet( unit4 ) ) );
+        assertTrue( organisationUnitService.isDescendant( unit3, Sets.newHashSet( unit2 ) ) );
+    }
+
     @Test
     public void testGetOrganisationUnitAtLevelAndBranch()
         throws Exception
@@ -41,6 +41,7 @@ import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.mock.MockCurrentUserService;
 import org.hisp.dhis.organisationunit.DefaultOrganisationUnitService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitHierarchyChangeListener;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevelStore;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
@@ -87,6 +88,9 @@ public class QueryParserTest
     @Autowired
     private CacheProvider cacheProvider;
 
+    @Autowired
+    private OrganisationUnitHierarchyChangeListener hierarchyChangeListener;
+
     @Override
     public boolean emptyDatabaseAfterTest()
     {
@@ -102,7 +106,8 @@ public class QueryParserTest
         user.addOrganisationUnit( orgUnitA );
         CurrentUserService currentUserService = new MockCurrentUserService( user );
         this.organisationUnitService = new DefaultOrganisationUnitService( organisationUnitStore, dataSetService,
-            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider );
+            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider,
+            hierarchyChangeListener, dhisConfigurationProvider );
         organisationUnitService.addOrganisationUnit( orgUnitA );
         identifiableObjectManager.save( orgUnitA );
         queryParser = new DefaultJpaQueryParser( schemaService );
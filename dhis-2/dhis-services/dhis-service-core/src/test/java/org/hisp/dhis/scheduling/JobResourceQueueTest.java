@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link JobResourceQueue}.
+ */
+public class JobResourceQueueTest
+{
+    private static final Runnable NOOP = () -> {
+    };
+
+    private JobResourceQueue queue;
+
+    @Before
+    public void setUp()
+    {
+        Map<JobResourceClass, Integer> limits = new EnumMap<>( JobResourceClass.class );
+        limits.put( JobResourceClass.DATABASE, 1 );
+        limits.put( JobResourceClass.IO, 2 );
+
+        queue = new JobResourceQueue( limits );
+    }
+
+    @Test
+    public void testDisabledQueueNeverWaits()
+    {
+        queue = new JobResourceQueue( Collections.emptyMap() );
+
+        assertFalse( queue.isEnabled() );
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertTrue( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+        assertNull( queue.release( job( JobType.ANALYTICS_TABLE ) ) );
+    }
+
+    @Test
+    public void testJobsWaitForSlotOfTheirResourceClass()
+    {
+        assertTrue( queue.isEnabled() );
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+
+        // other resource classes are not affected
+        assertTrue( queue.acquireOrEnqueue( job( JobType.DATA_SYNC ), false, NOOP ) );
+        assertTrue( queue.acquireOrEnqueue( job( JobType.META_DATA_SYNC ), false, NOOP ) );
+        assertTrue( queue.acquireOrEnqueue( job( JobType.LEADER_RENEWAL ), false, NOOP ) );
+
+        assertEquals( 1, queue.getRunningCount( JobResourceClass.DATABASE ) );
+        assertEquals( 1, queue.getQueueDepth( JobResourceClass.DATABASE ) );
+        assertEquals( 2, queue.getRunningCount( JobResourceClass.IO ) );
+    }
+
+    @Test
+    public void testReleaseHandsOverSlotToWaitingJob()
+    {
+        Runnable task = () -> {
+        };
+
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, task ) );
+
+        JobResourceQueue.QueuedJob next = queue.release( job( JobType.ANALYTICS_TABLE ) );
+
+        assertNotNull( next );
+        assertEquals( JobType.PREDICTOR, next.getType() );
+        assertSame( task, next.getTask() );
+        assertEquals( 1, queue.getRunningCount( JobResourceClass.DATABASE ) );
+        assertEquals( 0, queue.getQueueDepth( JobResourceClass.DATABASE ) );
+        assertEquals( 1, queue.getDequeuedCount() );
+
+        assertNull( queue.release( next.getConfiguration() ) );
+        assertEquals( 0, queue.getRunningCount( JobResourceClass.DATABASE ) );
+    }
+
+    @Test
+    public void testAdHocJobsAreServedFirst()
+    {
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.MONITORING ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.DATA_INTEGRITY ), true, NOOP ) );
+
+        assertEquals( JobType.DATA_INTEGRITY, queue.release( job( JobType.ANALYTICS_TABLE ) ).getType() );
+        assertEquals( JobType.PREDICTOR, queue.release( job( JobType.DATA_INTEGRITY ) ).getType() );
+        assertEquals( JobType.MONITORING, queue.release( job( JobType.PREDICTOR ) ).getType() );
+    }
+
+    @Test
+    public void testOnlyOneJobPerTypeWaits()
+    {
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+
+        assertEquals( 1, queue.getQueueDepth( JobResourceClass.DATABASE ) );
+    }
+
+    @Test
+    public void testRemoveWaitingJob()
+    {
+        assertTrue( queue.acquireOrEnqueue( job( JobType.ANALYTICS_TABLE ), false, NOOP ) );
+        assertFalse( queue.acquireOrEnqueue( job( JobType.PREDICTOR ), false, NOOP ) );
+
+        assertTrue( queue.remove( JobType.PREDICTOR ) );
+        assertFalse( queue.remove( JobType.PREDICTOR ) );
+        assertNull( queue.release( job( JobType.ANALYTICS_TABLE ) ) );
+        assertEquals( 0, queue.getRunningCount( JobResourceClass.DATABASE ) );
+    }
+
+    private static JobConfiguration job( JobType type )
+    {
+        return new JobConfiguration( type.name(), type, null, true );
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling;
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_DISTRIBUTED_JOBS_ENABLED;
+import static org.hisp.dhis.external.conf.ConfigurationKey.SCHEDULER_DISTRIBUTED_JOBS_LEASE_SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ErrorReport;
+import org.hisp.dhis.leader.election.LeaderManager;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Simulates the nodes of a cluster by multiple {@link JobWorkDistributor}s
+ * which share an in-memory lease table.
+ */
+public class JobWorkDistributorTest
+{
+    private final InMemoryJobWorkUnitStore store = new InMemoryJobWorkUnitStore();
+
+    private final JobConfigurationService jobConfigurationService = mock( JobConfigurationService.class );
+
+    private final JobService jobService = mock( JobService.class );
+
+    private final JobConfiguration configuration = new JobConfiguration( "predict", JobType.PREDICTOR, null, false );
+
+    private final List<String> executions = new CopyOnWriteArrayList<>();
+
+    private final Set<String> executingNodes = ConcurrentHashMap.newKeySet();
+
+    private TestJob job;
+
+    @Before
+    public void setUp()
+    {
+        configuration.setUid( "predictJob1" );
+        job = new TestJob( Collections.singletonList( units( 0, 30 ) ) );
+
+        when( jobConfigurationService.getJobConfigurationByUid( configuration.getUid() ) )
+            .thenReturn( configuration );
+        when( jobService.getJob( JobType.PREDICTOR ) ).thenReturn( job );
+    }
+
+    @Test
+    public void testWorkUnitsAreSharedBetweenNodes()
+        throws Exception
+    {
+        JobWorkDistributor coordinator = createNode( "nodeA" );
+        List<JobWorkDistributor> helpers = new ArrayList<>();
+        helpers.add( createNode( "nodeB" ) );
+        helpers.add( createNode( "nodeC" ) );
+
+        List<Thread> helperThreads = new ArrayList<>();
+
+        for ( JobWorkDistributor helper : helpers )
+        {
+            Thread thread = new Thread( () -> {
+                while ( !Thread.currentThread().isInterrupted() )
+                {
+                    helper.workOnClaimableJobs();
+                    sleep( 5 );
+                }
+            } );
+            thread.start();
+            helperThreads.add( thread );
+        }
+
+        try
+        {
+            coordinator.execute( configuration, job );
+        }
+        finally
+        {
+            for ( Thread thread : helperThreads )
+            {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+
+        assertEquals( 30, executions.size() );
+        assertEquals( 30, executions.stream().distinct().count() );
+        assertTrue( "units were not shared between nodes: " + executingNodes, executingNodes.size() > 1 );
+        assertEquals( 0, store.countOpenWorkUnits( configuration.getUid() ) );
+    }
+
+    @Test
+    public void testResultsOfAllNodesAreHandedToJob()
+        throws Exception
+    {
+        Thread helperThread = new Thread( () -> {
+            JobWorkDistributor helper = createNode( "nodeB" );
+
+            while ( !Thread.currentThread().isInterrupted() )
+            {
+                helper.workOnClaimableJobs();
+                sleep( 5 );
+            }
+        } );
+        helperThread.start();
+
+        try
+        {
+            createNode( "nodeA" ).execute( configuration, job );
+        }
+        finally
+        {
+            helperThread.interrupt();
+            helperThread.join();
+        }
+
+        assertEquals( 29, job.completedResults.size() );
+        assertNull( job.completedResults.get( "unit0" ) );
+        assertEquals( "result of unit29", job.completedResults.get( "unit29" ) );
+    }
+
+    @Test
+    public void testUnitOfFailedNodeIsReclaimed()
+    {
+        store.addWorkUnits( configuration.getUid(), job.phases );
+
+        // the node dies right after claiming, its lease has expired already
+        String abandoned = store.claimWorkUnit( configuration.getUid(), "deadNode", -1,
+            JobWorkDistributor.MAX_ATTEMPTS );
+
+        int executed = createNode( "nodeB" ).workOnClaimableUnits( configuration, job );
+
+        assertEquals( 30, executed );
+        assertTrue( executions.contains( abandoned ) );
+        assertEquals( 0, store.countOpenWorkUnits( configuration.getUid() ) );
+        assertEquals( 0, store.countFailedWorkUnits( configuration.getUid() ) );
+    }
+
+    @Test
+    public void testUnitIsNotReclaimedAfterMaxAttempts()
+    {
+        store.addWorkUnits( configuration.getUid(), Collections.singletonList( units( 0, 1 ) ) );
+
+        for ( int i = 0; i < JobWorkDistributor.MAX_ATTEMPTS; i++ )
+        {
+            assertEquals( "unit0", store.claimWorkUnit( configuration.getUid(), "deadNode" + i, -1,
+                JobWorkDistributor.MAX_ATTEMPTS ) );
+        }
+
+        assertNull( store.claimWorkUnit( configuration.getUid(), "nodeB", 60, JobWorkDistributor.MAX_ATTEMPTS ) );
+        assertEquals( 1, store.failAbandonedWorkUnits( configuration.getUid(), JobWorkDistributor.MAX_ATTEMPTS ) );
+        assertEquals( 0, store.countOpenWorkUnits( configuration.getUid() ) );
+    }
+
+    @Test
+    public void testFailedUnitFailsJob()
+    {
+        job.failingUnit = "unit7";
+
+        try
+        {
+            createNode( "nodeA" ).execute( configuration, job );
+            fail( "job should have failed" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            assertEquals( "1 of 30 work units of job 'predict' failed", ex.getMessage() );
+        }
+
+        assertEquals( 29, executions.size() );
+        assertNull( job.completedResults );
+        assertTrue( store.units.isEmpty() );
+    }
+
+    @Test
+    public void testPhasesRunInOrder()
+        throws Exception
+    {
+        job = new TestJob( Arrays.asList( units( 0, 10 ), units( 10, 20 ), units( 20, 30 ) ) );
+        when( jobService.getJob( JobType.PREDICTOR ) ).thenReturn( job );
+
+        Thread helperThread = new Thread( () -> {
+            JobWorkDistributor helper = createNode( "nodeB" );
+
+            while ( !Thread.currentThread().isInterrupted() )
+            {
+                helper.workOnClaimableJobs();
+                sleep( 5 );
+            }
+        } );
+        helperThread.start();
+
+        try
+        {
+            createNode( "nodeA" ).execute( configuration, job );
+        }
+        finally
+        {
+            helperThread.interrupt();
+            helperThread.join();
+        }
+
+        assertEquals( 30, executions.size() );
+
+        for ( int i = 0; i < executions.size(); i++ )
+        {
+            assertEquals( "unit of phase started too early: " + executions,
+                i / 10, getPhase( executions.get( i ) ) );
+        }
+    }
+
+    @Test
+    public void testLaterPhaseIsNotClaimedBeforeEarlierPhaseIsDone()
+    {
+        store.addWorkUnits( configuration.getUid(), Arrays.asList( units( 0, 1 ), units( 1, 2 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( configuration.getUid(), "nodeA", 60,
+            JobWorkDistributor.MAX_ATTEMPTS ) );
+        assertNull( store.claimWorkUnit( configuration.getUid(), "nodeB", 60, JobWorkDistributor.MAX_ATTEMPTS ) );
+
+        store.completeWorkUnit( configuration.getUid(), "unit0", "nodeA", true, null );
+
+        assertEquals( "unit1", store.claimWorkUnit( configuration.getUid(), "nodeB", 60,
+            JobWorkDistributor.MAX_ATTEMPTS ) );
+    }
+
+    @Test
+    public void testFailedUnitStopsLaterPhases()
+    {
+        job = new TestJob( Arrays.asList( units( 0, 10 ), units( 10, 20 ) ) );
+        job.failingUnit = "unit3";
+
+        try
+        {
+            createNode( "nodeA" ).execute( configuration, job );
+            fail( "job should have failed" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            assertEquals( "1 of 20 work units of job 'predict' failed", ex.getMessage() );
+        }
+
+        assertEquals( 9, executions.size() );
+        assertTrue( executions.stream().allMatch( unit -> getPhase( unit ) == 0 ) );
+    }
+
+    private int getPhase( String workUnit )
+    {
+        return Integer.parseInt( workUnit.substring( "unit".length() ) ) / 10;
+    }
+
+    private JobWorkDistributor createNode( String nodeId )
+    {
+        LeaderManager leaderManager = mock( LeaderManager.class );
+        when( leaderManager.getCurrentNodeUuid() ).thenReturn( nodeId );
+
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+        when( config.isEnabled( SCHEDULER_DISTRIBUTED_JOBS_ENABLED ) ).thenReturn( true );
+        when( config.getProperty( SCHEDULER_DISTRIBUTED_JOBS_LEASE_SECONDS ) ).thenReturn( "3" );
+
+        return new JobWorkDistributor( store, jobService, jobConfigurationService, leaderManager, config );
+    }
+
+    private static List<String> units( int from, int to )
+    {
+        return IntStream.range( from, to ).mapToObj( i -> "unit" + i ).collect( Collectors.toList() );
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class TestJob implements PartitionableJob
+    {
+        private final List<List<String>> phases;
+
+        private final List<String> units;
+
+        private volatile String failingUnit;
+
+        private volatile Map<String, String> completedResults;
+
+        TestJob( List<List<String>> phases )
+        {
+            this.phases = phases;
+            this.units = phases.stream().flatMap( List::stream ).collect( Collectors.toList() );
+        }
+
+        @Override
+        public JobType getJobType()
+        {
+            return JobType.PREDICTOR;
+        }
+
+        @Override
+        public void execute( JobConfiguration jobConfiguration )
+        {
+            units.forEach( unit -> executeWorkUnit( jobConfiguration, unit ) );
+        }
+
+        @Override
+        public ErrorReport validate()
+        {
+            return null;
+        }
+
+        @Override
+        public List<List<String>> getWorkUnitPhases( JobConfiguration jobConfiguration )
+        {
+            return phases;
+        }
+
+        @Override
+        public String executeWorkUnit( JobConfiguration jobConfiguration, String workUnit )
+        {
+            if ( workUnit.equals( failingUnit ) )
+            {
+                throw new IllegalStateException( "Failed on purpose" );
+            }
+
+            sleep( 10 );
+            executions.add( workUnit );
+            executingNodes.add( Thread.currentThread().getName() );
+
+            return workUnit.equals( "unit0" ) ? null : "result of " + workUnit;
+        }
+
+        @Override
+        public void completeWorkUnits( JobConfiguration jobConfiguration, Map<String, String> results )
+        {
+            completedResults = results;
+        }
+    }
+
+    /**
+     * Lease table semantics of the JDBC store for a single job.
+     */
+    private static class InMemoryJobWorkUnitStore implements JobWorkUnitStore
+    {
+        private final Map<String, WorkUnit> units = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void addWorkUnits( String jobId, List<List<String>> phases )
+        {
+            units.clear();
+
+            for ( int phase = 0; phase < phases.size(); phase++ )
+            {
+                int unitPhase = phase;
+                phases.get( phase ).forEach( unit -> units.put( unit, new WorkUnit( unitPhase ) ) );
+            }
+        }
+
+        @Override
+        public synchronized String claimWorkUnit( String jobId, String nodeId, int leaseSeconds, int maxAttempts )
+        {
+            for ( Map.Entry<String, WorkUnit> entry : units.entrySet() )
+            {
+                WorkUnit unit = entry.getValue();
+
+                if ( isClaimable( unit, maxAttempts ) )
+                {
+                    unit.status = "CLAIMED";
+                    unit.owner = nodeId;
+                    unit.leaseExpires = System.currentTimeMillis() + leaseSeconds * 1000L;
+                    unit.attempts++;
+                    return entry.getKey();
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public synchronized int renewLeases( String nodeId, int leaseSeconds )
+        {
+            List<WorkUnit> owned = units.values().stream()
+                .filter( unit -> "CLAIMED".equals( unit.status ) && nodeId.equals( unit.owner ) )
+                .collect( Collectors.toList() );
+            owned.forEach( unit -> unit.leaseExpires = System.currentTimeMillis() + leaseSeconds * 1000L );
+            return owned.size();
+        }
+
+        @Override
+        public synchronized boolean completeWorkUnit( String jobId, String workUnit, String nodeId,
+            boolean success, String result )
+        {
+            WorkUnit unit = units.get( workUnit );
+
+            if ( unit == null || !"CLAIMED".equals( unit.status ) || !nodeId.equals( unit.owner ) )
+            {
+                return false;
+            }
+
+            unit.status = success ? "DONE" : "FAILED";
+            unit.result = result;
+            return true;
+        }
+
+        @Override
+        public synchronized Map<String, String> getWorkUnitResults( String jobId )
+        {
+            Map<String, String> results = new LinkedHashMap<>();
+            units.forEach( ( workUnit, unit ) -> {
+                if ( "DONE".equals( unit.status ) && unit.result != null )
+                {
+                    results.put( workUnit, unit.result );
+                }
+            } );
+            return results;
+        }
+
+        @Override
+        public synchronized int failAbandonedWorkUnits( String jobId, int maxAttempts )
+        {
+            List<WorkUnit> abandoned = units.values().stream()
+                .filter( unit -> unit.isExpired() && unit.attempts >= maxAttempts )
+                .collect( Collectors.toList() );
+            abandoned.forEach( unit -> unit.status = "FAILED" );
+            return abandoned.size();
+        }
+
+        @Override
+        public synchronized int countOpenWorkUnits( String jobId )
+        {
+            return (int) units.values().stream()
+                .filter( unit -> "PENDING".equals( unit.status ) || "CLAIMED".equals( unit.status ) ).count();
+        }
+
+        @Override
+        public synchronized int countFailedWorkUnits( String jobId )
+        {
+            return (int) units.values().stream().filter( unit -> "FAILED".equals( unit.status ) ).count();
+        }
+
+        @Override
+        public synchronized List<String> getJobsWithClaimableWorkUnits( int maxAttempts )
+        {
+            return units.values().stream().anyMatch( unit -> isClaimable( unit, maxAttempts ) )
+                ? Collections.singletonList( "predictJob1" )
+                : new ArrayList<>();
+        }
+
+        @Override
+        public synchronized void deleteWorkUnits( String jobId )
+        {
+            units.clear();
+        }
+
+        private boolean isClaimable( WorkUnit unit, int maxAttempts )
+        {
+            return unit.isClaimable( maxAttempts ) && units.values().stream()
+                .noneMatch( other -> other.phase < unit.phase && !"DONE".equals( other.status ) );
+        }
+    }
+
+    private static class WorkUnit
+    {
+        private final int phase;
+
+        private String status = "PENDING";
+
+        private String owner;
+
+        private long leaseExpires;
+
+        private int attempts;
+
+        private String result;
+
+        WorkUnit( int phase )
+        {
+            this.phase = phase;
+        }
+
+        boolean isExpired()
+        {
+            return "CLAIMED".equals( status ) && leaseExpires < System.currentTimeMillis();
+        }
+
+        boolean isClaimable( int maxAttempts )
+        {
+            return attempts < maxAttempts && ("PENDING".equals( status ) || isExpired());
+        }
+    }
+}
@@ -98,7 +98,8 @@ public class SchedulingManagerTest
 
         schedulingManager = new DefaultSchedulingManager( new DefaultJobService( applicationContext ),
             jobConfigurationService, mock( MessageService.class ),
-            mock( LeaderManager.class ), taskScheduler, mock( AsyncTaskExecutor.class ) );
+            mock( LeaderManager.class ), taskScheduler, mock( AsyncTaskExecutor.class ),
+            new JobResourceQueue( Collections.emptyMap() ), mock( JobWorkDistributor.class ) );
     }
 
     @Test
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.scheduling.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.scheduling.JobWorkUnitStore;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests the lease SQL of {@link JdbcJobWorkUnitStore} against Postgres.
+ */
+public class JdbcJobWorkUnitStoreTest
+    extends IntegrationTestBase
+{
+    private static final String JOB = "predictJob1";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private JobWorkUnitStore store;
+
+    @Override
+    protected void tearDownTest()
+    {
+        store.deleteWorkUnits( JOB );
+    }
+
+    @Test
+    public void testConcurrentClaimsAreUnique()
+        throws Exception
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 40 ) ) );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        try
+        {
+            List<Future<List<String>>> futures = new ArrayList<>();
+
+            for ( int node = 0; node < 4; node++ )
+            {
+                String nodeId = "node" + node;
+
+                futures.add( executor.submit( () -> claimAll( nodeId ) ) );
+            }
+
+            List<String> claimed = new ArrayList<>();
+
+            for ( Future<List<String>> future : futures )
+            {
+                claimed.addAll( future.get( 30, TimeUnit.SECONDS ) );
+            }
+
+            assertEquals( 40, claimed.size() );
+            assertEquals( 40, claimed.stream().distinct().count() );
+            assertEquals( 40, store.countOpenWorkUnits( JOB ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClaimSkipsLockedUnit()
+        throws Exception
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 2 ) ) );
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            String claimed = transactionTemplate.execute( status -> {
+                // lock the first unit as a node in the middle of claiming it
+
+                jdbcTemplate.queryForList( "select workunit from jobworkunit where jobid = ? and workunit = ? " +
+                    "for update", String.class, JOB, "unit0" );
+
+                return get( executor.submit(
+                    () -> store.claimWorkUnit( JOB, "nodeB", 60, MAX_ATTEMPTS ) ) );
+            } );
+
+            assertEquals( "unit1", claimed );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpiredLeaseIsReclaimedUntilMaxAttempts()
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 1 ) ) );
+
+        for ( int i = 0; i < MAX_ATTEMPTS; i++ )
+        {
+            assertEquals( "unit0", store.claimWorkUnit( JOB, "deadNode" + i, -1, MAX_ATTEMPTS ) );
+        }
+
+        assertNull( store.claimWorkUnit( JOB, "nodeB", 60, MAX_ATTEMPTS ) );
+        assertTrue( store.getJobsWithClaimableWorkUnits( MAX_ATTEMPTS ).isEmpty() );
+
+        assertEquals( 1, store.failAbandonedWorkUnits( JOB, MAX_ATTEMPTS ) );
+        assertEquals( 0, store.countOpenWorkUnits( JOB ) );
+        assertEquals( 1, store.countFailedWorkUnits( JOB ) );
+    }
+
+    @Test
+    public void testRenewedLeaseIsNotReclaimed()
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 1 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "nodeA", -1, MAX_ATTEMPTS ) );
+        assertEquals( 1, store.renewLeases( "nodeA", 60 ) );
+
+        assertNull( store.claimWorkUnit( JOB, "nodeB", 60, MAX_ATTEMPTS ) );
+        assertEquals( 0, store.failAbandonedWorkUnits( JOB, 1 ) );
+    }
+
+    @Test
+    public void testOnlyOwnerCompletesUnit()
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 1 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "deadNode", -1, MAX_ATTEMPTS ) );
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "nodeB", 60, MAX_ATTEMPTS ) );
+
+        assertFalse( store.completeWorkUnit( JOB, "unit0", "deadNode", true, null ) );
+        assertTrue( store.completeWorkUnit( JOB, "unit0", "nodeB", true, null ) );
+        assertEquals( 0, store.countOpenWorkUnits( JOB ) );
+        assertEquals( 0, store.countFailedWorkUnits( JOB ) );
+    }
+
+    @Test
+    public void testResultsOfDoneUnits()
+    {
+        store.addWorkUnits( JOB, Collections.singletonList( units( 0, 3 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+        assertEquals( "unit1", store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+        assertEquals( "unit2", store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+
+        assertTrue( store.completeWorkUnit( JOB, "unit0", "nodeA", true, "1;2;3;4" ) );
+        assertTrue( store.completeWorkUnit( JOB, "unit1", "nodeA", false, "failed" ) );
+        assertTrue( store.completeWorkUnit( JOB, "unit2", "nodeA", true, null ) );
+
+        assertEquals( Collections.singletonMap( "unit0", "1;2;3;4" ), store.getWorkUnitResults( JOB ) );
+    }
+
+    @Test
+    public void testLaterPhaseWaitsForEarlierPhase()
+    {
+        store.addWorkUnits( JOB, Arrays.asList( units( 0, 2 ), units( 2, 3 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+        assertEquals( "unit1", store.claimWorkUnit( JOB, "nodeB", 60, MAX_ATTEMPTS ) );
+        assertNull( store.claimWorkUnit( JOB, "nodeC", 60, MAX_ATTEMPTS ) );
+
+        assertTrue( store.completeWorkUnit( JOB, "unit0", "nodeA", true, null ) );
+        assertNull( store.claimWorkUnit( JOB, "nodeC", 60, MAX_ATTEMPTS ) );
+        assertTrue( store.getJobsWithClaimableWorkUnits( MAX_ATTEMPTS ).isEmpty() );
+
+        assertTrue( store.completeWorkUnit( JOB, "unit1", "nodeB", true, null ) );
+        assertEquals( Collections.singletonList( JOB ), store.getJobsWithClaimableWorkUnits( MAX_ATTEMPTS ) );
+        assertEquals( "unit2", store.claimWorkUnit( JOB, "nodeC", 60, MAX_ATTEMPTS ) );
+    }
+
+    @Test
+    public void testFailedUnitBlocksLaterPhase()
+    {
+        store.addWorkUnits( JOB, Arrays.asList( units( 0, 1 ), units( 1, 2 ) ) );
+
+        assertEquals( "unit0", store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+        assertTrue( store.completeWorkUnit( JOB, "unit0", "nodeA", false, null ) );
+
+        assertNull( store.claimWorkUnit( JOB, "nodeA", 60, MAX_ATTEMPTS ) );
+        assertEquals( 1, store.countOpenWorkUnits( JOB ) );
+        assertEquals( 1, store.countFailedWorkUnits( JOB ) );
+    }
+
+    private List<String> claimAll( String nodeId )
+    {
+        List<String> claimed = new ArrayList<>();
+
+        String workUnit;
+
+        while ( (workUnit = store.claimWorkUnit( JOB, nodeId, 60, MAX_ATTEMPTS )) != null )
+        {
+            claimed.add( workUnit );
+        }
+
+        return claimed;
+    }
+
+    private static <T> T get( Future<T> future )
+    {
+        try
+        {
+            return future.get( 10, TimeUnit.SECONDS );
+        }
+        catch ( Exception ex )
+        {
+            throw new IllegalStateException( "Claim did not skip the locked unit", ex );
+        }
+    }
+
+    private static List<String> units( int from, int to )
+    {
+        return IntStream.range( from, to ).mapToObj( i -> "unit" + i ).collect( Collectors.toList() );
+    }
+}
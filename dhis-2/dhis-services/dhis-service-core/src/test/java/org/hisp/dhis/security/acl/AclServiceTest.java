@@ -684,6 +684,50 @@ public class AclServiceTest extends TransactionalIntegrationTest
         assertFalse( aclService.canManage( user2, dataElement ) );
     }
 
+    @Test
+    public void testReadPrivateDataElementSharedThroughGroupInAccessContext()
+    {
+        User user1 = createUser( "user1B", "F_DATAELEMENT_PRIVATE_ADD" );
+        User user2 = createUser( "user2B", "F_DATAELEMENT_PRIVATE_ADD" );
+        User user3 = createUser( "user3B", "F_DATAELEMENT_PRIVATE_ADD" );
+
+        manager.save( user1 );
+        manager.save( user2 );
+        manager.save( user3 );
+
+        UserGroup userGroup = createUserGroup( 'A', Sets.newHashSet( user1, user2 ) );
+        manager.save( userGroup );
+        user1.getGroups().add( userGroup );
+        user2.getGroups().add( userGroup );
+
+        DataElement dataElement = createDataElement( 'A' );
+        dataElement.setPublicAccess( AccessStringHelper.DEFAULT );
+        dataElement.setCreatedBy( user1 );
+        dataElement.getSharing().setOwner( user1 );
+        dataElement.getSharing().addUserGroupAccess( new UserGroupAccess( userGroup, AccessStringHelper.READ ) );
+        manager.save( dataElement, false );
+
+        try ( AclContext context = aclService.openAccessContext( user2 ) )
+        {
+            assertTrue( aclService.canRead( user2, dataElement ) );
+            assertFalse( aclService.canWrite( user2, dataElement ) );
+            assertFalse( aclService.canUpdate( user2, dataElement ) );
+            assertFalse( aclService.canRead( user3, dataElement ) );
+
+            dataElement.getSharing().setPublicAccess( AccessStringHelper.READ_WRITE );
+
+            assertTrue( aclService.canWrite( user2, dataElement ) );
+        }
+
+        dataElement.getSharing().setPublicAccess( AccessStringHelper.DEFAULT );
+
+        try ( AclContext context = aclService.openAccessContext( user3 ) )
+        {
+            assertFalse( aclService.canRead( user3, dataElement ) );
+            assertTrue( aclService.canRead( user2, dataElement ) );
+        }
+    }
+
     @Test
     public void testUpdatePrivateDataElementSharedThroughGroup()
     {
@@ -40,11 +40,14 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
 import org.hisp.dhis.common.ValueType;
@@ -58,6 +61,9 @@ import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueServ
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 /**
  * @author Lars Helge Overland
  */
@@ -303,6 +309,40 @@ public class TrackedEntityInstanceStoreTest
         assertTrue( teis.contains( teiE ) );
     }
 
+    @Test
+    public void testQueryByTokensAcrossAttributes()
+    {
+        TrackedEntityType trackedEntityTypeA = createTrackedEntityType( 'A' );
+        trackedEntityTypeService.addTrackedEntityType( trackedEntityTypeA );
+
+        for ( TrackedEntityInstance tei : Lists.newArrayList( teiA, teiB, teiC, teiD, teiE, teiF ) )
+        {
+            tei.setTrackedEntityType( trackedEntityTypeA );
+            teiStore.save( tei );
+        }
+
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiA, "Male" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiB, "Female" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atB, teiB, "Femke" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atB, teiC, "Emanuel" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiD, "Other" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atB, teiE, "A_B" ) );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atB, teiF, "100%" ) );
+
+        dbmsManager.flushSession();
+
+        // Tokens match any of the attributes, each instance is returned once
+
+        assertEquals( Sets.newHashSet( teiA.getUid(), teiB.getUid(), teiC.getUid() ),
+            getQueryResult( trackedEntityTypeA, "MA fem" ) );
+
+        // Wildcards in tokens are matched literally
+
+        assertEquals( Sets.newHashSet( teiE.getUid() ), getQueryResult( trackedEntityTypeA, "_" ) );
+        assertEquals( Sets.newHashSet( teiF.getUid() ), getQueryResult( trackedEntityTypeA, "%" ) );
+        assertEquals( Sets.newHashSet( teiE.getUid(), teiF.getUid() ), getQueryResult( trackedEntityTypeA, "% _" ) );
+    }
+
     @Test
     public void testProgramAttributeOfTypeOrgUnitIsResolvedToOrgUnitName()
     {
@@ -333,4 +373,17 @@ public class TrackedEntityInstanceStoreTest
         assertThat( grid.get( 0 ).get( atC.getUid() ), is( "OrganisationUnitC" ) );
 
     }
+
+    private Set<String> getQueryResult( TrackedEntityType trackedEntityType, String query )
+    {
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams()
+            .setQuery( new QueryFilter( QueryOperator.LIKE, query ) )
+            .setTrackedEntityType( trackedEntityType )
+            .setOrganisationUnitMode( OrganisationUnitSelectionMode.ALL )
+            .setAttributes( Lists.newArrayList( new QueryItem( atA ), new QueryItem( atB ) ) );
+
+        return teiStore.getTrackedEntityInstancesGrid( params ).stream()
+            .map( row -> row.get( TrackedEntityInstanceQueryParams.TRACKED_ENTITY_INSTANCE_ID ) )
+            .collect( Collectors.toSet() );
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.jdbc.statementbuilder.PostgreSQLStatementBuilder;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexType;
+import org.junit.Test;
+
+public class TrackedEntityAttributeSearchPlannerTest
+{
+    private final TrackedEntityAttributeSearchPlanner planner = new TrackedEntityAttributeSearchPlanner(
+        new PostgreSQLStatementBuilder() );
+
+    @Test
+    public void testGetIndexType()
+    {
+        assertEquals( TrackedEntityAttributeSearchIndexType.TRIGRAM,
+            TrackedEntityAttributeSearchPlanner.getIndexType( QueryOperator.LIKE, false ) );
+        assertEquals( TrackedEntityAttributeSearchIndexType.TRIGRAM,
+            TrackedEntityAttributeSearchPlanner.getIndexType( QueryOperator.LIKE, true ) );
+        assertEquals( TrackedEntityAttributeSearchIndexType.HASH,
+            TrackedEntityAttributeSearchPlanner.getIndexType( QueryOperator.EQ, true ) );
+        assertNull( TrackedEntityAttributeSearchPlanner.getIndexType( QueryOperator.EQ, false ) );
+        assertNull( TrackedEntityAttributeSearchPlanner.getIndexType( QueryOperator.GT, true ) );
+    }
+
+    @Test
+    public void testGetQueryTokenPredicateLike()
+    {
+        assertEquals( "(Q.trackedentityattributeid = 12 AND lower(Q.value) like '%o''brien%' escape '\\')",
+            planner.getQueryTokenPredicate( "Q", 12, QueryOperator.LIKE, "O'Brien" ) );
+    }
+
+    @Test
+    public void testGetQueryTokenPredicateLikeEscapesWildcards()
+    {
+        assertEquals( "(Q.trackedentityattributeid = 12 AND lower(Q.value) like '%10\\%\\_a\\\\b%' escape '\\')",
+            planner.getQueryTokenPredicate( "Q", 12, QueryOperator.LIKE, "10%_A\\b" ) );
+    }
+
+    @Test
+    public void testGetQueryTokenPredicateWord()
+    {
+        assertEquals( "(Q.trackedentityattributeid = 12 AND lower(Q.value) ~* '\\manna\\M')",
+            planner.getQueryTokenPredicate( "Q", 12, QueryOperator.EQ, "Anna" ) );
+    }
+
+    @Test
+    public void testGetFilterPredicate()
+    {
+        assertEquals( "lower(\"A\".value) = 'anna'",
+            planner.getFilterPredicate( "\"A\"", new QueryFilter( QueryOperator.EQ, "Anna" ), false ) );
+        assertEquals( "lower(\"A\".value) = 'anna'",
+            planner.getFilterPredicate( "\"A\"", new QueryFilter( QueryOperator.EQ, "Anna" ), true ) );
+        assertEquals( "lower(\"A\".value) like '%a\\_n%' escape '\\'",
+            planner.getFilterPredicate( "\"A\"", new QueryFilter( QueryOperator.LIKE, "A_n" ), false ) );
+        assertEquals( "lower(\"A\".value) > '10'",
+            planner.getFilterPredicate( "\"A\"", new QueryFilter( QueryOperator.GT, "10" ), true ) );
+    }
+}
@@ -28,6 +28,7 @@
 package org.hisp.dhis.dxf2.config;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static org.hisp.dhis.external.conf.ConfigurationKey.DATA_VALUE_IMPORT_WORKERS;
 import static org.hisp.dhis.importexport.ImportStrategy.CREATE;
 import static org.hisp.dhis.importexport.ImportStrategy.DELETE;
 import static org.hisp.dhis.importexport.ImportStrategy.UPDATE;
@@ -35,6 +36,7 @@ import static org.hisp.dhis.importexport.ImportStrategy.UPDATE;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.hisp.dhis.dxf2.events.importer.Checker;
 import org.hisp.dhis.dxf2.events.importer.Processor;
@@ -92,6 +94,7 @@ import org.hisp.dhis.dxf2.metadata.objectbundle.validation.ValidationCheck;
 import org.hisp.dhis.dxf2.metadata.objectbundle.validation.ValidationHooksCheck;
 import org.hisp.dhis.dxf2.metadata.sync.exception.MetadataSyncServiceException;
 import org.hisp.dhis.external.conf.ConfigurationPropertyFactoryBean;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.programrule.ProgramRuleActionType;
 import org.hisp.dhis.programrule.action.validation.AlwaysValidProgramRuleActionValidator;
@@ -111,6 +114,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -153,6 +157,28 @@ public class ServiceConfig
         return retryTemplate;
     }
 
+    /**
+     * Executor shared by the import workers of all data value set imports,
+     * with one thread per configured worker. When all threads are busy and
+     * the queue is full the chunk is saved in the submitting thread. The
+     * executor is shut down with the application context.
+     */
+    @Bean( "dataValueImportExecutor" )
+    public ThreadPoolTaskExecutor dataValueImportExecutor( DhisConfigurationProvider config )
+    {
+        int workers = Math.max( 1, Integer.parseInt( config.getProperty( DATA_VALUE_IMPORT_WORKERS ) ) );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix( "DATA-VALUE-IMPORT-" );
+        executor.setDaemon( true );
+        executor.setCorePoolSize( workers );
+        executor.setMaxPoolSize( workers );
+        executor.setQueueCapacity( workers * 2 );
+        executor.setRejectedExecutionHandler( new ThreadPoolExecutor.CallerRunsPolicy() );
+
+        return executor;
+    }
+
     private final static List<Class<? extends ValidationCheck>> CREATE_UPDATE_CHECKS = newArrayList(
         DuplicateIdsCheck.class,
         ValidationHooksCheck.class,
@@ -29,6 +29,7 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import static org.apache.commons.lang3.StringUtils.trimToNull;
 import static org.hisp.dhis.external.conf.ConfigurationKey.CHANGELOG_AGGREGATE;
+import static org.hisp.dhis.external.conf.ConfigurationKey.DATA_VALUE_IMPORT_WORKERS;
 import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.notification.NotificationLevel.INFO;
 import static org.hisp.dhis.system.notification.NotificationLevel.WARN;
@@ -37,15 +38,28 @@ import static org.hisp.dhis.util.DateUtils.parseDate;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.BooleanUtils;
@@ -59,6 +73,7 @@ import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IdentifiableProperty;
 import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.commons.util.StreamUtils;
 import org.hisp.dhis.dataelement.DataElement;
@@ -71,6 +86,7 @@ import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.datavalueset.ImportContext.DataSetContext;
 import org.hisp.dhis.dxf2.importsummary.ImportCount;
@@ -115,11 +131,13 @@ import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.hisp.quick.BatchHandlerFactory;
 import org.hisp.staxwax.factory.XMLFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.csvreader.CsvReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 
 /**
  * Note that a mock BatchHandler factory is being injected.
@@ -135,6 +153,10 @@ public class DefaultDataValueSetService implements DataValueSetService
 
     private static final int CACHE_MISS_THRESHOLD = 250;
 
+    private static final int EXISTING_CHECK_CHUNK_SIZE = 1000;
+
+    private static final int MAX_PENDING_CHUNKS = 2;
+
     private final IdentifiableObjectManager identifiableObjectManager;
 
     private final CategoryService categoryService;
@@ -169,7 +191,7 @@ public class DefaultDataValueSetService implements DataValueSetService
 
     private final AclService aclService;
 
-    private final DhisConfigurationProvider config;
+    private DhisConfigurationProvider config;
 
     private final ObjectMapper jsonMapper;
 
@@ -177,6 +199,9 @@ public class DefaultDataValueSetService implements DataValueSetService
 
     private final SchemaService schemaService;
 
+    @Qualifier( "dataValueImportExecutor" )
+    private final Executor dataValueImportExecutor;
+
     /**
      * Used only for testing, remove when test is refactored
      */
@@ -195,6 +220,15 @@ public class DefaultDataValueSetService implements DataValueSetService
         this.batchHandlerFactory = batchHandlerFactory;
     }
 
+    /**
+     * Used only for testing, remove when test is refactored
+     */
+    @Deprecated
+    public void setConfig( DhisConfigurationProvider config )
+    {
+        this.config = config;
+    }
+
     // -------------------------------------------------------------------------
     // DataValueSet implementation
     // -------------------------------------------------------------------------
@@ -725,6 +759,8 @@ public class DefaultDataValueSetService implements DataValueSetService
 
         final ImportCount importCount = new ImportCount();
 
+        final List<ImportWorker> workers = createImportWorkers( context );
+
         // ---------------------------------------------------------------------
         // Data values
         // ---------------------------------------------------------------------
@@ -734,6 +770,46 @@ public class DefaultDataValueSetService implements DataValueSetService
         clock.logTime( "Validated outer meta-data" );
         notifier.notify( id, notificationLevel, "Importing data values" );
 
+        try
+        {
+            importDataValues( context, dataSetContext, dataValueSet, workers, importCount, now );
+        }
+        finally
+        {
+            workers.forEach( ImportWorker::shutdown );
+        }
+
+        if ( !context.isSkipAudit() )
+        {
+            context.getAuditBatchHandler().flush();
+        }
+
+        context.getSummary()
+            .setImportCount( importCount )
+            .setStatus( !context.getSummary().hasConflicts() ? ImportStatus.SUCCESS : ImportStatus.WARNING )
+            .setDescription( "Import process completed successfully" );
+
+        clock.logTime(
+            "Data value import done, total: " + importCount.getTotalCount() + ", import: " + importCount.getImported()
+                + ", update: "
+                + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true )
+            .addJobSummary( id, notificationLevel, context.getSummary(), ImportSummary.class );
+
+        dataValueSet.close();
+
+        return context.getSummary();
+    }
+
+    /**
+     * Reads, validates and saves the data values of the given data value set.
+     * Data values are distributed to the given import workers by organisation
+     * unit. The import counts of the workers are merged into the given import
+     * count when all data values are saved.
+     */
+    private void importDataValues( ImportContext context, ImportContext.DataSetContext dataSetContext,
+        DataValueSet dataValueSet, List<ImportWorker> workers, ImportCount importCount, Date now )
+    {
         int index = 0;
         while ( dataValueSet.hasNextDataValue() )
         {
@@ -763,78 +839,208 @@ public class DefaultDataValueSetService implements DataValueSetService
             DataValue internalValue = createDataValue( dataValue, context, valueContext, now );
 
             // -----------------------------------------------------------------
-            // Save, update or delete data value
+            // Save, update or delete data value in import worker for org unit
             // -----------------------------------------------------------------
-            DataValue existingValue = !context.isSkipExistingCheck()
-                ? context.getDataValueBatchHandler().findObject( internalValue )
-                : null;
+            ImportWorker worker = workers.get( (int) (valueContext.getOrgUnit().getId() % workers.size()) );
 
-            // -----------------------------------------------------------------
-            // Preserve any existing created date unless overwritten by import
-            // -----------------------------------------------------------------
-            if ( existingValue != null && !dataValue.hasCreated() )
+            worker.add( getKey( internalValue ), new PendingDataValue( dataValue, valueContext, internalValue ) );
+        }
+
+        for ( ImportWorker worker : workers )
+        {
+            ImportCount workerCount = worker.finish();
+
+            importCount.incrementImported( workerCount.getImported() );
+            importCount.incrementUpdated( workerCount.getUpdated() );
+            importCount.incrementIgnored( workerCount.getIgnored() );
+            importCount.incrementDeleted( workerCount.getDeleted() );
+        }
+
+        context.getDataValueBatchHandler().flush();
+    }
+
+    /**
+     * Creates the import workers for the given import context. Returns a
+     * single worker which saves data values in the calling thread unless more
+     * workers are configured through {@code datavalue.import.workers} in
+     * dhis.conf. Multiple workers save data values in the shared data value
+     * import executor with separate batch handlers.
+     *
+     * @param context the {@link ImportContext}.
+     * @return a list of {@link ImportWorker}.
+     */
+    private List<ImportWorker> createImportWorkers( ImportContext context )
+    {
+        int workerNo = Integer.parseInt( config.getProperty( DATA_VALUE_IMPORT_WORKERS ) );
+
+        if ( workerNo <= 1 )
+        {
+            return Lists.newArrayList( new ImportWorker( context, null ) );
+        }
+
+        log.info( "Importing data values with {} workers", workerNo );
+
+        List<ImportWorker> workers = new ArrayList<>();
+
+        for ( int i = 0; i < workerNo; i++ )
+        {
+            ImportContext workerContext = context.toBuilder()
+                .dataValueBatchHandler( batchHandlerFactory
+                    .createBatchHandler( DataValueBatchHandler.class ).init() )
+                .auditBatchHandler( context.isSkipAudit() ? null
+                    : batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init() )
+                .build();
+
+            workers.add( new ImportWorker( workerContext, dataValueImportExecutor ) );
+        }
+
+        return workers;
+    }
+
+    /**
+     * Saves the given chunk of data values. Only uses the batch handlers of
+     * the context, so that it can run in an import worker thread. File
+     * resources to update are collected instead of updated.
+     *
+     * @param context the {@link ImportContext}.
+     * @param importCount the {@link ImportCount}.
+     * @param chunk mapping of key to data values to save.
+     * @param existingValues mapping of key to existing data value.
+     * @param fileResources mapping of uid of file resources to update to
+     *        whether the file resource is assigned.
+     */
+    private void saveDataValues( ImportContext context, ImportCount importCount,
+        Map<String, PendingDataValue> chunk, Map<String, DataValue> existingValues,
+        Map<String, Boolean> fileResources )
+    {
+        for ( Map.Entry<String, PendingDataValue> entry : chunk.entrySet() )
+        {
+            PendingDataValue value = entry.getValue();
+
+            saveDataValue( context, importCount, value.getDataValue(), value.getValueContext(),
+                value.getInternalValue(), existingValues.get( entry.getKey() ), fileResources );
+        }
+    }
+
+    /**
+     * Updates the given file resources.
+     *
+     * @param fileResources mapping of uid of file resources to update to
+     *        whether the file resource is assigned.
+     */
+    private void updateFileResources( Map<String, Boolean> fileResources )
+    {
+        for ( Map.Entry<String, Boolean> entry : fileResources.entrySet() )
+        {
+            FileResource fr = fileResourceService.getFileResource( entry.getKey() );
+
+            if ( entry.getValue() )
             {
-                internalValue.setCreated( existingValue.getCreated() );
+                fr.setAssigned( true );
             }
 
-            // -----------------------------------------------------------------
-            // Check soft deleted data values on update and import
-            // -----------------------------------------------------------------
-            final ImportStrategy strategy = context.getStrategy();
-            if ( !context.isSkipExistingCheck() && existingValue != null && !existingValue.isDeleted() )
+            fileResourceService.updateFileResource( fr );
+        }
+
+        fileResources.clear();
+    }
+
+    /**
+     * Returns the existing values, including soft deleted values, for the
+     * given chunk of data values. The values are retrieved with a single
+     * query when the JDBC data value batch handler is used, and per data value
+     * through the batch handler otherwise.
+     *
+     * @param context the {@link ImportContext}.
+     * @param chunk mapping of key to data values.
+     * @return mapping of key to existing data value.
+     */
+    private Map<String, DataValue> getExistingValues( ImportContext context, Map<String, PendingDataValue> chunk )
+    {
+        Map<String, DataValue> existingValues = new HashMap<>();
+
+        if ( context.isSkipExistingCheck() )
+        {
+            return existingValues;
+        }
+
+        if ( context.getDataValueBatchHandler() instanceof DataValueBatchHandler )
+        {
+            List<DataValue> internalValues = chunk.values().stream()
+                .map( PendingDataValue::getInternalValue )
+                .collect( Collectors.toList() );
+
+            for ( DeflatedDataValue value : dataValueService.getDeflatedDataValues( internalValues ) )
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
-                {
-                    saveDataValueUpdate( context, importCount, dataValue, valueContext, internalValue, existingValue );
-                }
-                else if ( strategy.isDelete() )
-                {
-                    saveDataValueDelete( context, importCount, dataValue, valueContext, internalValue, existingValue );
-                }
-                else
-                {
-                    importCount.incrementIgnored();
-                }
+                existingValues.put( getKey( value ), getExistingValue( value ) );
             }
-            else
+        }
+        else
+        {
+            for ( Map.Entry<String, PendingDataValue> entry : chunk.entrySet() )
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
-                {
-                    saveDataValueCreate( context, importCount, valueContext, internalValue, existingValue );
-                }
-                else
+                DataValue existingValue = context.getDataValueBatchHandler()
+                    .findObject( entry.getValue().getInternalValue() );
+
+                if ( existingValue != null )
                 {
-                    importCount.incrementIgnored();
+                    existingValues.put( entry.getKey(), existingValue );
                 }
             }
         }
 
-        context.getDataValueBatchHandler().flush();
+        return existingValues;
+    }
 
-        if ( !context.isSkipAudit() )
+    private void saveDataValue( ImportContext context, ImportCount importCount,
+        org.hisp.dhis.dxf2.datavalue.DataValue dataValue, ImportContext.DataValueContext valueContext,
+        DataValue internalValue, DataValue existingValue, Map<String, Boolean> fileResources )
+    {
+        // ---------------------------------------------------------------------
+        // Preserve any existing created date unless overwritten by import
+        // ---------------------------------------------------------------------
+        if ( existingValue != null && !dataValue.hasCreated() )
         {
-            context.getAuditBatchHandler().flush();
+            internalValue.setCreated( existingValue.getCreated() );
         }
 
-        context.getSummary()
-            .setImportCount( importCount )
-            .setStatus( !context.getSummary().hasConflicts() ? ImportStatus.SUCCESS : ImportStatus.WARNING )
-            .setDescription( "Import process completed successfully" );
-
-        clock.logTime(
-            "Data value import done, total: " + importCount.getTotalCount() + ", import: " + importCount.getImported()
-                + ", update: "
-                + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
-        notifier.notify( id, notificationLevel, "Import done", true )
-            .addJobSummary( id, notificationLevel, context.getSummary(), ImportSummary.class );
-
-        dataValueSet.close();
-
-        return context.getSummary();
+        // ---------------------------------------------------------------------
+        // Check soft deleted data values on update and import
+        // ---------------------------------------------------------------------
+        final ImportStrategy strategy = context.getStrategy();
+        if ( !context.isSkipExistingCheck() && existingValue != null && !existingValue.isDeleted() )
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
+            {
+                saveDataValueUpdate( context, importCount, dataValue, valueContext, internalValue, existingValue,
+                    fileResources );
+            }
+            else if ( strategy.isDelete() )
+            {
+                saveDataValueDelete( context, importCount, dataValue, valueContext, internalValue, existingValue,
+                    fileResources );
+            }
+            else
+            {
+                importCount.incrementIgnored();
+            }
+        }
+        else
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
+            {
+                saveDataValueCreate( context, importCount, valueContext, internalValue, existingValue, fileResources );
+            }
+            else
+            {
+                importCount.incrementIgnored();
+            }
+        }
     }
 
     private void saveDataValueCreate( ImportContext context, ImportCount importCount,
-        ImportContext.DataValueContext valueContext, DataValue internalValue, DataValue existingValue )
+        ImportContext.DataValueContext valueContext, DataValue internalValue, DataValue existingValue,
+        Map<String, Boolean> fileResources )
     {
         if ( internalValue.isNullValue() )
         {
@@ -851,11 +1057,7 @@ public class DefaultDataValueSetService implements DataValueSetService
 
                 if ( valueContext.getDataElement().isFileType() )
                 {
-                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                    fr.setAssigned( true );
-
-                    fileResourceService.updateFileResource( fr );
+                    fileResources.put( internalValue.getValue(), true );
                 }
             }
             return;
@@ -868,11 +1070,7 @@ public class DefaultDataValueSetService implements DataValueSetService
 
             if ( added && valueContext.getDataElement().isFileType() )
             {
-                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                fr.setAssigned( true );
-
-                fileResourceService.updateFileResource( fr );
+                fileResources.put( internalValue.getValue(), true );
             }
         }
 
@@ -884,7 +1082,7 @@ public class DefaultDataValueSetService implements DataValueSetService
 
     private void saveDataValueDelete( ImportContext context, ImportCount importCount,
         org.hisp.dhis.dxf2.datavalue.DataValue dataValue, ImportContext.DataValueContext valueContext,
-        DataValue internalValue, DataValue existingValue )
+        DataValue internalValue, DataValue existingValue, Map<String, Boolean> fileResources )
     {
         internalValue.setDeleted( true );
 
@@ -892,12 +1090,9 @@ public class DefaultDataValueSetService implements DataValueSetService
 
         if ( !context.isDryRun() )
         {
-            DataValue actualDataValue = valueContext.getActualDataValue( dataValueService );
-            if ( valueContext.getDataElement().isFileType() && actualDataValue != null )
+            if ( valueContext.getDataElement().isFileType() && existingValue.getValue() != null )
             {
-                FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
-
-                fileResourceService.updateFileResource( fr );
+                fileResources.putIfAbsent( existingValue.getValue(), false );
             }
 
             context.getDataValueBatchHandler().updateObject( internalValue );
@@ -914,7 +1109,7 @@ public class DefaultDataValueSetService implements DataValueSetService
 
     private void saveDataValueUpdate( ImportContext context, ImportCount importCount,
         org.hisp.dhis.dxf2.datavalue.DataValue dataValue, ImportContext.DataValueContext valueContext,
-        DataValue internalValue, DataValue existingValue )
+        DataValue internalValue, DataValue existingValue, Map<String, Boolean> fileResources )
     {
         AuditType auditType = AuditType.UPDATE;
         if ( internalValue.isNullValue() || internalValue.isDeleted() )
@@ -949,16 +1144,49 @@ public class DefaultDataValueSetService implements DataValueSetService
 
             if ( valueContext.getDataElement().isFileType() )
             {
-                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                fr.setAssigned( true );
-
-                fileResourceService.updateFileResource( fr );
+                fileResources.put( internalValue.getValue(), true );
             }
 
         }
     }
 
+    private static String getKey( DataValue value )
+    {
+        return getKey( value.getDataElement().getId(), value.getPeriod().getId(), value.getSource().getId(),
+            value.getCategoryOptionCombo().getId(), value.getAttributeOptionCombo().getId() );
+    }
+
+    private static String getKey( DeflatedDataValue value )
+    {
+        return getKey( value.getDataElementId(), value.getPeriodId(), value.getSourceId(),
+            value.getCategoryOptionComboId(), value.getAttributeOptionComboId() );
+    }
+
+    private static String getKey( long dataElementId, long periodId, long sourceId, long categoryOptionComboId,
+        long attributeOptionComboId )
+    {
+        return dataElementId + "-" + periodId + "-" + sourceId + "-" + categoryOptionComboId + "-"
+            + attributeOptionComboId;
+    }
+
+    /**
+     * Returns the existing data value for the given deflated data value, with
+     * the properties retrieved by the data value batch handler.
+     */
+    private static DataValue getExistingValue( DeflatedDataValue value )
+    {
+        DataValue dataValue = new DataValue();
+
+        dataValue.setValue( value.getValue() );
+        dataValue.setStoredBy( value.getStoredBy() );
+        dataValue.setCreated( value.getCreated() );
+        dataValue.setComment( value.getComment() );
+        dataValue.setFollowup( value.isFollowup() );
+        dataValue.setDeleted( value.isDeleted() );
+
+        return dataValue;
+    }
+
     private void preheatCaches( ImportContext context )
     {
         if ( context.getImportOptions().isPreheatCacheDefaultFalse() )
@@ -1233,4 +1461,216 @@ public class DefaultDataValueSetService implements DataValueSetService
         summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
     }
 
+    /**
+     * Saves data values in chunks. A worker with an executor saves chunks one
+     * after the other in the shared executor with at most
+     * {@link #MAX_PENDING_CHUNKS} chunks waiting, otherwise chunks are saved in
+     * the calling thread. Data values
+     * with the same key always go to the same worker, and a key which is
+     * already buffered starts a new chunk, so that values for a key are saved
+     * in input order.
+     * <p>
+     * Everything which needs the Hibernate session or the current user, that
+     * is looking up existing values and updating file resources, is done in
+     * the calling thread. The executor only writes through the batch handlers
+     * of the worker.
+     */
+    private final class ImportWorker
+    {
+        private final ImportContext context;
+
+        private final Executor executor;
+
+        private final ImportCount importCount = new ImportCount();
+
+        private final Deque<Future<?>> futures = new ArrayDeque<>();
+
+        private CompletableFuture<Void> lastChunk = CompletableFuture.completedFuture( null );
+
+        private volatile boolean cancelled = false;
+
+        private final Map<String, Boolean> fileResources = new LinkedHashMap<>();
+
+        private Map<String, PendingDataValue> chunk = new LinkedHashMap<>();
+
+        private boolean repeatedKey = false;
+
+        private boolean flushed = false;
+
+        ImportWorker( ImportContext context, Executor executor )
+        {
+            this.context = context;
+            this.executor = executor;
+        }
+
+        void add( String key, PendingDataValue value )
+        {
+            if ( chunk.containsKey( key ) )
+            {
+                saveChunk();
+
+                repeatedKey = true;
+            }
+            else if ( chunk.size() >= EXISTING_CHECK_CHUNK_SIZE )
+            {
+                saveChunk();
+            }
+
+            chunk.put( key, value );
+        }
+
+        /**
+         * Saves remaining data values and waits for completion. Flushes the
+         * batch handlers of the worker if it has an executor.
+         *
+         * @return the {@link ImportCount} of the worker.
+         */
+        ImportCount finish()
+        {
+            saveChunk();
+
+            if ( executor != null )
+            {
+                awaitChunks();
+
+                flushBatchHandlers();
+            }
+
+            return importCount;
+        }
+
+        /**
+         * Skips the chunks of the worker which are not started yet, waits for
+         * the running chunk, if any, and flushes and closes the batch handlers
+         * of the worker if this was not done by {@link #finish()}, also when
+         * the import failed. Does nothing for a worker without executor, as it
+         * uses the batch handlers of the import.
+         */
+        void shutdown()
+        {
+            if ( executor == null )
+            {
+                return;
+            }
+
+            cancelled = true;
+
+            try
+            {
+                lastChunk.get( 1, TimeUnit.MINUTES );
+            }
+            catch ( ExecutionException ex )
+            {
+                log.debug( "Import worker chunk failed", ex );
+            }
+            catch ( TimeoutException ex )
+            {
+                log.warn( "Import worker did not terminate" );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                if ( !flushed )
+                {
+                    flushBatchHandlers();
+                }
+            }
+        }
+
+        private void flushBatchHandlers()
+        {
+            flushed = true;
+
+            try
+            {
+                context.getDataValueBatchHandler().flush();
+            }
+            finally
+            {
+                if ( !context.isSkipAudit() )
+                {
+                    context.getAuditBatchHandler().flush();
+                }
+            }
+        }
+
+        private void saveChunk()
+        {
+            if ( chunk.isEmpty() )
+            {
+                return;
+            }
+
+            final Map<String, PendingDataValue> values = chunk;
+
+            chunk = new LinkedHashMap<>();
+
+            if ( repeatedKey )
+            {
+                // the previous value for the key must be written before its
+                // existing value is looked up
+
+                if ( executor != null )
+                {
+                    awaitChunks();
+                }
+
+                context.getDataValueBatchHandler().flush();
+            }
+
+            repeatedKey = false;
+
+            final Map<String, DataValue> existingValues = getExistingValues( context, values );
+
+            if ( executor == null )
+            {
+                saveDataValues( context, importCount, values, existingValues, fileResources );
+                updateFileResources( fileResources );
+                return;
+            }
+
+            while ( futures.size() >= MAX_PENDING_CHUNKS )
+            {
+                ConcurrentUtils.waitForCompletion( Lists.newArrayList( futures.poll() ) );
+            }
+
+            // chunks of the worker share its batch handlers, so each chunk
+            // starts in the shared executor when the previous one is saved
+
+            lastChunk = lastChunk.thenRunAsync( () -> {
+                if ( !cancelled )
+                {
+                    saveDataValues( context, importCount, values, existingValues, fileResources );
+                }
+            }, executor );
+
+            futures.add( lastChunk );
+        }
+
+        private void awaitChunks()
+        {
+            ConcurrentUtils.waitForCompletion( futures );
+
+            futures.clear();
+
+            updateFileResources( fileResources );
+        }
+    }
+
+    /**
+     * Data value which is buffered until the existing value is looked up.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class PendingDataValue
+    {
+        private final org.hisp.dhis.dxf2.datavalue.DataValue dataValue;
+
+        private final ImportContext.DataValueContext valueContext;
+
+        private final DataValue internalValue;
+    }
 }
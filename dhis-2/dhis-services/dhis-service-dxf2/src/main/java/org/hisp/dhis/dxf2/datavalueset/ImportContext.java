@@ -70,7 +70,7 @@ import org.hisp.quick.BatchHandler;
  * @author Jan Bernitt
  */
 @Getter
-@Builder
+@Builder( toBuilder = true )
 @AllArgsConstructor( access = AccessLevel.PRIVATE )
 public final class ImportContext
 {
@@ -61,6 +61,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -109,6 +112,7 @@ import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramInstanceService;
 import org.hisp.dhis.program.ProgramService;
 import org.hisp.dhis.program.ProgramStageDataElement;
+import org.hisp.dhis.program.ProgramStageDataElementService;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.program.ProgramStageInstanceService;
 import org.hisp.dhis.program.ProgramType;
@@ -198,12 +202,16 @@ public abstract class AbstractEventService implements EventService
 
     protected EventSyncService eventSyncService;
 
+    protected ProgramStageDataElementService programStageDataElementService;
+
     protected EventServiceContextBuilder eventServiceContextBuilder;
 
     protected Cache<Boolean> dataElementCache;
 
     private static final int FLUSH_FREQUENCY = 100;
 
+    private static final int STREAM_CLEAR_SESSION_FREQUENCY = 1000;
+
     // -------------------------------------------------------------------------
     // Caches
     // -------------------------------------------------------------------------
@@ -294,6 +302,16 @@ public abstract class AbstractEventService implements EventService
 
         Events events = new Events();
 
+        if ( params.isCursorPaging() )
+        {
+            List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
+
+            events.setEvents( filterByOwnership( eventList, user ) );
+            events.setNextPageToken( params.getNextPageToken() != null ? params.getNextPageToken().encode() : null );
+
+            return events;
+        }
+
         if ( params.isPaging() )
         {
             int count = 0;
@@ -309,22 +327,87 @@ public abstract class AbstractEventService implements EventService
 
         List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
 
-        for ( Event event : eventList )
+        events.setEvents( filterByOwnership( eventList, user ) );
+
+        return events;
+    }
+
+    @Transactional( readOnly = true )
+    @Override
+    public void streamEvents( EventSearchParams params, Consumer<Event> consumer )
+    {
+        validate( params );
+
+        if ( params.isCursorPaging() )
         {
-            boolean canSkipCheck = event.getTrackedEntityInstance() == null ||
-                trackerOwnershipAccessManager.canSkipOwnershipCheck( user, event.getProgramType() );
+            throw new IllegalQueryException( "Cursor paging is not supported when streaming events" );
+        }
+
+        List<OrganisationUnit> organisationUnits = getOrganisationUnits( params );
+
+        User user = currentUserService.getCurrentUser();
+
+        params.handleCurrentUserSelectionMode( user );
 
-            if ( canSkipCheck || trackerOwnershipAccessManager.hasAccess( user,
-                entityInstanceService.getTrackedEntityInstance( event.getTrackedEntityInstance() ),
-                programService.getProgram( event.getProgram() ) ) )
+        if ( !params.isPaging() && !params.isSkipPaging() )
+        {
+            params.setDefaultPaging();
+        }
+
+        Map<String, Set<String>> psdesWithSkipSyncTrue = params.isSynchronizationQuery()
+            ? programStageDataElementService.getProgramStageDataElementsWithSkipSynchronizationSetToTrue()
+            : Collections.emptyMap();
+
+        // The ownership check loads the tracked entity instance of each event,
+        // so the session is cleared regularly to keep it from growing with the
+        // size of the export. The user is read again as it is then detached
+
+        AtomicReference<User> currentUser = new AtomicReference<>( user );
+        AtomicInteger checkedEvents = new AtomicInteger();
+
+        eventStore.streamEvents( params, organisationUnits, psdesWithSkipSyncTrue, event -> {
+            if ( event.getTrackedEntityInstance() != null
+                && checkedEvents.incrementAndGet() % STREAM_CLEAR_SESSION_FREQUENCY == 0 )
+            {
+                dbmsManager.clearSession();
+                currentUser.set( currentUserService.getCurrentUser() );
+            }
+
+            if ( hasOwnershipAccess( event, currentUser.get() ) )
             {
-                events.getEvents().add( event );
+                consumer.accept( event );
+            }
+        } );
+    }
+
+    /**
+     * Returns the events for which the given user passes the ownership check.
+     */
+    private List<Event> filterByOwnership( List<Event> eventList, User user )
+    {
+        List<Event> events = new ArrayList<>();
+
+        for ( Event event : eventList )
+        {
+            if ( hasOwnershipAccess( event, user ) )
+            {
+                events.add( event );
             }
         }
 
         return events;
     }
 
+    private boolean hasOwnershipAccess( Event event, User user )
+    {
+        boolean canSkipCheck = event.getTrackedEntityInstance() == null ||
+            trackerOwnershipAccessManager.canSkipOwnershipCheck( user, event.getProgramType() );
+
+        return canSkipCheck || trackerOwnershipAccessManager.hasAccess( user,
+            entityInstanceService.getTrackedEntityInstance( event.getTrackedEntityInstance() ),
+            programService.getProgram( event.getProgram() ) );
+    }
+
     @Transactional( readOnly = true )
     @Override
     public Grid getEventsGrid( EventSearchParams params )
@@ -955,6 +1038,18 @@ public abstract class AbstractEventService implements EventService
             violation = "Duration is not valid: " + params.getLastUpdatedDuration();
         }
 
+        if ( params.isCursorPaging() && params.isSkipPaging() )
+        {
+            violation = "Cursor paging and skip paging cannot be specified simultaneously";
+        }
+
+        if ( params.isCursorPaging() && ((params.getGridOrders() != null && !params.getGridOrders().isEmpty())
+            || (params.getOrders() != null && !params.getOrders().isEmpty() && (params.getOrders().size() > 1
+                || !"lastUpdated".equals( params.getOrders().get( 0 ).getField() )))) )
+        {
+            violation = "Cursor paging only supports ordering by lastUpdated";
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.events.event;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.hisp.dhis.common.IllegalQueryException;
+
+/**
+ * Position of an event in the event list when paging with a cursor, which is
+ * the last updated timestamp and id of the last event of a page. Events of the
+ * next page are those which sort after this position.
+ * <p>
+ * The token given to clients is an opaque, URL safe encoding of the position.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class EventPageToken
+{
+    private static final String SEPARATOR = "|";
+
+    private final Timestamp lastUpdated;
+
+    private final long id;
+
+    /**
+     * Encodes this position as a token.
+     *
+     * @return the token.
+     */
+    public String encode()
+    {
+        String position = lastUpdated.toString() + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString( position.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Decodes a token into a position.
+     *
+     * @param token the token.
+     * @return the position, or null if the token is null or empty.
+     * @throws IllegalQueryException if the token is not valid.
+     */
+    public static EventPageToken decode( String token )
+        throws IllegalQueryException
+    {
+        if ( token == null || token.isEmpty() )
+        {
+            return null;
+        }
+
+        try
+        {
+            String position = new String( Base64.getUrlDecoder().decode( token ), StandardCharsets.UTF_8 );
+
+            int separator = position.lastIndexOf( SEPARATOR );
+
+            return new EventPageToken( Timestamp.valueOf( position.substring( 0, separator ) ),
+                Long.parseLong( position.substring( separator + 1 ) ) );
+        }
+        catch ( IllegalArgumentException | IndexOutOfBoundsException ex )
+        {
+            throw new IllegalQueryException( "Page token is not valid: " + token );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[Last updated: " + lastUpdated + ", id: " + id + "]";
+    }
+}
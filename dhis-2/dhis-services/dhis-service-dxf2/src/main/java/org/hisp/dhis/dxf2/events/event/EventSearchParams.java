@@ -153,6 +153,23 @@ public class EventSearchParams
 
     private boolean skipPaging;
 
+    /**
+     * Indicates whether to page with a cursor positioned after the last event
+     * of the previous page, instead of with an offset.
+     */
+    private boolean cursorPaging;
+
+    /**
+     * Position after which to start the page when paging with a cursor.
+     */
+    private EventPageToken pageToken;
+
+    /**
+     * Position after which the next page starts when paging with a cursor,
+     * set when events are retrieved. Null if there are no more pages.
+     */
+    private EventPageToken nextPageToken;
+
     private List<OrderParam> orders;
 
     private List<OrderParam> gridOrders;
@@ -232,6 +249,11 @@ public class EventSearchParams
         this.skipPaging = false;
     }
 
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     public boolean hasProgram()
     {
         return program != null;
@@ -564,6 +586,39 @@ public class EventSearchParams
         return this;
     }
 
+    public boolean isCursorPaging()
+    {
+        return cursorPaging;
+    }
+
+    public EventSearchParams setCursorPaging( boolean cursorPaging )
+    {
+        this.cursorPaging = cursorPaging;
+        return this;
+    }
+
+    public EventPageToken getPageToken()
+    {
+        return pageToken;
+    }
+
+    public EventSearchParams setPageToken( EventPageToken pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public EventPageToken getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public EventSearchParams setNextPageToken( EventPageToken nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public boolean isIncludeAttributes()
     {
         return includeAttributes;
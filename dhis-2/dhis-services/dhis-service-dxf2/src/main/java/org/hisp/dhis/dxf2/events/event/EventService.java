@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.Map;
 import java.util.Set;
 
@@ -53,6 +54,16 @@ public interface EventService
 
     Events getEvents( EventSearchParams params );
 
+    /**
+     * Passes the events matching the given parameters to the given consumer
+     * one at a time as they are read, without holding all events in memory.
+     * Cursor paging is not supported.
+     *
+     * @param params the event search parameters.
+     * @param consumer the consumer of events.
+     */
+    void streamEvents( EventSearchParams params, Consumer<Event> consumer );
+
     EventRows getEventRows( EventSearchParams params );
 
     Grid getEventsGrid( EventSearchParams params );
@@ -30,6 +30,7 @@ package org.hisp.dhis.dxf2.events.event;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.dxf2.events.report.EventRow;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -64,6 +65,22 @@ public interface EventStore
     List<Event> getEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
         Map<String, Set<String>> psdesWithSkipSyncTrue );
 
+    /**
+     * Reads the events matching the given parameters and passes each event to
+     * the given consumer as soon as all its rows are read, so that events are
+     * not held in memory. Must be called within a transaction for the JDBC
+     * driver to read rows with a cursor.
+     *
+     * @param params the event search parameters.
+     * @param organisationUnits the organisation units to search in.
+     * @param psdesWithSkipSyncTrue the data elements to skip during
+     *        synchronization by program stage, as for
+     *        {@link #getEvents(EventSearchParams, List, Map)}.
+     * @param consumer the consumer of events.
+     */
+    void streamEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
+        Map<String, Set<String>> psdesWithSkipSyncTrue, Consumer<Event> consumer );
+
     List<Map<String, String>> getEventsGrid( EventSearchParams params, List<OrganisationUnit> organisationUnits );
 
     List<EventRow> getEventRows( EventSearchParams params, List<OrganisationUnit> organisationUnits );
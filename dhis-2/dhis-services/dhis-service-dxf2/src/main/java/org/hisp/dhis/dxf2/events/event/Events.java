@@ -56,6 +56,8 @@ public class Events
 
     private Pager pager;
 
+    private String nextPageToken;
+
     public Events()
     {
     }
@@ -123,6 +125,18 @@ public class Events
         this.pager = pager;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken( String nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
+
     @Override
     public String toString()
     {
@@ -51,6 +51,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.EventSyncService;
 import org.hisp.dhis.program.ProgramInstanceService;
 import org.hisp.dhis.program.ProgramService;
+import org.hisp.dhis.program.ProgramStageDataElementService;
 import org.hisp.dhis.program.ProgramStageInstanceService;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.schema.SchemaService;
@@ -101,7 +102,8 @@ public class JacksonEventService extends AbstractEventService
         IdentifiableObjectManager manager, CategoryService categoryService, FileResourceService fileResourceService,
         SchemaService schemaService, QueryService queryService, TrackerAccessManager trackerAccessManager,
         TrackerOwnershipManager trackerOwnershipAccessManager, RelationshipService relationshipService,
-        UserService userService, EventSyncService eventSyncService, ObjectMapper jsonMapper,
+        UserService userService, EventSyncService eventSyncService,
+        ProgramStageDataElementService programStageDataElementService, ObjectMapper jsonMapper,
         @Qualifier( "xmlMapper" ) ObjectMapper xmlMapper, CacheProvider cacheProvider,
         EventServiceContextBuilder eventServiceContextBuilder )
     {
@@ -128,6 +130,7 @@ public class JacksonEventService extends AbstractEventService
         checkNotNull( trackerOwnershipAccessManager );
         checkNotNull( userService );
         checkNotNull( eventSyncService );
+        checkNotNull( programStageDataElementService );
         checkNotNull( jsonMapper );
         checkNotNull( xmlMapper );
         checkNotNull( eventServiceContextBuilder );
@@ -156,6 +159,7 @@ public class JacksonEventService extends AbstractEventService
         this.relationshipService = relationshipService;
         this.userService = userService;
         this.eventSyncService = eventSyncService;
+        this.programStageDataElementService = programStageDataElementService;
         this.jsonMapper = jsonMapper;
         this.xmlMapper = xmlMapper;
         this.dataElementCache = cacheProvider.createDataElementCache();
@@ -71,13 +71,16 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -127,6 +130,8 @@ import org.springframework.core.env.Environment;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.rowset.ResultSetWrappingSqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
@@ -311,8 +316,20 @@ public class JdbcEventStore implements EventStore
 
         Set<String> notes = new HashSet<>();
 
+        Set<String> pageRows = new HashSet<>();
+
+        Map<String, EventPageToken> eventPositions = new LinkedHashMap<>();
+
         while ( rowSet.next() )
         {
+            if ( params.isCursorPaging() && rowSet.getString( "psi_uid" ) != null )
+            {
+                pageRows.add( rowSet.getLong( "psi_id" ) + "-" + rowSet.getLong( "cocco_categoryoptionid" ) );
+
+                eventPositions.putIfAbsent( rowSet.getString( "psi_uid" ),
+                    new EventPageToken( rowSet.getTimestamp( "psi_lastupdated" ), rowSet.getLong( "psi_id" ) ) );
+            }
+
             if ( rowSet.getString( "psi_uid" ) == null
                 || (params.getCategoryOptionCombo() == null && !isSuper( user ) && !userHasAccess( rowSet )) )
             {
@@ -321,173 +338,340 @@ public class JdbcEventStore implements EventStore
 
             String psiUid = rowSet.getString( "psi_uid" );
 
-            Event event;
+            Event event = eventUidToEventMap.get( psiUid );
 
-            if ( !eventUidToEventMap.containsKey( psiUid ) )
+            if ( event == null )
             {
-                validateIdentifiersPresence( rowSet, params.getIdSchemes(), true );
-
-                event = new Event();
+                event = getEvent( rowSet, params, user, psiUid );
                 eventUidToEventMap.put( psiUid, event );
+                events.add( event );
+            }
+            else
+            {
+                addAttributeCategoryOption( event, rowSet );
+            }
 
-                if ( !params.isSkipEventId() )
-                {
-                    event.setUid( psiUid );
-                    event.setEvent( psiUid );
-                }
+            addDataValuesAndNote( event, rowSet, params, psdesWithSkipSyncTrue, notes );
+        }
 
-                event.setTrackedEntityInstance( rowSet.getString( "tei_uid" ) );
-                event.setStatus( EventStatus.valueOf( rowSet.getString( "psi_status" ) ) );
+        if ( params.isCursorPaging() )
+        {
+            setNextPageToken( params, events, eventUidToEventMap, pageRows.size(), eventPositions );
+        }
 
-                ProgramType programType = ProgramType.fromValue( rowSet.getString( "p_type" ) );
+        IdSchemes idSchemes = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() );
+        IdScheme dataElementIdScheme = idSchemes.getDataElementIdScheme();
 
-                event.setProgram( rowSet.getString( "p_identifier" ) );
-                event.setProgramType( programType );
-                event.setProgramStage( rowSet.getString( "ps_identifier" ) );
-                event.setOrgUnit( rowSet.getString( "ou_identifier" ) );
-                event.setDeleted( rowSet.getBoolean( "psi_deleted" ) );
+        if ( dataElementIdScheme != IdScheme.ID && dataElementIdScheme != IdScheme.UID )
+        {
+            CachingMap<String, String> dataElementUidToIdentifierCache = new CachingMap<>();
 
-                if ( programType != ProgramType.WITHOUT_REGISTRATION )
-                {
-                    event.setEnrollment( rowSet.getString( "pi_uid" ) );
-                    event.setEnrollmentStatus( EnrollmentStatus
-                        .fromProgramStatus( ProgramStatus.valueOf( rowSet.getString( "pi_status" ) ) ) );
-                    event.setFollowup( rowSet.getBoolean( "pi_followup" ) );
-                }
+            List<Collection<DataValue>> dataValuesList = events.stream().map( Event::getDataValues )
+                .collect( Collectors.toList() );
+            populateCache( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
+            convertDataValuesIdentifiers( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
+        }
+
+        if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
+        {
+            return events.stream().filter( this::hasAllAttributeCategoryOptions ).collect( Collectors.toList() );
+        }
+
+        return events;
+    }
+
+    @Override
+    public void streamEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
+        Map<String, Set<String>> psdesWithSkipSyncTrue, Consumer<Event> consumer )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        setAccessiblePrograms( user, params );
+
+        boolean checkOptions = params.getCategoryOptionCombo() == null && !isSuper( user );
+
+        IdScheme dataElementIdScheme = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() )
+            .getDataElementIdScheme();
+
+        CachingMap<String, String> dataElementUidToIdentifierCache = new CachingMap<>();
+
+        Consumer<Event> eventConsumer = event -> {
+            if ( checkOptions && !hasAllAttributeCategoryOptions( event ) )
+            {
+                return;
+            }
+
+            if ( dataElementIdScheme != IdScheme.ID && dataElementIdScheme != IdScheme.UID )
+            {
+                List<Collection<DataValue>> dataValuesList = Collections.singletonList( event.getDataValues() );
 
-                if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
+                if ( event.getDataValues().stream()
+                    .anyMatch( dv -> !dataElementUidToIdentifierCache.containsKey( dv.getDataElement() ) ) )
                 {
-                    event.setOptionSize( rowSet.getInt( "option_size" ) );
+                    populateCache( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
                 }
 
-                event.setAttributeOptionCombo( rowSet.getString( "coc_identifier" ) );
-                event.setAttributeCategoryOptions( rowSet.getString( "deco_uid" ) );
-                event.setTrackedEntityInstance( rowSet.getString( "tei_uid" ) );
+                convertDataValuesIdentifiers( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
+            }
+
+            consumer.accept( event );
+        };
+
+        String sql = buildSql( params, organisationUnits, user, true );
+
+        log.debug( "Event stream SQL: " + sql );
 
-                event.setStoredBy( rowSet.getString( "psi_storedby" ) );
-                event.setOrgUnitName( rowSet.getString( "ou_name" ) );
-                event.setDueDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_duedate" ) ) );
-                event.setEventDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_executiondate" ) ) );
-                event.setCreated( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_created" ) ) );
-                event.setCreatedByUserInfo( jsonToUserInfo( rowSet.getString( "psi_createdbyuserinfo" ), jsonMapper ) );
-                event.setLastUpdated( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_lastupdated" ) ) );
-                event.setLastUpdatedByUserInfo(
-                    jsonToUserInfo( rowSet.getString( "psi_lastupdatedbyuserinfo" ), jsonMapper ) );
+        // Rows are read with the fetch size of the JDBC template, which makes
+        // the driver use a cursor when in a transaction
 
-                event.setCompletedBy( rowSet.getString( "psi_completedby" ) );
-                event.setCompletedDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_completeddate" ) ) );
+        jdbcTemplate.query( sql, (ResultSetExtractor<Void>) resultSet -> {
+            SqlRowSet rowSet = new ResultSetWrappingSqlRowSet( resultSet );
 
-                if ( rowSet.getObject( "psi_geometry" ) != null )
+            Set<String> notes = new HashSet<>();
+
+            String eventUid = null;
+            Event event = null;
+
+            while ( rowSet.next() )
+            {
+                if ( rowSet.getString( "psi_uid" ) == null || (checkOptions && !userHasAccess( rowSet )) )
                 {
-                    try
-                    {
-                        Geometry geom = new WKTReader().read( rowSet.getString( "psi_geometry" ) );
+                    continue;
+                }
 
-                        event.setGeometry( geom );
-                    }
-                    catch ( ParseException e )
+                String psiUid = rowSet.getString( "psi_uid" );
+
+                if ( !psiUid.equals( eventUid ) )
+                {
+                    if ( event != null )
                     {
-                        log.error( "Unable to read geometry for event '" + event.getUid() + "': ", e );
+                        eventConsumer.accept( event );
                     }
-                }
 
-                if ( rowSet.getObject( "user_assigned" ) != null )
+                    event = getEvent( rowSet, params, user, psiUid );
+                    eventUid = psiUid;
+                    notes.clear();
+                }
+                else
                 {
-                    event.setAssignedUser( rowSet.getString( "user_assigned" ) );
-                    event.setAssignedUserUsername( rowSet.getString( "user_assigned_username" ) );
-                    event.setAssignedUserDisplayName( rowSet.getString( "user_assigned_name" ) );
+                    addAttributeCategoryOption( event, rowSet );
                 }
 
-                events.add( event );
+                addDataValuesAndNote( event, rowSet, params, psdesWithSkipSyncTrue, notes );
             }
-            else
+
+            if ( event != null )
             {
-                event = eventUidToEventMap.get( psiUid );
-                String attributeCategoryCombination = event.getAttributeCategoryOptions();
-                String currentAttributeCategoryCombination = rowSet.getString( "deco_uid" );
+                eventConsumer.accept( event );
+            }
 
-                if ( !attributeCategoryCombination.contains( currentAttributeCategoryCombination ) )
-                {
-                    event.setAttributeCategoryOptions(
-                        attributeCategoryCombination + ";" + currentAttributeCategoryCombination );
-                }
+            return null;
+        } );
+    }
+
+    /**
+     * Indicates whether the event has all its attribute category options,
+     * which is false when the user cannot access some of them.
+     */
+    private boolean hasAllAttributeCategoryOptions( Event event )
+    {
+        return event.getAttributeCategoryOptions() != null
+            && splitToArray( event.getAttributeCategoryOptions(), TextUtils.SEMICOLON ).size() == event.getOptionSize();
+    }
+
+    /**
+     * Creates an event from the first row of the event.
+     */
+    private Event getEvent( SqlRowSet rowSet, EventSearchParams params, User user, String psiUid )
+    {
+        validateIdentifiersPresence( rowSet, params.getIdSchemes(), true );
+
+        Event event = new Event();
+
+        if ( !params.isSkipEventId() )
+        {
+            event.setUid( psiUid );
+            event.setEvent( psiUid );
+        }
+
+        event.setTrackedEntityInstance( rowSet.getString( "tei_uid" ) );
+        event.setStatus( EventStatus.valueOf( rowSet.getString( "psi_status" ) ) );
+
+        ProgramType programType = ProgramType.fromValue( rowSet.getString( "p_type" ) );
+
+        event.setProgram( rowSet.getString( "p_identifier" ) );
+        event.setProgramType( programType );
+        event.setProgramStage( rowSet.getString( "ps_identifier" ) );
+        event.setOrgUnit( rowSet.getString( "ou_identifier" ) );
+        event.setDeleted( rowSet.getBoolean( "psi_deleted" ) );
+
+        if ( programType != ProgramType.WITHOUT_REGISTRATION )
+        {
+            event.setEnrollment( rowSet.getString( "pi_uid" ) );
+            event.setEnrollmentStatus( EnrollmentStatus
+                .fromProgramStatus( ProgramStatus.valueOf( rowSet.getString( "pi_status" ) ) ) );
+            event.setFollowup( rowSet.getBoolean( "pi_followup" ) );
+        }
+
+        if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
+        {
+            event.setOptionSize( rowSet.getInt( "option_size" ) );
+        }
+
+        event.setAttributeOptionCombo( rowSet.getString( "coc_identifier" ) );
+        event.setAttributeCategoryOptions( rowSet.getString( "deco_uid" ) );
+        event.setTrackedEntityInstance( rowSet.getString( "tei_uid" ) );
+
+        event.setStoredBy( rowSet.getString( "psi_storedby" ) );
+        event.setOrgUnitName( rowSet.getString( "ou_name" ) );
+        event.setDueDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_duedate" ) ) );
+        event.setEventDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_executiondate" ) ) );
+        event.setCreated( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_created" ) ) );
+        event.setCreatedByUserInfo( jsonToUserInfo( rowSet.getString( "psi_createdbyuserinfo" ), jsonMapper ) );
+        event.setLastUpdated( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_lastupdated" ) ) );
+        event.setLastUpdatedByUserInfo( jsonToUserInfo( rowSet.getString( "psi_lastupdatedbyuserinfo" ), jsonMapper ) );
+
+        event.setCompletedBy( rowSet.getString( "psi_completedby" ) );
+        event.setCompletedDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psi_completeddate" ) ) );
+
+        if ( rowSet.getObject( "psi_geometry" ) != null )
+        {
+            try
+            {
+                Geometry geom = new WKTReader().read( rowSet.getString( "psi_geometry" ) );
+
+                event.setGeometry( geom );
             }
+            catch ( ParseException e )
+            {
+                log.error( "Unable to read geometry for event '" + event.getUid() + "': ", e );
+            }
+        }
+
+        if ( rowSet.getObject( "user_assigned" ) != null )
+        {
+            event.setAssignedUser( rowSet.getString( "user_assigned" ) );
+            event.setAssignedUserUsername( rowSet.getString( "user_assigned_username" ) );
+            event.setAssignedUserDisplayName( rowSet.getString( "user_assigned_name" ) );
+        }
+
+        return event;
+    }
+
+    /**
+     * Adds the attribute category option of a further row of the event to the
+     * event.
+     */
+    private void addAttributeCategoryOption( Event event, SqlRowSet rowSet )
+    {
+        String attributeCategoryCombination = event.getAttributeCategoryOptions();
+        String currentAttributeCategoryCombination = rowSet.getString( "deco_uid" );
+
+        if ( !attributeCategoryCombination.contains( currentAttributeCategoryCombination ) )
+        {
+            event.setAttributeCategoryOptions( attributeCategoryCombination + ";" + currentAttributeCategoryCombination );
+        }
+    }
+
+    /**
+     * Adds the data values and the note of a row of the event to the event.
+     * Notes already added, as given by the set of note identifiers, are
+     * skipped.
+     */
+    private void addDataValuesAndNote( Event event, SqlRowSet rowSet, EventSearchParams params,
+        Map<String, Set<String>> psdesWithSkipSyncTrue, Set<String> notes )
+    {
+        if ( !StringUtils.isEmpty( rowSet.getString( "psi_eventdatavalues" ) ) )
+        {
+            Set<EventDataValue> eventDataValues = convertEventDataValueJsonIntoSet(
+                rowSet.getString( "psi_eventdatavalues" ) );
 
-            if ( !StringUtils.isEmpty( rowSet.getString( "psi_eventdatavalues" ) ) )
+            for ( EventDataValue dv : eventDataValues )
             {
-                Set<EventDataValue> eventDataValues = convertEventDataValueJsonIntoSet(
-                    rowSet.getString( "psi_eventdatavalues" ) );
+                DataValue dataValue = convertEventDataValueIntoDtoDataValue( dv );
 
-                for ( EventDataValue dv : eventDataValues )
+                if ( params.isSynchronizationQuery() )
                 {
-                    DataValue dataValue = convertEventDataValueIntoDtoDataValue( dv );
-
-                    if ( params.isSynchronizationQuery() )
+                    if ( psdesWithSkipSyncTrue.containsKey( rowSet.getString( "ps_uid" ) ) && psdesWithSkipSyncTrue
+                        .get( rowSet.getString( "ps_uid" ) ).contains( dv.getDataElement() ) )
                     {
-                        if ( psdesWithSkipSyncTrue.containsKey( rowSet.getString( "ps_uid" ) ) && psdesWithSkipSyncTrue
-                            .get( rowSet.getString( "ps_uid" ) ).contains( dv.getDataElement() ) )
-                        {
-                            dataValue.setSkipSynchronization( true );
-                        }
-                        else
-                        {
-                            dataValue.setSkipSynchronization( false );
-                        }
+                        dataValue.setSkipSynchronization( true );
+                    }
+                    else
+                    {
+                        dataValue.setSkipSynchronization( false );
                     }
-
-                    event.getDataValues().add( dataValue );
                 }
+
+                event.getDataValues().add( dataValue );
             }
+        }
 
-            if ( rowSet.getString( "psinote_value" ) != null && !notes.contains( rowSet.getString( "psinote_id" ) ) )
-            {
-                Note note = new Note();
-                note.setNote( rowSet.getString( "psinote_uid" ) );
-                note.setValue( rowSet.getString( "psinote_value" ) );
-                note.setStoredDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psinote_storeddate" ) ) );
-                note.setStoredBy( rowSet.getString( "psinote_storedby" ) );
+        if ( rowSet.getString( "psinote_value" ) != null && !notes.contains( rowSet.getString( "psinote_id" ) ) )
+        {
+            Note note = new Note();
+            note.setNote( rowSet.getString( "psinote_uid" ) );
+            note.setValue( rowSet.getString( "psinote_value" ) );
+            note.setStoredDate( DateUtils.getIso8601NoTz( rowSet.getDate( "psinote_storeddate" ) ) );
+            note.setStoredBy( rowSet.getString( "psinote_storedby" ) );
 
-                if ( rowSet.getObject( "usernote_id" ) != null )
-                {
+            if ( rowSet.getObject( "usernote_id" ) != null )
+            {
 
-                    note.setLastUpdatedBy(
-                        UserInfoSnapshot.of(
-                            rowSet.getLong( "usernote_id" ),
-                            rowSet.getString( "usernote_code" ),
-                            rowSet.getString( "usernote_uid" ),
-                            rowSet.getString( "usernote_username" ),
-                            rowSet.getString( "userinfo_firstname" ),
-                            rowSet.getString( "userinfo_surname" ) ) );
-                }
+                note.setLastUpdatedBy(
+                    UserInfoSnapshot.of(
+                        rowSet.getLong( "usernote_id" ),
+                        rowSet.getString( "usernote_code" ),
+                        rowSet.getString( "usernote_uid" ),
+                        rowSet.getString( "usernote_username" ),
+                        rowSet.getString( "userinfo_firstname" ),
+                        rowSet.getString( "userinfo_surname" ) ) );
+            }
 
-                note.setLastUpdated( rowSet.getDate( "psinote_lastupdated" ) );
+            note.setLastUpdated( rowSet.getDate( "psinote_lastupdated" ) );
 
-                event.getNotes().add( note );
-                notes.add( rowSet.getString( "psinote_id" ) );
-            }
+            event.getNotes().add( note );
+            notes.add( rowSet.getString( "psinote_id" ) );
         }
+    }
 
-        IdSchemes idSchemes = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() );
-        IdScheme dataElementIdScheme = idSchemes.getDataElementIdScheme();
-
-        if ( dataElementIdScheme != IdScheme.ID && dataElementIdScheme != IdScheme.UID )
+    /**
+     * Sets the position after which the next page starts when paging with a
+     * cursor. The page query returns a row for each event and attribute
+     * category option, so when the page is full, the last event may be missing
+     * rows. That event is removed from this page and starts the next page.
+     *
+     * @param params the event search parameters.
+     * @param events the events of this page.
+     * @param eventUidToEventMap the events of this page by uid.
+     * @param pageRows the number of rows returned by the page query.
+     * @param eventPositions the positions of the events of this page, in
+     *        order.
+     */
+    private void setNextPageToken( EventSearchParams params, List<Event> events, Map<String, Event> eventUidToEventMap,
+        int pageRows, Map<String, EventPageToken> eventPositions )
+    {
+        if ( pageRows < params.getPageSizeWithDefault() || eventPositions.isEmpty() )
         {
-            CachingMap<String, String> dataElementUidToIdentifierCache = new CachingMap<>();
+            params.setNextPageToken( null );
 
-            List<Collection<DataValue>> dataValuesList = events.stream().map( Event::getDataValues )
-                .collect( Collectors.toList() );
-            populateCache( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
-            convertDataValuesIdentifiers( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
+            return;
         }
 
-        if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
+        List<String> uids = new ArrayList<>( eventPositions.keySet() );
+
+        String lastUid = uids.get( uids.size() - 1 );
+
+        if ( uids.size() > 1 )
         {
-            return events.stream().filter( ev -> ev.getAttributeCategoryOptions() != null
-                && splitToArray( ev.getAttributeCategoryOptions(), TextUtils.SEMICOLON ).size() == ev.getOptionSize() )
-                .collect( Collectors.toList() );
+            Event lastEvent = eventUidToEventMap.get( lastUid );
+
+            events.removeIf( event -> event == lastEvent );
+
+            lastUid = uids.get( uids.size() - 2 );
         }
 
-        return events;
+        params.setNextPageToken( eventPositions.get( lastUid ) );
     }
 
     @Override
@@ -868,12 +1052,24 @@ public class JdbcEventStore implements EventStore
      * separate queries is to be able to page properly on events.
      */
     private String buildSql( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    {
+        return buildSql( params, organisationUnits, user, false );
+    }
+
+    /**
+     * Builds the event query.
+     *
+     * @param groupRows whether the rows of each event must be adjacent, which
+     *        is required when reading events as they arrive.
+     */
+    private String buildSql( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user,
+        boolean groupRows )
     {
         StringBuilder sqlBuilder = new StringBuilder().append( "select * from (" );
 
         sqlBuilder.append( getEventSelectQuery( params, organisationUnits, user ) );
 
-        sqlBuilder.append( getOrderQuery( params ) );
+        sqlBuilder.append( getOrderQuery( params, groupRows ) );
 
         sqlBuilder.append( getEventPagingQuery( params ) );
 
@@ -890,7 +1086,7 @@ public class JdbcEventStore implements EventStore
 
         sqlBuilder.append( ") as cm on event.psi_id=cm.psic_id " );
 
-        sqlBuilder.append( getOrderQuery( params ) );
+        sqlBuilder.append( getOrderQuery( params, groupRows ) );
 
         return sqlBuilder.toString();
     }
@@ -1069,6 +1265,14 @@ public class JdbcEventStore implements EventStore
             sqlBuilder.append( hlp.whereAnd() ).append( PSI_LASTUPDATED_GT ).append( skipChangedBefore ).append( "' " );
         }
 
+        if ( params.hasPageToken() )
+        {
+            sqlBuilder.append( hlp.whereAnd() ).append( " (psi.lastupdated, psi.programstageinstanceid) " )
+                .append( isCursorPagingAscending( params ) ? ">" : "<" )
+                .append( " ('" ).append( params.getPageToken().getLastUpdated() ).append( "', " )
+                .append( params.getPageToken().getId() ).append( ") " );
+        }
+
         if ( params.getCategoryOptionCombo() != null )
         {
             sqlBuilder.append( hlp.whereAnd() ).append( " psi.attributeoptioncomboid = " )
@@ -1414,7 +1618,11 @@ public class JdbcEventStore implements EventStore
     {
         StringBuilder sqlBuilder = new StringBuilder().append( " " );
 
-        if ( !params.isSkipPaging() )
+        if ( params.isCursorPaging() )
+        {
+            sqlBuilder.append( "limit " ).append( params.getPageSizeWithDefault() ).append( " " );
+        }
+        else if ( !params.isSkipPaging() )
         {
             sqlBuilder.append( "limit " ).append( params.getPageSizeWithDefault() ).append( " offset " )
                 .append( params.getOffset() ).append( " " );
@@ -1423,6 +1631,18 @@ public class JdbcEventStore implements EventStore
         return sqlBuilder.toString();
     }
 
+    /**
+     * Indicates whether events are paged with a cursor in ascending order,
+     * which is when ordering by last updated ascending. Events are otherwise
+     * paged in descending order of last updated.
+     */
+    private boolean isCursorPagingAscending( EventSearchParams params )
+    {
+        return params.getOrders() != null && params.getOrders().size() == 1
+            && "lastUpdated".equals( params.getOrders().get( 0 ).getField() )
+            && params.getOrders().get( 0 ).getDirection().isAscending();
+    }
+
     private String getGridOrderQuery( EventSearchParams params )
     {
 
@@ -1461,8 +1681,22 @@ public class JdbcEventStore implements EventStore
         return "order by lastUpdated desc ";
     }
 
+    private String getOrderQuery( EventSearchParams params, boolean groupRows )
+    {
+        String orderQuery = getOrderQuery( params );
+
+        return groupRows && !params.isCursorPaging() ? orderQuery + ", psi_id " : orderQuery;
+    }
+
     private String getOrderQuery( EventSearchParams params )
     {
+        if ( params.isCursorPaging() )
+        {
+            String direction = isCursorPagingAscending( params ) ? "asc" : "desc";
+
+            return "order by psi_lastupdated " + direction + ", psi_id " + direction + " ";
+        }
+
         ArrayList<String> orderFields = new ArrayList<>();
 
         if ( params.getGridOrders() != null )
@@ -30,7 +30,9 @@ package org.hisp.dhis.dxf2.events.event.csv;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.function.Consumer;
 
+import org.hisp.dhis.dxf2.events.event.Event;
 import org.hisp.dhis.dxf2.events.event.Events;
 
 /**
@@ -41,6 +43,19 @@ public interface CsvEventService
     void writeEvents( OutputStream outputStream, Events events, boolean withHeader )
         throws IOException;
 
+    /**
+     * Writes events to the output stream one at a time as they are passed to
+     * the consumer given to the event source, without holding all events in
+     * memory.
+     *
+     * @param outputStream the output stream.
+     * @param eventSource a function which passes each event to the given
+     *        consumer.
+     * @param withHeader whether to write a header row.
+     */
+    void writeEvents( OutputStream outputStream, Consumer<Consumer<Event>> eventSource, boolean withHeader )
+        throws IOException;
+
     Events readEvents( InputStream inputStream, boolean skipFirst )
         throws IOException,
         org.locationtech.jts.io.ParseException;
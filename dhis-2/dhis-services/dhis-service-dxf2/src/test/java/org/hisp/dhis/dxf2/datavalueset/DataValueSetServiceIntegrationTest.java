@@ -29,6 +29,9 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.io.InputStream;
 
@@ -45,6 +48,8 @@ import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportConflicts;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.mock.MockCurrentUserService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -55,6 +60,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
+import org.hisp.quick.BatchHandlerFactory;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
@@ -88,6 +94,9 @@ public class DataValueSetServiceIntegrationTest
     @Autowired
     private UserService _userService;
 
+    @Autowired
+    private BatchHandlerFactory batchHandlerFactory;
+
     private DataElement deA;
 
     private DataElement deB;
@@ -490,6 +499,105 @@ public class DataValueSetServiceIntegrationTest
         assertEquals( 0, dataValueService.getAllDataValues().size() );
     }
 
+    /**
+     * Import 12 data values. Then import 7 data values in one chunk with the
+     * data value batch handler, where values repeat the key of a previous
+     * value after an update, a delete and an import. Each repeated value must
+     * see the value written before it as its existing value.
+     */
+    @Test
+    public void testImportUpdateAndDeleteRepeatedValuesXml()
+        throws Exception
+    {
+        // existing values are looked up per chunk with the JDBC batch handler
+
+        setDependency( dataValueSetService, "batchHandlerFactory", batchHandlerFactory );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetB.xml" ).getInputStream();
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+        assertEquals( 12, summary.getImportCount().getImported() );
+        assertEquals( 12, dataValueService.getAllDataValues().size() );
+
+        in = new ClassPathResource( "datavalueset/dataValueSetBDuplicates.xml" ).getInputStream();
+
+        summary = dataValueSetService.saveDataValueSet( in );
+
+        assertEquals( 2, summary.getImportCount().getImported() );
+        assertEquals( 3, summary.getImportCount().getUpdated() );
+        assertEquals( 2, summary.getImportCount().getDeleted() );
+        assertHasNoConflicts( summary );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+        assertEquals( 12, dataValueService.getAllDataValues().size() );
+
+        CategoryOptionCombo cc = categoryService.getDefaultCategoryOptionCombo();
+
+        assertEquals( "20002", dataValueService.getDataValue( deA, peA, ouA, cc, cc ).getValue() );
+        assertEquals( "20004", dataValueService.getDataValue( deB, peA, ouA, cc, cc ).getValue() );
+        assertEquals( "20006", dataValueService.getDataValue( deC, peC, ouA, cc, cc ).getValue() );
+        assertNull( dataValueService.getDataValue( deA, peB, ouB, cc, cc ) );
+    }
+
+    /**
+     * Import, update and delete data values with several import workers, each
+     * of them saving the data values of some org units.
+     */
+    @Test
+    public void testImportValuesWithMultipleWorkersXml()
+        throws Exception
+    {
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+        when( config.getProperty( ConfigurationKey.DATA_VALUE_IMPORT_WORKERS ) ).thenReturn( "3" );
+        when( config.isEnabled( ConfigurationKey.CHANGELOG_AGGREGATE ) ).thenReturn( true );
+
+        setDependency( dataValueSetService, "config", config, DhisConfigurationProvider.class );
+
+        try
+        {
+            in = new ClassPathResource( "datavalueset/dataValueSetB.xml" ).getInputStream();
+
+            ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+            assertEquals( 12, summary.getImportCount().getImported() );
+            assertHasNoConflicts( summary );
+            assertEquals( 12, dataValueService.getAllDataValues().size() );
+
+            in = new ClassPathResource( "datavalueset/dataValueSetBUpdate.xml" ).getInputStream();
+
+            summary = dataValueSetService.saveDataValueSet( in );
+
+            assertEquals( 2, summary.getImportCount().getImported() );
+            assertEquals( 4, summary.getImportCount().getUpdated() );
+            assertEquals( 0, summary.getImportCount().getDeleted() );
+            assertHasNoConflicts( summary );
+            assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+            assertEquals( 14, dataValueService.getAllDataValues().size() );
+
+            CategoryOptionCombo cc = categoryService.getDefaultCategoryOptionCombo();
+
+            assertEquals( "10001", dataValueService.getDataValue( deA, peA, ouA, cc, cc ).getValue() );
+            assertEquals( "10008", dataValueService.getDataValue( deB, peB, ouB, cc, cc ).getValue() );
+            assertEquals( "20009", dataValueService.getDataValue( deC, peA, ouA, cc, cc ).getValue() );
+            assertEquals( "comment12", dataValueService.getDataValue( deC, peB, ouB, cc, cc ).getComment() );
+            assertEquals( "20014", dataValueService.getDataValue( deC, peC, ouB, cc, cc ).getValue() );
+
+            in = new ClassPathResource( "datavalueset/dataValueSetB.xml" ).getInputStream();
+
+            summary = dataValueSetService.saveDataValueSet( in,
+                new ImportOptions().setStrategy( ImportStrategy.DELETE ) );
+
+            assertEquals( 12, summary.getImportCount().getDeleted() );
+            assertHasNoConflicts( summary );
+            assertEquals( 2, dataValueService.getAllDataValues().size() );
+        }
+        finally
+        {
+            setDependency( dataValueSetService, "config", dhisConfigurationProvider,
+                DhisConfigurationProvider.class );
+        }
+    }
+
     private static void assertHasNoConflicts( ImportConflicts summary )
     {
         if ( summary.hasConflicts() )
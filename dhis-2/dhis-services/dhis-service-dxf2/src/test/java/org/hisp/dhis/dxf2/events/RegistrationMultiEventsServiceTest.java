@@ -31,9 +31,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 
 import org.hamcrest.CoreMatchers;
 import org.hisp.dhis.TransactionalIntegrationTest;
@@ -253,6 +256,75 @@ public class RegistrationMultiEventsServiceTest extends TransactionalIntegration
         assertEquals( 3, eventService.getEvents( params ).getEvents().size() );
     }
 
+    @Test
+    public void testStreamEvents()
+    {
+        Enrollment enrollment = createEnrollment( programA.getUid(),
+            trackedEntityInstanceMaleA.getTrackedEntityInstance() );
+        ImportSummary importSummary = enrollmentService.addEnrollment( enrollment, null, null );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        Event event = createEvent( programA.getUid(), programStageA.getUid(), organisationUnitA.getUid(),
+            trackedEntityInstanceMaleA.getTrackedEntityInstance(), dataElementA.getUid() );
+        importSummary = eventService.addEvent( event, null, false );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        event = createEvent( programA.getUid(), programStageB.getUid(), organisationUnitA.getUid(),
+            trackedEntityInstanceMaleA.getTrackedEntityInstance(), dataElementB.getUid() );
+        importSummary = eventService.addEvent( event, null, false );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        EventSearchParams params = new EventSearchParams();
+        params.setProgram( programA );
+        params.setOrgUnit( organisationUnitA );
+        params.setOrgUnitSelectionMode( OrganisationUnitSelectionMode.SELECTED );
+        params.setSkipPaging( true );
+
+        List<Event> events = new ArrayList<>();
+
+        eventService.streamEvents( params, events::add );
+
+        assertEquals( 2, events.size() );
+        assertEquals( 1, events.get( 0 ).getDataValues().size() );
+        assertEquals( 1, events.get( 1 ).getDataValues().size() );
+    }
+
+    @Test
+    public void testStreamEventsForSynchronizationMarksSkippedDataValues()
+    {
+        ProgramStageDataElement programStageDataElement = programStageB.getProgramStageDataElements().iterator()
+            .next();
+        programStageDataElement.setSkipSynchronization( true );
+        programStageDataElementService.updateProgramStageDataElement( programStageDataElement );
+
+        Enrollment enrollment = createEnrollment( programA.getUid(),
+            trackedEntityInstanceMaleA.getTrackedEntityInstance() );
+        ImportSummary importSummary = enrollmentService.addEnrollment( enrollment, null, null );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        Event event = createEvent( programA.getUid(), programStageB.getUid(), organisationUnitA.getUid(),
+            trackedEntityInstanceMaleA.getTrackedEntityInstance(), dataElementB.getUid() );
+        importSummary = eventService.addEvent( event, null, false );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        manager.flush();
+
+        EventSearchParams params = new EventSearchParams();
+        params.setProgram( programA );
+        params.setOrgUnit( organisationUnitA );
+        params.setOrgUnitSelectionMode( OrganisationUnitSelectionMode.SELECTED );
+        params.setSynchronizationQuery( true );
+        params.setSkipPaging( true );
+
+        List<Event> events = new ArrayList<>();
+
+        eventService.streamEvents( params, events::add );
+
+        assertEquals( 1, events.size() );
+        assertEquals( 1, events.get( 0 ).getDataValues().size() );
+        assertTrue( events.get( 0 ).getDataValues().iterator().next().isSkipSynchronization() );
+    }
+
     @Test
     public void testDeleteEnrollmentWithEvents()
     {
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.events.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.TransactionalIntegrationTest;
+import org.hisp.dhis.category.Category;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramInstanceService;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.program.ProgramStageInstanceService;
+import org.hisp.dhis.program.ProgramType;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Tests cursor paging of {@link JdbcEventStore}.
+ */
+public class JdbcEventStoreIntegrationTest
+    extends TransactionalIntegrationTest
+{
+    private static final int EVENT_COUNT = 5;
+
+    @Autowired
+    private EventStore eventStore;
+
+    @Autowired
+    private ProgramInstanceService programInstanceService;
+
+    @Autowired
+    private ProgramStageInstanceService programStageInstanceService;
+
+    @Autowired
+    private IdentifiableObjectManager identifiableObjectManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService _userService;
+
+    private OrganisationUnit organisationUnitA;
+
+    private Program programA;
+
+    /**
+     * Uids of the events in the order they are paged, descending by id, as
+     * all events have the same last updated timestamp.
+     */
+    private List<String> eventUids;
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Override
+    protected void setUpTest()
+        throws Exception
+    {
+        userService = _userService;
+
+        organisationUnitA = createOrganisationUnit( 'A' );
+        identifiableObjectManager.save( organisationUnitA );
+
+        // Events have two attribute category options, so that each event is
+        // read as two rows
+
+        CategoryOption categoryOptionA = createCategoryOption( 'A' );
+        CategoryOption categoryOptionB = createCategoryOption( 'B' );
+        identifiableObjectManager.save( categoryOptionA );
+        identifiableObjectManager.save( categoryOptionB );
+
+        Category categoryA = createCategory( 'A', categoryOptionA );
+        Category categoryB = createCategory( 'B', categoryOptionB );
+        identifiableObjectManager.save( categoryA );
+        identifiableObjectManager.save( categoryB );
+
+        CategoryCombo categoryComboA = createCategoryCombo( 'A', categoryA, categoryB );
+        identifiableObjectManager.save( categoryComboA );
+
+        CategoryOptionCombo categoryOptionComboA = createCategoryOptionCombo( categoryComboA, categoryOptionA,
+            categoryOptionB );
+        identifiableObjectManager.save( categoryOptionComboA );
+
+        ProgramStage programStageA = createProgramStage( 'A', 0 );
+        identifiableObjectManager.save( programStageA );
+
+        programA = createProgram( 'A', new HashSet<>(), organisationUnitA );
+        programA.setProgramType( ProgramType.WITHOUT_REGISTRATION );
+        programA.setCategoryCombo( categoryComboA );
+        identifiableObjectManager.save( programA );
+
+        programStageA.setProgram( programA );
+        programA.getProgramStages().add( programStageA );
+        identifiableObjectManager.update( programStageA );
+        identifiableObjectManager.update( programA );
+
+        ProgramInstance programInstance = new ProgramInstance();
+        programInstance.setProgram( programA );
+        programInstance.setIncidentDate( new Date() );
+        programInstance.setEnrollmentDate( new Date() );
+        programInstanceService.addProgramInstance( programInstance );
+
+        List<ProgramStageInstance> events = new ArrayList<>();
+
+        for ( int i = 0; i < EVENT_COUNT; i++ )
+        {
+            ProgramStageInstance event = new ProgramStageInstance( programInstance, programStageA );
+            event.setOrganisationUnit( organisationUnitA );
+            event.setAttributeOptionCombo( categoryOptionComboA );
+            event.setExecutionDate( new Date() );
+            programStageInstanceService.addProgramStageInstance( event );
+            events.add( event );
+        }
+
+        createUserAndInjectSecurityContext( true );
+
+        identifiableObjectManager.flush();
+
+        jdbcTemplate.update( "update programstageinstance set lastupdated = '2021-03-01 10:00:00.123456'" );
+
+        eventUids = events.stream()
+            .sorted( ( a, b ) -> Long.compare( b.getId(), a.getId() ) )
+            .map( ProgramStageInstance::getUid )
+            .collect( Collectors.toList() );
+    }
+
+    @Test
+    public void testCursorPagingWithIdenticalLastUpdated()
+    {
+        for ( int pageSize = 1; pageSize <= 2 * EVENT_COUNT + 1; pageSize++ )
+        {
+            assertEquals( "Page size " + pageSize, eventUids, getAllPages( pageSize ) );
+        }
+    }
+
+    @Test
+    public void testCursorPagingDropsPartialLastEvent()
+    {
+        // Three rows are two events, the second of which is cut short
+
+        EventSearchParams params = new EventSearchParams().setProgram( programA ).setCursorPaging( true )
+            .setPageSize( 3 );
+
+        List<Event> events = getEvents( params );
+
+        assertEquals( 1, events.size() );
+        assertEquals( eventUids.get( 0 ), events.get( 0 ).getEvent() );
+
+        params = new EventSearchParams().setProgram( programA ).setCursorPaging( true ).setPageSize( 3 )
+            .setPageToken( params.getNextPageToken() );
+
+        events = getEvents( params );
+
+        assertEquals( 1, events.size() );
+        assertEquals( eventUids.get( 1 ), events.get( 0 ).getEvent() );
+    }
+
+    /**
+     * Reads all pages of events with the given page size, following the next
+     * page tokens, and returns the uids of the events in the order read.
+     */
+    private List<String> getAllPages( int pageSize )
+    {
+        List<String> uids = new ArrayList<>();
+
+        EventPageToken pageToken = null;
+
+        do
+        {
+            EventSearchParams params = new EventSearchParams().setProgram( programA ).setCursorPaging( true )
+                .setPageSize( pageSize ).setPageToken( pageToken );
+
+            List<Event> events = getEvents( params );
+
+            events.forEach( event -> uids.add( event.getEvent() ) );
+
+            assertTrue( "Page size " + pageSize + " did not advance", params.getNextPageToken() == null
+                || !params.getNextPageToken().equals( pageToken ) );
+
+            pageToken = params.getNextPageToken();
+        }
+        while ( pageToken != null && uids.size() <= EVENT_COUNT );
+
+        assertNull( pageToken );
+
+        return uids;
+    }
+
+    private List<Event> getEvents( EventSearchParams params )
+    {
+        return eventStore.getEvents( params, Collections.singletonList( organisationUnitA ),
+            Collections.emptyMap() );
+    }
+}
@@ -98,6 +98,7 @@ public class DefaultFieldFilterServiceTest
     {
         CacheProvider cacheProvider = mock( CacheProvider.class );
         when( cacheProvider.createPropertyTransformerCache() ).thenReturn( new NoOpCache<>() );
+        when( cacheProvider.createFieldFilterPlanCache() ).thenReturn( new NoOpCache<>() );
         service = new DefaultFieldFilterService( fieldParser, schemaService, aclService, currentUserService,
             attributeService, cacheProvider, userGroupService, userService, new HashSet<>() );
     }
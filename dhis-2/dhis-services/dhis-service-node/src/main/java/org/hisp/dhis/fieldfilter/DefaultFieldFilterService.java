@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -75,6 +76,7 @@ import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.PropertyTransformer;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.security.acl.AclContext;
 import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.system.util.ReflectionUtils;
 import org.hisp.dhis.user.CurrentUserService;
@@ -126,6 +128,8 @@ public class DefaultFieldFilterService implements FieldFilterService
 
     private final Cache<PropertyTransformer> transformerCache;
 
+    private final Cache<FieldMap> fieldPlanCache;
+
     private final UserGroupService userGroupService;
 
     private final UserService userService;
@@ -150,6 +154,7 @@ public class DefaultFieldFilterService implements FieldFilterService
         this.userGroupService = userGroupService;
         this.nodeTransformers = nodeTransformers == null ? new HashSet<>() : nodeTransformers;
         this.transformerCache = cacheProvider.createPropertyTransformerCache();
+        this.fieldPlanCache = cacheProvider.createFieldFilterPlanCache();
     }
 
     @PostConstruct
@@ -225,36 +230,26 @@ public class DefaultFieldFilterService implements FieldFilterService
             return collectionNode;
         }
 
-        FieldMap fieldMap = new FieldMap();
-        Schema schema = schemaService.getDynamicSchema( HibernateProxyUtils.getRealClass( objects.get( 0 ) ) );
-
-        if ( StringUtils.isEmpty( fields ) )
-        {
-            for ( Property property : schema.getProperties() )
-            {
-                fieldMap.put( property.getName(), new FieldMap() );
-            }
-        }
-        else
-        {
-            fieldMap = fieldParser.parse( fields );
-        }
-
-        final FieldMap finalFieldMap = fieldMap;
+        final FieldMap finalFieldMap = getFieldPlan( wrapper,
+            HibernateProxyUtils.getRealClass( objects.get( 0 ) ), fields );
 
         if ( params.getUser() == null )
         {
             params.setUser( currentUserService.getCurrentUser() );
         }
 
-        objects.forEach( object -> {
-            AbstractNode node = buildNode( finalFieldMap, wrapper, object, params.getUser(), params.getDefaults() );
+        try ( AclContext aclContext = aclService.openAccessContext( params.getUser() ) )
+        {
+            objects.forEach( object -> {
+                AbstractNode node = buildNode( finalFieldMap, wrapper, object, params.getUser(),
+                    params.getDefaults() );
 
-            if ( node != null )
-            {
-                collectionNode.addChild( node );
-            }
-        } );
+                if ( node != null )
+                {
+                    collectionNode.addChild( node );
+                }
+            } );
+        }
 
         return collectionNode;
     }
@@ -310,6 +305,74 @@ public class DefaultFieldFilterService implements FieldFilterService
         return collectionNode;
     }
 
+    /**
+     * Returns the field map of the given fields expression, parsed and with
+     * presets, exclusions and transformers expanded against the schemas of the
+     * root class and of the nested properties. The field map only depends on
+     * the classes and the fields expression (access is still resolved per
+     * object), so it is cached and shared between requests. Node building
+     * never modifies it, see {@link #expandFields(FieldMap, Class)}.
+     */
+    private FieldMap getFieldPlan( Class<?> wrapper, Class<?> objectClass, String fields )
+    {
+        String key = wrapper.getName() + ":" + objectClass.getName() + ":" + fields;
+
+        return fieldPlanCache.get( key, k -> compileFieldPlan( wrapper, objectClass, fields ) )
+            .orElseGet( FieldMap::new );
+    }
+
+    private FieldMap compileFieldPlan( Class<?> wrapper, Class<?> objectClass, String fields )
+    {
+        FieldMap fieldMap = new FieldMap();
+
+        if ( StringUtils.isEmpty( fields ) )
+        {
+            for ( Property property : schemaService.getDynamicSchema( objectClass ).getProperties() )
+            {
+                fieldMap.put( property.getName(), new FieldMap() );
+            }
+        }
+        else
+        {
+            fieldMap = fieldParser.parse( fields );
+        }
+
+        compileFields( fieldMap, schemaService.getDynamicSchema( wrapper ).getKlass() );
+
+        return fieldMap;
+    }
+
+    /**
+     * Expands the given field map and its nested field maps in place. Nested
+     * field maps of properties whose class is only known per object, because
+     * of a property transformer or a class without schema properties, are
+     * left to be expanded while building nodes.
+     */
+    private void compileFields( FieldMap fieldMap, Class<?> klass )
+    {
+        updateFields( fieldMap, klass );
+
+        Schema schema = schemaService.getDynamicSchema( klass );
+
+        for ( Map.Entry<String, FieldMap> field : fieldMap.entrySet() )
+        {
+            Property property = schema.getProperty( field.getKey() );
+
+            if ( field.getValue().isEmpty() || property == null || !property.isReadable()
+                || property.hasPropertyTransformer() )
+            {
+                continue;
+            }
+
+            Class<?> propertyClass = property.isCollection() ? property.getItemKlass() : property.getKlass();
+
+            if ( !schemaService.getDynamicSchema( propertyClass ).getProperties().isEmpty() )
+            {
+                compileFields( field.getValue(), propertyClass );
+            }
+        }
+    }
+
     private AbstractNode buildNode( FieldMap fieldMap, Class<?> klass, Object object, User user, Defaults defaults )
     {
         Schema schema = schemaService.getDynamicSchema( klass );
@@ -382,7 +445,7 @@ public class DefaultFieldFilterService implements FieldFilterService
             return null;
         }
 
-        updateFields( fieldMap, schema.getKlass() );
+        fieldMap = expandFields( fieldMap, schema.getKlass() );
 
         if ( fieldMap.containsKey( "access" ) && schema.isIdentifiableObject() )
         {
@@ -467,7 +530,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                     returnValue = propertyTransformer.get().transform( returnValue );
                     propertyClass = returnValue.getClass();
                     propertySchema = schemaService.getDynamicSchema( propertyClass );
-                    updateFields( fieldValue, propertyTransformer.get().getKlass() );
+                    fieldValue = expandFields( fieldValue, propertyTransformer.get().getKlass() );
                 }
             }
 
@@ -489,11 +552,11 @@ public class DefaultFieldFilterService implements FieldFilterService
 
             if ( property.isCollection() )
             {
-                updateFields( fieldValue, property.getItemKlass() );
+                fieldValue = expandFields( fieldValue, property.getItemKlass() );
             }
             else
             {
-                updateFields( fieldValue, propertyClass );
+                fieldValue = expandFields( fieldValue, propertyClass );
             }
 
             if ( fieldValue.isEmpty() )
@@ -626,6 +689,30 @@ public class DefaultFieldFilterService implements FieldFilterService
         return complexNode;
     }
 
+    /**
+     * Returns the given field map expanded against the given class. A field
+     * map which is already expanded is returned as is, otherwise a copy is
+     * expanded, as field maps may be shared between requests.
+     */
+    private FieldMap expandFields( FieldMap fieldMap, Class<?> klass )
+    {
+        if ( fieldMap.keySet().stream().noneMatch( DefaultFieldFilterService::isExpandableField ) )
+        {
+            return fieldMap;
+        }
+
+        FieldMap expanded = fieldMap.copy();
+        updateFields( expanded, klass );
+
+        return expanded;
+    }
+
+    private static boolean isExpandableField( String fieldKey )
+    {
+        return "*".equals( fieldKey ) || fieldKey.startsWith( ":" ) || fieldKey.startsWith( "!" )
+            || fieldKey.contains( "::" ) || fieldKey.contains( "|" ) || fieldKey.contains( "~" );
+    }
+
     private void updateFields( FieldMap fieldMap, Class<?> klass )
     {
         if ( fieldMap.isEmpty() )
@@ -55,6 +55,21 @@ public class FieldMap extends ForwardingMap<String, FieldMap>
         return pipeline;
     }
 
+    /**
+     * Creates a copy of this field map with the same transformer pipeline. The
+     * nested field maps are shared with this field map.
+     *
+     * @return a copy of this field map.
+     */
+    public FieldMap copy()
+    {
+        FieldMap copy = new FieldMap();
+        copy.pipeline.addTransformers( pipeline );
+        copy.putAll( delegate );
+
+        return copy;
+    }
+
     @Override
     public String toString()
     {
@@ -84,4 +84,15 @@ public class LinearNodePipeline implements NodePipeline
     {
         nodeTransformers.add( new NodeTransformerWithArgs( checkNotNull( nodeTransformer ), arguments ) );
     }
+
+    /**
+     * Appends all transformers (and their arguments) of the given pipeline to
+     * this pipeline.
+     *
+     * @param pipeline the pipeline to copy transformers from.
+     */
+    public void addTransformers( LinearNodePipeline pipeline )
+    {
+        nodeTransformers.addAll( checkNotNull( pipeline ).nodeTransformers );
+    }
 }
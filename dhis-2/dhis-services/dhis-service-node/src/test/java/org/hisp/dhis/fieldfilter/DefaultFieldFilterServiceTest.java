@@ -44,8 +44,10 @@ import javax.annotation.Nonnull;
 import org.hamcrest.Matchers;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.attribute.AttributeService;
+import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.cache.NoOpCache;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.node.Node;
@@ -96,6 +98,8 @@ public class DefaultFieldFilterServiceTest
     @Mock
     private UserService userService;
 
+    private SchemaService schemaService;
+
     private DefaultFieldFilterService service;
 
     @Rule
@@ -107,11 +111,12 @@ public class DefaultFieldFilterServiceTest
         final Set<NodeTransformer> nodeTransformers = new HashSet<>();
         nodeTransformers.add( new PluckNodeTransformer() );
 
-        final SchemaService schemaService = new DefaultSchemaService(
+        schemaService = new DefaultSchemaService(
             new DefaultPropertyIntrospectorService( new JacksonPropertyIntrospector() ), sessionFactory );
 
         CacheProvider cacheProvider = mock( CacheProvider.class );
         when( cacheProvider.createPropertyTransformerCache() ).thenReturn( new NoOpCache<>() );
+        when( cacheProvider.createFieldFilterPlanCache() ).thenReturn( new NoOpCache<>() );
         service = new DefaultFieldFilterService( new DefaultFieldParser(), schemaService, aclService,
             currentUserService, attributeService, cacheProvider, userGroupService, userService, nodeTransformers );
         service.init();
@@ -326,6 +331,50 @@ public class DefaultFieldFilterServiceTest
         assertThat( ouNames, Matchers.containsInAnyOrder( "Test 1", "Test 2" ) );
     }
 
+    @Test
+    public void cachedFieldPlanIsShared()
+    {
+        final Cache<FieldMap> planCache = new SimpleCacheBuilder<FieldMap>()
+            .forRegion( "fieldFilterPlanCache" ).withMaximumSize( 10 ).build();
+
+        final CacheProvider cacheProvider = mock( CacheProvider.class );
+        when( cacheProvider.createPropertyTransformerCache() ).thenReturn( new NoOpCache<>() );
+        when( cacheProvider.<FieldMap> createFieldFilterPlanCache() ).thenReturn( planCache );
+        service = new DefaultFieldFilterService( new DefaultFieldParser(), schemaService, aclService,
+            currentUserService, attributeService, cacheProvider, userGroupService, userService,
+            new HashSet<>() );
+        service.init();
+
+        final OrganisationUnit ou1 = new OrganisationUnit();
+        ou1.setUid( "abc1" );
+        ou1.setName( "Test 1" );
+
+        final CategoryOption option = new CategoryOption();
+        option.setUid( "def1" );
+        option.getOrganisationUnits().add( ou1 );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            final FieldFilterParams params = new FieldFilterParams( Collections.singletonList( option ),
+                Arrays.asList( "id", "organisationUnits[*,!name]" ) );
+            final ComplexNode node = service.toComplexNode( params );
+
+            final CollectionNode collectionNode = (CollectionNode) getNamedNode( node.getUnorderedChildren(),
+                "organisationUnits" );
+            final ComplexNode complexNode = (ComplexNode) collectionNode.getUnorderedChildren().get( 0 );
+            Assert.assertEquals( "abc1",
+                ((SimpleNode) getNamedNode( complexNode.getUnorderedChildren(), "id" )).getValue() );
+            Assert.assertNull( getNamedNode( complexNode.getUnorderedChildren(), "name" ) );
+        }
+
+        final FieldMap plan = planCache.getAll().findFirst().orElse( null );
+        Assert.assertNotNull( plan );
+        Assert.assertEquals( 1, planCache.getAll().count() );
+        Assert.assertTrue( plan.get( "organisationUnits" ).containsKey( "id" ) );
+        Assert.assertFalse( plan.get( "organisationUnits" ).containsKey( "*" ) );
+        Assert.assertFalse( plan.get( "organisationUnits" ).containsKey( "name" ) );
+    }
+
     private Node getNamedNode( @Nonnull Collection<? extends Node> nodes, @Nonnull String name )
     {
         return nodes.stream().filter( n -> name.equals( n.getName() ) ).findFirst().orElse( null );
@@ -60,4 +60,19 @@ public class DefaultFieldParserTest
         Assert.assertTrue( innerFieldMap.containsKey( "id" ) );
         Assert.assertTrue( innerFieldMap.containsKey( "name" ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parsedFieldMapCopySharesNestedFieldMaps()
+    {
+        final FieldMap fieldMap = parser.parse( "id,dataSets[id,name]" );
+        final FieldMap copy = fieldMap.copy();
+        Assert.assertEquals( fieldMap, copy );
+
+        copy.remove( "id" );
+        copy.put( "code", new FieldMap() );
+
+        Assert.assertTrue( fieldMap.containsKey( "id" ) );
+        Assert.assertFalse( fieldMap.containsKey( "code" ) );
+        Assert.assertSame( fieldMap.get( "dataSets" ), copy.get( "dataSets" ) );
+    }
+}
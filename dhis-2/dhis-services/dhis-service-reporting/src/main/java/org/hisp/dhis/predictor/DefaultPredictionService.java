@@ -33,12 +33,21 @@ import static org.hisp.dhis.antlr.AntlrParserUtils.castDouble;
 import static org.hisp.dhis.expression.MissingValueStrategy.NEVER_SKIP;
 import static org.hisp.dhis.expression.ParseType.PREDICTOR_EXPRESSION;
 import static org.hisp.dhis.expression.ParseType.PREDICTOR_SKIP_TEST;
+import static org.hisp.dhis.external.conf.ConfigurationKey.PREDICTOR_WORKERS;
 import static org.hisp.dhis.parser.expression.ParserUtils.DEFAULT_SAMPLE_PERIODS;
 import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.util.ValidationUtils.dataValueIsZeroAndInsignificant;
 
 import java.util.*;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -46,6 +55,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.common.DimensionItemType;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
@@ -53,6 +63,7 @@ import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.common.MapMap;
 import org.hisp.dhis.common.MapMapMap;
 import org.hisp.dhis.commons.collection.CachingMap;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.constant.Constant;
 import org.hisp.dhis.constant.ConstantService;
@@ -62,6 +73,7 @@ import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -79,8 +91,10 @@ import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.quick.BatchHandlerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -94,6 +108,31 @@ import com.google.common.collect.Sets;
 public class DefaultPredictionService
     implements PredictionService
 {
+    /**
+     * Minimum number of organisation units per shard when predicting with
+     * multiple workers.
+     */
+    private static final int MIN_ORG_UNITS_PER_SHARD = 50;
+
+    /**
+     * Number of path prefix groups wanted per shard, so that shards can be
+     * balanced.
+     */
+    private static final int PREFIXES_PER_SHARD = 4;
+
+    /**
+     * Maximum number of organisation units with predictions waiting to be
+     * written.
+     */
+    private static final int WRITE_QUEUE_CAPACITY = 100;
+
+    /**
+     * Length of a path segment: a slash followed by a uid.
+     */
+    private static final int PATH_SEGMENT_LENGTH = CodeGenerator.CODESIZE + 1;
+
+    private static final OrgUnitPredictions END_OF_SHARD = new OrgUnitPredictions( null, null );
+
     private final PredictorService predictorService;
 
     private final ConstantService constantService;
@@ -118,11 +157,16 @@ public class DefaultPredictionService
 
     private CurrentUserService currentUserService;
 
+    private DhisConfigurationProvider config;
+
+    private final TransactionTemplate transactionTemplate;
+
     public DefaultPredictionService( PredictorService predictorService, ConstantService constantService,
         ExpressionService expressionService, DataValueService dataValueService, CategoryService categoryService,
         OrganisationUnitService organisationUnitService, PeriodService periodService,
         IdentifiableObjectManager idObjectManager, AnalyticsService analyticsService, Notifier notifier,
-        BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService )
+        BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService,
+        DhisConfigurationProvider config, TransactionTemplate transactionTemplate )
     {
         checkNotNull( predictorService );
         checkNotNull( constantService );
@@ -135,6 +179,8 @@ public class DefaultPredictionService
         checkNotNull( notifier );
         checkNotNull( batchHandlerFactory );
         checkNotNull( currentUserService );
+        checkNotNull( config );
+        checkNotNull( transactionTemplate );
 
         this.predictorService = predictorService;
         this.constantService = constantService;
@@ -148,6 +194,8 @@ public class DefaultPredictionService
         this.notifier = notifier;
         this.batchHandlerFactory = batchHandlerFactory;
         this.currentUserService = currentUserService;
+        this.config = config;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -168,6 +216,15 @@ public class DefaultPredictionService
         this.currentUserService = currentUserService;
     }
 
+    /**
+     * Used only for testing, remove when test is refactored
+     */
+    @Deprecated
+    public void setConfig( DhisConfigurationProvider config )
+    {
+        this.config = config;
+    }
+
     // -------------------------------------------------------------------------
     // Prediction business logic
     // -------------------------------------------------------------------------
@@ -209,8 +266,8 @@ public class DefaultPredictionService
         return predictionSummary;
     }
 
-    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors,
-        List<String> predictorGroups )
+    @Override
+    public List<Predictor> getPredictors( List<String> predictors, List<String> predictorGroups )
     {
         List<Predictor> predictorList = new ArrayList<>();
 
@@ -237,6 +294,14 @@ public class DefaultPredictionService
             }
         }
 
+        return predictorList;
+    }
+
+    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors,
+        List<String> predictorGroups )
+    {
+        List<Predictor> predictorList = getPredictors( predictors, predictorGroups );
+
         PredictionSummary predictionSummary = new PredictionSummary();
 
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to "
@@ -254,52 +319,95 @@ public class DefaultPredictionService
     }
 
     @Override
-    public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    public int preparePredictorBlocks( Predictor predictor, Date startDate, Date endDate, int orgUnitsPerBlock )
     {
-        Expression generator = predictor.getGenerator();
-        Expression skipTest = predictor.getSampleSkipTest();
-        DataElement outputDataElement = predictor.getOutput();
+        periodService.reloadPeriods( getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate ) );
 
-        Set<DimensionalItemObject> outputPeriodItems = new HashSet<>();
-        Set<DimensionalItemObject> sampledItems = new HashSet<>();
-        expressionService.getExpressionDimensionalItemObjects( generator.getExpression(), PREDICTOR_EXPRESSION,
-            outputPeriodItems, sampledItems );
-        if ( skipTest != null )
+        Set<OrganisationUnit> currentUserOrgUnits = getCurrentUserOrgUnits();
+
+        int maxOrgUnits = 0;
+
+        for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
         {
-            expressionService.getExpressionDimensionalItemObjects( skipTest.getExpression(), PREDICTOR_SKIP_TEST,
-                sampledItems, sampledItems );
+            maxOrgUnits = Math.max( maxOrgUnits, organisationUnitService.getOrganisationUnitsAtOrgUnitLevels(
+                Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits ).size() );
         }
-        Set<DimensionalItemObject> items = Sets.union( outputPeriodItems, sampledItems );
-        Map<String, Constant> constantMap = constantService.getConstantMap();
-        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
-        Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
-        ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
-        Set<Period> allSamplePeriods = samplePeriodsMap.uniqueValues();
-        Set<Period> existingSamplePeriods = getExistingPeriods( new ArrayList<>( allSamplePeriods ) );
-        outputPeriods = periodService.reloadPeriods( outputPeriods );
-        Set<Period> outputPeriodSet = new HashSet<>( outputPeriods );
+
+        return Math.max( 1, (maxOrgUnits + orgUnitsPerBlock - 1) / orgUnitsPerBlock );
+    }
+
+    @Override
+    public PredictionSummary predictBlock( String predictor, Date startDate, Date endDate, int block,
+        int blockCount, JobConfiguration jobId )
+    {
+        Predictor predictorObject = predictorService.getPredictor( predictor );
+
+        if ( predictorObject == null )
+        {
+            throw new IllegalArgumentException( "Predictor does not exist: " + predictor );
+        }
+
+        String blockName = "predictor '" + predictorObject.getName() + "', block " + (block + 1) + " of "
+            + blockCount;
+
+        try
+        {
+            notifier.notify( jobId, NotificationLevel.INFO, "Making predictions for " + blockName, false );
+
+            PredictionSummary predictionSummary = new PredictionSummary();
+
+            predict( predictorObject, startDate, endDate, predictionSummary, block, blockCount );
+
+            notifier.notify( jobId, NotificationLevel.INFO, "Predictions done for " + blockName + ": "
+                + predictionSummary, false );
+
+            return predictionSummary;
+        }
+        catch ( RuntimeException ex )
+        {
+            notifier.notify( jobId, ERROR, "Predictions failed for " + blockName + ": " + ex.getMessage(),
+                false );
+
+            throw ex;
+        }
+    }
+
+    @Override
+    public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    {
+        predict( predictor, startDate, endDate, predictionSummary, 0, 1 );
+    }
+
+    /**
+     * Executes a single predictor for a date range and one block of the
+     * organisation units of each of its levels.
+     *
+     * @param predictor the predictor to run
+     * @param startDate the start date of the predictor run
+     * @param endDate the end date of the predictor run
+     * @param predictionSummary the prediction summary to add to
+     * @param block the index of the block to run
+     * @param blockCount the number of blocks
+     */
+    private void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary,
+        int block, int blockCount )
+    {
         CategoryOptionCombo defaultCategoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
         CategoryOptionCombo outputOptionCombo = predictor.getOutputCombo() == null
             ? defaultCategoryOptionCombo
             : predictor.getOutputCombo();
-        CachingMap<String, CategoryOptionCombo> cocMap = new CachingMap<>();
-        Date now = new Date();
-
-        Set<Period> queryPeriods = getPeriodsFrom( sampledItems, allSamplePeriods, outputPeriodItems, outputPeriods );
-        Set<Period> existingQueryPeriods = getPeriodsFrom( sampledItems, existingSamplePeriods, outputPeriodItems,
-            existingOutputPeriods );
 
-        boolean requireData = generator.getMissingValueStrategy() != NEVER_SKIP && (!items.isEmpty());
-        DimensionalItemObject forwardReference = getForwardReference( outputDataElement, outputOptionCombo, items );
-        Set<DataElementOperand> predictionDeoSet = Sets.newHashSet(
-            new DataElementOperand( outputDataElement, outputOptionCombo ) );
+        PredictionContext itemContext = getItemContext( predictor.getGenerator(), predictor.getSampleSkipTest(),
+            predictor.getOutput(), outputOptionCombo, defaultCategoryOptionCombo );
 
-        Set<DataElement> dataElements = new HashSet<>();
-        Set<DataElementOperand> dataElementOperands = new HashSet<>();
-        Set<DimensionalItemObject> analyticsAttributeOptionItems = new HashSet<>();
-        Set<DimensionalItemObject> analyticsNonAttributeOptionItems = new HashSet<>();
-        categorizeItems( items, dataElements, dataElementOperands,
-            analyticsAttributeOptionItems, analyticsNonAttributeOptionItems );
+        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
+        Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
+        ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
+        Set<Period> allSamplePeriods = samplePeriodsMap.uniqueValues();
+        Set<Period> existingSamplePeriods = getExistingPeriods( new ArrayList<>( allSamplePeriods ) );
+        outputPeriods = periodService.reloadPeriods( outputPeriods );
+        Set<DimensionalItemObject> outputPeriodItems = itemContext.getOutputPeriodItems();
+        Set<DimensionalItemObject> sampledItems = itemContext.getSampledItems();
 
         Set<OrganisationUnit> currentUserOrgUnits = new HashSet<>();
         String storedBy = "system-process";
@@ -311,17 +419,32 @@ public class DefaultPredictionService
             storedBy = currentUser.getUsername();
         }
 
+        PredictionContext context = itemContext.toBuilder()
+            .outputPeriods( outputPeriods )
+            .outputPeriodSet( new HashSet<>( outputPeriods ) )
+            .samplePeriodsMap( samplePeriodsMap )
+            .allSamplePeriods( allSamplePeriods )
+            .queryPeriods( getPeriodsFrom( sampledItems, allSamplePeriods, outputPeriodItems, outputPeriods ) )
+            .existingQueryPeriods( getPeriodsFrom( sampledItems, existingSamplePeriods, outputPeriodItems,
+                existingOutputPeriods ) )
+            .storedBy( storedBy )
+            .now( new Date() )
+            .build();
+
         PredictionDataValueFetcher oldPredictionFetcher = new PredictionDataValueFetcher(
             dataValueService, categoryService ).setIncludeDeleted( true );
         PredictionDataValueFetcher dataValueFetcher = new PredictionDataValueFetcher(
             dataValueService, categoryService ).setIncludeChildren( true );
         PredictionAnalyticsDataFetcher analyticsFetcher = new PredictionAnalyticsDataFetcher( analyticsService );
         PredictionWriter predictionWriter = new PredictionWriter( dataValueService, batchHandlerFactory );
+        CachingMap<String, CategoryOptionCombo> cocMap = new CachingMap<>();
 
         predictionWriter.init( existingOutputPeriods, predictionSummary );
 
         predictionSummary.incrementPredictors();
 
+        int workers = Integer.parseInt( config.getProperty( PREDICTOR_WORKERS ) );
+
         // Do separate predictor processing for each organisation unit level
         // selected. This is because at each level, predictions might be based
         // on data aggregated from all descendant org units. So to prevent
@@ -334,90 +457,555 @@ public class DefaultPredictionService
 
             orgUnits.sort( Comparator.comparing( OrganisationUnit::getPath ) );
 
-            oldPredictionFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
-                outputPeriodSet, new HashSet<>(), predictionDeoSet );
+            orgUnits = getBlock( orgUnits, block, blockCount );
 
-            dataValueFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
-                existingQueryPeriods, dataElements, dataElementOperands );
+            int shardCount = Math.min( workers, orgUnits.size() / MIN_ORG_UNITS_PER_SHARD );
 
-            analyticsFetcher.init( orgUnits, queryPeriods, analyticsAttributeOptionItems,
-                analyticsNonAttributeOptionItems );
+            if ( shardCount > 1 )
+            {
+                predictInShards( context, orgUnitLevel.getLevel(), orgUnits, shardCount, workers,
+                    predictionWriter, cocMap );
+
+                continue;
+            }
+
+            initFetchers( context, currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
+                oldPredictionFetcher, dataValueFetcher, analyticsFetcher );
 
             for ( OrganisationUnit orgUnit : orgUnits )
             {
-                MapMap<Period, DimensionalItemObject, Double> nonAocData = analyticsFetcher.getNonAocData( orgUnit );
+                List<DataValue> predictions = predictOrgUnit( context, orgUnit,
+                    dataValueFetcher, analyticsFetcher, cocMap );
+
+                predictionWriter.write( predictions, oldPredictionFetcher.getDataValues( orgUnit ) );
+            }
+        }
+        predictionWriter.flush();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive Methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Gets a prediction context holding the items of a predictor, but not yet
+     * its periods. The items are loaded in the current session, so a thread
+     * predicting for a shard of organisation units gets its own items.
+     *
+     * @param generator the generator expression.
+     * @param skipTest the sample skip test expression, if any.
+     * @param outputDataElement the output data element.
+     * @param outputOptionCombo the output category option combo.
+     * @param defaultCategoryOptionCombo the default category option combo.
+     * @return the prediction context with the items of the predictor.
+     */
+    private PredictionContext getItemContext( Expression generator, Expression skipTest,
+        DataElement outputDataElement, CategoryOptionCombo outputOptionCombo,
+        CategoryOptionCombo defaultCategoryOptionCombo )
+    {
+        Set<DimensionalItemObject> outputPeriodItems = new HashSet<>();
+        Set<DimensionalItemObject> sampledItems = new HashSet<>();
+        expressionService.getExpressionDimensionalItemObjects( generator.getExpression(), PREDICTOR_EXPRESSION,
+            outputPeriodItems, sampledItems );
+        if ( skipTest != null )
+        {
+            expressionService.getExpressionDimensionalItemObjects( skipTest.getExpression(), PREDICTOR_SKIP_TEST,
+                sampledItems, sampledItems );
+        }
+        Set<DimensionalItemObject> items = Sets.union( outputPeriodItems, sampledItems );
+
+        Set<DataElement> dataElements = new HashSet<>();
+        Set<DataElementOperand> dataElementOperands = new HashSet<>();
+        Set<DimensionalItemObject> analyticsAttributeOptionItems = new HashSet<>();
+        Set<DimensionalItemObject> analyticsNonAttributeOptionItems = new HashSet<>();
+        categorizeItems( items, dataElements, dataElementOperands,
+            analyticsAttributeOptionItems, analyticsNonAttributeOptionItems );
+
+        return PredictionContext.builder()
+            .generator( new Expression( generator.getExpression(), generator.getDescription(),
+                generator.getMissingValueStrategy() ) )
+            .skipTest( skipTest == null ? null : new Expression( skipTest.getExpression(),
+                skipTest.getDescription(), skipTest.getMissingValueStrategy() ) )
+            .outputDataElement( outputDataElement )
+            .outputOptionCombo( outputOptionCombo )
+            .defaultCategoryOptionCombo( defaultCategoryOptionCombo )
+            .items( items )
+            .outputPeriodItems( outputPeriodItems )
+            .sampledItems( sampledItems )
+            .constantMap( constantService.getConstantMap() )
+            .dataElements( dataElements )
+            .dataElementOperands( dataElementOperands )
+            .analyticsAttributeOptionItems( analyticsAttributeOptionItems )
+            .analyticsNonAttributeOptionItems( analyticsNonAttributeOptionItems )
+            .predictionDeoSet( Sets.newHashSet( new DataElementOperand( outputDataElement, outputOptionCombo ) ) )
+            .requireData( generator.getMissingValueStrategy() != NEVER_SKIP && (!items.isEmpty()) )
+            .forwardReference( getForwardReference( outputDataElement, outputOptionCombo, items ) )
+            .build();
+    }
+
+    /**
+     * Gets the context for a thread predicting for a shard of organisation
+     * units. The items and the output metadata are loaded again in the session
+     * of the shard thread. The periods are taken from the context of the
+     * calling thread, as new output periods are not yet committed.
+     *
+     * @param context the prediction context of the calling thread.
+     * @param outputDataElementUid the uid of the output data element.
+     * @param outputOptionComboUid the uid of the output category option combo.
+     * @return the prediction context for the shard.
+     */
+    private PredictionContext getShardContext( PredictionContext context, String outputDataElementUid,
+        String outputOptionComboUid )
+    {
+        return getItemContext( context.getGenerator(), context.getSkipTest(),
+            idObjectManager.get( DataElement.class, outputDataElementUid ),
+            categoryService.getCategoryOptionCombo( outputOptionComboUid ),
+            categoryService.getDefaultCategoryOptionCombo() ).toBuilder()
+                .outputPeriods( context.getOutputPeriods() )
+                .outputPeriodSet( context.getOutputPeriodSet() )
+                .samplePeriodsMap( context.getSamplePeriodsMap() )
+                .allSamplePeriods( context.getAllSamplePeriods() )
+                .queryPeriods( context.getQueryPeriods() )
+                .existingQueryPeriods( context.getExistingQueryPeriods() )
+                .storedBy( context.getStoredBy() )
+                .now( context.getNow() )
+                .build();
+    }
+
+    /**
+     * Gets the organisation units of the current user, if any.
+     *
+     * @return the organisation units of the current user.
+     */
+    private Set<OrganisationUnit> getCurrentUserOrgUnits()
+    {
+        User currentUser = currentUserService.getCurrentUser();
+
+        return currentUser != null ? currentUser.getOrganisationUnits() : new HashSet<>();
+    }
+
+    /**
+     * Gets one of a number of contiguous blocks of about equal size.
+     *
+     * @param orgUnits organisation units to divide, in order of path.
+     * @param block the index of the block to get.
+     * @param blockCount the number of blocks.
+     * @return the organisation units of the block.
+     */
+    private List<OrganisationUnit> getBlock( List<OrganisationUnit> orgUnits, int block, int blockCount )
+    {
+        if ( blockCount == 1 )
+        {
+            return orgUnits;
+        }
+
+        int blockSize = (orgUnits.size() + blockCount - 1) / blockCount;
+        int from = Math.min( orgUnits.size(), block * blockSize );
+        int to = Math.min( orgUnits.size(), from + blockSize );
+
+        return new ArrayList<>( orgUnits.subList( from, to ) );
+    }
+
+    /**
+     * Makes the predictions for one organisation unit.
+     *
+     * @param context the prediction context.
+     * @param orgUnit the organisation unit to predict for.
+     * @param dataValueFetcher fetcher of the data values to predict from.
+     * @param analyticsFetcher fetcher of the analytics data to predict from.
+     * @param cocMap cache of attribute option combos by uid.
+     * @return the predicted data values.
+     */
+    private List<DataValue> predictOrgUnit( PredictionContext context, OrganisationUnit orgUnit,
+        PredictionDataValueFetcher dataValueFetcher, PredictionAnalyticsDataFetcher analyticsFetcher,
+        CachingMap<String, CategoryOptionCombo> cocMap )
+    {
+        Expression generator = context.getGenerator();
+        DataElement outputDataElement = context.getOutputDataElement();
+
+        MapMap<Period, DimensionalItemObject, Double> nonAocData = analyticsFetcher.getNonAocData( orgUnit );
+
+        MapMapMap<String, Period, DimensionalItemObject, Double> aocData = analyticsFetcher
+            .getAocData( orgUnit );
+
+        List<DataValue> dataValues = dataValueFetcher.getDataValues( orgUnit );
+
+        addDataValuesToAocData( dataValues, aocData, context.getItems() );
+
+        Set<String> attributeOptionCombos = getAttributeOptionCombos( aocData,
+            context.getDefaultCategoryOptionCombo() );
+
+        List<DataValue> predictions = new ArrayList<>();
+
+        // Predict independently for each AOC, adding in the data,
+        // if any, that is stored without an AOC.
+
+        for ( String aoc : attributeOptionCombos )
+        {
+            MapMap<Period, DimensionalItemObject, Double> periodValueMap = firstNonNull( aocData.get( aoc ),
+                new MapMap<>() );
+
+            periodValueMap.putMap( nonAocData );
 
-                MapMapMap<String, Period, DimensionalItemObject, Double> aocData = analyticsFetcher
-                    .getAocData( orgUnit );
+            Set<Period> skippedPeriods = getSkippedPeriods( context.getAllSamplePeriods(), periodValueMap,
+                context.getSkipTest(), context.getConstantMap() );
 
-                List<DataValue> dataValues = dataValueFetcher.getDataValues( orgUnit );
+            // Predict for each output period.
 
-                addDataValuesToAocData( dataValues, aocData, items );
+            for ( Period outputPeriod : context.getOutputPeriods() )
+            {
+                List<Period> samplePeriods = new ArrayList<>( context.getSamplePeriodsMap().get( outputPeriod ) );
+
+                samplePeriods.removeAll( skippedPeriods );
+
+                Map<DimensionalItemObject, Double> valueMap = firstNonNull( periodValueMap.get( outputPeriod ),
+                    new HashMap<>() );
 
-                Set<String> attributeOptionCombos = getAttributeOptionCombos( aocData, defaultCategoryOptionCombo );
+                if ( context.isRequireData() && !dataIsPresent( context.getOutputPeriodItems(), valueMap,
+                    context.getSampledItems(), samplePeriods, periodValueMap ) )
+                {
+                    continue;
+                }
 
-                List<DataValue> predictions = new ArrayList<>();
+                Double value = castDouble( expressionService.getExpressionValue( generator.getExpression(),
+                    PREDICTOR_EXPRESSION, valueMap, context.getConstantMap(), null,
+                    outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(),
+                    samplePeriods, periodValueMap ) );
 
-                // Predict independently for each AOC, adding in the data,
-                // if any, that is stored without an AOC.
+                carryPredictionForward( value, outputPeriod, context.getForwardReference(), periodValueMap );
 
-                for ( String aoc : attributeOptionCombos )
+                if ( value != null && !value.isNaN() && !value.isInfinite() &&
+                    !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
                 {
-                    MapMap<Period, DimensionalItemObject, Double> periodValueMap = firstNonNull( aocData.get( aoc ),
-                        new MapMap<>() );
+                    String valueString = outputDataElement.getValueType().isInteger()
+                        ? Long.toString( Math.round( value ) )
+                        : Double.toString( MathUtils.roundFraction( value, 4 ) );
+
+                    predictions.add( new DataValue( outputDataElement,
+                        outputPeriod, orgUnit, context.getOutputOptionCombo(),
+                        cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
+                        valueString, context.getStoredBy(), context.getNow(), null ) );
+                }
+            }
+        }
+
+        return predictions;
+    }
 
-                    periodValueMap.putMap( nonAocData );
+    /**
+     * Initializes the fetchers for one organisation unit level.
+     *
+     * @param context the prediction context.
+     * @param parents organisation units under which to fetch data values.
+     * @param orgUnitLevel level of the organisation units to fetch.
+     * @param orgUnits organisation units to fetch, in order of path.
+     * @param oldPredictionFetcher fetcher of the existing predictions.
+     * @param dataValueFetcher fetcher of the data values to predict from.
+     * @param analyticsFetcher fetcher of the analytics data to predict from.
+     */
+    private void initFetchers( PredictionContext context, Set<OrganisationUnit> parents, int orgUnitLevel,
+        List<OrganisationUnit> orgUnits, PredictionDataValueFetcher oldPredictionFetcher,
+        PredictionDataValueFetcher dataValueFetcher, PredictionAnalyticsDataFetcher analyticsFetcher )
+    {
+        oldPredictionFetcher.init( parents, orgUnitLevel, orgUnits,
+            context.getOutputPeriodSet(), new HashSet<>(), context.getPredictionDeoSet() );
 
-                    Set<Period> skippedPeriods = getSkippedPeriods( allSamplePeriods, periodValueMap, skipTest,
-                        constantMap );
+        dataValueFetcher.init( parents, orgUnitLevel, orgUnits,
+            context.getExistingQueryPeriods(), context.getDataElements(), context.getDataElementOperands() );
 
-                    // Predict for each output period.
+        analyticsFetcher.init( orgUnits, context.getQueryPeriods(), context.getAnalyticsAttributeOptionItems(),
+            context.getAnalyticsNonAttributeOptionItems() );
+    }
 
-                    for ( Period outputPeriod : outputPeriods )
-                    {
-                        List<Period> samplePeriods = new ArrayList<>( samplePeriodsMap.get( outputPeriod ) );
+    /**
+     * Makes the predictions for one organisation unit level in shards of
+     * organisation units, using at most the configured number of workers.
+     * <p>
+     * Each shard holds organisation units sharing path prefixes, and has its
+     * own fetchers which query only the data under those prefixes. Predictions
+     * are evaluated in the worker threads, each shard within its own read-only
+     * transaction with the security context of this thread. A shard is given
+     * only uids, and loads its metadata in its own session. The predictions
+     * are handed through a bounded queue to this thread, which writes them
+     * with the metadata of its own session. Writing stays in this thread so
+     * that predictions are stored in the transaction that created any new
+     * output periods.
+     *
+     * @param context the prediction context.
+     * @param orgUnitLevel level of the organisation units to predict for.
+     * @param orgUnits organisation units to predict for, in order of path.
+     * @param shardCount maximum number of shards.
+     * @param workers maximum number of worker threads.
+     * @param predictionWriter the writer of the predictions.
+     * @param cocMap cache of attribute option combos by uid.
+     */
+    private void predictInShards( PredictionContext context, int orgUnitLevel, List<OrganisationUnit> orgUnits,
+        int shardCount, int workers, PredictionWriter predictionWriter,
+        CachingMap<String, CategoryOptionCombo> cocMap )
+    {
+        int prefixLevel = getShardPrefixLevel( orgUnits, orgUnitLevel, shardCount );
 
-                        samplePeriods.removeAll( skippedPeriods );
+        List<List<OrganisationUnit>> shards = getShards( orgUnits, prefixLevel, shardCount );
 
-                        Map<DimensionalItemObject, Double> valueMap = firstNonNull( periodValueMap.get( outputPeriod ),
-                            new HashMap<>() );
+        Map<String, OrganisationUnit> orgUnitMap = orgUnits.stream()
+            .collect( Collectors.toMap( OrganisationUnit::getUid, ou -> ou ) );
 
-                        if ( requireData && !dataIsPresent( outputPeriodItems, valueMap, sampledItems, samplePeriods,
-                            periodValueMap ) )
-                        {
-                            continue;
-                        }
+        String outputDataElementUid = context.getOutputDataElement().getUid();
+        String outputOptionComboUid = context.getOutputOptionCombo().getUid();
 
-                        Double value = castDouble( expressionService.getExpressionValue( generator.getExpression(),
-                            PREDICTOR_EXPRESSION, valueMap, constantMap, null,
-                            outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(),
-                            samplePeriods, periodValueMap ) );
+        BlockingQueue<OrgUnitPredictions> queue = new ArrayBlockingQueue<>( WRITE_QUEUE_CAPACITY );
 
-                        carryPredictionForward( value, outputPeriod, forwardReference, periodValueMap );
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(
+            transactionTemplate.getTransactionManager() );
+        readOnlyTransaction.setReadOnly( true );
 
-                        if ( value != null && !value.isNaN() && !value.isInfinite() &&
-                            !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
-                        {
-                            String valueString = outputDataElement.getValueType().isInteger()
-                                ? Long.toString( Math.round( value ) )
-                                : Double.toString( MathUtils.roundFraction( value, 4 ) );
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(
+            Executors.newFixedThreadPool( Math.min( workers, shards.size() ) ) );
 
-                            predictions.add( new DataValue( outputDataElement,
-                                outputPeriod, orgUnit, outputOptionCombo,
-                                cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
-                                valueString, storedBy, now, null ) );
-                        }
-                    }
+        List<Future<?>> futures = new ArrayList<>();
+
+        log.debug( "Predicting for " + orgUnits.size() + " org units at level " + orgUnitLevel + " in "
+            + shards.size() + " shards by level " + prefixLevel + " path prefix" );
+
+        try
+        {
+            for ( List<OrganisationUnit> shard : shards )
+            {
+                Set<String> parentUids = getPrefixUids( shard, prefixLevel );
+
+                List<String> orgUnitUids = shard.stream()
+                    .map( OrganisationUnit::getUid )
+                    .collect( Collectors.toList() );
+
+                futures.add( executor.submit( () -> readOnlyTransaction.executeWithoutResult(
+                    status -> predictShard( getShardContext( context, outputDataElementUid, outputOptionComboUid ),
+                        parentUids, orgUnitLevel, orgUnitUids, queue ) ) ) );
+            }
+
+            int runningShards = shards.size();
+
+            while ( runningShards > 0 )
+            {
+                OrgUnitPredictions orgUnitPredictions = queue.take();
+
+                if ( orgUnitPredictions == END_OF_SHARD )
+                {
+                    runningShards--;
+                }
+                else
+                {
+                    predictionWriter.write(
+                        getCallerPredictions( context, orgUnitPredictions.getPredictions(), orgUnitMap, cocMap ),
+                        orgUnitPredictions.getOldPredictions() );
                 }
-                predictionWriter.write( predictions, oldPredictionFetcher.getDataValues( orgUnit ) );
             }
+
+            ConcurrentUtils.waitForCompletion( futures );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Interrupted while waiting for predictions", ex );
+        }
+        finally
+        {
+            executor.shutdownNow();
         }
-        predictionWriter.flush();
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive Methods
-    // -------------------------------------------------------------------------
+    /**
+     * Makes the predictions for one shard of organisation units and puts them
+     * on the queue to be written. Always ends by putting an end of shard marker
+     * on the queue, also when there is an exception, which is reported when
+     * the shard's future is completed.
+     *
+     * @param context the prediction context of the shard.
+     * @param parentUids uids of the organisation units under which to fetch
+     *        data values.
+     * @param orgUnitLevel level of the organisation units to predict for.
+     * @param orgUnitUids uids of the organisation units in this shard.
+     * @param queue the queue of predictions to be written.
+     */
+    private void predictShard( PredictionContext context, Set<String> parentUids, int orgUnitLevel,
+        List<String> orgUnitUids, BlockingQueue<OrgUnitPredictions> queue )
+    {
+        try
+        {
+            Set<OrganisationUnit> parents = new HashSet<>(
+                organisationUnitService.getOrganisationUnitsByUid( parentUids ) );
+
+            List<OrganisationUnit> orgUnits = new ArrayList<>(
+                organisationUnitService.getOrganisationUnitsByUid( orgUnitUids ) );
+
+            orgUnits.sort( Comparator.comparing( OrganisationUnit::getPath ) );
+
+            PredictionDataValueFetcher oldPredictionFetcher = new PredictionDataValueFetcher(
+                dataValueService, categoryService ).setIncludeDeleted( true );
+            PredictionDataValueFetcher dataValueFetcher = new PredictionDataValueFetcher(
+                dataValueService, categoryService ).setIncludeChildren( true );
+            PredictionAnalyticsDataFetcher analyticsFetcher = new PredictionAnalyticsDataFetcher( analyticsService );
+            CachingMap<String, CategoryOptionCombo> cocMap = new CachingMap<>();
+
+            initFetchers( context, parents, orgUnitLevel, orgUnits,
+                oldPredictionFetcher, dataValueFetcher, analyticsFetcher );
+
+            for ( OrganisationUnit orgUnit : orgUnits )
+            {
+                List<DataValue> predictions = predictOrgUnit( context, orgUnit,
+                    dataValueFetcher, analyticsFetcher, cocMap );
+
+                if ( !putOnQueue( queue,
+                    new OrgUnitPredictions( predictions, oldPredictionFetcher.getDataValues( orgUnit ) ) ) )
+                {
+                    return;
+                }
+            }
+        }
+        finally
+        {
+            putOnQueue( queue, END_OF_SHARD );
+        }
+    }
+
+    /**
+     * Gets predictions made by a shard thread with the metadata of the calling
+     * thread, so that they can be stored in the session of this thread.
+     *
+     * @param context the prediction context of the calling thread.
+     * @param predictions the predictions made by the shard thread.
+     * @param orgUnitMap organisation units of the calling thread by uid.
+     * @param cocMap cache of attribute option combos by uid.
+     * @return the predictions with the metadata of the calling thread.
+     */
+    private List<DataValue> getCallerPredictions( PredictionContext context, List<DataValue> predictions,
+        Map<String, OrganisationUnit> orgUnitMap, CachingMap<String, CategoryOptionCombo> cocMap )
+    {
+        List<DataValue> callerPredictions = new ArrayList<>();
+
+        for ( DataValue prediction : predictions )
+        {
+            String aoc = prediction.getAttributeOptionCombo().getUid();
+
+            callerPredictions.add( new DataValue( context.getOutputDataElement(), prediction.getPeriod(),
+                orgUnitMap.get( prediction.getSource().getUid() ), context.getOutputOptionCombo(),
+                cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
+                prediction.getValue(), prediction.getStoredBy(), prediction.getLastUpdated(), null ) );
+        }
+
+        return callerPredictions;
+    }
+
+    /**
+     * Puts predictions on the queue, waiting for space if needed.
+     *
+     * @param queue the queue of predictions to be written.
+     * @param orgUnitPredictions the predictions to put on the queue.
+     * @return false if interrupted, else true.
+     */
+    private boolean putOnQueue( BlockingQueue<OrgUnitPredictions> queue, OrgUnitPredictions orgUnitPredictions )
+    {
+        try
+        {
+            queue.put( orgUnitPredictions );
+
+            return true;
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+    /**
+     * Finds the highest organisation unit level whose path prefixes divide the
+     * organisation units into enough groups to balance the shards.
+     *
+     * @param orgUnits organisation units to predict for.
+     * @param orgUnitLevel level of the organisation units.
+     * @param shardCount maximum number of shards.
+     * @return the level of the path prefix to shard by.
+     */
+    private int getShardPrefixLevel( List<OrganisationUnit> orgUnits, int orgUnitLevel, int shardCount )
+    {
+        for ( int level = 1; level < orgUnitLevel; level++ )
+        {
+            int prefixLength = level * PATH_SEGMENT_LENGTH;
+
+            long prefixes = orgUnits.stream()
+                .map( ou -> ou.getPath().substring( 0, prefixLength ) )
+                .distinct()
+                .count();
+
+            if ( prefixes >= (long) shardCount * PREFIXES_PER_SHARD )
+            {
+                return level;
+            }
+        }
+
+        return orgUnitLevel;
+    }
+
+    /**
+     * Divides organisation units into contiguous shards of about equal size,
+     * without splitting organisation units with the same path prefix over
+     * different shards.
+     *
+     * @param orgUnits organisation units to divide, in order of path.
+     * @param prefixLevel level of the path prefix to shard by.
+     * @param shardCount maximum number of shards.
+     * @return the shards of organisation units.
+     */
+    private List<List<OrganisationUnit>> getShards( List<OrganisationUnit> orgUnits, int prefixLevel,
+        int shardCount )
+    {
+        int prefixLength = prefixLevel * PATH_SEGMENT_LENGTH;
+        int shardSize = (orgUnits.size() + shardCount - 1) / shardCount;
+
+        List<List<OrganisationUnit>> shards = new ArrayList<>();
+        List<OrganisationUnit> shard = new ArrayList<>();
+        String prefix = null;
+
+        for ( OrganisationUnit orgUnit : orgUnits )
+        {
+            String orgUnitPrefix = orgUnit.getPath().substring( 0, prefixLength );
+
+            if ( shard.size() >= shardSize && !orgUnitPrefix.equals( prefix ) )
+            {
+                shards.add( shard );
+                shard = new ArrayList<>();
+            }
+
+            shard.add( orgUnit );
+            prefix = orgUnitPrefix;
+        }
+
+        if ( !shard.isEmpty() )
+        {
+            shards.add( shard );
+        }
+
+        return shards;
+    }
+
+    /**
+     * Gets the uids of the organisation units at the ends of the path prefixes
+     * of a shard.
+     *
+     * @param shard organisation units in the shard.
+     * @param prefixLevel level of the path prefix to shard by.
+     * @return the uids of the path prefix organisation units.
+     */
+    private Set<String> getPrefixUids( List<OrganisationUnit> shard, int prefixLevel )
+    {
+        int prefixLength = prefixLevel * PATH_SEGMENT_LENGTH;
+
+        return shard.stream()
+            .map( ou -> ou.getPath().substring( prefixLength - CodeGenerator.CODESIZE, prefixLength ) )
+            .collect( Collectors.toSet() );
+    }
 
     /**
      * Returns a Set of periods. Includes sample periods if there are any sample
@@ -862,4 +1450,16 @@ public class DefaultPredictionService
     {
         return !Sets.intersection( items, valueMap.keySet() ).isEmpty();
     }
+
+    /**
+     * Predictions for one organisation unit, waiting to be written.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class OrgUnitPredictions
+    {
+        private final List<DataValue> predictions;
+
+        private final List<DataValue> oldPredictions;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.ListMap;
+import org.hisp.dhis.constant.Constant;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementOperand;
+import org.hisp.dhis.expression.Expression;
+import org.hisp.dhis.period.Period;
+
+/**
+ * Everything needed to make predictions for one predictor, prepared once
+ * before the organisation units are processed.
+ * <p>
+ * Instances are not modified after they are built. Threads predicting for
+ * shards of organisation units use a copy holding metadata loaded in their own
+ * session.
+ */
+@Getter
+@Builder( toBuilder = true )
+public class PredictionContext
+{
+    private final Expression generator;
+
+    private final Expression skipTest;
+
+    private final DataElement outputDataElement;
+
+    private final CategoryOptionCombo outputOptionCombo;
+
+    private final CategoryOptionCombo defaultCategoryOptionCombo;
+
+    private final Set<DimensionalItemObject> items;
+
+    private final Set<DimensionalItemObject> outputPeriodItems;
+
+    private final Set<DimensionalItemObject> sampledItems;
+
+    private final Map<String, Constant> constantMap;
+
+    private final List<Period> outputPeriods;
+
+    private final Set<Period> outputPeriodSet;
+
+    private final ListMap<Period, Period> samplePeriodsMap;
+
+    private final Set<Period> allSamplePeriods;
+
+    private final Set<Period> queryPeriods;
+
+    private final Set<Period> existingQueryPeriods;
+
+    private final Set<DataElement> dataElements;
+
+    private final Set<DataElementOperand> dataElementOperands;
+
+    private final Set<DimensionalItemObject> analyticsAttributeOptionItems;
+
+    private final Set<DimensionalItemObject> analyticsNonAttributeOptionItems;
+
+    private final Set<DataElementOperand> predictionDeoSet;
+
+    private final boolean requireData;
+
+    private final DimensionalItemObject forwardReference;
+
+    private final String storedBy;
+
+    private final Date now;
+}
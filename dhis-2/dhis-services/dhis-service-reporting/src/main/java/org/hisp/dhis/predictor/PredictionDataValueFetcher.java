@@ -63,7 +63,10 @@ import org.hisp.dhis.period.Period;
  * exceptions thrown if they are not met.
  * <p>
  * Each time the instance is initialized, it will fetch data for only one
- * organisation unit level.
+ * organisation unit level. Data is fetched from under the given parent
+ * organisation units, and values for organisation units that were not
+ * requested are ignored, so the parents may be broader than the requested
+ * organisation units.
  * <p>
  * This class maintains performance while limiting memory usage by using a
  * single data request (which means a single SQL query) with a callback method
@@ -158,7 +161,8 @@ public class PredictionDataValueFetcher
     /**
      * Initializes for datavalue retrieval.
      *
-     * @param currentUserOrgUnits orgUnits assigned to current user.
+     * @param currentUserOrgUnits parent orgUnits to fetch data under, such as
+     *        those assigned to current user.
      * @param orgUnitLevel level of organisation units to fetch.
      * @param orgUnits organisation units to fetch.
      * @param periods periods to fetch.
@@ -237,6 +241,11 @@ public class PredictionDataValueFetcher
     @Override
     public void consume( DeflatedDataValue ddv )
     {
+        if ( !orgUnitLookup.containsKey( truncatePathToLevel( ddv.getSourcePath() ) ) )
+        {
+            return; // Under the parents, but not an organisation unit wanted
+        }
+
         if ( producerOrgUnitPath.equals( AFTER_PATHS ) )
         {
             producerOrgUnitPath = truncatePathToLevel( ddv.getSourcePath() );
@@ -60,6 +60,16 @@ public interface PredictionService
     PredictionSummary predictTask( Date startDate, Date endDate,
         List<String> predictors, List<String> predictorGroups, JobConfiguration jobId );
 
+    /**
+     * Gets the predictors to run for the given predictors and predictor
+     * groups. If neither are given all predictors are returned.
+     *
+     * @param predictors predictor(s) to run
+     * @param predictorGroups predictor group(s) to run
+     * @return the predictors to run
+     */
+    List<Predictor> getPredictors( List<String> predictors, List<String> predictorGroups );
+
     /**
      * Executes a single predictor for a date range
      *
@@ -69,4 +79,33 @@ public interface PredictionService
      * @param predictionSummary the prediction summary to add to
      */
     void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary );
+
+    /**
+     * Prepares a predictor to be run in blocks of organisation units by
+     * {@link #predictBlock}. Creates the output periods, so that blocks
+     * running at the same time do not create them concurrently.
+     *
+     * @param predictor the predictor to run
+     * @param startDate the start date of the predictor run
+     * @param endDate the end date of the predictor run
+     * @param orgUnitsPerBlock the maximum number of organisation units of a
+     *        level in one block
+     * @return the number of blocks to run
+     */
+    int preparePredictorBlocks( Predictor predictor, Date startDate, Date endDate, int orgUnitsPerBlock );
+
+    /**
+     * Executes a single predictor for a date range and one block of the
+     * organisation units, ordered by path, of each of its levels.
+     *
+     * @param predictor the uid of the predictor to run
+     * @param startDate the start date of the predictor run
+     * @param endDate the end date of the predictor run
+     * @param block the index of the block to run
+     * @param blockCount the number of blocks
+     * @param jobId associated with the task running (for notifier)
+     * @return a summary of what was predicted
+     */
+    PredictionSummary predictBlock( String predictor, Date startDate, Date endDate, int block, int blockCount,
+        JobConfiguration jobId );
 }
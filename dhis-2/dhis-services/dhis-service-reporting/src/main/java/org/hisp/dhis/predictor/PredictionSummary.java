@@ -89,6 +89,24 @@ public class PredictionSummary extends AbstractWebMessageResponse
         unchanged += 1;
     }
 
+    /**
+     * Adds the counts of another part of the same prediction run, for example
+     * of a block of organisation units predicted on another node. The number
+     * of predictors is not added since the parts may share predictors.
+     *
+     * @param inserted the number of inserted predictions
+     * @param updated the number of updated predictions
+     * @param deleted the number of deleted predictions
+     * @param unchanged the number of unchanged predictions
+     */
+    public void addCounts( int inserted, int updated, int deleted, int unchanged )
+    {
+        this.inserted += inserted;
+        this.updated += updated;
+        this.deleted += deleted;
+        this.unchanged += unchanged;
+    }
+
     public int getPredictions()
     {
         return inserted + updated + unchanged;
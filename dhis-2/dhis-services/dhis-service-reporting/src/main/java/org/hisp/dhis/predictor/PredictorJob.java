@@ -29,10 +29,22 @@ package org.hisp.dhis.predictor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.hisp.dhis.scheduling.AbstractJob;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.scheduling.PartitionableJob;
 import org.hisp.dhis.scheduling.parameters.PredictorJobParameters;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.util.DateUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -41,14 +53,26 @@ import org.springframework.stereotype.Component;
 @Component( "predictorJob" )
 public class PredictorJob
     extends AbstractJob
+    implements PartitionableJob
 {
+    /**
+     * Maximum number of organisation units of a level in one work unit.
+     */
+    private static final int ORG_UNITS_PER_WORK_UNIT = 500;
+
+    private static final String SEPARATOR = ";";
+
     private final PredictionService predictionService;
 
-    public PredictorJob( PredictionService predictionService )
+    private final Notifier notifier;
+
+    public PredictorJob( PredictionService predictionService, Notifier notifier )
     {
         checkNotNull( predictionService );
+        checkNotNull( notifier );
 
         this.predictionService = predictionService;
+        this.notifier = notifier;
     }
 
     @Override
@@ -59,6 +83,99 @@ public class PredictorJob
 
     @Override
     public void execute( JobConfiguration jobConfiguration )
+    {
+        predictionService.predictJob( getParameters( jobConfiguration ), jobConfiguration );
+    }
+
+    /**
+     * Each predictor of the job is a phase, so that predictors run in their
+     * configured order and can use the output of the predictors before them.
+     * The work units of a phase are blocks of the organisation units of the
+     * predictor. A work unit is identified by the predictor uid, the block
+     * index, the block count and the dates of the run, so that all blocks of
+     * the job predict for the same periods.
+     */
+    @Override
+    public List<List<String>> getWorkUnitPhases( JobConfiguration jobConfiguration )
+    {
+        PredictorJobParameters params = getParameters( jobConfiguration );
+
+        String startDate = DateUtils.getMediumDateString(
+            DateUtils.getDateAfterAddition( new Date(), params.getRelativeStart() ) );
+        String endDate = DateUtils.getMediumDateString(
+            DateUtils.getDateAfterAddition( new Date(), params.getRelativeEnd() ) );
+
+        notifier.notify( jobConfiguration, NotificationLevel.INFO, "Making predictions", false );
+
+        Map<String, Predictor> predictors = new LinkedHashMap<>();
+
+        predictionService.getPredictors( params.getPredictors(), params.getPredictorGroups() )
+            .forEach( predictor -> predictors.putIfAbsent( predictor.getUid(), predictor ) );
+
+        List<List<String>> phases = new ArrayList<>();
+
+        for ( Predictor predictor : predictors.values() )
+        {
+            int blockCount = predictionService.preparePredictorBlocks( predictor,
+                DateUtils.getMediumDate( startDate ), DateUtils.getMediumDate( endDate ), ORG_UNITS_PER_WORK_UNIT );
+
+            List<String> workUnits = new ArrayList<>();
+
+            for ( int block = 0; block < blockCount; block++ )
+            {
+                workUnits.add( String.join( SEPARATOR, predictor.getUid(), String.valueOf( block ),
+                    String.valueOf( blockCount ), startDate, endDate ) );
+            }
+
+            phases.add( workUnits );
+        }
+
+        return phases;
+    }
+
+    /**
+     * The result of a work unit holds the counts of the prediction summary of
+     * its block, so that the node which runs the job can merge them.
+     */
+    @Override
+    public String executeWorkUnit( JobConfiguration jobConfiguration, String workUnit )
+    {
+        String[] parts = workUnit.split( SEPARATOR );
+
+        PredictionSummary summary = predictionService.predictBlock( parts[0], DateUtils.getMediumDate( parts[3] ),
+            DateUtils.getMediumDate( parts[4] ), Integer.parseInt( parts[1] ), Integer.parseInt( parts[2] ),
+            jobConfiguration );
+
+        return String.join( SEPARATOR, String.valueOf( summary.getInserted() ),
+            String.valueOf( summary.getUpdated() ), String.valueOf( summary.getDeleted() ),
+            String.valueOf( summary.getUnchanged() ) );
+    }
+
+    @Override
+    public void completeWorkUnits( JobConfiguration jobConfiguration, Map<String, String> results )
+    {
+        PredictionSummary predictionSummary = new PredictionSummary();
+
+        Set<String> predictors = new HashSet<>();
+
+        for ( Map.Entry<String, String> result : results.entrySet() )
+        {
+            String[] counts = result.getValue().split( SEPARATOR );
+
+            predictionSummary.addCounts( Integer.parseInt( counts[0] ), Integer.parseInt( counts[1] ),
+                Integer.parseInt( counts[2] ), Integer.parseInt( counts[3] ) );
+
+            if ( predictors.add( result.getKey().split( SEPARATOR )[0] ) )
+            {
+                predictionSummary.incrementPredictors();
+            }
+        }
+
+        notifier.update( jobConfiguration, NotificationLevel.INFO, "Prediction done", true )
+            .addJobSummary( jobConfiguration, predictionSummary, PredictionSummary.class );
+    }
+
+    private PredictorJobParameters getParameters( JobConfiguration jobConfiguration )
     {
         PredictorJobParameters predictorJobParameters = (PredictorJobParameters) jobConfiguration.getJobParameters();
 
@@ -67,6 +184,6 @@ public class PredictorJob
             throw new IllegalStateException( "No job parameters present in predictor job" );
         }
 
-        predictionService.predictJob( predictorJobParameters, null );
+        return predictorJobParameters;
     }
 }
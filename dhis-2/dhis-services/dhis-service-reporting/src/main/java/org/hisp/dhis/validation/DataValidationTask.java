@@ -115,6 +115,8 @@ public class DataValidationTask
 
     private ValidationRunContext context;
 
+    private DataValuePrefetch prefetch;
+
     private Set<ValidationResult> validationResults;
 
     private PeriodTypeExtended periodTypeX; // Current period type extended.
@@ -134,10 +136,18 @@ public class DataValidationTask
 
     @Override
     public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService )
+    {
+        init( orgUnits, context, analyticsService, new DataValuePrefetch( orgUnits ) );
+    }
+
+    @Override
+    public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService,
+        DataValuePrefetch prefetch )
     {
         this.orgUnits = orgUnits;
         this.context = context;
         this.analyticsService = analyticsService;
+        this.prefetch = prefetch;
     }
 
     /**
@@ -509,14 +519,31 @@ public class DataValidationTask
 
     /**
      * Gets data elements and data element operands from the datavalue table.
+     * The data values are fetched once for all organisation units of the
+     * prefetch group and shared with the other tasks of the group.
      */
     private void getDataValueMap()
+    {
+        String key = periodTypeX.getPeriodType().getName() + "-" + period.getIsoDate();
+
+        List<DeflatedDataValue> dataValues = prefetch.getDataValues( key, orgUnits, this::fetchDataValues );
+
+        dataMap = new MapMapMap<>();
+
+        addDataValuesToDataMap( dataValues );
+    }
+
+    /**
+     * Fetches data values for all organisation units of the prefetch group
+     * for the current period type and period.
+     */
+    private List<DeflatedDataValue> fetchDataValues()
     {
         DataExportParams params = new DataExportParams();
         params.setDataElements( periodTypeX.getDataElements() );
         params.setDataElementOperands( periodTypeX.getDataElementOperands() );
         params.setIncludedDate( period.getStartDate() );
-        params.setOrganisationUnits( new HashSet<>( orgUnits ) );
+        params.setOrganisationUnits( new HashSet<>( prefetch.getOrgUnits() ) );
         params.setPeriodTypes( periodTypeX.getAllowedPeriodTypes() );
         params.setCoDimensionConstraints( context.getCoDimensionConstraints() );
         params.setCogDimensionConstraints( context.getCogDimensionConstraints() );
@@ -526,10 +553,11 @@ public class DataValidationTask
             params.setAttributeOptionCombos( Sets.newHashSet( context.getAttributeCombo() ) );
         }
 
-        List<DeflatedDataValue> dataValues = dataValueService.getDeflatedDataValues( params );
-
-        dataMap = new MapMapMap<>();
+        return dataValueService.getDeflatedDataValues( params );
+    }
 
+    private void addDataValuesToDataMap( List<DeflatedDataValue> dataValues )
+    {
         MapMapMap<Long, String, DimensionalItemObject, Long> checkForDuplicates = new MapMapMap<>();
 
         for ( DeflatedDataValue dv : dataValues )
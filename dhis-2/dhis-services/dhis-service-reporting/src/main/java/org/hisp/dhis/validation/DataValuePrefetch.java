@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.validation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.datavalue.DeflatedDataValue;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Data values for a group of organisation units which are fetched once per
+ * key, typically a period type and period, and shared by the validation tasks
+ * which evaluate subsets of the group. A prefetched entry is released when
+ * all organisation units of the group have consumed it.
+ */
+public class DataValuePrefetch
+{
+    private final Set<OrganisationUnit> orgUnits;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public DataValuePrefetch( Collection<OrganisationUnit> orgUnits )
+    {
+        this.orgUnits = ImmutableSet.copyOf( orgUnits );
+    }
+
+    /**
+     * Returns the organisation units of the group.
+     */
+    public Set<OrganisationUnit> getOrgUnits()
+    {
+        return orgUnits;
+    }
+
+    /**
+     * Returns the data values for the given key which belong to the given
+     * organisation units. The first caller for a key fetches the data values
+     * for all organisation units of the group using the given supplier.
+     *
+     * @param key the prefetch key.
+     * @param taskOrgUnits the organisation units of the calling task, which
+     *        must be a subset of the group.
+     * @param fetch supplier of data values for all organisation units of the
+     *        group.
+     * @return a list of {@link DeflatedDataValue}.
+     */
+    public List<DeflatedDataValue> getDataValues( String key, Collection<OrganisationUnit> taskOrgUnits,
+        Supplier<List<DeflatedDataValue>> fetch )
+    {
+        Entry entry = entries.computeIfAbsent( key, k -> new Entry( orgUnits.size() ) );
+
+        List<DeflatedDataValue> dataValues = entry.get( fetch );
+
+        if ( entry.release( taskOrgUnits.size() ) )
+        {
+            entries.remove( key );
+        }
+
+        if ( taskOrgUnits.size() == orgUnits.size() )
+        {
+            return dataValues;
+        }
+
+        Set<Long> orgUnitIds = taskOrgUnits.stream()
+            .map( OrganisationUnit::getId )
+            .collect( Collectors.toSet() );
+
+        return dataValues.stream()
+            .filter( dv -> orgUnitIds.contains( dv.getSourceId() ) )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Lazily fetched data values with a count of organisation units which have
+     * not consumed them yet.
+     */
+    private static class Entry
+    {
+        private List<DeflatedDataValue> dataValues;
+
+        private int remaining;
+
+        Entry( int remaining )
+        {
+            this.remaining = remaining;
+        }
+
+        synchronized List<DeflatedDataValue> get( Supplier<List<DeflatedDataValue>> fetch )
+        {
+            if ( dataValues == null )
+            {
+                dataValues = fetch.get();
+            }
+
+            return dataValues;
+        }
+
+        synchronized boolean release( int consumed )
+        {
+            remaining -= consumed;
+
+            return remaining <= 0;
+        }
+    }
+}
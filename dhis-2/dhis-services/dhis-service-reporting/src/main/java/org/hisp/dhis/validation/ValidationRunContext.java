@@ -63,6 +63,13 @@ public class ValidationRunContext
 {
     public static final int ORG_UNITS_PER_TASK = 500;
 
+    /**
+     * Minimum number of organisation units of a task split for idle threads.
+     * Each task fetches analytics values for its organisation units in one
+     * query per period, so smaller tasks would multiply the queries.
+     */
+    public static final int MIN_ORG_UNITS_PER_TASK = 100;
+
     private Queue<ValidationResult> validationResults;
 
     private List<OrganisationUnit> orgUnits;
@@ -36,4 +36,17 @@ public interface ValidationTask
     extends Runnable
 {
     void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService );
+
+    /**
+     * Initializes the task with a data value prefetch which is shared with
+     * tasks for other organisation units of the same group.
+     *
+     * @param orgUnits the organisation units to validate, a subset of the
+     *        organisation units of the prefetch.
+     * @param context the {@link ValidationRunContext}.
+     * @param analyticsService the {@link AnalyticsService}.
+     * @param prefetch the shared {@link DataValuePrefetch}.
+     */
+    void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService,
+        DataValuePrefetch prefetch );
 }
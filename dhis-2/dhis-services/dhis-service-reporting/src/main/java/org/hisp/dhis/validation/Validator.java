@@ -29,10 +29,18 @@ package org.hisp.dhis.validation;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.category.CategoryService;
@@ -47,13 +55,28 @@ import com.google.common.collect.Lists;
  *
  * @author Jim Grace
  */
+@Slf4j
 public class Validator
 {
+    /**
+     * Work-stealing pool which is shared by all validation runs.
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool( getParallelism(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+        thread.setName( "validation-" + thread.getPoolIndex() );
+        return thread;
+    }, null, false );
+
     /**
      * Evaluates validation rules for a collection of organisation units. This
-     * method breaks the job down by organisation unit. It assigns the
-     * evaluation for each organisation unit to a task that can be evaluated
-     * independently in a multi-threaded environment.
+     * method breaks the job down by organisation unit. Organisation units are
+     * sorted by path so that siblings are adjacent, and partitioned into
+     * groups of {@link ValidationRunContext#ORG_UNITS_PER_TASK}. Each group
+     * shares one prefetch of data values per period. Groups are evaluated as
+     * tasks in a shared work-stealing pool, and are split further while there
+     * are idle threads, down to
+     * {@link ValidationRunContext#MIN_ORG_UNITS_PER_TASK}, so that large
+     * groups do not hold up the run.
      * <p/>
      * Return early with no results if there are no organisation units or no
      * validation rules.
@@ -65,37 +88,42 @@ public class Validator
     {
         CategoryService categoryService = applicationContext.getBean( CategoryService.class );
 
-        int threadPoolSize = getThreadPoolSize( context );
-
-        if ( threadPoolSize == 0 || context.getPeriodTypeXs().isEmpty() )
+        if ( context.getNumberOfTasks() == 0 || context.getPeriodTypeXs().isEmpty() )
         {
             return new ArrayList<>( context.getValidationResults() );
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool( threadPoolSize );
+        List<OrganisationUnit> orgUnits = context.getOrgUnits().stream()
+            .sorted( Comparator.comparing( OrganisationUnit::getPath, Comparator.nullsFirst( String::compareTo ) ) )
+            .collect( Collectors.toList() );
 
-        List<List<OrganisationUnit>> orgUnitLists = Lists.partition( context.getOrgUnits(),
-            ValidationRunContext.ORG_UNITS_PER_TASK );
+        List<ValidationAction> actions = Lists.partition( orgUnits, ValidationRunContext.ORG_UNITS_PER_TASK ).stream()
+            .map( group -> new ValidationAction( group, new DataValuePrefetch( group ), context, applicationContext,
+                analyticsService ) )
+            .collect( Collectors.toList() );
 
-        for ( List<OrganisationUnit> orgUnits : orgUnitLists )
-        {
-            ValidationTask task = (ValidationTask) applicationContext.getBean( DataValidationTask.NAME );
-            task.init( orgUnits, context, analyticsService );
-
-            executor.execute( task );
-        }
-
-        executor.shutdown();
+        ForkJoinTask<?> task = POOL.submit( () -> ForkJoinTask.invokeAll( actions ) );
 
         try
         {
-            executor.awaitTermination( 6, TimeUnit.HOURS );
+            task.get( 6, TimeUnit.HOURS );
         }
         catch ( InterruptedException e )
         {
-            executor.shutdownNow();
+            task.cancel( true );
+
+            Thread.currentThread().interrupt();
+        }
+        catch ( ExecutionException | TimeoutException e )
+        {
+            task.cancel( true );
+
+            log.error( "Validation run did not complete", e );
         }
 
+        log.info( "Validation run done, org units: {}, groups: {}, pool: {}", orgUnits.size(), actions.size(),
+            POOL );
+
         reloadAttributeOptionCombos( context.getValidationResults(), categoryService );
 
         return new ArrayList<>( context.getValidationResults() );
@@ -104,26 +132,87 @@ public class Validator
     /**
      * Determines how many threads we should use for testing validation rules.
      *
-     * @param context validation run context
      * @return number of threads we should use for testing validation rules
      */
-    private static int getThreadPoolSize( ValidationRunContext context )
+    private static int getParallelism()
     {
-        int threadPoolSize = SystemUtils.getCpuCores();
+        int parallelism = SystemUtils.getCpuCores();
 
-        if ( threadPoolSize > 2 )
+        if ( parallelism > 2 )
         {
-            threadPoolSize--;
+            parallelism--;
         }
 
-        int numberOfTasks = context.getNumberOfTasks();
+        return parallelism;
+    }
+
+    /**
+     * Evaluates validation rules for a list of organisation units. Splits
+     * itself in two while the list is larger than
+     * {@link ValidationRunContext#ORG_UNITS_PER_TASK}, or while both halves
+     * hold at least {@link ValidationRunContext#MIN_ORG_UNITS_PER_TASK}
+     * organisation units and the pool has no queued tasks for idle threads to
+     * steal.
+     */
+    private static class ValidationAction
+        extends RecursiveAction
+    {
+        private final List<OrganisationUnit> orgUnits;
+
+        private final DataValuePrefetch prefetch;
+
+        private final ValidationRunContext context;
 
-        if ( threadPoolSize > numberOfTasks )
+        private final ApplicationContext applicationContext;
+
+        private final AnalyticsService analyticsService;
+
+        ValidationAction( List<OrganisationUnit> orgUnits, DataValuePrefetch prefetch, ValidationRunContext context,
+            ApplicationContext applicationContext, AnalyticsService analyticsService )
         {
-            threadPoolSize = numberOfTasks;
+            this.orgUnits = orgUnits;
+            this.prefetch = prefetch;
+            this.context = context;
+            this.applicationContext = applicationContext;
+            this.analyticsService = analyticsService;
         }
 
-        return threadPoolSize;
+        @Override
+        protected void compute()
+        {
+            if ( context.isAnalysisComplete() )
+            {
+                return;
+            }
+
+            if ( orgUnits.size() > ValidationRunContext.ORG_UNITS_PER_TASK
+                || (orgUnits.size() >= 2 * ValidationRunContext.MIN_ORG_UNITS_PER_TASK
+                    && getSurplusQueuedTaskCount() <= 0) )
+            {
+                int half = orgUnits.size() / 2;
+
+                invokeAll( split( orgUnits.subList( 0, half ) ), split( orgUnits.subList( half, orgUnits.size() ) ) );
+
+                return;
+            }
+
+            ValidationTask task = (ValidationTask) applicationContext.getBean( DataValidationTask.NAME );
+            task.init( orgUnits, context, analyticsService, prefetch );
+
+            try
+            {
+                task.run();
+            }
+            catch ( RuntimeException ex )
+            {
+                // Logged by task, continue with other tasks
+            }
+        }
+
+        private ValidationAction split( List<OrganisationUnit> subList )
+        {
+            return new ValidationAction( subList, prefetch, context, applicationContext, analyticsService );
+        }
     }
 
     /**
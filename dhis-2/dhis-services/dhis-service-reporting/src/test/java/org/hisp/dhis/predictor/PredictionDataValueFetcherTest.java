@@ -235,6 +235,19 @@ public class PredictionDataValueFetcherTest
         assertEquals( 0, fetcher.getDataValues( orgUnitE ).size() );
     }
 
+    @Test
+    public void testOrgUnitsNotRequested()
+    {
+        when( dataValueService.getDeflatedDataValues( any() ) ).thenAnswer( p -> unsynchronizedDb() );
+
+        fetcher.init( new HashSet<>(), 1, Lists.newArrayList( orgUnitA, orgUnitD, orgUnitE ), periods,
+            dataElements, dataElementOperands );
+
+        assertEquals( 0, fetcher.getDataValues( orgUnitA ).size() );
+        assertEquals( 2, fetcher.getDataValues( orgUnitD ).size() );
+        assertEquals( 0, fetcher.getDataValues( orgUnitE ).size() );
+    }
+
     @Test( expected = NullPointerException.class )
     public void testProducerException()
     {
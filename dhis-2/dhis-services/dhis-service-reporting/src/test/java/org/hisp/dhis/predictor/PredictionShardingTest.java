@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.PREDICTOR_WORKERS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.datavalue.DataValue;
+import org.hisp.dhis.expression.Expression;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.jdbc.batchhandler.DataValueBatchHandler;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.quick.BatchHandler;
+import org.hisp.quick.BatchHandlerFactory;
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests that predictions made by multiple workers, each predicting for a shard
+ * of organisation units, are the same as predictions made sequentially.
+ */
+public class PredictionShardingTest
+    extends IntegrationTestBase
+{
+    private static final int DISTRICTS = 3;
+
+    private static final int FACILITIES_PER_DISTRICT = 4;
+
+    private static final int WORKERS = 2;
+
+    @Autowired
+    private PredictionService predictionService;
+
+    @Autowired
+    private PredictorService predictorService;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PeriodService periodService;
+
+    @Autowired
+    private BatchHandlerFactory batchHandlerFactory;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    private DataElement output;
+
+    private Predictor predictor;
+
+    @Override
+    public void setUpTest()
+    {
+        PeriodType.invalidatePeriodCache();
+
+        OrganisationUnitLevel facilityLevel = new OrganisationUnitLevel( 3, "Facility" );
+
+        organisationUnitService.addOrganisationUnitLevel( new OrganisationUnitLevel( 1, "National" ) );
+        organisationUnitService.addOrganisationUnitLevel( new OrganisationUnitLevel( 2, "District" ) );
+        organisationUnitService.addOrganisationUnitLevel( facilityLevel );
+
+        CategoryOptionCombo coc = categoryService.getDefaultCategoryOptionCombo();
+
+        DataElement input = createDataElement( 'A', ValueType.INTEGER, AggregationType.SUM );
+        output = createDataElement( 'X', ValueType.NUMBER, AggregationType.NONE );
+
+        dataElementService.addDataElement( input );
+        dataElementService.addDataElement( output );
+
+        List<Period> periods = new ArrayList<>();
+
+        for ( int month = 1; month <= 24; month++ )
+        {
+            Period period = createPeriod( String.format( "%d%02d", 2019 + (month - 1) / 12, (month - 1) % 12 + 1 ) );
+            periods.add( periodService.reloadPeriod( period ) );
+        }
+
+        OrganisationUnit national = createOrganisationUnit( "National" );
+        organisationUnitService.addOrganisationUnit( national );
+
+        BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory
+            .createBatchHandler( DataValueBatchHandler.class ).init();
+
+        int i = 0;
+
+        for ( int d = 0; d < DISTRICTS; d++ )
+        {
+            OrganisationUnit district = createOrganisationUnit( "District" + d, national );
+            organisationUnitService.addOrganisationUnit( district );
+
+            for ( int f = 0; f < FACILITIES_PER_DISTRICT; f++ )
+            {
+                OrganisationUnit facility = createOrganisationUnit( "Facility" + d + "-" + f, district );
+                organisationUnitService.addOrganisationUnit( facility );
+
+                for ( Period period : periods )
+                {
+                    dataValueBatchHandler.addObject( createDataValue( input, period, facility, coc, coc,
+                        String.valueOf( i++ % 97 ) ) );
+                }
+            }
+        }
+
+        dataValueBatchHandler.flush();
+
+        Expression generator = new Expression(
+            "avg(#{" + input.getUid() + "})+1.5*stddev(#{" + input.getUid() + "})", "Generator" );
+
+        predictor = createPredictor( output, coc, "A", generator, null, PeriodType.getPeriodTypeByName( "Monthly" ),
+            facilityLevel, 6, 0, 1 );
+
+        predictorService.addPredictor( predictor );
+    }
+
+    @Override
+    public void tearDownTest()
+    {
+        setDependency( predictionService, "config", config, DhisConfigurationProvider.class );
+    }
+
+    @Test
+    public void testShardedPredictionsEqualSequentialPredictions()
+    {
+        PredictionSummary sequential = predict( 1 );
+
+        int predictions = sequential.getInserted();
+
+        assertTrue( predictions > 0 );
+
+        Map<String, String> sequentialValues = getPredictedValues();
+
+        assertEquals( predictions, sequentialValues.size() );
+
+        deletePredictedValues();
+
+        PredictionSummary sharded = predict( WORKERS );
+
+        assertEquals( predictions, sharded.getInserted() );
+        assertEquals( sequentialValues, getPredictedValues() );
+    }
+
+    @Test
+    public void testShardedPredictionsLeaveUnchangedValues()
+    {
+        int predictions = predict( 1 ).getInserted();
+
+        Map<String, String> sequentialValues = getPredictedValues();
+
+        PredictionSummary sharded = predict( WORKERS );
+
+        assertEquals( predictions, sharded.getUnchanged() );
+        assertEquals( 0, sharded.getInserted() + sharded.getUpdated() + sharded.getDeleted() );
+        assertEquals( sequentialValues, getPredictedValues() );
+    }
+
+    /**
+     * Gets the stored predictions, as values by organisation unit, period and
+     * attribute option combo.
+     *
+     * @return the predicted values.
+     */
+    private Map<String, String> getPredictedValues()
+    {
+        Map<String, String> values = new HashMap<>();
+
+        jdbcTemplate.query( "select sourceid, periodid, attributeoptioncomboid, value from datavalue "
+            + "where dataelementid = ? and deleted = false", rs -> {
+                values.put( rs.getLong( 1 ) + "-" + rs.getLong( 2 ) + "-" + rs.getLong( 3 ), rs.getString( 4 ) );
+            }, output.getId() );
+
+        return values;
+    }
+
+    /**
+     * Deletes the stored predictions, so that they are made again.
+     */
+    private void deletePredictedValues()
+    {
+        jdbcTemplate.update( "delete from datavalue where dataelementid = ?", output.getId() );
+    }
+
+    /**
+     * Predicts for the year 2020 with the given number of workers.
+     *
+     * @param workers the number of workers.
+     * @return the prediction summary.
+     */
+    private PredictionSummary predict( int workers )
+    {
+        DhisConfigurationProvider workerConfig = mock( DhisConfigurationProvider.class );
+
+        when( workerConfig.getProperty( PREDICTOR_WORKERS ) ).thenReturn( String.valueOf( workers ) );
+
+        setDependency( predictionService, "config", workerConfig, DhisConfigurationProvider.class );
+
+        PredictionSummary summary = new PredictionSummary();
+
+        Date startDate = new DateTime( 2020, 1, 1, 0, 0 ).toDate();
+        Date endDate = new DateTime( 2021, 1, 1, 0, 0 ).toDate();
+
+        predictionService.predict( predictor, startDate, endDate, summary );
+
+        return summary;
+    }
+}
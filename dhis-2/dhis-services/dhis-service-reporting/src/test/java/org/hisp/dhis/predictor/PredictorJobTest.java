@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+/**
+ * Tests the distributed execution of {@link PredictorJob}.
+ */
+public class PredictorJobTest
+{
+    @Mock
+    private PredictionService predictionService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private final JobConfiguration configuration = new JobConfiguration( "predict", JobType.PREDICTOR, null,
+        false );
+
+    private PredictorJob job;
+
+    @Before
+    public void setUp()
+    {
+        job = new PredictorJob( predictionService, notifier );
+
+        when( notifier.update( configuration, NotificationLevel.INFO, "Prediction done", true ) )
+            .thenReturn( notifier );
+    }
+
+    @Test
+    public void testSummariesOfWorkUnitsAreMerged()
+    {
+        Map<String, String> results = new LinkedHashMap<>();
+
+        results.put( "predictorA;0;2;2021-01-01;2021-12-31",
+            executeWorkUnit( "predictorA;0;2;2021-01-01;2021-12-31", 1, 2, 3, 4 ) );
+        results.put( "predictorA;1;2;2021-01-01;2021-12-31",
+            executeWorkUnit( "predictorA;1;2;2021-01-01;2021-12-31", 10, 20, 30, 40 ) );
+        results.put( "predictorB;0;1;2021-01-01;2021-12-31",
+            executeWorkUnit( "predictorB;0;1;2021-01-01;2021-12-31", 100, 0, 0, 0 ) );
+
+        job.completeWorkUnits( configuration, results );
+
+        ArgumentCaptor<PredictionSummary> summary = ArgumentCaptor.forClass( PredictionSummary.class );
+
+        verify( notifier ).addJobSummary( eq( configuration ), summary.capture(), eq( PredictionSummary.class ) );
+
+        assertEquals( PredictionStatus.SUCCESS, summary.getValue().getStatus() );
+        assertEquals( 2, summary.getValue().getPredictors() );
+        assertEquals( 111, summary.getValue().getInserted() );
+        assertEquals( 22, summary.getValue().getUpdated() );
+        assertEquals( 33, summary.getValue().getDeleted() );
+        assertEquals( 44, summary.getValue().getUnchanged() );
+    }
+
+    private String executeWorkUnit( String workUnit, int inserted, int updated, int deleted, int unchanged )
+    {
+        PredictionSummary blockSummary = new PredictionSummary();
+        blockSummary.addCounts( inserted, updated, deleted, unchanged );
+
+        when( predictionService.predictBlock( eq( workUnit.split( ";" )[0] ), any(), any(),
+            eq( Integer.parseInt( workUnit.split( ";" )[1] ) ), anyInt(), eq( configuration ) ) )
+                .thenReturn( blockSummary );
+
+        return job.executeWorkUnit( configuration, workUnit );
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.validation;
+
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.hisp.dhis.datavalue.DeflatedDataValue;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class DataValuePrefetchTest
+{
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouB;
+
+    private OrganisationUnit ouC;
+
+    private AtomicInteger fetchCount;
+
+    private Supplier<List<DeflatedDataValue>> fetch;
+
+    @Before
+    public void setUp()
+    {
+        ouA = createOrganisationUnit( 'A' );
+        ouB = createOrganisationUnit( 'B' );
+        ouC = createOrganisationUnit( 'C' );
+
+        ouA.setId( 1 );
+        ouB.setId( 2 );
+        ouC.setId( 3 );
+
+        fetchCount = new AtomicInteger();
+
+        fetch = () -> {
+            fetchCount.incrementAndGet();
+
+            return Lists.newArrayList(
+                new DeflatedDataValue( 1, 1, 1, 1, 1, "10" ),
+                new DeflatedDataValue( 1, 1, 2, 1, 1, "20" ),
+                new DeflatedDataValue( 2, 1, 2, 1, 1, "30" ),
+                new DeflatedDataValue( 1, 1, 3, 1, 1, "40" ) );
+        };
+    }
+
+    @Test
+    public void testGetDataValuesSharedByGroup()
+    {
+        DataValuePrefetch prefetch = new DataValuePrefetch( Lists.newArrayList( ouA, ouB, ouC ) );
+
+        List<DeflatedDataValue> valuesA = prefetch.getDataValues( "Monthly-202101", Lists.newArrayList( ouA ), fetch );
+        List<DeflatedDataValue> valuesBC = prefetch.getDataValues( "Monthly-202101", Lists.newArrayList( ouB, ouC ),
+            fetch );
+
+        assertEquals( 1, fetchCount.get() );
+        assertEquals( 1, valuesA.size() );
+        assertEquals( "10", valuesA.get( 0 ).getValue() );
+        assertEquals( 3, valuesBC.size() );
+    }
+
+    @Test
+    public void testGetDataValuesReleasedWhenConsumed()
+    {
+        DataValuePrefetch prefetch = new DataValuePrefetch( Lists.newArrayList( ouA, ouB ) );
+
+        prefetch.getDataValues( "Monthly-202101", Lists.newArrayList( ouA ), fetch );
+        prefetch.getDataValues( "Monthly-202102", Lists.newArrayList( ouA ), fetch );
+        prefetch.getDataValues( "Monthly-202101", Lists.newArrayList( ouB ), fetch );
+
+        assertEquals( 2, fetchCount.get() );
+
+        prefetch.getDataValues( "Monthly-202101", Lists.newArrayList( ouA ), fetch );
+
+        assertEquals( 3, fetchCount.get() );
+    }
+
+    @Test
+    public void testGetDataValuesWholeGroup()
+    {
+        DataValuePrefetch prefetch = new DataValuePrefetch( Lists.newArrayList( ouA, ouB, ouC ) );
+
+        List<DeflatedDataValue> values = prefetch.getDataValues( "Monthly-202101",
+            Lists.newArrayList( ouA, ouB, ouC ), fetch );
+
+        assertEquals( 4, values.size() );
+        assertEquals( 1, fetchCount.get() );
+    }
+}
@@ -41,4 +41,11 @@ public enum FlushMode
      * Let the importer decide the flushing.
      */
     AUTO,
+
+    /**
+     * Bulk persistence: writes are sent to the database in JDBC batches and
+     * flushed once per chunk of objects. A failing flush fails the whole
+     * import, regardless of the atomic mode.
+     */
+    BATCH,
 }
@@ -30,8 +30,11 @@ package org.hisp.dhis.tracker.bundle.persister;
 import static com.google.api.client.util.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -64,6 +67,21 @@ import org.hisp.dhis.tracker.report.TrackerTypeReport;
 public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends BaseIdentifiableObject>
     implements TrackerPersister<T, V>
 {
+    /**
+     * Number of statements sent to the database in one JDBC batch when
+     * persisting with {@link FlushMode#BATCH}.
+     */
+    static final int JDBC_BATCH_SIZE = 100;
+
+    /**
+     * Number of entities persisted between two flushes when persisting with
+     * {@link FlushMode#BATCH}. New attribute values of a chunk are persisted
+     * right before the flush, after the entities, so that the inserts of each
+     * table are sent in one JDBC batch. The flushed entities are evicted from
+     * the session so that later flushes do not dirty-check them again.
+     */
+    static final int FLUSH_BATCH_SIZE = 500;
+
     protected final ReservedValueService reservedValueService;
 
     protected AbstractTrackerPersister( ReservedValueService reservedValueService )
@@ -94,6 +112,44 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
         //
         List<T> dtos = getByType( getType(), bundle );
 
+        boolean batch = FlushMode.BATCH == bundle.getFlushMode();
+
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+
+        if ( batch )
+        {
+            session.setJdbcBatchSize( JDBC_BATCH_SIZE );
+        }
+
+        try
+        {
+            persistAll( session, bundle, dtos, typeReport, sideEffectDataBundles );
+        }
+        finally
+        {
+            if ( batch )
+            {
+                session.setJdbcBatchSize( jdbcBatchSize );
+            }
+        }
+
+        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+
+        return typeReport;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void persistAll( Session session, TrackerBundle bundle, List<T> dtos, TrackerTypeReport typeReport,
+        List<TrackerSideEffectDataBundle> sideEffectDataBundles )
+    {
+        boolean batch = FlushMode.BATCH == bundle.getFlushMode();
+
+        List<V> chunk = new ArrayList<>();
+
+        Set<TrackedEntityAttributeValue> pendingAttributeValues = batch
+            ? Collections.newSetFromMap( new IdentityHashMap<>() )
+            : null;
+
         for ( int idx = 0; idx < dtos.size(); idx++ )
         {
             //
@@ -128,6 +184,7 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                 if ( isNew( bundle.getPreheat(), trackerDto ) )
                 {
                     session.persist( convertedDto );
+                    chunk.add( convertedDto );
                     typeReport.getStats().incCreated();
                     typeReport.addObjectReport( objectReport );
                 }
@@ -135,7 +192,7 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                 {
                     if ( isUpdatable() )
                     {
-                        session.merge( convertedDto );
+                        chunk.add( (V) session.merge( convertedDto ) );
                         typeReport.getStats().incUpdated();
                         typeReport.addObjectReport( objectReport );
                     }
@@ -145,7 +202,7 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                     }
                 }
 
-                updateAttributes( session, bundle.getPreheat(), trackerDto, convertedDto );
+                updateAttributes( session, bundle.getPreheat(), trackerDto, convertedDto, pendingAttributeValues );
 
                 //
                 // Add the entity to the Preheat
@@ -181,11 +238,43 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                     typeReport.getStats().incIgnored();
                 }
             }
+
+            if ( batch && (idx + 1) % FLUSH_BATCH_SIZE == 0 )
+            {
+                flushBatch( session, chunk, pendingAttributeValues, idx + 1 );
+            }
         }
 
-        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+        if ( batch )
+        {
+            flushBatch( session, chunk, pendingAttributeValues, dtos.size() );
+        }
+    }
 
-        return typeReport;
+    /**
+     * Persists the pending attribute values, flushes the pending writes of a
+     * chunk of entities and evicts them from the session. As the failing
+     * entity of a JDBC batch is not known a failure always aborts the import.
+     */
+    private void flushBatch( Session session, List<V> chunk,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues, int persisted )
+    {
+        try
+        {
+            pendingAttributeValues.forEach( session::persist );
+            session.flush();
+        }
+        catch ( RuntimeException e )
+        {
+            throw new PersistenceException( "A batch of Tracker Entities of type '" + getType().getName()
+                + "' failed to persist after " + persisted + " entities.", e );
+        }
+
+        chunk.forEach( entity -> evict( session, entity ) );
+        chunk.clear();
+
+        pendingAttributeValues.forEach( session::evict );
+        pendingAttributeValues.clear();
     }
 
     // // // // // // // //
@@ -219,10 +308,12 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
 
     /**
      * Execute the persistence of Attribute values linked to the entity being
-     * processed
+     * processed. New attribute values are added to the given pending set,
+     * when persisting with {@link FlushMode#BATCH}, and persisted on the next
+     * flush. Otherwise the list is null.
      */
     protected abstract void updateAttributes( Session session, TrackerPreheat preheat,
-        T trackerDto, V hibernateEntity );
+        T trackerDto, V hibernateEntity, Set<TrackedEntityAttributeValue> pendingAttributeValues );
 
     /**
      * Updates the {@link TrackerPreheat} object with the entity that has been
@@ -230,6 +321,15 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
      */
     protected abstract void updatePreheat( TrackerPreheat preheat, V convertedDto );
 
+    /**
+     * Removes a flushed entity from the session. Associations mapped with a
+     * cascade, like comments, are evicted with it.
+     */
+    protected void evict( Session session, V entity )
+    {
+        session.evict( entity );
+    }
+
     /**
      * informs this persister wether specific entity type should be updated
      * defaults to true, is known to be false for Relationships
@@ -318,7 +418,8 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
     }
 
     protected void handleTrackedEntityAttributeValues( Session session, TrackerPreheat preheat,
-        List<Attribute> payloadAttributes, TrackedEntityInstance trackedEntityInstance )
+        List<Attribute> payloadAttributes, TrackedEntityInstance trackedEntityInstance,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues )
     {
         Map<String, TrackedEntityAttributeValue> attributeValueDBMap = trackedEntityInstance
             .getTrackedEntityAttributeValues()
@@ -356,7 +457,18 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                 {
                     unassignFileResource( session, preheat, attributeValueDBMap.get( at.getAttribute() ).getValue() );
                 }
-                session.remove( attributeValue );
+                if ( pendingAttributeValues != null && pendingAttributeValues.remove( attributeValue ) )
+                {
+                    // Never persisted, the hash code changed with the value
+
+                    TrackedEntityAttributeValue pendingValue = attributeValue;
+
+                    trackedEntityInstance.getTrackedEntityAttributeValues().removeIf( av -> av == pendingValue );
+                }
+                else
+                {
+                    session.remove( attributeValue );
+                }
             }
             else
             {
@@ -365,7 +477,22 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                     assignFileResource( session, preheat, attributeValue.getValue() );
                 }
 
-                saveOrUpdate( session, isNew, attributeValue );
+                if ( pendingAttributeValues == null )
+                {
+                    saveOrUpdate( session, isNew, attributeValue );
+                }
+                else if ( isNew )
+                {
+                    // Persisted on the next batch flush, the instance keeps the
+                    // value so that later entities of the chunk update it
+
+                    pendingAttributeValues.add( attributeValue );
+                    trackedEntityInstance.getTrackedEntityAttributeValues().add( attributeValue );
+                }
+                else if ( !pendingAttributeValues.contains( attributeValue ) )
+                {
+                    session.merge( attributeValue );
+                }
             }
 
             if ( attributeValue.getAttribute().isGenerated() && attributeValue.getAttribute().getTextPattern() != null )
@@ -31,11 +31,13 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Objects;
+import java.util.Set;
 
 import org.hibernate.Session;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
 import org.hisp.dhis.trackedentity.TrackerOwnershipManager;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityCommentService;
 import org.hisp.dhis.tracker.TrackerIdScheme;
@@ -77,10 +79,11 @@ public class EnrollmentPersister extends AbstractTrackerPersister<Enrollment, Pr
 
     @Override
     protected void updateAttributes( Session session, TrackerPreheat preheat,
-        Enrollment enrollment, ProgramInstance programInstance )
+        Enrollment enrollment, ProgramInstance programInstance,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues )
     {
         handleTrackedEntityAttributeValues( session, preheat, enrollment.getAttributes(),
-            programInstance.getEntityInstance() );
+            programInstance.getEntityInstance(), pendingAttributeValues );
     }
 
     @Override
@@ -45,6 +45,7 @@ import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.eventdatavalue.EventDataValue;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityCommentService;
 import org.hisp.dhis.tracker.TrackerIdScheme;
@@ -142,7 +143,8 @@ public class EventPersister extends AbstractTrackerPersister<Event, ProgramStage
 
     @Override
     protected void updateAttributes( Session session, TrackerPreheat preheat,
-        Event event, ProgramStageInstance programStageInstance )
+        Event event, ProgramStageInstance programStageInstance,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues )
     {
         // DO NOTHING - TEI HAVE NO ATTRIBUTES
     }
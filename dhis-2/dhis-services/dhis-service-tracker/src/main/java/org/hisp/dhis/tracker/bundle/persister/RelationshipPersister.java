@@ -27,8 +27,11 @@
  */
 package org.hisp.dhis.tracker.bundle.persister;
 
+import java.util.Set;
+
 import org.hibernate.Session;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
@@ -68,7 +71,8 @@ public class RelationshipPersister
 
     @Override
     protected void updateAttributes( Session session, TrackerPreheat preheat, Relationship trackerDto,
-        org.hisp.dhis.relationship.Relationship hibernateEntity )
+        org.hisp.dhis.relationship.Relationship hibernateEntity,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues )
     {
         // NOTHING TO DO
     }
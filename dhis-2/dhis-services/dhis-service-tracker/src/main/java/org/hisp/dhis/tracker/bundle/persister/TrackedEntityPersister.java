@@ -29,12 +29,14 @@ package org.hisp.dhis.tracker.bundle.persister;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.Set;
 
 import javax.validation.constraints.NotNull;
 
 import org.hibernate.Session;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
@@ -62,9 +64,11 @@ public class TrackedEntityPersister extends AbstractTrackerPersister<TrackedEnti
 
     @Override
     protected void updateAttributes( Session session, TrackerPreheat preheat,
-        TrackedEntity trackerDto, TrackedEntityInstance tei )
+        TrackedEntity trackerDto, TrackedEntityInstance tei,
+        Set<TrackedEntityAttributeValue> pendingAttributeValues )
     {
-        handleTrackedEntityAttributeValues( session, preheat, trackerDto.getAttributes(), tei );
+        handleTrackedEntityAttributeValues( session, preheat, trackerDto.getAttributes(), tei,
+            pendingAttributeValues );
     }
 
     @Override
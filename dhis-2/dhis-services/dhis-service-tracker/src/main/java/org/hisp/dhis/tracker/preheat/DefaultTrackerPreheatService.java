@@ -36,9 +36,15 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.hibernate.Hibernate;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.option.OptionSet;
 import org.hisp.dhis.preheat.PreheatException;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.program.ProgramStageDataElement;
 import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.supplier.PreheatSupplier;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -58,6 +64,9 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
     @NonNull
     private final IdentifiableObjectManager manager;
 
+    @NonNull
+    private final PreheatCacheService preheatCacheService;
+
     private ApplicationContext ctx;
 
     @Override
@@ -81,6 +90,7 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
         preheat.setIdentifiers( params.getIdentifiers() );
         preheat.setUser( params.getUser() );
         preheat.setDefaults( manager.getDefaults() );
+        preheat.setCacheSnapshot( preheatCacheService.getSnapshot() );
 
         checkNotNull( preheat.getUser(), "TrackerPreheat is missing the user object." );
 
@@ -105,9 +115,47 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
 
         preheat.createReferenceTree();
 
+        initializeAssociations( preheat );
+
         return preheat;
     }
 
+    /**
+     * Initializes the lazy associations of preheated metadata which are read
+     * by validation hooks running on the validation thread pool, see
+     * {@link org.hisp.dhis.tracker.validation.TrackerValidationHook#isParallelizable()}.
+     * The pool threads share the Hibernate session of the import, which is
+     * not thread safe, so they must not trigger lazy loading.
+     *
+     * @param preheat the {@link TrackerPreheat}.
+     */
+    private void initializeAssociations( TrackerPreheat preheat )
+    {
+        for ( ProgramStage programStage : preheat.getAll( ProgramStage.class ) )
+        {
+            Hibernate.initialize( programStage.getProgramStageDataElements() );
+
+            for ( ProgramStageDataElement programStageDataElement : programStage.getProgramStageDataElements() )
+            {
+                Hibernate.initialize( programStageDataElement.getDataElement() );
+                initializeOptions( programStageDataElement.getDataElement().getOptionSet() );
+            }
+        }
+
+        for ( DataElement dataElement : preheat.getAll( DataElement.class ) )
+        {
+            initializeOptions( dataElement.getOptionSet() );
+        }
+    }
+
+    private void initializeOptions( OptionSet optionSet )
+    {
+        if ( optionSet != null )
+        {
+            Hibernate.initialize( optionSet.getOptions() );
+        }
+    }
+
     private void processException( String message, Exception e, String supplier )
     {
         if ( FAIL_FAST_ON_PREHEAT_ERROR )
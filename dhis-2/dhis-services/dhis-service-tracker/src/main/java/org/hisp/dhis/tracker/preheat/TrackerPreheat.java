@@ -66,6 +66,7 @@ import org.hisp.dhis.tracker.TrackerIdentifierParams;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.domain.Enrollment;
 import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.preheat.cache.PreheatMetadataSnapshot;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserCredentials;
 
@@ -86,6 +87,14 @@ public class TrackerPreheat
     @Setter
     private User user;
 
+    /**
+     * Snapshot of the pre-heat cache taken when the preheat started. All
+     * suppliers read cached metadata from this snapshot.
+     */
+    @Getter
+    @Setter
+    private PreheatMetadataSnapshot cacheSnapshot = PreheatMetadataSnapshot.EMPTY;
+
     /**
      * Internal map of all metadata objects mapped by class type => [id] The
      * value of each id can be either the metadata object's uid, code, name or
@@ -27,19 +27,20 @@
  */
 package org.hisp.dhis.tracker.preheat.cache;
 
-import java.util.ArrayList;
+import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.RequiredArgsConstructor;
 
-import org.cache2k.Cache;
-import org.cache2k.Cache2kBuilder;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.springframework.context.event.EventListener;
@@ -49,6 +50,13 @@ import org.springframework.stereotype.Service;
 /**
  * Pre-heat cache implementation for metadata objects.
  *
+ * The cached objects are held in an immutable {@link PreheatMetadataSnapshot}
+ * shared by all imports. Changes replace the snapshot atomically. Objects are
+ * removed from the cache when they are changed on this server instance, see
+ * {@link PreheatCacheChangeListener}, and the time-to-live of each class of
+ * objects bounds how long changes made on other instances go unnoticed.
+ * Objects loaded while a change was committed are not cached.
+ *
  * @author Luciano Fiandesio
  */
 @RequiredArgsConstructor
@@ -60,25 +68,19 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     private final Environment environment;
 
     /**
-     * Data structure to hold the metadata cache:
-     *
-     * - the key is the full class name of the metadata class getting cached
-     * (e.g. "org.hisp.dhis.program.Program")
-     *
-     * - the value is a Cache2K cache holding the objects to cache
-     *
-     * Caveat: this data structure may reference multiple times the same
-     * objects, if different {@link TrackerIdScheme} are used during different
-     * imports.
+     * The current snapshot of the metadata cache. Objects are cached by class
+     * name and by identifier; callers using another {@link TrackerIdScheme}
+     * than UID include the scheme in the cache key.
      */
-    private static Map<String, Cache<String, IdentifiableObject>> cache = new HashMap<>();
+    private final AtomicReference<PreheatMetadataSnapshot> snapshot = new AtomicReference<>(
+        PreheatMetadataSnapshot.EMPTY );
 
     @Override
     public Optional<IdentifiableObject> get( final String cacheKey, final String id )
     {
-        if ( isCacheEnabled() && cache.containsKey( cacheKey ) )
+        if ( isCacheEnabled() )
         {
-            return Optional.ofNullable( cache.get( cacheKey ).get( id ) );
+            return snapshot.get().get( cacheKey, id );
         }
 
         return Optional.empty();
@@ -87,55 +89,45 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     @Override
     public boolean hasKey( String cacheKey )
     {
-        return cache.containsKey( cacheKey );
+        return isCacheEnabled() && snapshot.get().isComplete( cacheKey );
     }
 
+    @Override
     public List<IdentifiableObject> getAll( String cacheKey )
     {
-        List<IdentifiableObject> res = new ArrayList<>();
-        if ( hasKey( cacheKey ) )
-        {
-            cache.get( cacheKey ).keys().forEach( k -> {
-                res.add( cache.get( cacheKey ).get( k ) );
-            } );
-        }
-        return res;
-
+        return snapshot.get().getAll( cacheKey );
     }
 
     @Override
-    public void put( final String cacheKey, final String id, IdentifiableObject object,
-        final int cacheTTL, final long capacity )
+    public void putAll( PreheatMetadataSnapshot loadedFrom, String cacheKey, Map<String, IdentifiableObject> objects,
+        boolean complete, Set<Class<?>> dependencies, int cacheTTL, long capacity )
     {
-        if ( cacheKey == null || id == null || object == null )
+        if ( cacheKey == null || !isCacheEnabled() )
             return;
 
-        if ( isCacheEnabled() )
-        {
-            if ( cache.containsKey( cacheKey ) )
-            {
-                cache.get( cacheKey ).put( id, object );
-            }
-            else
+        Map<String, IdentifiableObject> nonNullObjects = new HashMap<>( objects.size() );
+
+        objects.forEach( ( id, object ) -> {
+            if ( id != null && object != null )
             {
-                Cache<String, IdentifiableObject> c = new Cache2kBuilder<String, IdentifiableObject>()
-                {
-                }
-                    .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
-                    .name( cacheKey )
-                    .permitNullValues( false )
-                    .entryCapacity( capacity == -1 ? Long.MAX_VALUE : capacity )
-                    .resilienceDuration( 30, TimeUnit.SECONDS ) // cope with at
-                                                                // most 30
-                                                                // seconds
-                    // outage before propagating exceptions
-                    .build();
-
-                c.put( id, object );
-
-                cache.put( cacheKey, c );
+                nonNullObjects.put( id, object );
             }
-        }
+        } );
+
+        snapshot.updateAndGet( s -> s.withObjects( loadedFrom.getVersion(), cacheKey, nonNullObjects, complete,
+            dependencies, cacheTTL, capacity ) );
+    }
+
+    @Override
+    public void invalidate( Class<?> klass, String uid, boolean deleted )
+    {
+        snapshot.updateAndGet( s -> s.withoutObject( klass, uid, deleted ) );
+    }
+
+    @Override
+    public PreheatMetadataSnapshot getSnapshot()
+    {
+        return isCacheEnabled() ? snapshot.get() : PreheatMetadataSnapshot.EMPTY;
     }
 
     @EventListener
@@ -148,18 +140,12 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     @Override
     public void invalidateCache()
     {
-        cache.values().forEach( Cache::removeAll );
+        snapshot.updateAndGet( PreheatMetadataSnapshot::cleared );
     }
 
     private boolean isCacheEnabled()
     {
-        return false;
-
-        // Due to concerns and issues with the current cache implementation, we
-        // decided to
-        // deactivate the cache in the preheat completely for now.
-        // return !isTestRun( this.environment.getActiveProfiles() )
-        // && config.isEnabled(
-        // ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
+        return !isTestRun( this.environment.getActiveProfiles() )
+            && config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
     }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.SoftDeletableObject;
+import org.hisp.dhis.hibernate.HibernateProxyUtils;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Keeps the {@link PreheatCacheService} up to date with metadata changes. Once
+ * a change of a cached object is committed the object is removed from the
+ * cache, so that the next import reads it from the database again.
+ *
+ * Every change of a metadata object is recorded, so that objects loaded while
+ * the change was committed are not cached. Changes of objects not in the cache
+ * are recorded cheaply, so that the listener does not slow down tracker
+ * imports themselves. Updates of only the properties written on login or
+ * account recovery, such as the last login of a user, are ignored, as they
+ * do not change the objects as seen by the preheat.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PreheatCacheChangeListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    /**
+     * Properties which are updated on login, password change or account
+     * recovery and are not read from cached objects.
+     */
+    private static final Set<String> IGNORED_PROPERTIES = ImmutableSet.of( "lastLogin", "lastUpdated",
+        "lastUpdatedBy", "passwordLastUpdated", "password", "previousPasswords", "restoreToken",
+        "restoreExpiry", "idToken", "secret", "twoFA", "lastCheckedInterpretations" );
+
+    private final PreheatCacheService preheatCacheService;
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @PostConstruct
+    protected void init()
+    {
+        SessionFactoryImpl sessionFactory = emf.unwrap( SessionFactoryImpl.class );
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_INSERT ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_UPDATE ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_DELETE ).appendListener( this );
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        invalidate( event.getEntity(), false );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        if ( !isOnlyIgnoredPropertiesDirty( event ) )
+        {
+            invalidate( event.getEntity(), false );
+        }
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        invalidate( event.getEntity(), true );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+        log.debug( "onPostInsertCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+        log.debug( "onPostUpdateCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+        log.debug( "onPostDeleteCommitFailed: " + event );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return IdentifiableObject.class.isAssignableFrom( persister.getMappedClass() );
+    }
+
+    private boolean isOnlyIgnoredPropertiesDirty( PostUpdateEvent event )
+    {
+        int[] dirtyProperties = event.getDirtyProperties();
+
+        if ( dirtyProperties == null || dirtyProperties.length == 0 )
+        {
+            return false;
+        }
+
+        String[] propertyNames = event.getPersister().getPropertyNames();
+
+        for ( int dirtyProperty : dirtyProperties )
+        {
+            if ( !IGNORED_PROPERTIES.contains( propertyNames[dirtyProperty] ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void invalidate( Object entity, boolean deleted )
+    {
+        // Tracked entities, enrollments and events are never cached, and are
+        // skipped so that tracker imports do not keep rejecting metadata
+        // loaded by concurrent imports
+
+        if ( entity instanceof IdentifiableObject && !(entity instanceof SoftDeletableObject) )
+        {
+            preheatCacheService.invalidate( HibernateProxyUtils.getRealClass( entity ),
+                ((IdentifiableObject) entity).getUid(), deleted );
+        }
+    }
+}
@@ -28,7 +28,9 @@
 package org.hisp.dhis.tracker.preheat.cache;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
@@ -50,7 +52,7 @@ public interface PreheatCacheService
     Optional<IdentifiableObject> get( String cacheKey, String id );
 
     /**
-     * Check whether a class type is part of the cache
+     * Check whether all the objects of a class type are part of the cache
      *
      * @param cacheKey the full class name of a metadata object
      *
@@ -66,15 +68,40 @@ public interface PreheatCacheService
     List<IdentifiableObject> getAll( String cacheKey );
 
     /**
-     * Adds an object to the pre-heat cache.
+     * Adds objects to the pre-heat cache. The objects are not added when a
+     * metadata object was changed since the given snapshot was taken, as they
+     * might have been loaded before the change.
      *
-     * @param cacheKey the full class name of the object being cached
-     * @param id the identifier of the object being cached, used as cache key
-     * @param object The object being cached
+     * @param loadedFrom the snapshot taken before the objects were loaded
+     * @param cacheKey the full class name of the objects being cached
+     * @param objects the objects being cached by identifier
+     * @param complete whether the objects are all the objects of the class,
+     *        which makes {@link #hasKey(String)} true
+     * @param dependencies the classes of the objects embedded in the objects
+     *        being cached; a change of any of those removes the objects again
      * @param cacheTTL The amount of **minutes**
      * @param capacity The maximum number of entries hold by the cache.
      */
-    void put( String cacheKey, String id, IdentifiableObject object, int cacheTTL, long capacity );
+    void putAll( PreheatMetadataSnapshot loadedFrom, String cacheKey, Map<String, IdentifiableObject> objects,
+        boolean complete, Set<Class<?>> dependencies, int cacheTTL, long capacity );
+
+    /**
+     * Removes a changed object, and the objects embedding objects of its
+     * class, from the pre-heat cache.
+     *
+     * @param klass the class of the changed object
+     * @param uid the uid of the changed object
+     * @param deleted whether the object was deleted
+     */
+    void invalidate( Class<?> klass, String uid, boolean deleted );
+
+    /**
+     * Returns the current snapshot of the cached metadata, or an empty
+     * snapshot when the cache is disabled. A snapshot does not change, so the
+     * suppliers of one preheat read a consistent set of cached objects from
+     * it.
+     */
+    PreheatMetadataSnapshot getSnapshot();
 
     /**
      * Invalidates all caches.
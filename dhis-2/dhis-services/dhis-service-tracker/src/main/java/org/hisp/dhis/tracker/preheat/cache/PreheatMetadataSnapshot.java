@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.hibernate.HibernateProxyUtils;
+
+/**
+ * Immutable, versioned snapshot of the metadata cached for the tracker
+ * preheat. The snapshot is shared by all imports. Every change creates a new
+ * snapshot with a higher version, so readers never see a partially applied
+ * change and never need to lock.
+ *
+ * Objects are grouped in segments by cache key, each segment holding the
+ * objects of one type by identifier. A segment is complete when it holds all
+ * the objects of its type, and expires after the time-to-live given when it
+ * was first filled. A segment also lists the types of the objects embedded in
+ * its objects, such as the program stages of a program; a change of one of
+ * those drops the whole segment.
+ *
+ * Objects loaded from the database are only added when no object of their
+ * type or of an embedded type was changed since the snapshot the loading
+ * import started from, so an import cannot put back an object which was
+ * changed while it was loading. Changes of other types do not affect the
+ * loading import.
+ */
+public final class PreheatMetadataSnapshot
+{
+    public static final PreheatMetadataSnapshot EMPTY = new PreheatMetadataSnapshot( 0, 0,
+        Collections.emptyMap(), Collections.emptyMap() );
+
+    private final long version;
+
+    /**
+     * The version of the snapshot created by the latest clearing of the cache.
+     */
+    private final long clearVersion;
+
+    /**
+     * The version of the snapshot created by the latest change of an object,
+     * by type of the object.
+     */
+    private final Map<Class<?>, Long> changeVersions;
+
+    private final Map<String, Segment> segments;
+
+    /**
+     * The types of the cached and of the embedded objects, used to cheaply
+     * skip changes of objects which are not cached.
+     */
+    private final Set<Class<?>> types;
+
+    private PreheatMetadataSnapshot( long version, long clearVersion, Map<Class<?>, Long> changeVersions,
+        Map<String, Segment> segments )
+    {
+        this.version = version;
+        this.clearVersion = clearVersion;
+        this.changeVersions = Collections.unmodifiableMap( changeVersions );
+        this.segments = Collections.unmodifiableMap( segments );
+
+        Set<Class<?>> cachedTypes = new HashSet<>();
+        segments.values().forEach( s -> {
+            cachedTypes.addAll( s.types );
+            cachedTypes.addAll( s.dependencies );
+        } );
+        this.types = Collections.unmodifiableSet( cachedTypes );
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public Optional<IdentifiableObject> get( String cacheKey, String id )
+    {
+        Segment segment = getSegment( cacheKey );
+
+        return segment == null ? Optional.empty() : Optional.ofNullable( segment.objects.get( id ) );
+    }
+
+    /**
+     * @return all the objects cached with the given key.
+     */
+    public List<IdentifiableObject> getAll( String cacheKey )
+    {
+        Segment segment = getSegment( cacheKey );
+
+        return segment == null ? new ArrayList<>() : new ArrayList<>( segment.objects.values() );
+    }
+
+    /**
+     * @return true when all the objects of the type cached with the given key
+     *         are cached.
+     */
+    public boolean isComplete( String cacheKey )
+    {
+        Segment segment = getSegment( cacheKey );
+
+        return segment != null && segment.complete;
+    }
+
+    /**
+     * @return true when objects of the given type are cached or embedded in
+     *         cached objects.
+     */
+    public boolean containsType( Class<?> type )
+    {
+        return types.contains( type );
+    }
+
+    /**
+     * Adds objects to the segment of the given cache key. When complete, the
+     * objects replace the segment, otherwise they are added to it as long as
+     * the capacity allows. Nothing is added when an object of the same type
+     * or of an embedded type changed after the objects were loaded, as they
+     * might be stale.
+     *
+     * @param loadedVersion the version of the snapshot the objects were loaded
+     *        with.
+     * @param cacheKey the cache key.
+     * @param objects the objects by identifier.
+     * @param complete whether the objects are all the objects of their type.
+     * @param dependencies the types of the objects embedded in the objects.
+     * @param ttl the time-to-live in minutes of a new segment.
+     * @param capacity the maximum number of objects of the segment, -1 for no
+     *        limit.
+     * @return the new snapshot, or this snapshot if nothing changed.
+     */
+    public PreheatMetadataSnapshot withObjects( long loadedVersion, String cacheKey,
+        Map<String, IdentifiableObject> objects, boolean complete, Set<Class<?>> dependencies, int ttl,
+        long capacity )
+    {
+        long maxSize = capacity == -1 ? Long.MAX_VALUE : capacity;
+
+        if ( objects.isEmpty() || (complete && objects.size() > maxSize)
+            || isChangedSince( loadedVersion, objects.values(), dependencies ) )
+        {
+            return this;
+        }
+
+        Segment current = getSegment( cacheKey );
+
+        Map<String, IdentifiableObject> merged;
+
+        if ( complete || current == null )
+        {
+            merged = new HashMap<>();
+        }
+        else
+        {
+            merged = new HashMap<>( current.objects );
+        }
+
+        for ( Map.Entry<String, IdentifiableObject> entry : objects.entrySet() )
+        {
+            if ( merged.size() < maxSize || merged.containsKey( entry.getKey() ) )
+            {
+                merged.put( entry.getKey(), entry.getValue() );
+            }
+        }
+
+        boolean stillComplete = current != null && current.complete
+            && current.objects.keySet().containsAll( objects.keySet() );
+
+        long expiresAt = current != null ? current.expiresAt
+            : System.currentTimeMillis() + TimeUnit.MINUTES.toMillis( ttl );
+
+        Set<Class<?>> mergedDependencies = new HashSet<>( dependencies );
+
+        if ( current != null && !complete )
+        {
+            mergedDependencies.addAll( current.dependencies );
+        }
+
+        Map<String, Segment> result = withoutExpiredSegments();
+        result.put( cacheKey, new Segment( merged, mergedDependencies, complete || stillComplete, expiresAt ) );
+
+        return new PreheatMetadataSnapshot( version + 1, clearVersion, changeVersions, result );
+    }
+
+    /**
+     * Records the change of an object. The object is removed from all
+     * segments holding objects of its type, and segments whose objects embed
+     * objects of its type are dropped. Segments stay complete only when the
+     * object was deleted. The segments are kept as they are when objects of
+     * the type are not cached, only imports loading objects of the type are
+     * told about the change.
+     *
+     * @param type the type of the changed object.
+     * @param uid the uid of the changed object.
+     * @param deleted whether the object was deleted.
+     * @return the new snapshot.
+     */
+    public PreheatMetadataSnapshot withoutObject( Class<?> type, String uid, boolean deleted )
+    {
+        Map<Class<?>, Long> changed = new HashMap<>( changeVersions );
+        changed.put( type, version + 1 );
+
+        if ( !containsType( type ) )
+        {
+            return new PreheatMetadataSnapshot( version + 1, clearVersion, changed, segments );
+        }
+
+        Map<String, Segment> result = withoutExpiredSegments();
+
+        result.values().removeIf( segment -> segment.dependencies.contains( type ) );
+
+        for ( Map.Entry<String, Segment> entry : result.entrySet() )
+        {
+            Segment segment = entry.getValue();
+
+            if ( segment.types.contains( type ) )
+            {
+                Map<String, IdentifiableObject> remaining = new HashMap<>( segment.objects );
+                remaining.values().removeIf( o -> type.isInstance( o ) && uid.equals( o.getUid() ) );
+
+                entry.setValue( new Segment( remaining, segment.dependencies, segment.complete && deleted,
+                    segment.expiresAt ) );
+            }
+        }
+
+        return new PreheatMetadataSnapshot( version + 1, clearVersion, changed, result );
+    }
+
+    /**
+     * @return an empty snapshot with a higher version.
+     */
+    public PreheatMetadataSnapshot cleared()
+    {
+        return new PreheatMetadataSnapshot( version + 1, version + 1, Collections.emptyMap(),
+            Collections.emptyMap() );
+    }
+
+    /**
+     * Indicates whether the cache was cleared or an object of the type of any
+     * of the given objects or of the given embedded types was changed after
+     * the given version.
+     */
+    private boolean isChangedSince( long loadedVersion, Collection<IdentifiableObject> objects,
+        Set<Class<?>> dependencies )
+    {
+        if ( clearVersion > loadedVersion )
+        {
+            return true;
+        }
+
+        for ( Class<?> dependency : dependencies )
+        {
+            if ( changeVersions.getOrDefault( dependency, 0L ) > loadedVersion )
+            {
+                return true;
+            }
+        }
+
+        for ( IdentifiableObject object : objects )
+        {
+            if ( changeVersions.getOrDefault( HibernateProxyUtils.getRealClass( object ), 0L ) > loadedVersion )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Segment getSegment( String cacheKey )
+    {
+        Segment segment = segments.get( cacheKey );
+
+        return segment == null || segment.isExpired() ? null : segment;
+    }
+
+    private Map<String, Segment> withoutExpiredSegments()
+    {
+        Map<String, Segment> result = new HashMap<>( segments );
+        result.values().removeIf( Segment::isExpired );
+
+        return result;
+    }
+
+    private static final class Segment
+    {
+        private final Map<String, IdentifiableObject> objects;
+
+        private final Set<Class<?>> types;
+
+        private final Set<Class<?>> dependencies;
+
+        private final boolean complete;
+
+        private final long expiresAt;
+
+        private Segment( Map<String, IdentifiableObject> objects, Set<Class<?>> dependencies, boolean complete,
+            long expiresAt )
+        {
+            this.objects = Collections.unmodifiableMap( objects );
+            this.dependencies = Collections.unmodifiableSet( dependencies );
+            this.complete = complete;
+            this.expiresAt = expiresAt;
+
+            Set<Class<?>> objectTypes = new HashSet<>();
+            objects.values().forEach( o -> objectTypes.add( HibernateProxyUtils.getRealClass( o ) ) );
+            this.types = objectTypes;
+        }
+
+        private boolean isExpired()
+        {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
@@ -27,7 +27,10 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +42,7 @@ import org.hisp.dhis.tracker.TrackerIdentifier;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
+import org.hisp.dhis.tracker.preheat.cache.PreheatMetadataSnapshot;
 
 /**
  * A {@link PreheatSupplier} subclass can implement this abstract class to
@@ -87,16 +91,30 @@ public abstract class AbstractPreheatSupplier implements PreheatSupplier
         preheat.put( TrackerIdentifier.UID, relationshipTypes );
     }
 
-    protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects, int ttl,
-        long capacity )
+    /**
+     * Caches the given objects as all the objects of their class, so that the
+     * cache key of the class is complete.
+     *
+     * @param cache the pre-heat cache
+     * @param loadedFrom the snapshot of the preheat the objects were loaded in
+     * @param objects all the objects of their class
+     */
+    protected void addToCache( PreheatCacheService cache, PreheatMetadataSnapshot loadedFrom,
+        List<? extends IdentifiableObject> objects, int ttl, long capacity )
     {
-        objects.forEach(
-            rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, ttl, capacity ) );
+        Map<String, Map<String, IdentifiableObject>> objectsByClass = new HashMap<>();
+
+        objects.forEach( o -> objectsByClass
+            .computeIfAbsent( HibernateProxyUtils.getRealClass( o ).getName(), k -> new HashMap<>() )
+            .put( o.getUid(), o ) );
+
+        objectsByClass.forEach( ( cacheKey, objectsByUid ) -> cache.putAll( loadedFrom, cacheKey, objectsByUid,
+            true, Collections.emptySet(), ttl, capacity ) );
     }
 
-    protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects )
+    protected void addToCache( PreheatCacheService cache, PreheatMetadataSnapshot loadedFrom,
+        List<? extends IdentifiableObject> objects )
     {
-        objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, CACHE_TTL,
-            CACHE_CAPACITY ) );
+        addToCache( cache, loadedFrom, objects, CACHE_TTL, CACHE_CAPACITY );
     }
 }
@@ -39,6 +39,7 @@ import org.hisp.dhis.period.PeriodStore;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
+import org.hisp.dhis.tracker.preheat.cache.PreheatMetadataSnapshot;
 import org.springframework.stereotype.Component;
 
 /**
@@ -57,14 +58,16 @@ public class PeriodTypeSupplier extends AbstractPreheatSupplier
     @Override
     public void preheatAdd( TrackerImportParams params, TrackerPreheat preheat )
     {
-        if ( cache.hasKey( Period.class.getName() ) )
+        PreheatMetadataSnapshot snapshot = preheat.getCacheSnapshot();
+
+        if ( snapshot.isComplete( Period.class.getName() ) )
         {
-            addToPreheat( preheat, cache.getAll( Period.class.getName() ) );
+            addToPreheat( preheat, snapshot.getAll( Period.class.getName() ) );
         }
         else
         {
             final List<Period> periods = periodStore.getAll();
-            addToCache( cache, periods );
+            addToCache( cache, snapshot, periods );
             _addToPreheat( preheat,
                 periods.stream().map( p -> (IdentifiableObject) p ).collect( Collectors.toList() ) );
         }
@@ -30,16 +30,18 @@ package org.hisp.dhis.tracker.preheat.supplier.strategy;
 import static org.hisp.dhis.tracker.TrackerIdentifierCollector.ID_WILDCARD;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.fieldfilter.Defaults;
-import org.hisp.dhis.hibernate.HibernateProxyUtils;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.query.Restriction;
@@ -52,11 +54,17 @@ import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.preheat.PreheatUtils;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
+import org.hisp.dhis.tracker.preheat.cache.PreheatMetadataSnapshot;
 import org.hisp.dhis.tracker.preheat.mappers.CopyMapper;
 import org.hisp.dhis.tracker.preheat.mappers.PreheatMapper;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
 import org.mapstruct.factory.Mappers;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Abstract Tracker Preheat strategy that applies to strategies that employ the
  * generic {@link QueryService} to fetch data (mostly for Metadata classes)
@@ -65,6 +73,9 @@ import org.mapstruct.factory.Mappers;
  */
 public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrategy
 {
+    private static final Set<Class<?>> SHARING_DEPENDENCIES = ImmutableSet.of( User.class,
+        UserCredentials.class, UserGroup.class, UserAuthorityGroup.class );
+
     protected final SchemaService schemaService;
 
     private final QueryService queryService;
@@ -115,40 +126,57 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
             }
             else
             {
-                objects = cacheAwareFetch( preheat.getUser(), schema, identifier, ids, mapper );
+                objects = cacheAwareFetch( preheat, schema, identifier, ids, mapper );
             }
 
             preheat.put( identifier, objects );
         }
     }
 
-    private String buildCacheKey( Schema schema )
+    /**
+     * Objects fetched by another scheme than UID are cached under their own
+     * key, so that codes and names never collide with uids. The objects are
+     * fetched with the sharing of the user, so they are cached under a key of
+     * that user.
+     */
+    private String buildCacheKey( Schema schema, TrackerIdScheme idScheme, User user )
     {
-        return schema.getKlass().getSimpleName();
+        String cacheKey = schema.getKlass().getSimpleName();
+
+        if ( !TrackerIdScheme.UID.equals( idScheme ) )
+        {
+            cacheKey += "_" + idScheme.name();
+        }
+
+        return user == null ? cacheKey : cacheKey + "_" + user.getUid();
     }
 
     @SuppressWarnings( { "unchecked", "rawtypes" } )
-    private List<IdentifiableObject> cacheAwareFetch( User user, Schema schema, TrackerIdentifier identifier,
-        List<String> ids, Class<? extends PreheatMapper> mapper )
+    private List<IdentifiableObject> cacheAwareFetch( TrackerPreheat preheat, Schema schema,
+        TrackerIdentifier identifier, List<String> ids, Class<? extends PreheatMapper> mapper )
     {
+        User user = preheat.getUser();
         TrackerIdScheme idScheme = identifier.getIdScheme();
 
         List<IdentifiableObject> objects;
-        final String cacheKey = buildCacheKey( schema );
 
         if ( isCacheable() ) // check if this strategy requires caching
         {
+            PreheatMetadataSnapshot snapshot = preheat.getCacheSnapshot();
+
             if ( isLoadAllEntities( ids ) )
             {
-                return map( cacheAndReturnLookupData( schema ), mapper );
+                return cacheAndReturnLookupData( snapshot, schema, user, mapper );
             }
             else
             {
+                final String cacheKey = buildCacheKey( schema, idScheme, user );
+
                 Map<String, IdentifiableObject> foundInCache = new HashMap<>();
                 for ( String id : ids )
                 {
                     // is the object reference by the given id in cache?
-                    cache.get( cacheKey, id )
+                    snapshot.get( cacheKey, id )
                         .ifPresent( identifiableObject -> foundInCache.put( id, identifiableObject ) );
                 }
 
@@ -165,10 +193,13 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
                         mapper );
 
                     // put objects in query based on given scheme. If the key
-                    // can't get resolved, send null to the
-                    // cacheService, which will ignore the entry
-                    objects.forEach( o -> cache.put( cacheKey,
-                        PreheatUtils.resolveKey( identifier, o ).orElseGet( null ), o, getCacheTTL(), getCapacity() ) );
+                    // can't get resolved, the object is not cached
+                    Map<String, IdentifiableObject> objectsById = new HashMap<>();
+                    objects.forEach( o -> PreheatUtils.resolveKey( identifier, o )
+                        .ifPresent( id -> objectsById.put( id, o ) ) );
+
+                    cache.putAll( snapshot, cacheKey, objectsById, false, getDependencies(), getCacheTTL(),
+                        getCapacity() );
 
                     // add back the cached objects to the final list
                     objects.addAll( foundInCache.values() );
@@ -231,23 +262,30 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
         }
     }
 
-    @SuppressWarnings( "unchecked" )
-    private List<IdentifiableObject> cacheAndReturnLookupData( Schema schema )
+    /**
+     * Returns all the objects of the schema the user can read, mapped. The
+     * mapped objects are cached as complete for the user, so they can be
+     * shared by later imports of the user.
+     */
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private List<IdentifiableObject> cacheAndReturnLookupData( PreheatMetadataSnapshot snapshot, Schema schema,
+        User user, Class<? extends PreheatMapper> mapper )
     {
-        List<IdentifiableObject> objects;
-        if ( cache.hasKey( buildCacheKey( schema ) ) && !cache.getAll( buildCacheKey( schema ) ).isEmpty() )
-        {
-            objects = new ArrayList<>( cache.getAll( buildCacheKey( schema ) ) );
+        String cacheKey = buildCacheKey( schema, TrackerIdScheme.UID, user );
 
-        }
-        else
+        if ( snapshot.isComplete( cacheKey ) )
         {
-            objects = manager.getAll( (Class<IdentifiableObject>) schema.getKlass() );
-
-            objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getSimpleName(),
-                rt.getUid(), rt, getCacheTTL(), getCapacity() ) );
+            return snapshot.getAll( cacheKey );
         }
 
+        List<IdentifiableObject> objects = map( manager.getAll( (Class<IdentifiableObject>) schema.getKlass() ),
+            mapper );
+
+        Map<String, IdentifiableObject> objectsByUid = new HashMap<>();
+        objects.forEach( o -> objectsByUid.put( o.getUid(), o ) );
+
+        cache.putAll( snapshot, cacheKey, objectsByUid, true, getDependencies(), getCacheTTL(), getCapacity() );
+
         return objects;
     }
 
@@ -276,4 +314,16 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
     {
         return getClass().getAnnotation( StrategyFor.class ).capacity();
     }
+
+    /**
+     * The cached objects depend on the classes embedded in them, and on the
+     * users and user groups which decide the sharing they were fetched with.
+     */
+    private Set<Class<?>> getDependencies()
+    {
+        Set<Class<?>> dependencies = new HashSet<>( SHARING_DEPENDENCIES );
+        dependencies.addAll( Arrays.asList( getClass().getAnnotation( StrategyFor.class ).dependencies() ) );
+
+        return dependencies;
+    }
 }
@@ -39,7 +39,8 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
-@StrategyFor( value = OrganisationUnit.class, mapper = OrganisationUnitMapper.class, cache = true, ttl = 30, capacity = 100 )
+@StrategyFor( value = OrganisationUnit.class, mapper = OrganisationUnitMapper.class, cache = true, ttl = 30,
+    capacity = 100, dependencies = { OrganisationUnit.class } )
 public class OrgUnitStrategy extends AbstractSchemaStrategy
 {
     public OrgUnitStrategy( SchemaService schemaService, QueryService queryService, IdentifiableObjectManager manager,
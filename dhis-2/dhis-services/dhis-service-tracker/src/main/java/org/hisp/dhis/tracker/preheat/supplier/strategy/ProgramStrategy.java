@@ -27,10 +27,20 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier.strategy;
 
+import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.program.ProgramStageDataElement;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeAttribute;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.mappers.ProgramMapper;
 import org.springframework.stereotype.Component;
@@ -39,7 +49,10 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
-@StrategyFor( value = Program.class, mapper = ProgramMapper.class, cache = true, ttl = 20, capacity = 10 )
+@StrategyFor( value = Program.class, mapper = ProgramMapper.class, cache = true, ttl = 20, capacity = 10,
+    dependencies = { ProgramStage.class, ProgramStageDataElement.class, DataElement.class,
+    ProgramTrackedEntityAttribute.class, TrackedEntityAttribute.class, TrackedEntityType.class,
+    TrackedEntityTypeAttribute.class, CategoryCombo.class, OrganisationUnit.class, OptionSet.class } )
 public class ProgramStrategy extends AbstractSchemaStrategy
 {
     public ProgramStrategy( SchemaService schemaService, QueryService queryService, IdentifiableObjectManager manager,
@@ -28,9 +28,12 @@
 package org.hisp.dhis.tracker.preheat.supplier.strategy;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.relationship.RelationshipType;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.mappers.RelationshipTypeMapper;
 import org.springframework.stereotype.Component;
@@ -39,7 +42,8 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
-@StrategyFor( value = RelationshipType.class, mapper = RelationshipTypeMapper.class, cache = true, ttl = 10, capacity = 10 )
+@StrategyFor( value = RelationshipType.class, mapper = RelationshipTypeMapper.class, cache = true, ttl = 10,
+    capacity = 10, dependencies = { TrackedEntityType.class, Program.class, ProgramStage.class } )
 public class RelationshipTypeStrategy extends AbstractSchemaStrategy
 {
     public RelationshipTypeStrategy( SchemaService schemaService, QueryService queryService,
@@ -68,4 +68,11 @@ public @interface StrategyFor
      * each strategy, on not rely on the default.
      */
     long capacity() default 5;
+
+    /**
+     * The classes of the metadata embedded in the cached objects, such as the
+     * program stages of a program. A change of an object of one of these
+     * classes removes all the cached objects of this Strategy.
+     */
+    Class<?>[] dependencies() default {};
 }
@@ -28,9 +28,12 @@
 package org.hisp.dhis.tracker.preheat.supplier.strategy;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.option.OptionSet;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeAttribute;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.mappers.TrackedEntityTypeMapper;
 import org.springframework.stereotype.Component;
@@ -39,7 +42,8 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
-@StrategyFor( value = TrackedEntityType.class, mapper = TrackedEntityTypeMapper.class, cache = true, ttl = 10, capacity = 5 )
+@StrategyFor( value = TrackedEntityType.class, mapper = TrackedEntityTypeMapper.class, cache = true, ttl = 10,
+    capacity = 5, dependencies = { TrackedEntityTypeAttribute.class, TrackedEntityAttribute.class, OptionSet.class } )
 public class TrackedEntityTypeStrategy extends AbstractSchemaStrategy
 {
     public TrackedEntityTypeStrategy( SchemaService schemaService, QueryService queryService,
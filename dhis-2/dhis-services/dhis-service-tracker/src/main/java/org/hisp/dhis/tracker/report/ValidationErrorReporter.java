@@ -198,6 +198,20 @@ public class ValidationErrorReporter
         this.warningsReportList.addAll( reporter.getWarningsReportList() );
     }
 
+    /**
+     * Merges the reports and the invalid Tracker objects collected by a
+     * reporter which is not associated to a single Tracker object, like the
+     * reporter of a shard of the bundle.
+     */
+    public void mergeAll( ValidationErrorReporter reporter )
+    {
+        reporter.getInvalidDTOs().forEach( ( type, uids ) -> this.invalidDTOs
+            .computeIfAbsent( type, k -> new ArrayList<>() ).addAll( uids ) );
+
+        this.reportList.addAll( reporter.getReportList() );
+        this.warningsReportList.addAll( reporter.getWarningsReportList() );
+    }
+
     /**
      * Checks if the provided uid and Tracker Type is part of the invalid
      * entities
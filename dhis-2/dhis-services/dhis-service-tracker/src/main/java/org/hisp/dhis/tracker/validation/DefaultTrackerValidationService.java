@@ -29,12 +29,19 @@ package org.hisp.dhis.tracker.validation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.commons.timer.Timer;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.report.TrackerValidationHookTimerReport;
@@ -44,7 +51,15 @@ import org.hisp.dhis.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
+ * Runs the validation hooks in order. When parallel validation is enabled,
+ * hooks which are {@link TrackerValidationHook#isParallelizable()
+ * parallelizable} validate shards of the bundle on a bounded thread pool.
+ * Every other hook, like the pre-check hooks, runs serially and acts as a
+ * barrier, as does the end of each parallel hook.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 @Slf4j
@@ -59,6 +74,39 @@ public class DefaultTrackerValidationService
 
     private final TrackerValidationHookService trackerValidationHookService;
 
+    private final DhisConfigurationProvider config;
+
+    /**
+     * Pool validating the shards of parallelizable hooks, null when parallel
+     * validation is disabled.
+     */
+    private ExecutorService executor;
+
+    private int threads;
+
+    @PostConstruct
+    public void init()
+    {
+        if ( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_VALIDATION_PARALLEL_ENABLED ) )
+        {
+            threads = Integer.parseInt( config.getProperty( ConfigurationKey.TRACKER_IMPORT_VALIDATION_THREADS ) );
+
+            executor = Executors.newFixedThreadPool( threads, new ThreadFactoryBuilder()
+                .setNameFormat( "TRACKER-VALIDATION-%d" )
+                .setDaemon( true )
+                .build() );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdownNow();
+        }
+    }
+
     @Autowired( required = false )
     public void setValidationHooks( List<TrackerValidationHook> validationHooks )
     {
@@ -96,6 +144,11 @@ public class DefaultTrackerValidationService
         // is always available
         TrackerImportValidationContext context = new TrackerImportValidationContext( bundle );
 
+        // Fail fast validation stops at the first error, which is only
+        // deterministic when validating serially
+
+        boolean parallel = executor != null && ValidationMode.FAIL_FAST != bundle.getValidationMode();
+
         try
         {
             for ( TrackerValidationHook hook : hooks )
@@ -104,7 +157,14 @@ public class DefaultTrackerValidationService
                 {
                     Timer hookTimer = Timer.startTimer();
 
-                    validationReport.add( hook.validate( context ) );
+                    if ( parallel && hook.isParallelizable() )
+                    {
+                        validationReport.add( hook.validate( context, executor, threads ) );
+                    }
+                    else
+                    {
+                        validationReport.add( hook.validate( context ) );
+                    }
 
                     validationReport.add( TrackerValidationHookTimerReport.builder()
                         .name( hook.getClass().getName() )
@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import java.util.concurrent.ExecutorService;
+
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.springframework.core.Ordered;
 
@@ -42,6 +44,36 @@ public interface TrackerValidationHook extends Ordered
 
     ValidationErrorReporter validate( TrackerImportValidationContext bundle );
 
+    /**
+     * Whether the hook validates each Tracker object independently, only
+     * reading from the preheat and from the object itself, so that shards of
+     * the bundle can be validated concurrently. Shards run on pool threads
+     * which share the Hibernate session of the import, so a parallelizable
+     * hook must not call services or read associations of preheated objects
+     * which are not initialized by the preheat, see
+     * {@link org.hisp.dhis.tracker.preheat.DefaultTrackerPreheatService}.
+     */
+    default boolean isParallelizable()
+    {
+        return false;
+    }
+
+    /**
+     * Validates the bundle by splitting the Tracker objects into shards which
+     * are validated concurrently on the given executor. Falls back to
+     * {@link #validate(TrackerImportValidationContext)} by default.
+     *
+     * @param context validation context
+     * @param executor executor running the shards
+     * @param shardCount maximum number of shards per Tracker object type
+     * @return the reporter holding the accumulated errors
+     */
+    default ValidationErrorReporter validate( TrackerImportValidationContext context, ExecutorService executor,
+        int shardCount )
+    {
+        return validate( context );
+    }
+
     void setOrder( int order );
 
 }
@@ -34,6 +34,9 @@ import static org.hisp.dhis.tracker.report.ValidationErrorReporter.newWarningRep
 import static org.hisp.dhis.tracker.validation.hooks.TrackerImporterAssertErrors.DATE_STRING_CANT_BE_NULL;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -45,6 +48,7 @@ import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.domain.*;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
 import org.hisp.dhis.tracker.validation.TrackerValidationHook;
@@ -52,6 +56,7 @@ import org.hisp.dhis.util.DateUtils;
 import org.springframework.core.Ordered;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 /**
  * @author Morten Svanæs <msvanaes@dhis2.org>
@@ -59,6 +64,12 @@ import com.google.common.collect.ImmutableMap;
 public abstract class AbstractTrackerDtoValidationHook
     implements TrackerValidationHook
 {
+    /**
+     * Minimum number of Tracker objects in a shard, smaller collections are
+     * validated serially.
+     */
+    private static final int MIN_SHARD_SIZE = 50;
+
     private int order = Ordered.LOWEST_PRECEDENCE;
 
     @Override
@@ -188,6 +199,120 @@ public abstract class AbstractTrackerDtoValidationHook
         }
     }
 
+    /**
+     * Delegating validate method which validates each Tracker entities
+     * collection in shards on the given executor. The results of the shards
+     * are merged, in order, before the next collection is validated, as the
+     * validation of a Tracker entity can depend on the validity of its parent.
+     *
+     * @param context validation context
+     * @param executor executor running the shards
+     * @param shardCount maximum number of shards per collection
+     * @return list of error reports
+     */
+    @Override
+    public ValidationErrorReporter validate( TrackerImportValidationContext context, ExecutorService executor,
+        int shardCount )
+    {
+        TrackerBundle bundle = context.getBundle();
+
+        validateTrackerDtos( context, bundle.getTrackedEntities(), executor, shardCount );
+        validateTrackerDtos( context, bundle.getEnrollments(), executor, shardCount );
+        validateTrackerDtos( context, bundle.getEvents(), executor, shardCount );
+        validateTrackerDtos( context, bundle.getRelationships(), executor, shardCount );
+
+        return context.getRootReporter();
+    }
+
+    private void validateTrackerDtos( TrackerImportValidationContext context, List<? extends TrackerDto> dtos,
+        ExecutorService executor, int shardCount )
+    {
+        int shardSize = Math.max( MIN_SHARD_SIZE, (dtos.size() + shardCount - 1) / shardCount );
+
+        if ( dtos.size() <= shardSize )
+        {
+            validateTrackerDtos( context, dtos );
+            return;
+        }
+
+        List<Future<ValidationErrorReporter>> futures = new ArrayList<>();
+
+        for ( List<? extends TrackerDto> shard : Lists.partition( dtos, shardSize ) )
+        {
+            futures.add( executor.submit( () -> validateShard( context, shard ) ) );
+        }
+
+        // The root reporter is read by the shards, so it is only updated
+        // once all of them are done
+
+        List<ValidationErrorReporter> shardReporters = new ArrayList<>();
+
+        try
+        {
+            for ( Future<ValidationErrorReporter> future : futures )
+            {
+                shardReporters.add( getShardReporter( future ) );
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            futures.forEach( f -> f.cancel( true ) );
+            throw e;
+        }
+
+        Set<String> failedUids = new HashSet<>();
+
+        for ( ValidationErrorReporter shardReporter : shardReporters )
+        {
+            context.getRootReporter().mergeAll( shardReporter );
+            shardReporter.getReportList().stream().map( TrackerErrorReport::getUid ).forEach( failedUids::add );
+        }
+
+        if ( removeOnError() )
+        {
+            dtos.removeIf( dto -> failedUids.contains( dto.getUid() ) );
+        }
+    }
+
+    private ValidationErrorReporter validateShard( TrackerImportValidationContext context,
+        List<? extends TrackerDto> dtos )
+    {
+        ValidationErrorReporter shardReporter = new ValidationErrorReporter( context );
+
+        for ( TrackerDto dto : dtos )
+        {
+            if ( needsToRun( context.getStrategy( dto ) ) )
+            {
+                shardReporter.merge( validateTrackerDto( context, dto ) );
+            }
+        }
+
+        return shardReporter;
+    }
+
+    private static ValidationErrorReporter getShardReporter( Future<ValidationErrorReporter> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException( "Validation of a shard failed", e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Interrupted while validating shards", e );
+        }
+    }
+
     private ValidationErrorReporter validateTrackerDto(
         TrackerImportValidationContext context, TrackerDto dto )
     {
@@ -178,4 +178,10 @@ public class EventDataValuesValidationHook
         addErrorIfNull( fileResource, reporter, E1084, dataValue.getValue() );
         addErrorIf( () -> fileResource != null && fileResource.isAssigned(), reporter, E1009, dataValue.getValue() );
     }
+
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
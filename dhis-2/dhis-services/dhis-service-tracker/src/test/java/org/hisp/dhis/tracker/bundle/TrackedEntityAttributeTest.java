@@ -40,6 +40,7 @@ import org.hisp.dhis.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
+import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerTest;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
@@ -107,4 +108,23 @@ public class TrackedEntityAttributeTest
 
         assertEquals( 3, attributeValues.size() );
     }
+
+    @Test
+    public void testTrackedAttributeValueBundleImporterInBatchFlushMode()
+        throws IOException
+    {
+        TrackerImportParams trackerImportParams = fromJson( "tracker/te_with_tea_data.json" );
+        trackerImportParams.setFlushMode( FlushMode.BATCH );
+
+        TrackerBundle bundle = trackerBundleService.create( trackerImportParams );
+        trackerBundleService.commit( bundle );
+
+        List<TrackedEntityInstance> trackedEntityInstances = manager.getAll( TrackedEntityInstance.class );
+        assertEquals( 1, trackedEntityInstances.size() );
+
+        List<TrackedEntityAttributeValue> attributeValues = trackedEntityAttributeValueService
+            .getTrackedEntityAttributeValues( trackedEntityInstances.get( 0 ) );
+
+        assertEquals( 3, attributeValues.size() );
+    }
 }
@@ -29,11 +29,14 @@ package org.hisp.dhis.tracker.bundle;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.SessionFactory;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleMode;
@@ -45,9 +48,12 @@ import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.program.ProgramStageInstanceStore;
 import org.hisp.dhis.render.RenderFormat;
+import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerImportStrategy;
 import org.hisp.dhis.tracker.TrackerTest;
+import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.report.TrackerBundleReport;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
@@ -69,6 +75,9 @@ public class TrackerEventBundleServiceTest extends TrackerTest
     @Autowired
     private ProgramStageInstanceStore programStageInstanceStore;
 
+    @Autowired
+    private SessionFactory sessionFactory;
+
     @Override
     protected void initTest()
         throws IOException
@@ -105,6 +114,35 @@ public class TrackerEventBundleServiceTest extends TrackerTest
         assertEquals( 8, programStageInstances.size() );
     }
 
+    @Test
+    public void testCreateEventDataInBatchFlushMode()
+        throws IOException
+    {
+        TrackerImportParams trackerImportParams = fromJson( "tracker/event_events_and_enrollment.json" );
+        trackerImportParams.setFlushMode( FlushMode.BATCH );
+
+        TrackerBundle trackerBundle = trackerBundleService.create( trackerImportParams );
+
+        JdbcCountingListener jdbcCounter = new JdbcCountingListener();
+        sessionFactory.getCurrentSession().addEventListeners( jdbcCounter );
+
+        TrackerBundleReport bundleReport = trackerBundleService.commit( trackerBundle );
+
+        // the inserts of one table are sent as one JDBC batch instead of one
+        // statement per event
+
+        assertTrue( jdbcCounter.batches > 0 );
+        assertTrue( jdbcCounter.batches < 8 );
+
+        // persisted events are evicted after each flush
+
+        assertTrue( sessionFactory.getCurrentSession().getStatistics().getEntityKeys().stream()
+            .noneMatch( key -> ProgramStageInstance.class.getName().equals( key.getEntityName() ) ) );
+
+        assertEquals( 8, bundleReport.getTypeReportMap().get( TrackerType.EVENT ).getStats().getCreated() );
+        assertEquals( 8, programStageInstanceStore.getAll().size() );
+    }
+
     @Test
     public void testUpdateSingleEventData()
         throws IOException
@@ -127,4 +165,16 @@ public class TrackerEventBundleServiceTest extends TrackerTest
         trackerBundleService.commit( trackerBundle );
         assertEquals( 8, programStageInstanceStore.getAll().size() );
     }
+
+    private static class JdbcCountingListener
+        extends BaseSessionEventListener
+    {
+        private int batches;
+
+        @Override
+        public void jdbcExecuteBatchStart()
+        {
+            batches++;
+        }
+    }
 }
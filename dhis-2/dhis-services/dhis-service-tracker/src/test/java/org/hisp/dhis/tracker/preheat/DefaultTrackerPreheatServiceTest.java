@@ -35,6 +35,7 @@ import java.util.Collections;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.supplier.*;
 import org.hisp.dhis.user.User;
 import org.junit.Before;
@@ -61,6 +62,9 @@ public class DefaultTrackerPreheatServiceTest
     @Mock
     private IdentifiableObjectManager manager;
 
+    @Mock
+    private PreheatCacheService preheatCacheService;
+
     @Mock
     private ClassBasedSupplier classBasedSupplier;
 
@@ -83,7 +87,7 @@ public class DefaultTrackerPreheatServiceTest
     @Before
     public void setUp()
     {
-        preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
+        preheatService = new DefaultTrackerPreheatService( manager, preheatCacheService, ImmutableList.of(
             ClassBasedSupplier.class.getSimpleName() ) );
 
         preheatService.setApplicationContext( applicationContext );
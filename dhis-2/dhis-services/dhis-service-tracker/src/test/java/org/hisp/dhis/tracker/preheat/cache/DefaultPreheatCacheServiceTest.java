@@ -27,16 +27,24 @@
  */
 package org.hisp.dhis.tracker.preheat.cache;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -68,7 +76,6 @@ public class DefaultPreheatCacheServiceTest
     }
 
     @Test
-    @Ignore
     public void testEnabledCacheIsCachingTEI()
     {
         Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
@@ -76,7 +83,8 @@ public class DefaultPreheatCacheServiceTest
         assertThat( serviceToTest.get( CACHE_KEY, TEI_ID ), is( Optional.empty() ) );
 
         TrackedEntityInstance objectToCache = new TrackedEntityInstance();
-        serviceToTest.put( CACHE_KEY, TEI_ID, objectToCache, 10, 10 );
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, singletonMap( TEI_ID, objectToCache ), false,
+            emptySet(), 10, 10 );
 
         assertThat( serviceToTest.get( CACHE_KEY, TEI_ID ), is( Optional.of( objectToCache ) ) );
         assertThat( serviceToTest.getAll( CACHE_KEY ).size(), is( 1 ) );
@@ -87,7 +95,6 @@ public class DefaultPreheatCacheServiceTest
     }
 
     @Test
-    @Ignore
     public void testDisabledCacheIsNotCachingTEI()
     {
         Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( false );
@@ -95,7 +102,8 @@ public class DefaultPreheatCacheServiceTest
         assertThat( serviceToTest.get( CACHE_KEY, TEI_ID ), is( Optional.empty() ) );
 
         TrackedEntityInstance objectToCache = new TrackedEntityInstance();
-        serviceToTest.put( CACHE_KEY, TEI_ID, objectToCache, 10, 10 );
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, singletonMap( TEI_ID, objectToCache ), false,
+            emptySet(), 10, 10 );
 
         assertThat( serviceToTest.get( CACHE_KEY, TEI_ID ), is( Optional.empty() ) );
         assertThat( serviceToTest.getAll( CACHE_KEY ).size(), is( 0 ) );
@@ -104,4 +112,163 @@ public class DefaultPreheatCacheServiceTest
 
         assertThat( serviceToTest.get( CACHE_KEY, TEI_ID ), is( Optional.empty() ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompleteKeyStaysCompleteOnlyOnDelete()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program programA = program( "programA" );
+        Program programB = program( "programB" );
+
+        Map<String, IdentifiableObject> programs = new HashMap<>();
+        programs.put( programA.getUid(), programA );
+        programs.put( programB.getUid(), programB );
+
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, programs, true, emptySet(), 10, 10 );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( true ) );
+        assertThat( serviceToTest.getAll( CACHE_KEY ).size(), is( 2 ) );
+
+        serviceToTest.invalidate( Program.class, programA.getUid(), true );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( true ) );
+        assertThat( serviceToTest.get( CACHE_KEY, programA.getUid() ), is( Optional.empty() ) );
+        assertThat( serviceToTest.get( CACHE_KEY, programB.getUid() ), is( Optional.of( programB ) ) );
+
+        serviceToTest.invalidate( Program.class, programB.getUid(), false );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( false ) );
+        assertThat( serviceToTest.getAll( CACHE_KEY ).size(), is( 0 ) );
+    }
+
+    @Test
+    public void testCompleteKeyOverCapacityIsNotCached()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Map<String, IdentifiableObject> programs = new HashMap<>();
+        programs.put( "programA", program( "programA" ) );
+        programs.put( "programB", program( "programB" ) );
+
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, programs, true, emptySet(), 10, 1 );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( false ) );
+        assertThat( serviceToTest.getAll( CACHE_KEY ).size(), is( 0 ) );
+    }
+
+    @Test
+    public void testChangesCreateNewSnapshots()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program program = program( "programA" );
+
+        PreheatMetadataSnapshot empty = serviceToTest.getSnapshot();
+
+        serviceToTest.putAll( empty, CACHE_KEY, singletonMap( program.getUid(), program ), false, emptySet(), 10,
+            10 );
+
+        PreheatMetadataSnapshot cached = serviceToTest.getSnapshot();
+
+        serviceToTest.invalidate( TrackedEntityInstance.class, "tei", false );
+
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.of( program ) ) );
+
+        serviceToTest.invalidate( Program.class, program.getUid(), false );
+
+        assertThat( cached.getVersion() > empty.getVersion(), is( true ) );
+        assertThat( serviceToTest.getSnapshot().getVersion() > cached.getVersion(), is( true ) );
+        assertThat( cached.get( CACHE_KEY, program.getUid() ), is( Optional.of( program ) ) );
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.empty() ) );
+    }
+
+    @Test
+    public void testObjectsLoadedBeforeChangeAreNotCached()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program program = program( "programA" );
+
+        PreheatMetadataSnapshot loadedFrom = serviceToTest.getSnapshot();
+
+        serviceToTest.invalidate( Program.class, program.getUid(), false );
+
+        serviceToTest.putAll( loadedFrom, CACHE_KEY, singletonMap( program.getUid(), program ), false, emptySet(),
+            10, 10 );
+
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.empty() ) );
+
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, singletonMap( program.getUid(), program ),
+            false, emptySet(), 10, 10 );
+
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.of( program ) ) );
+    }
+
+    @Test
+    public void testObjectsLoadedBeforeChangeOfOtherTypeAreCached()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program program = program( "programA" );
+
+        PreheatMetadataSnapshot loadedFrom = serviceToTest.getSnapshot();
+
+        serviceToTest.invalidate( JobConfiguration.class, "jobA", false );
+
+        serviceToTest.putAll( loadedFrom, CACHE_KEY, singletonMap( program.getUid(), program ), false, emptySet(),
+            10, 10 );
+
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.of( program ) ) );
+    }
+
+    @Test
+    public void testObjectsLoadedBeforeChangeOfEmbeddedTypeAreNotCached()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program program = program( "programA" );
+
+        PreheatMetadataSnapshot loadedFrom = serviceToTest.getSnapshot();
+
+        serviceToTest.invalidate( ProgramStage.class, "programStageA", false );
+
+        serviceToTest.putAll( loadedFrom, CACHE_KEY, singletonMap( program.getUid(), program ), false,
+            singleton( ProgramStage.class ), 10, 10 );
+
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.empty() ) );
+    }
+
+    @Test
+    public void testChangeOfEmbeddedObjectRemovesObjects()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Program program = program( "programA" );
+
+        serviceToTest.putAll( serviceToTest.getSnapshot(), CACHE_KEY, singletonMap( program.getUid(), program ),
+            true, singleton( ProgramStage.class ), 10, 10 );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( true ) );
+
+        serviceToTest.invalidate( ProgramStage.class, "programStageA", false );
+
+        assertThat( serviceToTest.hasKey( CACHE_KEY ), is( false ) );
+        assertThat( serviceToTest.get( CACHE_KEY, program.getUid() ), is( Optional.empty() ) );
+    }
+
+    @Test
+    public void testDisabledCacheHasEmptySnapshot()
+    {
+        Mockito.when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( false );
+
+        assertThat( serviceToTest.getSnapshot(), is( PreheatMetadataSnapshot.EMPTY ) );
+    }
+
+    private Program program( String uid )
+    {
+        Program program = new Program();
+        program.setUid( uid );
+        return program;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.user.UserCredentials;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith( MockitoJUnitRunner.class )
+public class PreheatCacheChangeListenerTest
+{
+    private static final String[] PROPERTY_NAMES = { "username", "lastLogin", "disabled" };
+
+    @Mock
+    private PreheatCacheService preheatCacheService;
+
+    @Mock
+    private EntityPersister persister;
+
+    @InjectMocks
+    private PreheatCacheChangeListener listenerToTest;
+
+    private UserCredentials userCredentials;
+
+    @Before
+    public void setup()
+    {
+        userCredentials = new UserCredentials();
+        userCredentials.setUid( "userCredA" );
+    }
+
+    @Test
+    public void testUpdateOfLastLoginIsIgnored()
+    {
+        when( persister.getPropertyNames() ).thenReturn( PROPERTY_NAMES );
+
+        listenerToTest.onPostUpdate( update( 1 ) );
+
+        verify( preheatCacheService, never() ).invalidate( any(), anyString(), anyBoolean() );
+    }
+
+    @Test
+    public void testUpdateOfOtherPropertyInvalidates()
+    {
+        when( persister.getPropertyNames() ).thenReturn( PROPERTY_NAMES );
+
+        listenerToTest.onPostUpdate( update( 1, 2 ) );
+
+        verify( preheatCacheService ).invalidate( UserCredentials.class, "userCredA", false );
+    }
+
+    @Test
+    public void testUpdateWithoutDirtyPropertiesInvalidates()
+    {
+        listenerToTest.onPostUpdate( update() );
+
+        verify( preheatCacheService ).invalidate( UserCredentials.class, "userCredA", false );
+    }
+
+    private PostUpdateEvent update( int... dirtyProperties )
+    {
+        return new PostUpdateEvent( userCredentials, 1L, new Object[0], new Object[0], dirtyProperties, persister,
+            null );
+    }
+}
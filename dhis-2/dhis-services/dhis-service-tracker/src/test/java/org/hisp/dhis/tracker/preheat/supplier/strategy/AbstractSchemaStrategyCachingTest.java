@@ -27,7 +27,10 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier.strategy;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hisp.dhis.tracker.TrackerIdentifierCollector.ID_WILDCARD;
@@ -35,12 +38,14 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
-import java.util.Optional;
 
 import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.random.BeanRandomizer;
@@ -51,16 +56,20 @@ import org.hisp.dhis.schema.descriptors.ProgramSchemaDescriptor;
 import org.hisp.dhis.schema.descriptors.RelationshipTypeSchemaDescriptor;
 import org.hisp.dhis.tracker.TrackerIdentifier;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.preheat.cache.DefaultPreheatCacheService;
 import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
+import org.hisp.dhis.tracker.preheat.cache.PreheatMetadataSnapshot;
 import org.hisp.dhis.tracker.preheat.mappers.CopyMapper;
 import org.hisp.dhis.tracker.preheat.mappers.ProgramMapper;
 import org.hisp.dhis.tracker.preheat.mappers.RelationshipTypeMapper;
+import org.hisp.dhis.user.User;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
 
 /**
  * @author Luciano Fiandesio
@@ -112,9 +121,8 @@ public class AbstractSchemaStrategyCachingTest
         // Then
         assertThat( preheat.getAll( RelationshipType.class ), hasSize( 5 ) );
 
-        verify( cache, times( 1 ) ).hasKey( "RelationshipType" );
-
-        verify( cache, times( 5 ) ).put( eq( "RelationshipType" ), anyString(), any(), eq( 10 ), eq( 10L ) );
+        verify( cache, times( 1 ) ).putAll( eq( preheat.getCacheSnapshot() ), eq( "RelationshipType" ), anyMap(),
+            eq( true ), anySet(), eq( 10 ), eq( 10L ) );
     }
 
     @Test
@@ -126,7 +134,8 @@ public class AbstractSchemaStrategyCachingTest
         String UID = CodeGenerator.generateUid();
 
         Program program = rnd.randomObject( Program.class );
-        when( cache.get( Program.class.getSimpleName(), UID ) ).thenReturn( Optional.of( program ) );
+        preheat.setCacheSnapshot( PreheatMetadataSnapshot.EMPTY.withObjects( 0, Program.class.getSimpleName(),
+            singletonMap( UID, program ), false, emptySet(), 20, 10 ) );
 
         ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
             manager, cache );
@@ -149,8 +158,6 @@ public class AbstractSchemaStrategyCachingTest
 
         Program program = rnd.randomObject( Program.class );
 
-        when( cache.get( Program.class.getSimpleName(), UID ) ).thenReturn( Optional.empty() );
-
         doReturn( singletonList( program ) ).when( queryService ).query( any( Query.class ) );
         ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
             manager, cache );
@@ -162,7 +169,150 @@ public class AbstractSchemaStrategyCachingTest
         // Then
         assertThat( preheat.getAll( Program.class ), hasSize( 1 ) );
 
-        verify( cache, times( 1 ) ).put( eq( "Program" ), anyString(), any(), eq( 20 ), eq( 10L ) );
+        verify( cache, times( 1 ) ).putAll( eq( preheat.getCacheSnapshot() ), eq( "Program" ), anyMap(), eq( false ),
+            anySet(), eq( 20 ), eq( 10L ) );
+    }
+
+    @Test
+    public void verifyWarmCacheAvoidsDbQueriesOfColdCache()
+    {
+        // Given
+        final Schema schema = new ProgramSchemaDescriptor().getSchema();
+
+        PreheatCacheService realCache = realCache();
+
+        String UID = CodeGenerator.generateUid();
+
+        Program program = rnd.randomObject( Program.class );
+        program.setUid( UID );
+
+        doReturn( singletonList( program ) ).when( queryService ).query( any( Query.class ) );
+        ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
+            manager, realCache );
+
+        // When
+        TrackerPreheat coldPreheat = preheat( realCache, user( "userA" ) );
+        strategy.queryForIdentifiableObjects( coldPreheat, schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        TrackerPreheat warmPreheat = preheat( realCache, user( "userA" ) );
+        strategy.queryForIdentifiableObjects( warmPreheat, schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        // Then
+        assertThat( coldPreheat.getAll( Program.class ), hasSize( 1 ) );
+        assertThat( warmPreheat.getAll( Program.class ), hasSize( 1 ) );
+
+        verify( queryService, times( 1 ) ).query( any( Query.class ) );
+
+        // When the program is changed, it is fetched again
+        realCache.invalidate( Program.class, UID, false );
+
+        strategy.queryForIdentifiableObjects( preheat( realCache, user( "userA" ) ), schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        verify( queryService, times( 2 ) ).query( any( Query.class ) );
+
+        // When a program stage embedded in the program is changed, the program
+        // is fetched again
+        realCache.invalidate( ProgramStage.class, CodeGenerator.generateUid(), false );
+
+        strategy.queryForIdentifiableObjects( preheat( realCache, user( "userA" ) ), schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        verify( queryService, times( 3 ) ).query( any( Query.class ) );
+    }
+
+    @Test
+    public void verifyObjectCachedForOneUserIsNotServedToAnotherUser()
+    {
+        // Given
+        final Schema schema = new ProgramSchemaDescriptor().getSchema();
+
+        PreheatCacheService realCache = realCache();
+
+        String UID = CodeGenerator.generateUid();
+
+        Program program = rnd.randomObject( Program.class );
+        program.setUid( UID );
+
+        doReturn( singletonList( program ) ).doReturn( emptyList() ).when( queryService ).query( any( Query.class ) );
+        ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
+            manager, realCache );
+
+        // When
+        TrackerPreheat preheatOfUserA = preheat( realCache, user( "userA" ) );
+        strategy.queryForIdentifiableObjects( preheatOfUserA, schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        TrackerPreheat preheatOfUserB = preheat( realCache, user( "userB" ) );
+        strategy.queryForIdentifiableObjects( preheatOfUserB, schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        // Then
+        assertThat( preheatOfUserA.getAll( Program.class ), hasSize( 1 ) );
+        assertThat( preheatOfUserB.getAll( Program.class ), hasSize( 0 ) );
+
+        verify( queryService, times( 2 ) ).query( any( Query.class ) );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void verifyObjectLoadedDuringChangeIsNotCached()
+    {
+        // Given
+        final Schema schema = new ProgramSchemaDescriptor().getSchema();
+
+        PreheatCacheService realCache = realCache();
+
+        String UID = CodeGenerator.generateUid();
+
+        Program program = rnd.randomObject( Program.class );
+        program.setUid( UID );
+
+        doReturn( singletonList( program ) ).when( queryService ).query( any( Query.class ) );
+        ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
+            manager, realCache );
+
+        // When the program is changed while a preheat is loading it
+        TrackerPreheat loadingPreheat = preheat( realCache, user( "userA" ) );
+
+        realCache.invalidate( Program.class, UID, false );
+
+        strategy.queryForIdentifiableObjects( loadingPreheat, schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        strategy.queryForIdentifiableObjects( preheat( realCache, user( "userA" ) ), schema, TrackerIdentifier.UID,
+            singletonList( singletonList( UID ) ), CopyMapper.class );
+
+        // Then the next preheat fetches it again
+        verify( queryService, times( 2 ) ).query( any( Query.class ) );
+    }
+
+    private PreheatCacheService realCache()
+    {
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        Environment environment = mock( Environment.class );
+        when( environment.getActiveProfiles() ).thenReturn( new String[] {} );
+
+        return new DefaultPreheatCacheService( config, environment );
+    }
+
+    private TrackerPreheat preheat( PreheatCacheService cache, User user )
+    {
+        TrackerPreheat trackerPreheat = new TrackerPreheat();
+        trackerPreheat.setUser( user );
+        trackerPreheat.setCacheSnapshot( cache.getSnapshot() );
+
+        return trackerPreheat;
+    }
+
+    private User user( String uid )
+    {
+        User user = new User();
+        user.setUid( uid );
+
+        return user;
+    }
+}
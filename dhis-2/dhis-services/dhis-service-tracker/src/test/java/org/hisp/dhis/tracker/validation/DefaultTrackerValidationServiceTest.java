@@ -27,14 +27,21 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Event;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
@@ -156,4 +163,54 @@ public class DefaultTrackerValidationServiceTest
         verify( trackedEntityAttributeValidationHook, times( 1 ) ).validate( any() );
         assertTrue( validationErrorReporter.hasErrors() );
     }
+
+    @Test
+    public void shouldValidateParallelizableHookInShards()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        ReflectionTestUtils.setField( trackerValidationService, "executor", executor );
+        ReflectionTestUtils.setField( trackerValidationService, "threads", 4 );
+
+        AbstractTrackerDtoValidationHook hook = new AbstractTrackerDtoValidationHook()
+        {
+            @Override
+            public void validateEvent( ValidationErrorReporter reporter, Event event )
+            {
+                addErrorIf( () -> event.getEvent().endsWith( "7" ), reporter, TrackerErrorCode.E1000 );
+            }
+
+            @Override
+            public boolean isParallelizable()
+            {
+                return true;
+            }
+        };
+
+        ReflectionTestUtils.setField( trackerValidationService, "validationHooks",
+            Collections.singletonList( hook ) );
+
+        TrackerBundle trackerBundle = TrackerBundle.builder().user( user ).build();
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            Event event = Event.builder().event( "event" + i ).build();
+            trackerBundle.getEvents().add( event );
+            trackerBundle.getResolvedStrategyMap().get( TrackerType.EVENT )
+                .put( event.getEvent(), TrackerImportStrategy.CREATE );
+        }
+
+        try
+        {
+            TrackerValidationReport report = trackerValidationService.validate( trackerBundle );
+
+            assertEquals( 100, report.getErrorReports().size() );
+            assertEquals( 1, report.getPerformanceReport().size() );
+            assertEquals( 900, trackerBundle.getEvents().size() );
+            assertFalse( trackerBundle.getEvents().stream().anyMatch( e -> e.getEvent().endsWith( "7" ) ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -43,9 +43,13 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import lombok.SneakyThrows;
@@ -68,15 +72,21 @@ import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerImportService;
 import org.hisp.dhis.tracker.TrackerImportStrategy;
 import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.domain.DataValue;
+import org.hisp.dhis.tracker.domain.Event;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.TrackerImportReport;
 import org.hisp.dhis.tracker.report.TrackerStatus;
 import org.hisp.dhis.tracker.report.TrackerTypeReport;
+import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Sets;
 
 /**
  * @author Morten Svanæs <msvanaes@dhis2.org>
@@ -426,6 +436,91 @@ public class EventImportValidationTest
         testDeletedEventFails( CREATE_AND_UPDATE );
     }
 
+    @Test
+    public void testParallelValidationMatchesSerialValidation()
+        throws IOException
+    {
+        TrackerValidationReport serialReport = trackerValidationService
+            .validate( trackerBundleService.create( createEventsWithDataValues( 200 ) ) );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        ReflectionTestUtils.setField( trackerValidationService, "executor", executor );
+        ReflectionTestUtils.setField( trackerValidationService, "threads", 4 );
+
+        TrackerValidationReport parallelReport;
+
+        try
+        {
+            parallelReport = trackerValidationService
+                .validate( trackerBundleService.create( createEventsWithDataValues( 200 ) ) );
+        }
+        finally
+        {
+            ReflectionTestUtils.setField( trackerValidationService, "executor", null );
+            executor.shutdownNow();
+        }
+
+        List<String> serialErrors = getErrors( serialReport );
+
+        // Invalid option values are reported by the parallelizable data
+        // value hook, for every third event
+
+        assertEquals( 67, serialErrors.stream().filter( e -> e.startsWith( "E1125" ) ).count() );
+        assertEquals( serialErrors, getErrors( parallelReport ) );
+    }
+
+    /**
+     * Creates events with valid option values, invalid option values and
+     * unknown data elements, based on the first event of a fixture. Event uids
+     * are derived from the index so that separate calls create equal events.
+     */
+    private TrackerImportParams createEventsWithDataValues( int count )
+        throws IOException
+    {
+        TrackerImportParams params = createBundleFromJson(
+            "tracker/validations/events-with_valid_option_value.json" );
+        params.setImportStrategy( TrackerImportStrategy.CREATE );
+
+        Event template = params.getEvents().get( 0 );
+        DataValue dataValue = template.getDataValues().iterator().next();
+
+        List<Event> events = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            DataValue value = DataValue.builder()
+                .dataElement( i % 3 == 2 ? "NonExistDE1" : dataValue.getDataElement() )
+                .value( i % 3 == 1 ? "mle" : dataValue.getValue() )
+                .build();
+
+            events.add( Event.builder()
+                .event( String.format( "ParEvt%05d", i ) )
+                .status( template.getStatus() )
+                .program( template.getProgram() )
+                .programStage( template.getProgramStage() )
+                .enrollment( template.getEnrollment() )
+                .orgUnit( template.getOrgUnit() )
+                .occurredAt( template.getOccurredAt() )
+                .scheduledAt( template.getScheduledAt() )
+                .attributeOptionCombo( template.getAttributeOptionCombo() )
+                .relationships( new ArrayList<>() )
+                .notes( new ArrayList<>() )
+                .dataValues( Sets.newHashSet( value ) )
+                .build() );
+        }
+
+        params.setEvents( events );
+
+        return params;
+    }
+
+    private List<String> getErrors( TrackerValidationReport report )
+    {
+        return report.getErrorReports().stream()
+            .map( e -> e.getErrorCode() + ":" + e.getTrackerType() + ":" + e.getUid() + ":" + e.getErrorMessage() )
+            .collect( Collectors.toList() );
+    }
+
     @SneakyThrows
     private void testDeletedEventFails( TrackerImportStrategy importStrategy )
     {
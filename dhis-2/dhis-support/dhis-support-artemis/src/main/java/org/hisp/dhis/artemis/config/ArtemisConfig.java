@@ -147,6 +147,22 @@ public class ArtemisConfig
         return factory;
     }
 
+    @Bean // configured for audit topics
+    public DefaultJmsListenerContainerFactory jmsAuditListenerContainerFactory( ConnectionFactory connectionFactory,
+        NameDestinationResolver nameDestinationResolver )
+    {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory( connectionFactory );
+        factory.setDestinationResolver( nameDestinationResolver );
+        factory.setPubSubDomain( true );
+        factory.setConcurrency( "1" );
+        // in batching mode the audit consumers receive the topics themselves,
+        // the listeners must not start to avoid consuming messages twice
+        factory.setAutoStartup( !dhisConfig.isEnabled( ConfigurationKey.AUDIT_CONSUMER_BATCH_ENABLED ) );
+
+        return factory;
+    }
+
     @Bean // configured for queues
     public DefaultJmsListenerContainerFactory jmsQueueListenerContainerFactory( ConnectionFactory connectionFactory,
         NameDestinationResolver nameDestinationResolver )
@@ -32,8 +32,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.ArrayList;
+import java.sql.Types;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -51,6 +54,7 @@ import org.springframework.stereotype.Repository;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -58,6 +62,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Repository
 public class JdbcAuditRepository implements AuditRepository
 {
+    /**
+     * Max number of rows per multi-row insert statement, keeps the number of
+     * bind parameters well below the limit of the JDBC driver.
+     */
+    private static final int MULTI_ROW_INSERT_SIZE = 1000;
+
+    private static final String INSERT_COLUMNS = "auditType, auditScope, createdAt, createdBy, klass, uid, code, "
+        + "attributes, data";
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
 
     private final SimpleJdbcInsert auditInsert;
@@ -83,12 +98,28 @@ public class JdbcAuditRepository implements AuditRepository
         return auditInsert.executeAndReturnKey( parameterSource ).longValue();
     }
 
+    /**
+     * Saves the given audits using multi-row insert statements, which takes a
+     * single round trip and statement execution per
+     * {@link #MULTI_ROW_INSERT_SIZE} audits.
+     */
     @Override
     public void save( List<Audit> audits )
     {
-        List<MapSqlParameterSource> parameterSources = new ArrayList<>();
-        audits.forEach( audit -> parameterSources.add( buildParameterSource( audit ) ) );
-        auditInsert.executeBatch( parameterSources.toArray( new MapSqlParameterSource[0] ) );
+        for ( List<Audit> partition : Lists.partition( audits, MULTI_ROW_INSERT_SIZE ) )
+        {
+            String sql = "INSERT INTO audit (" + INSERT_COLUMNS + ") VALUES "
+                + String.join( ", ", Collections.nCopies( partition.size(), INSERT_ROW ) );
+
+            jdbcTemplate.update( sql, ps -> {
+                int index = 1;
+
+                for ( Audit audit : partition )
+                {
+                    index = setInsertParameters( ps, index, audit );
+                }
+            } );
+        }
     }
 
     @Override
@@ -202,6 +233,33 @@ public class JdbcAuditRepository implements AuditRepository
             .collect( Collectors.joining( ", " ) );
     }
 
+    private int setInsertParameters( PreparedStatement ps, int index, Audit audit )
+        throws SQLException
+    {
+        ps.setString( index++, audit.getAuditType().name() );
+        ps.setString( index++, audit.getAuditScope().name() );
+        ps.setTimestamp( index++, Timestamp.valueOf( audit.getCreatedAt() ) );
+        ps.setString( index++, audit.getCreatedBy() );
+        ps.setString( index++, audit.getKlass() );
+        ps.setString( index++, audit.getUid() );
+        ps.setString( index++, audit.getCode() );
+
+        String attributes = "{}";
+
+        try
+        {
+            attributes = jsonMapper.writeValueAsString( audit.getAttributes() );
+        }
+        catch ( JsonProcessingException ignored )
+        {
+        }
+
+        ps.setObject( index++, attributes, Types.OTHER );
+        ps.setBytes( index++, compress( audit.getData() ) );
+
+        return index;
+    }
+
     private MapSqlParameterSource buildParameterSource( Audit audit )
     {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
@@ -642,6 +642,41 @@ public class AuditRepositoryTest
         assertEquals( 200_000, auditRepository.count( AuditQuery.builder().build() ) );
     }
 
+    @Test
+    public void testSaveAuditsMultiRow()
+    {
+        List<Audit> audits = new ArrayList<>();
+
+        IntStream.rangeClosed( 1, 1_500 ).forEach( n -> {
+            AuditAttributes auditAttributes = new AuditAttributes();
+            auditAttributes.put( "valueType", "TEXT" );
+
+            audits.add( Audit.builder()
+                .auditType( AuditType.UPDATE )
+                .auditScope( AuditScope.TRACKER )
+                .createdAt( LocalDateTime.of( 2019, 1, 1, 0, 0 ) )
+                .createdBy( "test-user" )
+                .klass( DataElement.class.getName() )
+                .uid( CodeGenerator.generateUid() )
+                .code( CodeGenerator.generateUid() )
+                .attributes( auditAttributes )
+                .data( "{\"value\":" + n + "}" )
+                .build() );
+        } );
+
+        auditRepository.save( audits );
+
+        List<Audit> persisted = auditRepository.query( AuditQuery.builder()
+            .uid( Sets.newHashSet( audits.get( 1_200 ).getUid() ) )
+            .build() );
+
+        assertEquals( 1_500, auditRepository.count( AuditQuery.builder().build() ) );
+        assertEquals( 1, persisted.size() );
+        assertEquals( AuditType.UPDATE, persisted.get( 0 ).getAuditType() );
+        assertEquals( "TEXT", persisted.get( 0 ).getAttributes().get( "valueType" ) );
+        assertEquals( "{\"value\":1201}", persisted.get( 0 ).getData() );
+    }
+
     @Test
     public void testSaveAuditWithAttributes()
     {
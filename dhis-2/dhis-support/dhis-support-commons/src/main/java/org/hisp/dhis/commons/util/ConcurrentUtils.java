@@ -69,12 +69,12 @@ public class ConcurrentUtils
     }
 
     /**
-     * Returns a {@link Future} which is immediately completed and has its value
-     * set to an empty string.
+     * Returns a {@link CompletableFuture} which is immediately completed and
+     * has its value set to an empty string.
      *
      * @return a future which is immediately completed.
      */
-    public static Future<?> getImmediateFuture()
+    public static CompletableFuture<?> getImmediateFuture()
     {
         return CompletableFuture.completedFuture( "" );
     }
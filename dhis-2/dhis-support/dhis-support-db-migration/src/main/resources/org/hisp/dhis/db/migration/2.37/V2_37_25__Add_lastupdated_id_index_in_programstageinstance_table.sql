@@ -0,0 +1,3 @@
+-- Supports cursor paging of events by last updated and id
+
+create index if not exists in_programstageinstance_lastupdated_id on programstageinstance using btree (lastupdated, programstageinstanceid);
@@ -0,0 +1,20 @@
+-- Lease table for the work units of partitionable jobs which are
+-- distributed across the nodes of a cluster. Units of a phase can only be
+-- claimed when all units of the previous phases of the job are done. The
+-- result of a unit is handed to the job when all units are done
+
+create table if not exists jobworkunit (
+    jobid character varying(50) not null,
+    workunit character varying(255) not null,
+    phase integer not null default 0,
+    status character varying(20) not null,
+    owner character varying(255),
+    leaseexpires timestamp without time zone,
+    attempts integer not null default 0,
+    result text,
+    created timestamp without time zone not null,
+    lastupdated timestamp without time zone not null,
+    constraint jobworkunit_pkey primary key (jobid, workunit)
+);
+
+create index if not exists in_jobworkunit_status_leaseexpires on jobworkunit using btree (status, leaseexpires);
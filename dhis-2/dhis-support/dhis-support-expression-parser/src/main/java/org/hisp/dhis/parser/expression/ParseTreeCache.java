@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.parser.expression;
+
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.ExprContext;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.hisp.dhis.antlr.AntlrExpressionVisitor;
+import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.antlr.ParserExceptionWithoutContext;
+import org.hisp.dhis.parser.expression.antlr.ExpressionLexer;
+import org.hisp.dhis.parser.expression.antlr.ExpressionParser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Parses expressions once and keeps the parse trees so that evaluating the
+ * same expression many times (e.g. indicators in analytics, validation rules
+ * and predictors) only walks the tree.
+ * <p>
+ * Parse trees are not modified by visitors and can therefore be visited by
+ * any number of visitors and threads at the same time.
+ */
+public final class ParseTreeCache
+{
+    private static final Cache<String, ExprContext> PARSE_TREES = CacheBuilder.newBuilder()
+        .expireAfterAccess( 1, TimeUnit.HOURS )
+        .initialCapacity( 10_000 )
+        .maximumSize( 50_000 )
+        .build();
+
+    private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener()
+    {
+        @Override
+        public void syntaxError( Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+            int charPositionInLine, String msg, RecognitionException e )
+        {
+            throw new ParserException( msg + " at character " + charPositionInLine );
+        }
+    };
+
+    private ParseTreeCache()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Visits the (possibly cached) parse tree of an expression.
+     *
+     * @param expression the expression to visit.
+     * @param visitor the visitor to use.
+     * @return the result of the visit.
+     * @throws ParserException if the expression cannot be parsed.
+     */
+    public static Object visit( String expression, AntlrExpressionVisitor visitor )
+    {
+        ExprContext parseTree = getParseTree( expression );
+
+        try
+        {
+            return visitor.visit( parseTree );
+        }
+        catch ( ParserExceptionWithoutContext ex )
+        {
+            throw new ParserException( ex.getMessage() );
+        }
+    }
+
+    /**
+     * Gets the parse tree of an expression, parsing it if it is not cached.
+     * Expressions that cannot be parsed are not cached.
+     *
+     * @param expression the expression to parse.
+     * @return the parse tree of the expression.
+     * @throws ParserException if the expression cannot be parsed.
+     */
+    public static ExprContext getParseTree( String expression )
+    {
+        ExprContext parseTree = PARSE_TREES.getIfPresent( expression );
+
+        if ( parseTree == null )
+        {
+            parseTree = parse( expression );
+
+            PARSE_TREES.put( expression, parseTree );
+        }
+
+        return parseTree;
+    }
+
+    private static ExprContext parse( String expression )
+    {
+        ExpressionLexer lexer = new ExpressionLexer( CharStreams.fromString( expression ) );
+        lexer.removeErrorListeners();
+        lexer.addErrorListener( ERROR_LISTENER );
+
+        ExpressionParser parser = new ExpressionParser( new CommonTokenStream( lexer ) );
+        parser.removeErrorListeners();
+        parser.addErrorListener( ERROR_LISTENER );
+
+        return parser.expression().expr();
+    }
+}
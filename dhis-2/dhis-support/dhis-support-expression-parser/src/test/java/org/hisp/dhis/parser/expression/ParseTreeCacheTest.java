@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.parser.expression;
+
+import static org.hisp.dhis.expression.MissingValueStrategy.NEVER_SKIP;
+import static org.hisp.dhis.parser.expression.ParserUtils.COMMON_EXPRESSION_ITEMS;
+import static org.hisp.dhis.parser.expression.ParserUtils.DEFAULT_SAMPLE_PERIODS;
+import static org.hisp.dhis.parser.expression.ParserUtils.ITEM_EVALUATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hisp.dhis.antlr.Parser;
+import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.common.DimensionService;
+import org.hisp.dhis.constant.Constant;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParseTreeCache}.
+ */
+public class ParseTreeCacheTest
+{
+    private static CommonExpressionVisitor newEvaluationVisitor( Map<String, Constant> constantMap )
+    {
+        return CommonExpressionVisitor.newBuilder()
+            .withItemMap( COMMON_EXPRESSION_ITEMS )
+            .withItemMethod( ITEM_EVALUATE )
+            .withConstantMap( constantMap )
+            .withDimensionService( mock( DimensionService.class ) )
+            .withOrganisationUnitGroupService( mock( OrganisationUnitGroupService.class ) )
+            .withSamplePeriods( DEFAULT_SAMPLE_PERIODS )
+            .withMissingValueStrategy( NEVER_SKIP )
+            .buildForExpressions();
+    }
+
+    @Test
+    public void testParseTreeIsCached()
+    {
+        assertSame( ParseTreeCache.getParseTree( "1 + 2 * 3" ), ParseTreeCache.getParseTree( "1 + 2 * 3" ) );
+    }
+
+    @Test
+    public void testVisitCachedParseTree()
+    {
+        Map<String, Constant> constantMap = new HashMap<>();
+        constantMap.put( "xxxxxxxxx05", new Constant( "Five", 5d ) );
+
+        String expression = "(C{xxxxxxxxx05} + 1) * 2 - 4 / 2";
+
+        assertEquals( 10d, ParseTreeCache.visit( expression, newEvaluationVisitor( constantMap ) ) );
+        assertEquals( 10d, ParseTreeCache.visit( expression, newEvaluationVisitor( constantMap ) ) );
+    }
+
+    @Test
+    public void testSameValuesAsParserVisit()
+    {
+        Map<String, Constant> constantMap = new HashMap<>();
+        constantMap.put( "xxxxxxxxx05", new Constant( "Five", 5d ) );
+        constantMap.put( "xxxxxxxxx07", new Constant( "Seven", 7d ) );
+
+        List<String> expressions = Arrays.asList(
+            "(C{xxxxxxxxx05} + C{xxxxxxxxx07}) * 100 / 3",
+            "C{xxxxxxxxx07} % C{xxxxxxxxx05} - 2 ^ 3",
+            "if( C{xxxxxxxxx05} > C{xxxxxxxxx07}, 1, -1 )",
+            "greatest( C{xxxxxxxxx05}, 6, C{xxxxxxxxx07} ) + least( 1, 2 )",
+            "-C{xxxxxxxxx05} / 4 + 0.25" );
+
+        for ( String expression : expressions )
+        {
+            Object expected = Parser.visit( expression, newEvaluationVisitor( constantMap ) );
+
+            assertEquals( expression, expected, ParseTreeCache.visit( expression,
+                newEvaluationVisitor( constantMap ) ) );
+            assertEquals( expression, expected, ParseTreeCache.visit( expression,
+                newEvaluationVisitor( constantMap ) ) );
+        }
+    }
+
+    @Test
+    public void testConcurrentVisitsOfCachedParseTree()
+        throws Exception
+    {
+        String expression = "(C{xxxxxxxxx05} + 1) * 2 - 4 / 2";
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        try
+        {
+            List<Future<Object>> results = new ArrayList<>();
+
+            for ( int i = 0; i < 100; i++ )
+            {
+                double value = i;
+
+                results.add( executor.submit( () -> {
+                    Map<String, Constant> constantMap = new HashMap<>();
+                    constantMap.put( "xxxxxxxxx05", new Constant( "Value", value ) );
+
+                    return ParseTreeCache.visit( expression, newEvaluationVisitor( constantMap ) );
+                } ) );
+            }
+
+            for ( int i = 0; i < results.size(); i++ )
+            {
+                assertEquals( (i + 1) * 2 - 2d, results.get( i ).get() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test( expected = ParserException.class )
+    public void testSyntaxError()
+    {
+        ParseTreeCache.getParseTree( "1 + " );
+    }
+
+    @Test( expected = ParserException.class )
+    public void testTrailingInput()
+    {
+        ParseTreeCache.getParseTree( "1) + 2" );
+    }
+}
@@ -92,7 +92,16 @@ public enum ConfigurationKey
     FLYWAY_REPAIR_BEFORE_MIGRATION( "flyway.repair_before_migration", Constants.FALSE, false ),
     PROGRAM_TEMPORARY_OWNERSHIP_TIMEOUT( "tracker.temporary.ownership.timeout", "3", false ),
     LEADER_TIME_TO_LIVE( "leader.time.to.live.minutes", "2", false ),
+    SCHEDULER_RESOURCE_CLASSES_ENABLED( "scheduler.resource_classes.enabled", Constants.OFF, false ),
+    SCHEDULER_DATABASE_JOBS_LIMIT( "scheduler.database_jobs.limit", "1", false ),
+    SCHEDULER_CPU_JOBS_LIMIT( "scheduler.cpu_jobs.limit", "2", false ),
+    SCHEDULER_IO_JOBS_LIMIT( "scheduler.io_jobs.limit", "4", false ),
+    SCHEDULER_DISTRIBUTED_JOBS_ENABLED( "scheduler.distributed_jobs.enabled", Constants.OFF, false ),
+    SCHEDULER_DISTRIBUTED_JOBS_LEASE_SECONDS( "scheduler.distributed_jobs.lease_seconds", "60", false ),
     ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0" ),
+    ANALYTICS_CACHE_FRAGMENT_ENABLED( "analytics.cache.fragment.enabled", Constants.OFF, false ),
+    ANALYTICS_QUERY_STREAMING_ENABLED( "analytics.query.streaming.enabled", Constants.OFF, false ),
+    ANALYTICS_QUERY_FETCH_SIZE( "analytics.query.fetch_size", "10000", false ),
     ARTEMIS_MODE( "artemis.mode", "EMBEDDED" ),
     ARTEMIS_HOST( "artemis.host", "127.0.0.1" ),
     ARTEMIS_PORT( "artemis.port", "25672" ),
@@ -112,6 +121,9 @@ public enum ConfigurationKey
     MONITORING_HIBERNATE_ENABLED( "monitoring.hibernate.enabled", Constants.OFF, false ),
     MONITORING_UPTIME_ENABLED( "monitoring.uptime.enabled", Constants.OFF, false ),
     MONITORING_CPU_ENABLED( "monitoring.cpu.enabled", Constants.OFF, false ),
+    MONITORING_ANALYTICS_ENABLED( "monitoring.analytics.enabled", Constants.OFF, false ),
+    MONITORING_SCHEDULER_ENABLED( "monitoring.scheduler.enabled", Constants.OFF, false ),
+    MONITORING_AUDIT_ENABLED( "monitoring.audit.enabled", Constants.OFF, false ),
     MONITORING_LOG_REQUESTID_ENABLED( "monitoring.requestidlog.enabled", Constants.OFF, false ),
     MONITORING_LOG_REQUESTID_HASHALGO( "monitoring.requestidlog.hash", "SHA-256", false ),
     MONITORING_LOG_REQUESTID_MAXSIZE( "monitoring.requestidlog.maxsize", "-1", false ),
@@ -119,6 +131,8 @@ public enum ConfigurationKey
     APPHUB_API_URL( "apphub.api.url", "https://apps.dhis2.org/api", false ),
     CHANGELOG_AGGREGATE( "changelog.aggregate", Constants.ON ),
     CHANGELOG_TRACKER( "changelog.tracker", Constants.ON ),
+    DATA_VALUE_IMPORT_WORKERS( "datavalue.import.workers", "1", false ),
+    PREDICTOR_WORKERS( "predictor.workers", "1", false ),
     AUDIT_USE_INMEMORY_QUEUE_ENABLED( "audit.inmemory-queue.enabled", Constants.OFF ),
     AUDIT_USE_IN_MEMORY_QUEUE_ENABLED( "audit.in_memory_queue.enabled", Constants.OFF ),
     AUDIT_LOGGER( "audit.logger", Constants.OFF, false ),
@@ -126,6 +140,9 @@ public enum ConfigurationKey
     AUDIT_METADATA_MATRIX( "audit.metadata", "", false ),
     AUDIT_TRACKER_MATRIX( "audit.tracker", "", false ),
     AUDIT_AGGREGATE_MATRIX( "audit.aggregate", "", false ),
+    AUDIT_CONSUMER_BATCH_ENABLED( "audit.consumer.batch.enabled", Constants.OFF, false ),
+    AUDIT_CONSUMER_BATCH_SIZE( "audit.consumer.batch.size", "500", false ),
+    AUDIT_CONSUMER_BATCH_DELAY( "audit.consumer.batch.delay", "1000", false ),
     OIDC_OAUTH2_LOGIN_ENABLED( "oidc.oauth2.login.enabled", Constants.OFF, false ),
     OIDC_LOGOUT_REDIRECT_URL( "oidc.logout.redirect_url", "", false ),
     OIDC_PROVIDER_GOOGLE_CLIENT_ID( "oidc.provider.google.client_id", "", true ),
@@ -148,6 +165,8 @@ public enum ConfigurationKey
     ACTIVE_READ_REPLICAS( "active.read.replicas", "0", false ),
     AUDIT_ENABLED( "system.audit.enabled", Constants.TRUE, false ),
     TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.ON, false ),
+    TRACKER_IMPORT_VALIDATION_PARALLEL_ENABLED( "tracker.import.validation.parallel.enabled", Constants.OFF, false ),
+    TRACKER_IMPORT_VALIDATION_THREADS( "tracker.import.validation.threads", "4", false ),
     ENABLE_OAUTH2_AUTHORIZATION_SERVER( "oauth2.authorization.server.enabled", Constants.ON, false ),
     ENABLE_JWT_OIDC_TOKEN_AUTHENTICATION( "oidc.jwt.token.authentication.enabled", Constants.OFF, false );
 
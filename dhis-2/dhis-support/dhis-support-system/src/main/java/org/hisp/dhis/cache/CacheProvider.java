@@ -46,6 +46,12 @@ public interface CacheProvider
 {
     <V> Cache<V> createAnalyticsResponseCache( Duration initialExpirationTime );
 
+    <V> Cache<V> createAnalyticsResponseLoadingCache();
+
+    <V> Cache<V> createAnalyticsFragmentCache();
+
+    <V> Cache<V> createAnalyticsPartitionVersionCache();
+
     <V> Cache<V> createDefaultObjectCache();
 
     <V> Cache<V> createIsDataApprovedCache();
@@ -94,6 +100,10 @@ public interface CacheProvider
 
     <V> Cache<V> createPropertyTransformerCache();
 
+    <V> Cache<V> createFieldFilterPlanCache();
+
+    <V> Cache<V> createGistResultCache();
+
     <V> Cache<V> createProgramHasRulesCache();
 
     <V> Cache<V> createProgramRuleVariablesCache();
@@ -35,6 +35,7 @@ import static java.util.Collections.unmodifiableSet;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -231,12 +232,47 @@ public class CappedLocalCache
             sizeDeltaListener.accept( sizeDelta );
         }
 
+        @Override
+        public boolean putIfAbsent( String key, V value, long ttlInSeconds )
+        {
+            long now = currentTimeMillis();
+            CacheEntry<V> oldEntry = entries.get( key );
+            if ( oldEntry != null && !oldEntry.isExpired( now ) )
+            {
+                return false;
+            }
+            long entrySize = emptyEntrySize + sizeof.sizeof( key ) + sizeof.sizeof( value );
+            CacheEntry<V> newEntry = new CacheEntry<>( region, key, value, now, now + (ttlInSeconds * 1000L),
+                entrySize );
+            boolean added = oldEntry == null
+                ? entries.putIfAbsent( key, newEntry ) == null
+                : entries.replace( key, oldEntry, newEntry );
+            if ( added )
+            {
+                long sizeDelta = entrySize - (oldEntry == null ? 0L : oldEntry.size);
+                totalRegionSize.addAndGet( sizeDelta );
+                sizeDeltaListener.accept( sizeDelta );
+            }
+            return added;
+        }
+
         @Override
         public void invalidate( String key )
         {
             invalidate( entries.remove( key ), false );
         }
 
+        @Override
+        public boolean invalidate( String key, V value )
+        {
+            CacheEntry<V> entry = entries.get( key );
+            if ( entry == null || !Objects.equals( value, entry.value ) || !entries.remove( key, entry ) )
+            {
+                return false;
+            }
+            return invalidate( entry, false );
+        }
+
         /**
          * @param entry the entry to invalidate
          * @param remove true, if the entry needs removing, false if the passed
@@ -86,6 +86,9 @@ public class DefaultCacheProvider
     private enum Region
     {
         analyticsResponse,
+        analyticsResponseLoading,
+        analyticsFragment,
+        analyticsPartitionVersion,
         defaultObjectCache,
         isDataApproved,
         allConstantsCache,
@@ -110,6 +113,8 @@ public class DefaultCacheProvider
         analyticsSql,
         dataElementCache,
         propertyTransformerCache,
+        fieldFilterPlanCache,
+        gistResultCache,
         programHasRulesCache,
         programRuleVariablesCache,
         userGroupNameCache,
@@ -157,6 +162,48 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    /**
+     * Cache used to mark analytics responses which are currently being
+     * computed, so that identical requests can wait for the result instead of
+     * running the same queries. Entries expire after a while so that a crashed
+     * instance does not block others.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsResponseLoadingCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsResponseLoading.name() )
+            .expireAfterWrite( 10, TimeUnit.MINUTES )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
+    /**
+     * Cache for aggregated values of planned analytics sub queries. The TTL
+     * will always be overwritten during cache put operations.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsFragmentCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsFragment.name() )
+            .expireAfterWrite( 12, TimeUnit.HOURS )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K * 10 ) ) ) );
+    }
+
+    /**
+     * Cache for the versions of analytics tables and table partitions, which
+     * are renewed when tables are updated and make up part of the analytics
+     * fragment cache keys.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsPartitionVersionCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsPartitionVersion.name() )
+            .expireAfterWrite( 30, TimeUnit.DAYS )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
     /**
      * Cache for default objects such as default category combination and
      * default category option combination which are permanent and will never
@@ -412,6 +459,28 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    @Override
+    public <V> Cache<V> createFieldFilterPlanCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.fieldFilterPlanCache.name() )
+            .expireAfterAccess( 12, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( SIZE_500 ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
+    @Override
+    public <V> Cache<V> createGistResultCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.gistResultCache.name() )
+            .expireAfterWrite( 10, TimeUnit.MINUTES )
+            .withInitialCapacity( (int) getActualSize( SIZE_100 ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1K ) ) ) );
+    }
+
     @Override
     public <V> Cache<V> createProgramHasRulesCache()
     {
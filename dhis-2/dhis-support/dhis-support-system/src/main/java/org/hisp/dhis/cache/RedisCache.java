@@ -30,6 +30,7 @@ package org.hisp.dhis.cache;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +38,8 @@ import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
 /**
  * A redis backed implementation of {@link Cache}. This implementation uses a
@@ -46,6 +49,13 @@ import org.springframework.data.redis.core.RedisTemplate;
  */
 public class RedisCache<V> implements Cache<V>
 {
+    /**
+     * Deletes the key if its value equals the given value, atomically.
+     */
+    private static final RedisScript<Long> INVALIDATE_IF_EQUAL_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class );
+
     private RedisTemplate<String, V> redisTemplate;
 
     private boolean refreshExpriryOnAccess;
@@ -172,12 +182,34 @@ public class RedisCache<V> implements Cache<V>
         redisTemplate.boundValueOps( redisKey ).set( value, ttlInSeconds, SECONDS );
     }
 
+    @Override
+    public boolean putIfAbsent( String key, V value, long ttlInSeconds )
+    {
+        hasText( key, "Value cannot be null" );
+
+        final String redisKey = generateKey( key );
+
+        return Boolean.TRUE
+            .equals( redisTemplate.boundValueOps( redisKey ).setIfAbsent( value, ttlInSeconds, SECONDS ) );
+    }
+
     @Override
     public void invalidate( String key )
     {
         redisTemplate.delete( generateKey( key ) );
     }
 
+    @Override
+    public boolean invalidate( String key, V value )
+    {
+        hasText( key, "Value cannot be null" );
+
+        final Long removed = redisTemplate.execute( INVALIDATE_IF_EQUAL_SCRIPT,
+            Collections.singletonList( generateKey( key ) ), value );
+
+        return removed != null && removed > 0;
+    }
+
     private String generateKey( String key )
     {
         return cacheRegion.concat( ":" ).concat( key );
@@ -102,6 +102,17 @@ public class CappedLocalCacheTest
         assertTrue( testRegion.get( "a" ).isPresent() );
     }
 
+    @Test
+    public void testInvalidateKeyWithValue()
+    {
+        testRegion.put( "x", "y" );
+        assertFalse( testRegion.invalidate( "x", "z" ) );
+        assertTrue( testRegion.get( "x" ).isPresent() );
+        assertTrue( testRegion.invalidate( "x", "y" ) );
+        assertFalse( testRegion.get( "x" ).isPresent() );
+        assertFalse( testRegion.invalidate( "x", "y" ) );
+    }
+
     @Test
     public void testInvalidateAll()
     {
@@ -84,12 +84,25 @@ public class TestCache<V> implements Cache<V>
         mapCache.put( key, value );
     }
 
+    @Override
+    public boolean putIfAbsent( String key, V value, long ttlInSeconds )
+    {
+        // Ignoring ttl for this testing cache
+        return mapCache.putIfAbsent( key, value ) == null;
+    }
+
     @Override
     public void invalidate( String key )
     {
         mapCache.remove( key );
     }
 
+    @Override
+    public boolean invalidate( String key, V value )
+    {
+        return mapCache.remove( key, value );
+    }
+
     @Override
     public void invalidateAll()
     {
@@ -58,6 +58,7 @@ import org.hisp.dhis.webapi.controller.exception.NotFoundException;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -97,15 +98,15 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
         throws NotFoundException
     {
         return gistToJsonObjectResponse( uid, createGistQuery( request, getEntityClass(), GistAutoType.L )
-            .withFilter( new Filter( "id", Comparison.EQ, uid ) ) );
+            .withFilter( new Filter( "id", Comparison.EQ, uid ) ), request, response );
     }
 
     @GetMapping( value = "/gist", produces = MediaType.APPLICATION_JSON_VALUE )
     public @ResponseBody ResponseEntity<JsonNode> getObjectListGist(
         HttpServletRequest request, HttpServletResponse response )
     {
-        return gistToJsonArrayResponse( request, createGistQuery( request, getEntityClass(), GistAutoType.S ),
-            getSchema() );
+        return gistToJsonArrayResponse( request, response,
+            createGistQuery( request, getEntityClass(), GistAutoType.S ), getSchema() );
     }
 
     @GetMapping( value = "/{uid}/{property}/gist", produces = MediaType.APPLICATION_JSON_VALUE )
@@ -126,7 +127,7 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
         {
             return gistToJsonObjectResponse( uid, createGistQuery( request, getEntityClass(), GistAutoType.L )
                 .withFilter( new Filter( "id", Comparison.EQ, uid ) )
-                .withField( property ) );
+                .withField( property ), request, response );
         }
 
         @SuppressWarnings( "unchecked" )
@@ -137,7 +138,7 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
                     .type( getEntityClass() )
                     .collectionProperty( property ).build() );
 
-        return gistToJsonArrayResponse( request, query,
+        return gistToJsonArrayResponse( request, response, query,
             schemaService.getDynamicSchema( objProperty.getItemKlass() ) );
     }
 
@@ -157,7 +158,8 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
             .with( params );
     }
 
-    private ResponseEntity<JsonNode> gistToJsonObjectResponse( String uid, GistQuery query )
+    private ResponseEntity<JsonNode> gistToJsonObjectResponse( String uid, GistQuery query,
+        HttpServletRequest request, HttpServletResponse response )
         throws NotFoundException
     {
         if ( query.isDescribe() )
@@ -165,6 +167,10 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
             return gistDescribeToJsonObjectResponse( query );
         }
         query = gistService.plan( query );
+        if ( isNotModified( query, request, response ) )
+        {
+            return notModifiedResponse();
+        }
         List<?> elements = gistService.gist( query );
         JsonNode body = new JsonBuilder( jsonMapper ).skipNullOrEmpty().toArray( query.getFieldNames(), elements );
         if ( body.isEmpty() )
@@ -175,13 +181,17 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
     }
 
     private ResponseEntity<JsonNode> gistToJsonArrayResponse( HttpServletRequest request,
-        GistQuery query, Schema schema )
+        HttpServletResponse response, GistQuery query, Schema schema )
     {
         if ( query.isDescribe() )
         {
             return gistDescribeToJsonObjectResponse( query );
         }
         query = gistService.plan( query );
+        if ( isNotModified( query, request, response ) )
+        {
+            return notModifiedResponse();
+        }
         List<?> elements = gistService.gist( query );
         JsonBuilder responseBuilder = new JsonBuilder( jsonMapper );
         JsonNode body = responseBuilder.skipNullOrEmpty().toArray( query.getFieldNames(), elements );
@@ -193,6 +203,21 @@ public abstract class AbstractGistReadOnlyController<T extends IdentifiableObjec
         return ResponseEntity.ok().cacheControl( noCache().cachePrivate() ).body( body );
     }
 
+    /**
+     * Sets the ETag of the query result on the response and checks it against
+     * the one sent by the client so that unchanged results are not fetched.
+     */
+    private boolean isNotModified( GistQuery query, HttpServletRequest request, HttpServletResponse response )
+    {
+        String eTag = gistService.getETag( query );
+        return eTag != null && ContextUtils.isNotModified( request, response, eTag );
+    }
+
+    private static ResponseEntity<JsonNode> notModifiedResponse()
+    {
+        return ResponseEntity.status( HttpStatus.NOT_MODIFIED ).cacheControl( noCache().cachePrivate() ).build();
+    }
+
     private ResponseEntity<JsonNode> gistDescribeToJsonObjectResponse( GistQuery query )
     {
         return ResponseEntity.ok().cacheControl( noCache().cachePrivate() ).body(
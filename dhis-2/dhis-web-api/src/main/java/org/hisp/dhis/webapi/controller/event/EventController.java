@@ -33,6 +33,7 @@ import static org.hisp.dhis.scheduling.JobType.EVENT_IMPORT;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -94,6 +95,7 @@ import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.Preset;
 import org.hisp.dhis.node.types.RootNode;
+import org.hisp.dhis.node.types.SimpleNode;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramStageInstanceService;
 import org.hisp.dhis.program.ProgramStatus;
@@ -127,6 +129,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
 
@@ -180,13 +184,15 @@ public class EventController
 
     private final ContextUtils contextUtils;
 
+    private final ObjectMapper jsonMapper;
+
     public EventController( CurrentUserService currentUserService, AsyncTaskExecutor taskExecutor,
         EventService eventService, CsvEventService csvEventService, EventRowService eventRowService,
         DataElementService dataElementService, WebMessageService webMessageService, InputUtils inputUtils,
         RenderService renderService, ProgramStageInstanceService programStageInstanceService,
         FileResourceService fileResourceService, FieldFilterService fieldFilterService, ContextService contextService,
         SchemaService schemaService, TrackedEntityInstanceService entityInstanceService, ContextUtils contextUtils,
-        RequestToSearchParamsMapper requestToSearchParamsMapper )
+        RequestToSearchParamsMapper requestToSearchParamsMapper, ObjectMapper jsonMapper )
     {
         this.currentUserService = currentUserService;
         this.taskExecutor = taskExecutor;
@@ -205,6 +211,7 @@ public class EventController
         this.entityInstanceService = entityInstanceService;
         this.contextUtils = contextUtils;
         this.requestToSearchParamsMapper = requestToSearchParamsMapper;
+        this.jsonMapper = jsonMapper;
     }
 
     private Schema schema;
@@ -567,6 +574,11 @@ public class EventController
             rootNode.addChild( NodeUtils.createPager( events.getPager() ) );
         }
 
+        if ( events.getNextPageToken() != null )
+        {
+            rootNode.addChild( new SimpleNode( "nextPageToken", events.getNextPageToken() ) );
+        }
+
         if ( !StringUtils.isEmpty( eventCriteria.getAttachment() ) )
         {
             response.addHeader( ContextUtils.HEADER_CONTENT_DISPOSITION,
@@ -620,6 +632,11 @@ public class EventController
             rootNode.addChild( NodeUtils.createPager( events.getPager() ) );
         }
 
+        if ( events.getNextPageToken() != null )
+        {
+            rootNode.addChild( new SimpleNode( "nextPageToken", events.getNextPageToken() ) );
+        }
+
         if ( !StringUtils.isEmpty( eventCriteria.getAttachment() ) )
         {
             response.addHeader( ContextUtils.HEADER_CONTENT_DISPOSITION,
@@ -644,7 +661,7 @@ public class EventController
     {
         EventSearchParams params = requestToSearchParamsMapper.map( eventCriteria );
 
-        Events events = eventService.getEvents( params );
+        validateStreamingParams( params );
 
         OutputStream outputStream = response.getOutputStream();
         response.setContentType( "application/csv" );
@@ -661,7 +678,56 @@ public class EventController
             response.addHeader( "Content-Disposition", "attachment; filename=" + eventCriteria.getAttachment() );
         }
 
-        csvEventService.writeEvents( outputStream, events, !skipHeader );
+        csvEventService.writeEvents( outputStream, consumer -> eventService.streamEvents( params, consumer ),
+            !skipHeader );
+    }
+
+    /**
+     * Writes events to the response as they are read from the database, for
+     * exports of more events than fit in memory. Field filtering and metadata
+     * are not supported.
+     */
+    @GetMapping( value = "/stream", produces = ContextUtils.CONTENT_TYPE_JSON )
+    public void getEventsStream( EventCriteria eventCriteria, HttpServletResponse response )
+        throws IOException,
+        WebMessageException
+    {
+        EventSearchParams params = requestToSearchParamsMapper.map( eventCriteria );
+
+        validateStreamingParams( params );
+
+        response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+
+        if ( !StringUtils.isEmpty( eventCriteria.getAttachment() ) )
+        {
+            response.addHeader( ContextUtils.HEADER_CONTENT_DISPOSITION,
+                "attachment; filename=" + eventCriteria.getAttachment() );
+            response.addHeader( ContextUtils.HEADER_CONTENT_TRANSFER_ENCODING, "binary" );
+        }
+
+        try ( JsonGenerator generator = jsonMapper.getFactory().createGenerator( response.getOutputStream() ) )
+        {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart( "events" );
+
+            eventService.streamEvents( params, event -> {
+                try
+                {
+                    generator.writeObject( event );
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            } );
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        catch ( UncheckedIOException ex )
+        {
+            throw ex.getCause();
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -1069,6 +1135,22 @@ public class EventController
         return false;
     }
 
+    /**
+     * Rejects parameters the streaming exports cannot handle before anything
+     * is written to the response. The next page token of cursor paging is
+     * only known once all events of the page are read, so it cannot be
+     * written along with them.
+     */
+    private void validateStreamingParams( EventSearchParams params )
+        throws WebMessageException
+    {
+        if ( params.isCursorPaging() )
+        {
+            throw new WebMessageException( WebMessageUtils.badRequest(
+                "Cursor paging and page tokens are not supported by this export, use page and pageSize instead" ) );
+        }
+    }
+
     protected boolean hasHref( List<String> fields, Boolean skipEventId )
     {
         return (skipEventId == null || !skipEventId) && fieldsContains( "href", fields );
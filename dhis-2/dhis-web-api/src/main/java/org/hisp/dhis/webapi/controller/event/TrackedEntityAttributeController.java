@@ -42,6 +42,8 @@ import org.hisp.dhis.schema.descriptors.TrackedEntityAttributeSchemaDescriptor;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
 import org.hisp.dhis.textpattern.TextPatternService;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndex;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexService;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.webapi.controller.AbstractCrudController;
@@ -49,6 +51,7 @@ import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.service.ContextService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -78,6 +81,20 @@ public class TrackedEntityAttributeController
     @Autowired
     private ContextService context;
 
+    @Autowired
+    private TrackedEntityAttributeSearchIndexService searchIndexService;
+
+    /**
+     * Reports the health of the search indexes of searchable and unique
+     * attributes, which are maintained by the tracker search optimization job.
+     */
+    @GetMapping( value = "/searchIndexes", produces = ContextUtils.CONTENT_TYPE_JSON )
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    public @ResponseBody List<TrackedEntityAttributeSearchIndex> getSearchIndexes()
+    {
+        return searchIndexService.getSearchIndexes();
+    }
+
     @GetMapping( value = "/{id}/generateAndReserve", produces = {
         ContextUtils.CONTENT_TYPE_JSON, ContextUtils.CONTENT_TYPE_JAVASCRIPT } )
     @ApiVersion( { DhisApiVersion.DEFAULT, DhisApiVersion.ALL } )
@@ -57,6 +57,7 @@ import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.dxf2.events.event.Event;
+import org.hisp.dhis.dxf2.events.event.EventPageToken;
 import org.hisp.dhis.dxf2.events.event.EventSearchParams;
 import org.hisp.dhis.dxf2.util.InputUtils;
 import org.hisp.dhis.event.EventStatus;
@@ -302,7 +303,7 @@ public class RequestToSearchParamsMapper
         Set<String> assignedUserIds = TextUtils.splitToArray( eventCriteria.getAssignedUser(), TextUtils.SEMICOLON );
         Map<String, SortDirection> dataElementOrders = getDataElementsFromOrder( eventCriteria.getOrder() );
 
-        return map( eventCriteria.getProgram(),
+        EventSearchParams params = map( eventCriteria.getProgram(),
             eventCriteria.getProgramStage(),
             eventCriteria.getProgramStatus(),
             eventCriteria.getFollowUp(),
@@ -335,6 +336,10 @@ public class RequestToSearchParamsMapper
             dataElementOrders.keySet(),
             false,
             eventCriteria.isIncludeDeleted() );
+
+        return params
+            .setCursorPaging( eventCriteria.isCursorPaging() || eventCriteria.getPageToken() != null )
+            .setPageToken( EventPageToken.decode( eventCriteria.getPageToken() ) );
     }
 
     private List<OrderParam> getOrderParams( List<OrderCriteria> order )
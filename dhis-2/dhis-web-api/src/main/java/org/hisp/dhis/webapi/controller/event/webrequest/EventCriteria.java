@@ -101,4 +101,14 @@ public class EventCriteria extends PagingAndSortingCriteriaAdapter
     private Set<String> filter;
 
     private IdSchemes idSchemes = new IdSchemes();
+
+    /**
+     * Pages with a continuation token instead of a page number.
+     */
+    private boolean cursorPaging;
+
+    /**
+     * Continuation token returned with the previous page.
+     */
+    private String pageToken;
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.webapi.controller;
+
+import static org.hisp.dhis.webapi.WebClient.Header;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.hisp.dhis.webapi.WebClient.HttpResponse;
+import org.hisp.dhis.webapi.utils.ContextUtils;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Tests the ETag based conditional GET support of the Gist API.
+ */
+public class GistETagControllerTest extends AbstractGistControllerTest
+{
+    @Test
+    public void testETag_NotModified()
+    {
+        HttpResponse first = GET( "/dataSets/gist?fields=id,name" );
+        assertEquals( HttpStatus.OK, first.status() );
+        String eTag = first.header( ContextUtils.HEADER_ETAG );
+        assertNotNull( eTag );
+
+        HttpResponse second = GET( "/dataSets/gist?fields=id,name",
+            Header( ContextUtils.HEADER_IF_NONE_MATCH, eTag ) );
+        assertEquals( HttpStatus.NOT_MODIFIED, second.status() );
+        assertEquals( eTag, second.header( ContextUtils.HEADER_ETAG ) );
+    }
+
+    @Test
+    public void testETag_DifferentQuery()
+    {
+        String eTag = GET( "/dataSets/gist?fields=id,name" ).header( ContextUtils.HEADER_ETAG );
+
+        HttpResponse other = GET( "/dataSets/gist?fields=id,code",
+            Header( ContextUtils.HEADER_IF_NONE_MATCH, eTag ) );
+        assertEquals( HttpStatus.OK, other.status() );
+        assertNotEquals( eTag, other.header( ContextUtils.HEADER_ETAG ) );
+    }
+
+    @Test
+    public void testETag_RelativeToNow()
+    {
+        HttpResponse response = GET( "/dataSets/gist?fields=id,name&filter=created:lt:now" );
+        assertEquals( HttpStatus.OK, response.status() );
+        assertNull( response.header( ContextUtils.HEADER_ETAG ) );
+    }
+}